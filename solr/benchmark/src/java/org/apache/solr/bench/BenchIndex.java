@@ -0,0 +1,156 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.solr.bench;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Collections;
+import java.util.Properties;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.solr.common.params.ModifiableSolrParams;
+import org.apache.solr.core.CoreContainer;
+import org.apache.solr.core.SolrCore;
+import org.apache.solr.request.LocalSolrQueryRequest;
+import org.apache.solr.request.SolrQueryRequest;
+import org.apache.solr.response.SolrQueryResponse;
+import org.apache.solr.update.AddUpdateCommand;
+import org.apache.solr.update.CommitUpdateCommand;
+import org.apache.solr.update.processor.UpdateRequestProcessor;
+
+/**
+ * An embedded {@link CoreContainer} with a single core holding an index built from a
+ * {@link DocGenerator}. The solr home lives in a temporary directory that is removed
+ * on {@link #close()}.
+ */
+public class BenchIndex implements Closeable {
+  public static final String CORE_NAME = "bench";
+  public static final String CONFIGSET = "bench";
+
+  private static final String[] HOME_RESOURCES = {
+      "solr.xml",
+      "configsets/bench/conf/solrconfig.xml",
+      "configsets/bench/conf/schema.xml"
+  };
+
+  private final Path solrHome;
+  private final CoreContainer coreContainer;
+  private final SolrCore core;
+  private final DocGenerator docs;
+
+  private BenchIndex(Path solrHome, CoreContainer coreContainer, SolrCore core, DocGenerator docs) {
+    this.solrHome = solrHome;
+    this.coreContainer = coreContainer;
+    this.core = core;
+    this.docs = docs;
+  }
+
+  /**
+   * Starts a container, creates the benchmark core and indexes {@code numDocs} generated documents.
+   *
+   * @param numSegments if positive, the index is force merged down to this many segments so that
+   *                    per-segment costs are comparable between runs
+   */
+  public static BenchIndex create(DocGenerator docs, int numDocs, int numSegments) throws IOException {
+    Path solrHome = Files.createTempDirectory("solr-bench");
+    for (String resource : HOME_RESOURCES) {
+      Path target = solrHome.resolve(resource);
+      Files.createDirectories(target.getParent());
+      try (InputStream in = BenchIndex.class.getResourceAsStream("/bench-home/" + resource)) {
+        if (in == null) {
+          throw new IOException("Missing benchmark resource: " + resource);
+        }
+        Files.copy(in, target, StandardCopyOption.REPLACE_EXISTING);
+      }
+    }
+
+    CoreContainer cc = new CoreContainer(solrHome, new Properties());
+    SolrCore core = null;
+    try {
+      cc.load();
+      cc.create(CORE_NAME, Collections.singletonMap("configSet", CONFIGSET));
+      core = cc.getCore(CORE_NAME);
+      BenchIndex index = new BenchIndex(solrHome, cc, core, docs);
+      index.indexDocs(0, numDocs);
+      index.commit(numSegments);
+      return index;
+    } catch (IOException | RuntimeException e) {
+      if (core != null) core.close();
+      cc.shutdown();
+      FileUtils.deleteDirectory(solrHome.toFile());
+      throw e;
+    }
+  }
+
+  /** Adds generated documents {@code [from, to)} through the default update processor chain. */
+  public void indexDocs(int from, int to) throws IOException {
+    try (SolrQueryRequest req = new LocalSolrQueryRequest(core, new ModifiableSolrParams())) {
+      UpdateRequestProcessor processor = core.getUpdateProcessingChain(null).createProcessor(req, new SolrQueryResponse());
+      try {
+        for (int i = from; i < to; i++) {
+          AddUpdateCommand cmd = new AddUpdateCommand(req);
+          cmd.solrDoc = docs.doc(i);
+          processor.processAdd(cmd);
+        }
+        processor.finish();
+      } finally {
+        processor.close();
+      }
+    }
+  }
+
+  /**
+   * Hard commits and opens a new searcher.
+   *
+   * @param numSegments if positive, force merge down to this many segments
+   */
+  public void commit(int numSegments) throws IOException {
+    try (SolrQueryRequest req = new LocalSolrQueryRequest(core, new ModifiableSolrParams())) {
+      CommitUpdateCommand cmd = new CommitUpdateCommand(req, numSegments > 0);
+      if (numSegments > 0) {
+        cmd.maxOptimizeSegments = numSegments;
+      }
+      core.getUpdateHandler().commit(cmd);
+    }
+  }
+
+  public SolrCore getCore() {
+    return core;
+  }
+
+  public CoreContainer getCoreContainer() {
+    return coreContainer;
+  }
+
+  public DocGenerator getDocGenerator() {
+    return docs;
+  }
+
+  @Override
+  public void close() throws IOException {
+    try {
+      core.close();
+      coreContainer.shutdown();
+    } finally {
+      FileUtils.deleteDirectory(solrHome.toFile());
+    }
+  }
+}
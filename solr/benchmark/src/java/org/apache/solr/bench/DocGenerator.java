@@ -0,0 +1,121 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.solr.bench;
+
+import java.util.SplittableRandom;
+
+import org.apache.solr.common.SolrInputDocument;
+
+/**
+ * Generates reproducible documents for the benchmark index. Document {@code i} is a pure
+ * function of the seed and {@code i}, so the same index is built on every run and a single
+ * document can be regenerated (e.g. to be re-indexed) without building the others.
+ *
+ * Every document has an {@code id}, {@link #getNumStringFields()} string fields named
+ * {@code s0_s, s1_s, ...}, {@link #getNumIntFields()} int fields named {@code i0_i, i1_i, ...}
+ * and a {@code text_t} field. String and int values are drawn uniformly from
+ * {@code [0, cardinality)}, text words from {@code [0, vocabulary)}.
+ */
+public class DocGenerator {
+  public static final String TEXT_FIELD = "text_t";
+
+  private final long seed;
+  private final int numStringFields;
+  private final int numIntFields;
+  private final int cardinality;
+  private final int vocabulary;
+  private final int wordsPerDoc;
+
+  public DocGenerator(long seed, int numStringFields, int numIntFields, int cardinality, int vocabulary, int wordsPerDoc) {
+    if (cardinality <= 0 || vocabulary <= 0) {
+      throw new IllegalArgumentException("cardinality and vocabulary must be positive");
+    }
+    this.seed = seed;
+    this.numStringFields = numStringFields;
+    this.numIntFields = numIntFields;
+    this.cardinality = cardinality;
+    this.vocabulary = vocabulary;
+    this.wordsPerDoc = wordsPerDoc;
+  }
+
+  public static String stringField(int i) {
+    return "s" + i + "_s";
+  }
+
+  public static String intField(int i) {
+    return "i" + i + "_i";
+  }
+
+  public static String stringValue(int ord) {
+    return "v" + ord;
+  }
+
+  public static String word(int ord) {
+    return "w" + ord;
+  }
+
+  public String id(int doc) {
+    return Integer.toString(doc);
+  }
+
+  public SolrInputDocument doc(int doc) {
+    SplittableRandom random = random(doc);
+    SolrInputDocument sdoc = new SolrInputDocument();
+    sdoc.addField("id", id(doc));
+    for (int f = 0; f < numStringFields; f++) {
+      sdoc.addField(stringField(f), stringValue(random.nextInt(cardinality)));
+    }
+    for (int f = 0; f < numIntFields; f++) {
+      sdoc.addField(intField(f), random.nextInt(cardinality));
+    }
+    if (wordsPerDoc > 0) {
+      StringBuilder text = new StringBuilder(wordsPerDoc * 6);
+      for (int w = 0; w < wordsPerDoc; w++) {
+        if (w > 0) text.append(' ');
+        text.append(word(random.nextInt(vocabulary)));
+      }
+      sdoc.addField(TEXT_FIELD, text.toString());
+    }
+    return sdoc;
+  }
+
+  /** A random source for picking query terms; reproducible for a given {@code stream}. */
+  public SplittableRandom queryRandom(int stream) {
+    return new SplittableRandom(seed * 31 + stream).split();
+  }
+
+  public int getNumStringFields() {
+    return numStringFields;
+  }
+
+  public int getNumIntFields() {
+    return numIntFields;
+  }
+
+  public int getCardinality() {
+    return cardinality;
+  }
+
+  public int getVocabulary() {
+    return vocabulary;
+  }
+
+  private SplittableRandom random(int doc) {
+    // mix the doc number into the seed so neighbouring docs don't get correlated values
+    return new SplittableRandom(seed ^ (doc * 0x9E3779B97F4A7C15L));
+  }
+}
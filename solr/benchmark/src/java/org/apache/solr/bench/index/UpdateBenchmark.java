@@ -0,0 +1,104 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.solr.bench.index;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.solr.bench.BenchIndex;
+import org.apache.solr.bench.DocGenerator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures adding documents through the default update processor chain, i.e.
+ * {@code DistributedUpdateProcessor} (versioning, update log) and {@code RunUpdateProcessor}
+ * ({@code DocumentBuilder}, {@code IndexWriter}). Document ids cycle over {@code docs}, so once
+ * the first pass is done every add replaces an existing document. The score is documents per second.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 10)
+@Measurement(iterations = 5, time = 10)
+@Fork(1)
+@Threads(4)
+public class UpdateBenchmark {
+  static final int BATCH = 100;
+
+  @State(Scope.Benchmark)
+  public static class UpdateState {
+    @Param("100000")
+    int docs;
+
+    @Param("8")
+    int stringFields;
+
+    @Param("4")
+    int intFields;
+
+    @Param("1000")
+    int cardinality;
+
+    @Param("42")
+    long seed;
+
+    BenchIndex index;
+    final AtomicInteger nextBatch = new AtomicInteger();
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+      index = BenchIndex.create(new DocGenerator(seed, stringFields, intFields, cardinality, cardinality * 10, 50), 0, 0);
+    }
+
+    /** Commits between iterations so the update log and the RAM buffer don't grow unbounded. */
+    @TearDown(Level.Iteration)
+    public void commit() throws IOException {
+      index.commit(0);
+    }
+
+    @TearDown(Level.Trial)
+    public void teardown() throws IOException {
+      if (index != null) index.close();
+    }
+
+    int nextBatchStart() {
+      int span = Math.max(BATCH, docs - docs % BATCH);
+      return Math.floorMod(nextBatch.getAndIncrement() * BATCH, span);
+    }
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(BATCH)
+  public void addBatch(UpdateState state) throws IOException {
+    int from = state.nextBatchStart();
+    state.index.indexDocs(from, from + BATCH);
+  }
+}
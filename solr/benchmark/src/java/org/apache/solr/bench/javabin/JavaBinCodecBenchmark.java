@@ -0,0 +1,150 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.solr.bench.javabin;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.solr.bench.DocGenerator;
+import org.apache.solr.common.SolrDocument;
+import org.apache.solr.common.SolrDocumentList;
+import org.apache.solr.common.SolrInputDocument;
+import org.apache.solr.common.SolrInputField;
+import org.apache.solr.common.util.JavaBinCodec;
+import org.apache.solr.common.util.NamedList;
+import org.apache.solr.common.util.SimpleOrderedMap;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures {@link JavaBinCodec} encoding and decoding of a search response holding a
+ * {@link SolrDocumentList}, and of a batch of {@link SolrInputDocument}s as forwarded by the
+ * update path. Run with {@code -prof gc} to see allocation rates.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class JavaBinCodecBenchmark {
+
+  @State(Scope.Benchmark)
+  public static class Payload {
+    @Param("100")
+    int docs;
+
+    @Param("8")
+    int stringFields;
+
+    @Param("4")
+    int intFields;
+
+    @Param("1000")
+    int cardinality;
+
+    @Param("42")
+    long seed;
+
+    NamedList<Object> response;
+    NamedList<Object> inputDocs;
+    byte[] responseBytes;
+    byte[] inputDocsBytes;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+      DocGenerator generator = new DocGenerator(seed, stringFields, intFields, cardinality, cardinality, 20);
+      SolrDocumentList list = new SolrDocumentList();
+      list.setNumFound(docs);
+      list.setStart(0);
+      List<SolrInputDocument> adds = new ArrayList<>(docs);
+      for (int i = 0; i < docs; i++) {
+        SolrInputDocument sdoc = generator.doc(i);
+        adds.add(sdoc);
+        SolrDocument doc = new SolrDocument();
+        for (SolrInputField field : sdoc) {
+          doc.setField(field.getName(), field.getValue());
+        }
+        list.add(doc);
+      }
+      response = new SimpleOrderedMap<>();
+      response.add("response", list);
+      inputDocs = new NamedList<>();
+      inputDocs.add("docs", adds);
+
+      responseBytes = marshal(response);
+      inputDocsBytes = marshal(inputDocs);
+    }
+  }
+
+  @State(Scope.Thread)
+  public static class Buffer {
+    final ByteArrayOutputStream out = new ByteArrayOutputStream(1 << 16);
+  }
+
+  @Benchmark
+  public int encodeResponse(Payload payload, Buffer buffer) throws IOException {
+    buffer.out.reset();
+    try (JavaBinCodec codec = new JavaBinCodec()) {
+      codec.marshal(payload.response, buffer.out);
+    }
+    return buffer.out.size();
+  }
+
+  @Benchmark
+  public Object decodeResponse(Payload payload) throws IOException {
+    try (JavaBinCodec codec = new JavaBinCodec()) {
+      return codec.unmarshal(payload.responseBytes);
+    }
+  }
+
+  @Benchmark
+  public int encodeInputDocs(Payload payload, Buffer buffer) throws IOException {
+    buffer.out.reset();
+    try (JavaBinCodec codec = new JavaBinCodec()) {
+      codec.marshal(payload.inputDocs, buffer.out);
+    }
+    return buffer.out.size();
+  }
+
+  @Benchmark
+  public Object decodeInputDocs(Payload payload) throws IOException {
+    try (JavaBinCodec codec = new JavaBinCodec()) {
+      return codec.unmarshal(payload.inputDocsBytes);
+    }
+  }
+
+  static byte[] marshal(Object o) throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    try (JavaBinCodec codec = new JavaBinCodec()) {
+      codec.marshal(o, out);
+    }
+    return out.toByteArray();
+  }
+}
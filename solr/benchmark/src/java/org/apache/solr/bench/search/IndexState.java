@@ -0,0 +1,75 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.solr.bench.search;
+
+import java.io.IOException;
+
+import org.apache.lucene.search.Sort;
+import org.apache.solr.bench.BenchIndex;
+import org.apache.solr.bench.DocGenerator;
+import org.apache.solr.search.SolrIndexSearcher;
+import org.apache.solr.util.RefCounted;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * A generated, committed index shared by all threads of a search benchmark, with a searcher
+ * held open for the whole trial. The index shape is controlled by the JMH parameters.
+ */
+@State(Scope.Benchmark)
+public class IndexState {
+  @Param("100000")
+  int docs;
+
+  @Param("4")
+  int stringFields;
+
+  @Param("100")
+  int cardinality;
+
+  @Param("1000")
+  int vocabulary;
+
+  /** Number of segments to force merge to, or 0 to keep whatever indexing produced. */
+  @Param("8")
+  int segments;
+
+  @Param("42")
+  long seed;
+
+  BenchIndex index;
+  RefCounted<SolrIndexSearcher> searcher;
+  Sort sort;
+
+  @Setup(Level.Trial)
+  public void setup() throws IOException {
+    DocGenerator generator = new DocGenerator(seed, stringFields, 1, cardinality, vocabulary, 20);
+    index = BenchIndex.create(generator, docs, segments);
+    searcher = index.getCore().getSearcher();
+    sort = new Sort(index.getCore().getLatestSchema().getField(DocGenerator.intField(0)).getSortField(false));
+  }
+
+  @TearDown(Level.Trial)
+  public void teardown() throws IOException {
+    if (searcher != null) searcher.decref();
+    if (index != null) index.close();
+  }
+}
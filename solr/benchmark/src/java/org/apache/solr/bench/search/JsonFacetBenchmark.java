@@ -0,0 +1,93 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.solr.bench.search;
+
+import java.util.concurrent.TimeUnit;
+
+import org.apache.solr.bench.DocGenerator;
+import org.apache.solr.common.params.CommonParams;
+import org.apache.solr.common.params.ModifiableSolrParams;
+import org.apache.solr.core.SolrCore;
+import org.apache.solr.request.LocalSolrQueryRequest;
+import org.apache.solr.request.SolrQueryRequest;
+import org.apache.solr.request.SolrRequestHandler;
+import org.apache.solr.request.SolrRequestInfo;
+import org.apache.solr.response.SolrQueryResponse;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures a JSON Facet API {@code terms} facet with a {@code sum} sub-facet over the whole
+ * index, through the {@code /select} handler. {@code method=dv} exercises
+ * {@code FacetFieldProcessorByArrayDV}, {@code method=dvhash} {@code FacetFieldProcessorByHashDV}.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class JsonFacetBenchmark {
+
+  @State(Scope.Benchmark)
+  public static class FacetState {
+    @Param({"dv", "dvhash"})
+    String method;
+
+    @Param("10")
+    int limit;
+
+    SolrRequestHandler handler;
+    ModifiableSolrParams params;
+
+    @Setup(Level.Trial)
+    public void setup(IndexState state) {
+      handler = state.index.getCore().getRequestHandler("/select");
+      params = new ModifiableSolrParams();
+      params.set(CommonParams.Q, "*:*");
+      params.set(CommonParams.ROWS, 0);
+      params.set("json.facet", "{f:{type:terms, field:" + DocGenerator.stringField(0)
+          + ", limit:" + limit + ", method:" + method
+          + ", facet:{x:'sum(" + DocGenerator.intField(0) + ")'}}}");
+    }
+  }
+
+  @Benchmark
+  public Object termsFacet(IndexState state, FacetState facet) throws Exception {
+    SolrCore core = state.index.getCore();
+    SolrQueryResponse rsp = new SolrQueryResponse();
+    try (SolrQueryRequest req = new LocalSolrQueryRequest(core, facet.params)) {
+      SolrRequestInfo.setRequestInfo(new SolrRequestInfo(req, rsp));
+      core.execute(facet.handler, req, rsp);
+      if (rsp.getException() != null) {
+        throw rsp.getException();
+      }
+      return rsp.getValues();
+    } finally {
+      SolrRequestInfo.clearRequestInfo();
+    }
+  }
+}
@@ -0,0 +1,104 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.solr.bench.search;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.MatchAllDocsQuery;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.TermQuery;
+import org.apache.solr.bench.DocGenerator;
+import org.apache.solr.search.DocListAndSet;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures {@link org.apache.solr.search.SolrIndexSearcher#getDocListAndSet(Query, List, org.apache.lucene.search.Sort, int, int)}, i.e. what
+ * a typical faceted search request costs before faceting: a term query on the text field
+ * intersected with a term filter on a string field, ranked by score or sorted on an int field.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class SearchBenchmark {
+
+  @State(Scope.Thread)
+  public static class QueryState {
+    private static final int NUM_QUERIES = 64;
+
+    Query[] queries;
+    List<List<Query>> filters;
+    int next;
+
+    @Setup(Level.Trial)
+    public void setup(IndexState state) {
+      DocGenerator generator = state.index.getDocGenerator();
+      SplittableRandom random = generator.queryRandom(0);
+      queries = new Query[NUM_QUERIES];
+      filters = new ArrayList<>(NUM_QUERIES);
+      for (int i = 0; i < NUM_QUERIES; i++) {
+        queries[i] = new TermQuery(new Term(DocGenerator.TEXT_FIELD, DocGenerator.word(random.nextInt(generator.getVocabulary()))));
+        filters.add(Collections.singletonList(new TermQuery(new Term(DocGenerator.stringField(0),
+            DocGenerator.stringValue(random.nextInt(generator.getCardinality()))))));
+      }
+    }
+
+    List<Query> nextFilters() {
+      return filters.get(next);
+    }
+
+    Query nextQuery() {
+      next = (next + 1) % NUM_QUERIES;
+      return queries[next];
+    }
+  }
+
+  @Benchmark
+  public DocListAndSet scored(IndexState state, QueryState queries) throws IOException {
+    Query q = queries.nextQuery();
+    return state.searcher.get().getDocListAndSet(q, queries.nextFilters(), null, 0, 10);
+  }
+
+  @Benchmark
+  public DocListAndSet sorted(IndexState state, QueryState queries) throws IOException {
+    Query q = queries.nextQuery();
+    return state.searcher.get().getDocListAndSet(q, queries.nextFilters(), state.sort, 0, 10);
+  }
+
+  @Benchmark
+  public DocListAndSet matchAllFiltered(IndexState state, QueryState queries) throws IOException {
+    queries.nextQuery();
+    return state.searcher.get().getDocListAndSet(new MatchAllDocsQuery(), queries.nextFilters(), null, 0, 10);
+  }
+}
@@ -0,0 +1,124 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.solr.update;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.solr.bench.DocGenerator;
+import org.apache.solr.common.SolrInputDocument;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures {@link TransactionLog#write(AddUpdateCommand)} followed by
+ * {@link TransactionLog#finish(UpdateLog.SyncLevel)}, as done by {@link UpdateLog} for every
+ * add. With {@code syncLevel=FSYNC} the score is bound by how fsyncs of concurrent writers
+ * are combined. Lives in this package because the log's constructor is package private.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@Threads(8)
+public class TransactionLogBenchmark {
+
+  @State(Scope.Benchmark)
+  public static class LogState {
+    @Param({"NONE", "FLUSH", "FSYNC"})
+    String syncLevel;
+
+    @Param("8")
+    int stringFields;
+
+    @Param("42")
+    long seed;
+
+    static final int NUM_DOCS = 1024;
+
+    UpdateLog.SyncLevel level;
+    Path dir;
+    TransactionLog tlog;
+    SolrInputDocument[] docs;
+    final AtomicLong version = new AtomicLong();
+    int logId;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+      level = UpdateLog.SyncLevel.valueOf(syncLevel);
+      dir = Files.createTempDirectory("solr-bench-tlog");
+      DocGenerator generator = new DocGenerator(seed, stringFields, 2, 1000, 10000, 50);
+      docs = new SolrInputDocument[NUM_DOCS];
+      for (int i = 0; i < NUM_DOCS; i++) {
+        docs[i] = generator.doc(i);
+      }
+    }
+
+    /** Starts every iteration with a fresh log so that file growth doesn't skew later iterations. */
+    @Setup(Level.Iteration)
+    public void newLog() {
+      File file = new File(dir.toFile(), String.format(Locale.ROOT, UpdateLog.LOG_FILENAME_PATTERN, UpdateLog.TLOG_NAME, ++logId));
+      tlog = new TransactionLog(file, new ArrayList<>());
+    }
+
+    @TearDown(Level.Iteration)
+    public void closeLog() {
+      tlog.decref();
+    }
+
+    @TearDown(Level.Trial)
+    public void teardown() throws IOException {
+      FileUtils.deleteDirectory(dir.toFile());
+    }
+  }
+
+  @State(Scope.Thread)
+  public static class Command {
+    final AddUpdateCommand cmd = new AddUpdateCommand(null);
+    int next;
+  }
+
+  @Benchmark
+  public long write(LogState state, Command command) {
+    AddUpdateCommand cmd = command.cmd;
+    cmd.solrDoc = state.docs[command.next++ & (LogState.NUM_DOCS - 1)];
+    cmd.setVersion(state.version.incrementAndGet());
+    long pos = state.tlog.write(cmd);
+    state.tlog.finish(state.level);
+    return pos;
+  }
+}
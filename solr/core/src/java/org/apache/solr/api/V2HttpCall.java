@@ -360,6 +360,11 @@ public class V2HttpCall extends HttpSolrCall {
     SolrCore.postDecorateResponse(handler, solrReq, rsp);
   }
 
+  @Override
+  protected boolean isAsyncSupported() {
+    return false; // the api post-processes the response of the handler
+  }
+
   @Override
   protected Object _getHandler() {
     return api;
@@ -367,6 +367,7 @@ public class JettySolrRunner {
         log.info("Jetty properties: {}", nodeProperties);
 
         debugFilter = root.addFilter(DebugFilter.class, "/*", EnumSet.of(DispatcherType.REQUEST) );
+        debugFilter.setAsyncSupported(true);
         extraFilters = new LinkedList<>();
         for (Map.Entry<Class<? extends Filter>, String> entry : config.extraFilters.entrySet()) {
           extraFilters.add(root.addFilter(entry.getKey(), entry.getValue(), EnumSet.of(DispatcherType.REQUEST)));
@@ -378,6 +379,7 @@ public class JettySolrRunner {
         dispatchFilter = root.getServletHandler().newFilterHolder(Source.EMBEDDED);
         dispatchFilter.setHeldClass(SolrDispatchFilter.class);
         dispatchFilter.setInitParameter("excludePatterns", excludePatterns);
+        dispatchFilter.setAsyncSupported(true); // see SolrDispatchFilter.ASYNC_DISPATCH_PROP
         // Map dispatchFilter in same path as in web.xml
         root.addFilter(dispatchFilter, "/*", EnumSet.of(DispatcherType.REQUEST));
 
@@ -221,6 +221,13 @@ public class CoreContainer {
 
   private final OrderedExecutor replayUpdatesExecutor;
 
+  private final CoreLoadMetrics coreLoadMetrics = new CoreLoadMetrics();
+
+  /** warms the index files of the cores loaded on startup, or null */
+  private volatile IndexFileWarmer indexFileWarmer;
+
+  private final ExecutorService searchExecutor;
+
   @SuppressWarnings({"rawtypes"})
   protected volatile LogWatcher logging = null;
 
@@ -393,6 +400,9 @@ public class CoreContainer {
         ExecutorUtil.newMDCAwareCachedThreadPool(
             cfg.getReplayUpdatesThreads(),
             new SolrNamedThreadFactory("replayUpdatesExecutor")));
+    this.searchExecutor = cfg.getSearchThreads() > 0 ?
+        ExecutorUtil.newMDCAwareFixedThreadPool(cfg.getSearchThreads(), new SolrNamedThreadFactory("searchExecutor")) :
+        null;
 
     SolrPaths.AllowPathBuilder allowPathBuilder = new SolrPaths.AllowPathBuilder();
     allowPathBuilder.addPath(cfg.getSolrHome());
@@ -610,6 +620,7 @@ public class CoreContainer {
     cfg = null;
     containerProperties = null;
     replayUpdatesExecutor = null;
+    searchExecutor = null;
     distributedCollectionCommandRunner = Optional.empty();
     allowPaths = null;
     allowListUrlChecker = null;
@@ -649,6 +660,11 @@ public class CoreContainer {
     return metricManager;
   }
 
+  /** The time it took to load the cores on startup, by phase */
+  public CoreLoadMetrics getCoreLoadMetrics() {
+    return coreLoadMetrics;
+  }
+
   public MetricsHandler getMetricsHandler() {
     return metricsHandler;
   }
@@ -666,6 +682,14 @@ public class CoreContainer {
     return replayUpdatesExecutor;
   }
 
+  /**
+   * The executor shared by all cores to search the segments of an index in parallel, or null if
+   * <code>searchThreads</code> is not configured.
+   */
+  public ExecutorService getSearchExecutor() {
+    return searchExecutor;
+  }
+
   public PackageLoader getPackageLoader() {
     return packageLoader;
   }
@@ -868,6 +892,7 @@ public class CoreContainer {
 
     SolrFieldCacheBean fieldCacheBean = new SolrFieldCacheBean();
     fieldCacheBean.initializeMetrics(solrMetricsContext, null);
+    coreLoadMetrics.initializeMetrics(solrMetricsContext);
 
     if (isZooKeeperAware()) {
       metricManager.loadClusterReporters(metricReporters, this);
@@ -882,11 +907,14 @@ public class CoreContainer {
         metricManager.registry(SolrMetricManager.getRegistryName(SolrInfoBean.Group.node)),
         SolrMetricManager.mkName("coreLoadExecutor", SolrInfoBean.Category.CONTAINER.toString(), "threadPool"));
     final List<Future<SolrCore>> futures = new ArrayList<>();
+    indexFileWarmer = IndexFileWarmer.fromSystemProperties(coreLoadMetrics, this::isShutDown);
+    coreLoadMetrics.startLoading();
     try {
       List<CoreDescriptor> cds = coresLocator.discover(this);
       cds = CoreSorter.sortCores(this, cds);
       checkForDuplicateCoreNames(cds);
       status |= CORE_DISCOVERY_COMPLETE;
+      coreLoadMetrics.discoveryDone();
 
       for (final CoreDescriptor cd : cds) {
         if (cd.isTransient() || !cd.isLoadOnStartup()) {
@@ -903,6 +931,9 @@ public class CoreContainer {
               }
               solrCores.waitAddPendingCoreOps(cd.getName());
               core = createFromDescriptor(cd, false, false);
+            } catch (Throwable t) {
+              coreLoadMetrics.coreLoaded(true);
+              throw t;
             } finally {
               solrCores.removeFromPendingOps(cd.getName());
               if (asyncSolrCoreLoad) {
@@ -914,6 +945,11 @@ public class CoreContainer {
             } catch (RuntimeException e) {
               SolrException.log(log, "Error registering SolrCore", e);
             }
+            coreLoadMetrics.coreLoaded(false);
+            IndexFileWarmer warmer = indexFileWarmer;
+            if (warmer != null) {
+              warmer.warm(core);
+            }
             return core;
           }));
         }
@@ -940,10 +976,14 @@ public class CoreContainer {
             }
           } finally {
             ExecutorUtil.shutdownAndAwaitTermination(coreLoadExecutor);
+            coreLoadMetrics.loadingDone();
+            logCoreLoadTimes();
           }
         });
       } else {
         ExecutorUtil.shutdownAndAwaitTermination(coreLoadExecutor);
+        coreLoadMetrics.loadingDone();
+        logCoreLoadTimes();
       }
     }
 
@@ -1120,6 +1160,9 @@ public class CoreContainer {
       }
 
       ExecutorUtil.shutdownAndAwaitTermination(coreContainerWorkExecutor);
+      if (indexFileWarmer != null) {
+        indexFileWarmer.close();
+      }
 
       // First wake up the closer thread, it'll terminate almost immediately since it checks isShutDown.
       synchronized (solrCores.getModifyLock()) {
@@ -1159,6 +1202,12 @@ public class CoreContainer {
         replayUpdatesExecutor.shutdownAndAwaitTermination();
       });
 
+      if (searchExecutor != null) {
+        customThreadPool.submit(() -> {
+          ExecutorUtil.shutdownAndAwaitTermination(searchExecutor);
+        });
+      }
+
       if (metricsHistoryHandler != null) {
         metricsHistoryHandler.close();
         IOUtils.closeQuietly(metricsHistoryHandler.getSolrClient());
@@ -1494,23 +1543,29 @@ public class CoreContainer {
         zkSys.getZkController().preRegister(dcore, publishState);
       }
 
+      long phaseStart = System.nanoTime();
       ConfigSet coreConfig = coreConfigService.loadConfigSet(dcore);
+      coreLoadMetrics.addPhaseTime(CoreLoadMetrics.Phase.CONFIG, phaseStart);
       dcore.setConfigSetTrusted(coreConfig.isTrusted());
       if (log.isInfoEnabled()) {
         log.info("Creating SolrCore '{}' using configuration from {}, trusted={}", dcore.getName(), coreConfig.getName(), dcore.isConfigSetTrusted());
       }
+      phaseStart = System.nanoTime();
       try {
         core = new SolrCore(this, dcore, coreConfig);
       } catch (SolrException e) {
         core = processCoreCreateException(e, dcore, coreConfig);
       }
+      coreLoadMetrics.addPhaseTime(CoreLoadMetrics.Phase.CREATE, phaseStart);
 
       // always kick off recovery if we are in non-Cloud mode
       if (!isZooKeeperAware() && core.getUpdateHandler().getUpdateLog() != null) {
         core.getUpdateHandler().getUpdateLog().recoverFromLog();
       }
 
+      phaseStart = System.nanoTime();
       registerCore(dcore, core, publishState, newCollection);
+      coreLoadMetrics.addPhaseTime(CoreLoadMetrics.Phase.REGISTER, phaseStart);
 
       return core;
     } catch (Exception e) {
@@ -1537,6 +1592,16 @@ public class CoreContainer {
     }
   }
 
+  private void logCoreLoadTimes() {
+    if (log.isInfoEnabled()) {
+      log.info("Loaded {} cores ({} failed) in {} ms: discovery {} ms, config {} ms, create {} ms, register {} ms (summed over the cores)",
+          coreLoadMetrics.getCoresLoaded(), coreLoadMetrics.getCoresFailed(), coreLoadMetrics.getLoadTimeMs(),
+          coreLoadMetrics.getDiscoveryTimeMs(), coreLoadMetrics.getPhaseTimeMs(CoreLoadMetrics.Phase.CONFIG),
+          coreLoadMetrics.getPhaseTimeMs(CoreLoadMetrics.Phase.CREATE),
+          coreLoadMetrics.getPhaseTimeMs(CoreLoadMetrics.Phase.REGISTER));
+    }
+  }
+
   public boolean isSharedFs(CoreDescriptor cd) {
     try (SolrCore core = this.getCore(cd.getName())) {
       if (core != null) {
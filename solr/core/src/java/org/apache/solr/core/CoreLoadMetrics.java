@@ -0,0 +1,142 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.solr.core;
+
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.apache.solr.metrics.SolrMetricsContext;
+
+/**
+ * The time it took to load the cores when the {@link CoreContainer} started. The cores are loaded in parallel, so the
+ * time of a phase is summed over the cores: it shows where the time went, and {@link #getLoadTimeMs()} how long it took.
+ */
+public class CoreLoadMetrics {
+
+  /** The phases of loading a core */
+  public enum Phase {
+    /** loading the solrconfig.xml and the schema */
+    CONFIG,
+    /** creating the SolrCore, which opens its index and first searcher */
+    CREATE,
+    /** registering the core with the container; on startup it is registered in ZooKeeper in the background */
+    REGISTER,
+    /** reading index files into the OS cache, after the core was loaded */
+    WARM;
+
+    String metricName() {
+      return name().toLowerCase(Locale.ROOT) + "Time";
+    }
+  }
+
+  private final Map<Phase, LongAdder> phaseNanos = new EnumMap<>(Phase.class);
+  private final LongAdder coresLoaded = new LongAdder();
+  private final LongAdder coresFailed = new LongAdder();
+  private final LongAdder warmedFiles = new LongAdder();
+  private final LongAdder warmedBytes = new LongAdder();
+  private volatile long discoveryNanos;
+  private volatile long loadStartNanos;
+  private volatile long loadNanos;
+  private volatile boolean loading;
+
+  public CoreLoadMetrics() {
+    for (Phase phase : Phase.values()) {
+      phaseNanos.put(phase, new LongAdder());
+    }
+  }
+
+  void startLoading() {
+    loadStartNanos = System.nanoTime();
+    loading = true;
+  }
+
+  void discoveryDone() {
+    discoveryNanos = System.nanoTime() - loadStartNanos;
+  }
+
+  void loadingDone() {
+    loadNanos = System.nanoTime() - loadStartNanos;
+    loading = false;
+  }
+
+  /** Whether the cores that are loaded on startup are still being loaded */
+  public boolean isLoading() {
+    return loading;
+  }
+
+  /** Adds the time since the given {@link System#nanoTime()} to the phase, while the cores are loaded */
+  void addPhaseTime(Phase phase, long startNanos) {
+    if (loading) {
+      phaseNanos.get(phase).add(System.nanoTime() - startNanos);
+    }
+  }
+
+  void coreLoaded(boolean failed) {
+    (failed ? coresFailed : coresLoaded).increment();
+  }
+
+  void fileWarmed(long bytes, long startNanos) {
+    warmedFiles.increment();
+    warmedBytes.add(bytes);
+    phaseNanos.get(Phase.WARM).add(System.nanoTime() - startNanos);
+  }
+
+  public long getPhaseTimeMs(Phase phase) {
+    return TimeUnit.NANOSECONDS.toMillis(phaseNanos.get(phase).sum());
+  }
+
+  public long getDiscoveryTimeMs() {
+    return TimeUnit.NANOSECONDS.toMillis(discoveryNanos);
+  }
+
+  /** The time it took until the cores that are loaded on startup were loaded, or so far */
+  public long getLoadTimeMs() {
+    return TimeUnit.NANOSECONDS.toMillis(loading ? System.nanoTime() - loadStartNanos : loadNanos);
+  }
+
+  public long getCoresLoaded() {
+    return coresLoaded.sum();
+  }
+
+  public long getCoresFailed() {
+    return coresFailed.sum();
+  }
+
+  public long getWarmedFiles() {
+    return warmedFiles.sum();
+  }
+
+  public long getWarmedBytes() {
+    return warmedBytes.sum();
+  }
+
+  void initializeMetrics(SolrMetricsContext solrMetricsContext) {
+    String category = SolrInfoBean.Category.CONTAINER.toString();
+    solrMetricsContext.gauge(this::getDiscoveryTimeMs, true, "discoveryTime", category, "startup");
+    solrMetricsContext.gauge(this::getLoadTimeMs, true, "loadTime", category, "startup");
+    for (Phase phase : Phase.values()) {
+      solrMetricsContext.gauge(() -> getPhaseTimeMs(phase), true, phase.metricName(), category, "startup");
+    }
+    solrMetricsContext.gauge(this::getCoresLoaded, true, "coresLoaded", category, "startup");
+    solrMetricsContext.gauge(this::getCoresFailed, true, "coresFailed", category, "startup");
+    solrMetricsContext.gauge(this::getWarmedFiles, true, "warmedFiles", category, "startup");
+    solrMetricsContext.gauge(this::getWarmedBytes, true, "warmedBytes", category, "startup");
+  }
+}
@@ -0,0 +1,154 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.solr.core;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.BooleanSupplier;
+
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexFileNames;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.IOContext;
+import org.apache.lucene.store.IndexInput;
+import org.apache.solr.common.util.ExecutorUtil;
+import org.apache.solr.common.util.SolrNamedThreadFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Reads the hot files of the indexes of the cores loaded on startup, e.g. the terms dictionaries and doc values, so
+ * that they are in the OS cache (or, for a memory mapped index, faulted in) before the first queries need them. The
+ * files are read by a few threads, so that warming doesn't compete too much with loading the cores for the disk.
+ *
+ * Files in compound files are not warmed.
+ */
+class IndexFileWarmer {
+  private static final Logger log = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+
+  static final String WARM_EXTENSIONS_PROP = "solr.coreLoad.warmExtensions";
+  static final String WARM_THREADS_PROP = "solr.coreLoad.warmThreads";
+  /** the terms dictionary and index, and the doc values */
+  static final String DEFAULT_WARM_EXTENSIONS = "tim,tip,dvd,dvm";
+
+  private static final int BUFFER_SIZE = 64 * 1024;
+
+  private final Set<String> extensions;
+  private final CoreLoadMetrics metrics;
+  private final BooleanSupplier shutDown;
+  private final ExecutorService executor;
+
+  IndexFileWarmer(Set<String> extensions, int numThreads, CoreLoadMetrics metrics, BooleanSupplier shutDown) {
+    this.extensions = extensions;
+    this.metrics = metrics;
+    this.shutDown = shutDown;
+    this.executor = ExecutorUtil.newMDCAwareFixedThreadPool(numThreads, new SolrNamedThreadFactory("indexFileWarmer"));
+  }
+
+  /**
+   * The warmer configured by system properties: {@value #WARM_EXTENSIONS_PROP} lists the extensions of the files to
+   * warm, e.g. {@value #DEFAULT_WARM_EXTENSIONS}, and {@value #WARM_THREADS_PROP} the number of threads to read them.
+   *
+   * @return null if no files are warmed
+   */
+  static IndexFileWarmer fromSystemProperties(CoreLoadMetrics metrics, BooleanSupplier shutDown) {
+    String extensions = System.getProperty(WARM_EXTENSIONS_PROP, "");
+    if (extensions.trim().isEmpty()) {
+      return null;
+    }
+    Set<String> extensionSet = new HashSet<>(Arrays.asList(extensions.trim().split("\\s*,\\s*")));
+    int numThreads = Math.max(1, Integer.getInteger(WARM_THREADS_PROP, 2));
+    return new IndexFileWarmer(Collections.unmodifiableSet(extensionSet), numThreads, metrics, shutDown);
+  }
+
+  /** Warms the files of the core's index in the background, holding a reference to the core meanwhile */
+  void warm(SolrCore core) {
+    core.open();
+    try {
+      executor.submit(() -> {
+        try {
+          warmIndexFiles(core);
+        } catch (Exception e) {
+          if (!isUnloaded(core)) {
+            log.warn("Could not warm the index files of core {}", core.getName(), e);
+          }
+        } finally {
+          core.close();
+        }
+      });
+    } catch (RejectedExecutionException e) {
+      core.close();
+    }
+  }
+
+  /** Whether the warmer holds the last reference to the core, i.e. the container closed it */
+  private static boolean isUnloaded(SolrCore core) {
+    return core.getOpenCount() <= 1;
+  }
+
+  private void warmIndexFiles(SolrCore core) throws IOException {
+    if (isUnloaded(core) || shutDown.getAsBoolean()) {
+      return;
+    }
+    // the searcher keeps the files of its commit from being deleted
+    core.withSearcher(searcher -> {
+      DirectoryReader reader = searcher.getIndexReader();
+      Directory dir = reader.directory();
+      byte[] buf = new byte[BUFFER_SIZE];
+      for (String name : reader.getIndexCommit().getFileNames()) {
+        if (extensions.contains(IndexFileNames.getExtension(name))) {
+          if (!warmFile(core, dir, name, buf)) {
+            break;
+          }
+        }
+      }
+      return null;
+    });
+  }
+
+  /**
+   * @return false if the core or the container was closed meanwhile
+   */
+  private boolean warmFile(SolrCore core, Directory dir, String name, byte[] buf) throws IOException {
+    long startNanos = System.nanoTime();
+    // not interrupted on shutdown, which would close the channel of an NIOFSDirectory
+    try (IndexInput in = dir.openInput(name, IOContext.READ)) {
+      long length = in.length();
+      for (long remaining = length; remaining > 0; ) {
+        if (isUnloaded(core) || shutDown.getAsBoolean()) {
+          return false;
+        }
+        int len = (int) Math.min(buf.length, remaining);
+        in.readBytes(buf, 0, len);
+        remaining -= len;
+      }
+      metrics.fileWarmed(length, startNanos);
+      log.debug("Warmed {} of core {} ({} bytes)", name, core.getName(), length);
+    }
+    return true;
+  }
+
+  void close() {
+    ExecutorUtil.shutdownAndAwaitTermination(executor);
+  }
+}
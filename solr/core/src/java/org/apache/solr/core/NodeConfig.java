@@ -73,6 +73,8 @@ public class NodeConfig {
 
   private final int replayUpdatesThreads;
 
+  private final int searchThreads;
+
   @Deprecated
   // This should be part of the transientCacheConfig, remove in 7.0
   private final int transientCacheSize;
@@ -101,7 +103,7 @@ public class NodeConfig {
                      String coreAdminHandlerClass, String collectionsAdminHandlerClass,
                      String healthCheckHandlerClass, String infoHandlerClass, String configSetsHandlerClass,
                      LogWatcherConfig logWatcherConfig, CloudConfig cloudConfig, Integer coreLoadThreads, int replayUpdatesThreads,
-                     int transientCacheSize, boolean useSchemaCache, String managementPath,
+                     int searchThreads, int transientCacheSize, boolean useSchemaCache, String managementPath,
                      Path solrHome, SolrResourceLoader loader,
                      Properties solrProperties, PluginInfo[] backupRepositoryPlugins,
                      MetricsConfig metricsConfig, PluginInfo transientCacheConfig, PluginInfo tracerConfig,
@@ -125,6 +127,7 @@ public class NodeConfig {
     this.cloudConfig = cloudConfig;
     this.coreLoadThreads = coreLoadThreads;
     this.replayUpdatesThreads = replayUpdatesThreads;
+    this.searchThreads = searchThreads;
     this.transientCacheSize = transientCacheSize;
     this.useSchemaCache = useSchemaCache;
     this.managementPath = managementPath;
@@ -194,6 +197,14 @@ public class NodeConfig {
     return replayUpdatesThreads;
   }
 
+  /**
+   * The number of threads shared by all cores to search the segments of an index in parallel,
+   * 0 (the default) to search on the request thread only.
+   */
+  public int getSearchThreads() {
+    return searchThreads;
+  }
+
   /**
    * Returns a directory, optionally a comma separated list of directories
    * that will be added to Solr's class path for searching for classes and plugins.
@@ -341,6 +352,7 @@ public class NodeConfig {
     private CloudConfig cloudConfig;
     private int coreLoadThreads = DEFAULT_CORE_LOAD_THREADS;
     private int replayUpdatesThreads = Runtime.getRuntime().availableProcessors();
+    private int searchThreads = 0;
     @Deprecated
     //Remove in 7.0 and put it all in the transientCache element in solrconfig.xml
     private int transientCacheSize = DEFAULT_TRANSIENT_CACHE_SIZE;
@@ -472,6 +484,11 @@ public class NodeConfig {
       return this;
     }
 
+    public NodeConfigBuilder setSearchThreads(int searchThreads) {
+      this.searchThreads = searchThreads;
+      return this;
+    }
+
     // Remove in Solr 7.0
     @Deprecated
     public NodeConfigBuilder setTransientCacheSize(int transientCacheSize) {
@@ -550,7 +567,7 @@ public class NodeConfig {
               updateShardHandlerConfig, coreAdminHandlerClass, collectionsAdminHandlerClass,
               healthCheckHandlerClass, infoHandlerClass, configSetsHandlerClass,
               logWatcherConfig, cloudConfig, coreLoadThreads, replayUpdatesThreads,
-              transientCacheSize, useSchemaCache, managementPath,
+              searchThreads, transientCacheSize, useSchemaCache, managementPath,
               solrHome, loader, solrProperties,
               backupRepositoryPlugins, metricsConfig, transientCacheConfig, tracerConfig,
               fromZookeeper, defaultZkHost, allowPaths, allowUrls, configSetServiceClass);
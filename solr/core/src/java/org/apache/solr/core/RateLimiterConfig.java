@@ -20,6 +20,7 @@ package org.apache.solr.core;
 import org.apache.solr.client.solrj.SolrRequest;
 
 import static org.apache.solr.servlet.RateLimitManager.DEFAULT_CONCURRENT_REQUESTS;
+import static org.apache.solr.servlet.RateLimitManager.DEFAULT_MIN_ALLOWED_REQUESTS;
 import static org.apache.solr.servlet.RateLimitManager.DEFAULT_SLOT_ACQUISITION_TIMEOUT_MS;
 
 public class RateLimiterConfig {
@@ -31,6 +32,9 @@ public class RateLimiterConfig {
   public int allowedRequests;
   public boolean isSlotBorrowingEnabled;
   public int guaranteedSlotsThreshold;
+  // the allowed requests adapt to their latency, between minAllowedRequests and allowedRequests
+  public boolean isAdaptive;
+  public int minAllowedRequests;
 
   public RateLimiterConfig(SolrRequest.SolrRequestType requestType) {
     this.requestType = requestType;
@@ -39,6 +43,8 @@ public class RateLimiterConfig {
     this.isSlotBorrowingEnabled = false;
     this.guaranteedSlotsThreshold = this.allowedRequests / 2;
     this.waitForSlotAcquisition = DEFAULT_SLOT_ACQUISITION_TIMEOUT_MS;
+    this.isAdaptive = false;
+    this.minAllowedRequests = DEFAULT_MIN_ALLOWED_REQUESTS;
   }
 
   public RateLimiterConfig(SolrRequest.SolrRequestType requestType, boolean isEnabled, int guaranteedSlotsThreshold,
@@ -49,5 +55,7 @@ public class RateLimiterConfig {
     this.waitForSlotAcquisition = waitForSlotAcquisition;
     this.allowedRequests = allowedRequests;
     this.isSlotBorrowingEnabled = isSlotBorrowingEnabled;
+    this.isAdaptive = false;
+    this.minAllowedRequests = DEFAULT_MIN_ALLOWED_REQUESTS;
   }
 }
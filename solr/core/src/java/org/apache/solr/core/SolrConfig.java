@@ -227,6 +227,8 @@ public class SolrConfig extends XmlConfigFile implements MapSerializable {
     queryResultWindowSize = Math.max(1, getInt("query/queryResultWindowSize", 1));
     queryResultMaxDocsCached = getInt("query/queryResultMaxDocsCached", Integer.MAX_VALUE);
     enableLazyFieldLoading = getBool("query/enableLazyFieldLoading", false);
+    parallelSearchMaxThreads = getInt("query/parallelSearchMaxThreads", -1);
+    parallelSearchMinDocsPerSlice = getInt("query/parallelSearchMinDocsPerSlice", 100000);
     
     filterCacheConfig = CacheConfig.getConfig(this, "query/filterCache");
     queryResultCacheConfig = CacheConfig.getConfig(this, "query/queryResultCache");
@@ -523,6 +525,8 @@ public class SolrConfig extends XmlConfigFile implements MapSerializable {
   public final int queryResultWindowSize;
   public final int queryResultMaxDocsCached;
   public final boolean enableLazyFieldLoading;
+  public final int parallelSearchMaxThreads;  // max segment slices searched concurrently by a request, -1 for no limit
+  public final int parallelSearchMinDocsPerSlice;
 
   // IndexConfig settings
   public final SolrIndexConfig indexConfig;
@@ -875,6 +879,8 @@ public class SolrConfig extends XmlConfigFile implements MapSerializable {
     m.put("queryResultWindowSize", queryResultWindowSize);
     m.put("queryResultMaxDocsCached", queryResultMaxDocsCached);
     m.put("enableLazyFieldLoading", enableLazyFieldLoading);
+    m.put("parallelSearchMaxThreads", parallelSearchMaxThreads);
+    m.put("parallelSearchMinDocsPerSlice", parallelSearchMinDocsPerSlice);
     m.put("maxBooleanClauses", booleanQueryMaxClauseCount);
 
     for (SolrPluginInfo plugin : plugins) {
@@ -2608,6 +2608,15 @@ public final class SolrCore implements SolrInfoBean, Closeable {
     //   throw new SolrException(SolrException.ErrorCode.BAD_REQUEST,"isShard is only acceptable with search handlers");
 
     handler.handleRequest(req, rsp);
+    if (rsp.isSuspended()) {
+      // the handler completes the response later, on another thread
+      rsp.setCompletion(rsp.getCompletion().thenRun(() -> afterRequest(handler, req, rsp)));
+      return;
+    }
+    afterRequest(handler, req, rsp);
+  }
+
+  private void afterRequest(SolrRequestHandler handler, SolrQueryRequest req, SolrQueryResponse rsp) {
     postDecorateResponse(handler, req, rsp);
 
     if (rsp.getToLog().size() > 0) {
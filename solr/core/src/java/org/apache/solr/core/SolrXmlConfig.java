@@ -342,6 +342,9 @@ public class SolrXmlConfig {
         case "replayUpdatesThreads":
           builder.setReplayUpdatesThreads(parseInt(name, value));
           break;
+        case "searchThreads":
+          builder.setSearchThreads(parseInt(name, value));
+          break;
         case "transientCacheSize":
           builder.setTransientCacheSize(parseInt(name, value));
           break;
@@ -17,12 +17,14 @@
 package org.apache.solr.handler;
 import org.apache.solr.common.SolrException;
 import org.apache.solr.common.params.SolrParams;
+import org.apache.solr.common.params.UpdateParams;
 import org.apache.solr.common.util.ContentStream;
 import org.apache.solr.common.util.NamedList;
 import org.apache.solr.handler.loader.ContentStreamLoader;
 import org.apache.solr.request.SolrQueryRequest;
 import org.apache.solr.response.SolrQueryResponse;
 import org.apache.solr.update.SolrCoreState;
+import org.apache.solr.update.processor.PipelinedUpdateProcessor;
 import org.apache.solr.update.processor.UpdateRequestProcessor;
 import org.apache.solr.update.processor.UpdateRequestProcessorChain;
 
@@ -32,6 +34,9 @@ import org.apache.solr.update.processor.UpdateRequestProcessorChain;
  */
 public abstract class ContentStreamHandlerBase extends RequestHandlerBase {
 
+  /** Default for {@link UpdateParams#PIPELINE_QUEUE_SIZE} */
+  public static final int DEFAULT_PIPELINE_QUEUE_SIZE = 1000;
+
   @Override
   public void init(@SuppressWarnings({"rawtypes"})NamedList args) {
     super.init(args);
@@ -65,7 +70,13 @@ public abstract class ContentStreamHandlerBase extends RequestHandlerBase {
       UpdateRequestProcessorChain processorChain =
               req.getCore().getUpdateProcessorChain(params);
 
-      UpdateRequestProcessor processor = processorChain.createProcessor(req, rsp);
+      int pipelineThreads = Math.min(params.getInt(UpdateParams.PIPELINE_THREADS, 0),
+          Runtime.getRuntime().availableProcessors());
+      UpdateRequestProcessor processor = pipelineThreads > 0 && PipelinedUpdateProcessor.isSupported(processorChain, req)
+          ? new PipelinedUpdateProcessor(processorChain, req, rsp,
+              req.getCore().getCoreContainer().getUpdateShardHandler().getUpdateExecutor(),
+              pipelineThreads, params.getInt(UpdateParams.PIPELINE_QUEUE_SIZE, DEFAULT_PIPELINE_QUEUE_SIZE))
+          : processorChain.createProcessor(req, rsp);
 
       try {
         ContentStreamLoader documentLoader = newLoader(req, processor);
@@ -16,11 +16,13 @@
  */
 package org.apache.solr.handler;
 
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.io.OutputStreamWriter;
 import java.io.Writer;
 import java.lang.invoke.MethodHandles;
@@ -39,6 +41,7 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -47,15 +50,21 @@ import java.util.Locale;
 import java.util.Map;
 import java.util.Properties;
 import java.util.Set;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.BooleanSupplier;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 import java.util.zip.Adler32;
+import java.util.zip.CRC32;
 import java.util.zip.Checksum;
 import java.util.zip.InflaterInputStream;
 
@@ -71,11 +80,15 @@ import org.apache.lucene.store.FilterDirectory;
 import org.apache.lucene.store.IOContext;
 import org.apache.lucene.store.IndexInput;
 import org.apache.lucene.store.IndexOutput;
+import org.apache.lucene.store.RateLimiter;
+import org.apache.solr.client.solrj.SolrRequest;
 import org.apache.solr.client.solrj.SolrServerException;
 import org.apache.solr.client.solrj.impl.HttpClientUtil;
 import org.apache.solr.client.solrj.impl.HttpSolrClient;
 import org.apache.solr.client.solrj.impl.HttpSolrClient.Builder;
+import org.apache.solr.client.solrj.request.GenericSolrRequest;
 import org.apache.solr.client.solrj.request.QueryRequest;
+import org.apache.solr.client.solrj.request.RequestWriter;
 import org.apache.solr.cloud.CloudDescriptor;
 import org.apache.solr.cloud.ZkController;
 import org.apache.solr.common.SolrException;
@@ -86,6 +99,7 @@ import org.apache.solr.common.params.CommonParams;
 import org.apache.solr.common.params.ModifiableSolrParams;
 import org.apache.solr.common.util.ExecutorUtil;
 import org.apache.solr.common.util.FastInputStream;
+import org.apache.solr.common.util.FastOutputStream;
 import org.apache.solr.common.util.IOUtils;
 import org.apache.solr.common.util.NamedList;
 import org.apache.solr.common.util.SuppressForbidden;
@@ -142,20 +156,37 @@ public class IndexFetcher {
 
   private volatile List<Map<String, Object>> confFilesDownloaded;
 
-  private volatile Map<String, Object> currentFile;
-
-  private volatile DirectoryFileFetcher dirFileFetcher;
-
-  private volatile LocalFsFileFetcher localFileFetcher;
+  /** the files being downloaded, by up to {@link #maxConcurrentFileFetches} threads */
+  private final Set<FileFetcher> activeFileFetchers = ConcurrentHashMap.newKeySet();
 
   private volatile ExecutorService fsyncService;
 
   private volatile boolean stop = false;
 
+  /** set when a file couldn't be downloaded, to stop the concurrent downloads of the other files */
+  private volatile boolean fileFetchFailed = false;
+
+  private final int maxConcurrentFileFetches;
+
+  /** the number of index files that are still to be downloaded, or are being downloaded */
+  private final AtomicInteger numFilesRemaining = new AtomicInteger();
+
+  /** caps the bandwidth of all the concurrent downloads; null if unlimited */
+  private final RateLimiter fetchRateLimiter;
+
   private boolean useInternalCompression = false;
 
   private boolean useExternalCompression = false;
 
+  /** whether index files are asked to be sent as they are on disk, when they aren't compressed */
+  private final boolean useZeroCopy;
+
+  /** whether new index files are asked to be sent as deltas against the local files of the segments merged away */
+  private final boolean useDeltaReplication;
+
+  /** the bytes of the downloaded files that were copied from local files, see {@link IndexFileDelta} */
+  private final AtomicLong bytesReusedByDelta = new AtomicLong();
+
   boolean fetchFromLeader = false;
 
   private final HttpClient myHttpClient;
@@ -263,6 +294,40 @@ public class IndexFetcher {
     String httpBasicAuthUser = (String) initArgs.get(HttpClientUtil.PROP_BASIC_AUTH_USER);
     String httpBasicAuthPassword = (String) initArgs.get(HttpClientUtil.PROP_BASIC_AUTH_PASS);
     myHttpClient = createHttpClient(solrCore, httpBasicAuthUser, httpBasicAuthPassword, useExternalCompression);
+
+    // the system properties apply to all the cores, e.g. to the replicas of SolrCloud that aren't configured with a
+    // follower section
+    maxConcurrentFileFetches = Math.max(1, getNumericParameter(initArgs, MAX_CONCURRENT_FILE_FETCHES,
+        Integer.getInteger("solr.indexfetcher.maxConcurrentFileFetches", 1)).intValue());
+    double maxFetchMBPerSec = getNumericParameter(initArgs, MAX_FETCH_PER_SECOND,
+        Double.parseDouble(System.getProperty("solr.indexfetcher.maxFetchMBPerSec", "0"))).doubleValue();
+    fetchRateLimiter = maxFetchMBPerSec > 0 ? new RateLimiter.SimpleRateLimiter(maxFetchMBPerSec) : null;
+    useZeroCopy = Boolean.parseBoolean(System.getProperty("solr.indexfetcher.zeroCopy", "true"));
+    Object deltaReplication = initArgs.get(DELTA_REPLICATION);
+    useDeltaReplication = deltaReplication != null ? Boolean.parseBoolean(deltaReplication.toString())
+        : Boolean.getBoolean("solr.indexfetcher.deltaReplication");
+  }
+
+  /** A numeric parameter, that is a number in the follower section of solrconfig.xml and a string in the request */
+  private static Number getNumericParameter(@SuppressWarnings({"rawtypes"})NamedList initArgs, String configKey,
+                                            Number defaultValue) {
+    Object value = initArgs == null ? null : initArgs.get(configKey);
+    if (value == null) {
+      return defaultValue;
+    }
+    if (value instanceof Number) {
+      return (Number) value;
+    }
+    try {
+      return Double.valueOf(value.toString());
+    } catch (NumberFormatException e) {
+      throw new SolrException(ErrorCode.BAD_REQUEST, "Invalid '" + configKey + "': " + value, e);
+    }
+  }
+
+  /** The number of index files downloaded at the same time */
+  int getMaxConcurrentFileFetches() {
+    return maxConcurrentFileFetches;
   }
 
   private void setLeaderUrl(String leaderUrl) {
@@ -512,6 +577,7 @@ public class IndexFetcher {
       fsyncService = ExecutorUtil.newMDCAwareSingleThreadExecutor(new SolrNamedThreadFactory("fsyncService"));
       // use a synchronized list because the list is read by other threads (to show details)
       filesDownloaded = Collections.synchronizedList(new ArrayList<Map<String, Object>>());
+      bytesReusedByDelta.set(0);
       // if the generation of leader is older than that of the follower , it means they are not compatible to be copied
       // then a new index directory to be created and all the files need to be copied
       boolean isFullCopyNeeded = IndexDeletionPolicyWrapper
@@ -720,8 +786,9 @@ public class IndexFetcher {
 
       filesToDownload = filesDownloaded = confFilesDownloaded = confFilesToDownload = null;
       markReplicationStop();
-      dirFileFetcher = null;
-      localFileFetcher = null;
+      activeFileFetchers.clear();
+      numFilesRemaining.set(0);
+      fileFetchFailed = false;
       if (fsyncService != null && !fsyncService.isShutdown()) fsyncService.shutdown();
       fsyncService = null;
       stop = false;
@@ -827,6 +894,7 @@ public class IndexFetcher {
       }
 
       props.setProperty(LAST_CYCLE_BYTES_DOWNLOADED, String.valueOf(getTotalBytesDownloaded()));
+      props.setProperty(LAST_CYCLE_BYTES_REUSED_BY_DELTA, String.valueOf(bytesReusedByDelta.get()));
       if (!successfulInstall) {
         int numFailures = 1;
         if (props.containsKey(TIMES_FAILED)) {
@@ -871,12 +939,9 @@ public class IndexFetcher {
       bytesDownloaded += (Long) file.get(SIZE);
     }
 
-    //get size from current file being downloaded
-    Map<String, Object> currentFile = getCurrentFile();
-    if (currentFile != null) {
-      if (currentFile.containsKey("bytesDownloaded")) {
-        bytesDownloaded += (Long) currentFile.get("bytesDownloaded");
-      }
+    //get size from current files being downloaded
+    for (Map<String, Object> file : getCurrentFiles()) {
+      bytesDownloaded += (Long) file.get("bytesDownloaded");
     }
     return bytesDownloaded;
   }
@@ -961,10 +1026,7 @@ public class IndexFetcher {
       }
       for (Map<String, Object> file : confFilesToDownload) {
         String saveAs = (String) (file.get(ALIAS) == null ? file.get(NAME) : file.get(ALIAS));
-        localFileFetcher = new LocalFsFileFetcher(tmpconfDir, file, saveAs, CONF_FILE_SHORT, latestGeneration);
-        currentFile = file;
-        localFileFetcher.fetchFile();
-        confFilesDownloaded.add(new HashMap<>(file));
+        fetchFile(new LocalFsFileFetcher(tmpconfDir, file, saveAs, CONF_FILE_SHORT, latestGeneration), confFilesDownloaded);
       }
       // this is called before copying the files to the original conf dir
       // so that if there is an exception avoid corrupting the original files.
@@ -992,7 +1054,6 @@ public class IndexFetcher {
     if (log.isDebugEnabled()) {
       log.debug("Download files to dir: {}", Arrays.asList(indexDir.listAll()));
     }
-    long bytesDownloaded = 0;
     long bytesSkippedCopying = 0;
     boolean doDifferentialCopy = (indexDir instanceof FSDirectory ||
         (indexDir instanceof FilterDirectory && FilterDirectory.unwrap(indexDir) instanceof FSDirectory))
@@ -1014,6 +1075,7 @@ public class IndexFetcher {
       deleteFilesInAdvance(indexDir, indexDirPath, totalSpaceRequired, usableSpace);
     }
 
+    List<Map<String, Object>> filesToFetch = new ArrayList<>();
     for (Map<String,Object> file : filesToDownload) {
       String filename = (String) file.get(NAME);
       long size = (Long) file.get(SIZE);
@@ -1034,24 +1096,182 @@ public class IndexFetcher {
           // compared to a file copy. TODO: Maybe we could do a move safely here?
           Files.createLink(new File(tmpIndexDirPath, filename).toPath(), localFile.toPath());
           bytesSkippedCopying += localFile.length();
+          filesDownloaded.add(new HashMap<>(file));
         } else {
-          dirFileFetcher = new DirectoryFileFetcher(tmpIndexDir, file,
-              (String) file.get(NAME), FILE, latestGeneration);
-          currentFile = file;
-          dirFileFetcher.fetchFile();
-          bytesDownloaded += dirFileFetcher.getBytesDownloaded();
+          filesToFetch.add(file);
         }
-        filesDownloaded.add(new HashMap<>(file));
       } else {
         if (log.isDebugEnabled()) {
           log.debug("Skipping download for {} because it already exists", file.get(NAME));
         }
       }
     }
-    log.info("Bytes downloaded: {}, Bytes skipped downloading: {}", bytesDownloaded, bytesSkippedCopying);
+    Map<String, DeltaBasis> deltaBases = useDeltaReplication && !useInternalCompression
+        ? getDeltaBases(indexDir) : Collections.emptyMap();
+    long bytesDownloaded = fetchIndexFiles(indexDir, tmpIndexDir, filesToFetch, deltaBases, latestGeneration);
+    log.info("Bytes downloaded: {}, Bytes skipped downloading: {}, Bytes reused by delta: {}",
+        bytesDownloaded, bytesSkippedCopying, bytesReusedByDelta.get());
+    return bytesDownloaded;
+  }
+
+  /**
+   * The local index files that the leader's commit doesn't have anymore, e.g. those of the segments it merged, by
+   * extension. A new file can be downloaded as a delta against the ones with the same extension.
+   */
+  private Map<String, DeltaBasis> getDeltaBases(Directory indexDir) throws IOException {
+    Set<String> leaderFiles = new HashSet<>();
+    for (Map<String, Object> file : filesToDownload) {
+      leaderFiles.add((String) file.get(NAME));
+    }
+    Map<String, DeltaBasis> bases = new HashMap<>();
+    for (String name : indexDir.listAll()) {
+      String extension = getDeltaExtension(name);
+      if (extension != null && !leaderFiles.contains(name)) {
+        long numBlocks = indexDir.fileLength(name) / IndexFileDelta.BLOCK_SIZE;
+        if (numBlocks > 0) {
+          bases.computeIfAbsent(extension, k -> new DeltaBasis(indexDir)).add(name, numBlocks);
+        }
+      }
+    }
+    return bases;
+  }
+
+  /**
+   * The local files that new files with their extension are downloaded as a delta against. Their signatures are
+   * computed once per fetch, by the first file that needs them.
+   */
+  private static final class DeltaBasis {
+    final Directory dir;
+    final List<String> files = new ArrayList<>();
+    private long numBlocks;
+    private byte[] signatures;
+
+    DeltaBasis(Directory dir) {
+      this.dir = dir;
+    }
+
+    /** Adds the file unless the leader would refuse the checksums of that many blocks */
+    void add(String name, long fileBlocks) {
+      if (numBlocks + fileBlocks <= IndexFileDelta.MAX_BLOCKS) {
+        files.add(name);
+        numBlocks += fileBlocks;
+      }
+    }
+
+    synchronized byte[] getSignatures() throws IOException {
+      if (signatures == null) {
+        List<IndexInput> basis = new ArrayList<>(files.size());
+        try {
+          for (String name : files) {
+            basis.add(dir.openInput(name, IOContext.READONCE));
+          }
+          ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+          try (FastOutputStream out = new FastOutputStream(bytes)) {
+            IndexFileDelta.writeSignatures(basis, out);
+          }
+          signatures = bytes.toByteArray();
+        } finally {
+          for (IndexInput in : basis) {
+            IOUtils.closeQuietly(in);
+          }
+        }
+      }
+      return signatures;
+    }
+  }
+
+  /** The extension of a segment file, or null for other files */
+  private static String getDeltaExtension(String name) {
+    int dot = name.lastIndexOf('.');
+    return name.startsWith("_") && dot > 0 ? name.substring(dot) : null;
+  }
+
+  /**
+   * Downloads the index files from the leader, up to {@link #maxConcurrentFileFetches} at the same time. If one of
+   * them can't be downloaded, the others are stopped.
+   *
+   * @return number of bytes downloaded
+   */
+  private long fetchIndexFiles(Directory indexDir, Directory tmpIndexDir, List<Map<String, Object>> files,
+                               Map<String, DeltaBasis> deltaBases, long latestGeneration) throws Exception {
+    numFilesRemaining.set(files.size());
+    int numThreads = Math.min(maxConcurrentFileFetches, files.size());
+    if (numThreads <= 1) {
+      long bytesDownloaded = 0;
+      for (Map<String, Object> file : files) {
+        bytesDownloaded += fetchIndexFile(indexDir, tmpIndexDir, file, deltaBases, latestGeneration);
+      }
+      return bytesDownloaded;
+    }
+
+    if (log.isInfoEnabled()) {
+      log.info("Downloading {} files with {} threads", files.size(), numThreads);
+    }
+    // the largest files first, so that the fetch doesn't end waiting for a large file alone
+    files.sort(Comparator.comparingLong((Map<String, Object> file) -> (Long) file.get(SIZE)).reversed());
+    fileFetchFailed = false;
+    ExecutorService executor = ExecutorUtil.newMDCAwareFixedThreadPool(numThreads,
+        new SolrNamedThreadFactory("indexFileFetcher"));
+    try {
+      CompletionService<Long> completionService = new ExecutorCompletionService<>(executor);
+      for (Map<String, Object> file : files) {
+        completionService.submit(() -> fetchIndexFile(indexDir, tmpIndexDir, file, deltaBases, latestGeneration));
+      }
+      long bytesDownloaded = 0;
+      for (int i = 0; i < files.size(); i++) {
+        try {
+          bytesDownloaded += completionService.take().get();
+        } catch (ExecutionException e) {
+          fileFetchFailed = true;
+          Throwable cause = e.getCause();
+          if (cause instanceof Exception) {
+            throw (Exception) cause;
+          }
+          throw e;
+        } catch (InterruptedException e) {
+          fileFetchFailed = true;
+          throw e;
+        }
+      }
+      return bytesDownloaded;
+    } finally {
+      // no file may still be written to the temporary index directory once this returns
+      ExecutorUtil.shutdownAndAwaitTermination(executor);
+      fileFetchFailed = false;
+    }
+  }
+
+  private long fetchIndexFile(Directory indexDir, Directory tmpIndexDir, Map<String, Object> file,
+                              Map<String, DeltaBasis> deltaBases, long latestGeneration) throws Exception {
+    if (fileFetchFailed) {
+      throw new ReplicationHandlerException("Download of another file failed");
+    }
+    String name = (String) file.get(NAME);
+    String extension = getDeltaExtension(name);
+    DeltaBasis deltaBasis = extension == null || (Long) file.get(SIZE) < DELTA_MIN_FILE_SIZE
+        ? null : deltaBases.get(extension);
+    long bytesDownloaded = fetchFile(new DirectoryFileFetcher(tmpIndexDir, file, name, FILE, latestGeneration,
+        deltaBasis), filesDownloaded);
+    numFilesRemaining.decrementAndGet();
     return bytesDownloaded;
   }
 
+  /**
+   * Downloads a file, tracking its progress until it's added to the given downloaded files
+   *
+   * @return number of bytes downloaded
+   */
+  private long fetchFile(FileFetcher fetcher, List<Map<String, Object>> downloaded) throws Exception {
+    activeFileFetchers.add(fetcher);
+    try {
+      fetcher.fetchFile();
+      downloaded.add(new HashMap<>(fetcher.fileDetails));
+      return fetcher.getBytesDownloaded();
+    } finally {
+      activeFileFetchers.remove(fetcher);
+    }
+  }
+
   //only for testing purposes. do not use this anywhere else
   //-----------START----------------------
   static BooleanSupplier testWait = () -> true;
@@ -1516,16 +1736,33 @@ public class IndexFetcher {
     return tmp == null ? Collections.emptyList() : new ArrayList<>(tmp);
   }
 
-  // TODO: currently does not reflect conf files
+  /**
+   * The files being downloaded, with the number of bytes downloaded so far as "bytesDownloaded"
+   */
+  List<Map<String, Object>> getCurrentFiles() {
+    List<Map<String, Object>> files = new ArrayList<>();
+    for (FileFetcher fetcher : activeFileFetchers) {
+      Map<String, Object> file = new HashMap<>(fetcher.fileDetails);
+      file.put("bytesDownloaded", fetcher.getBytesDownloaded());
+      files.add(file);
+    }
+    return files;
+  }
+
+  /**
+   * The number of index files that are still to be downloaded in this replication, including the ones being
+   * downloaded
+   */
+  int getNumFilesRemaining() {
+    return numFilesRemaining.get();
+  }
+
+  /**
+   * One of the files being downloaded, see {@link #getCurrentFiles()}
+   */
   Map<String, Object> getCurrentFile() {
-    Map<String, Object> tmp = currentFile;
-    DirectoryFileFetcher tmpFileFetcher = dirFileFetcher;
-    if (tmp == null)
-      return null;
-    tmp = new HashMap<>(tmp);
-    if (tmpFileFetcher != null)
-      tmp.put("bytesDownloaded", tmpFileFetcher.getBytesDownloaded());
-    return tmp;
+    List<Map<String, Object>> files = getCurrentFiles();
+    return files.isEmpty() ? null : files.get(0);
   }
 
   private static class ReplicationHandlerException extends InterruptedException {
@@ -1539,6 +1776,8 @@ public class IndexFetcher {
     public void write(byte[] buf, int packetSize) throws IOException;
     public void close() throws Exception;
     public void delete() throws Exception;
+    /** deletes the file and creates it again, empty */
+    public void reset() throws Exception;
   }
 
   /**
@@ -1548,6 +1787,7 @@ public class IndexFetcher {
    */
   private class FileFetcher {
     private final FileInterface file;
+    private final Map<String, Object> fileDetails;
     private boolean includeChecksum = true;
     private final String fileName;
     private final String saveAs;
@@ -1555,15 +1795,28 @@ public class IndexFetcher {
     private final Long indexGen;
 
     private final long size;
-    private long bytesDownloaded = 0;
+    // written by the fetching thread only, and read to show the progress
+    private volatile long bytesDownloaded = 0;
     private byte[] buf;
     private final Checksum checksum;
     private int errorCount = 0;
     private boolean aborted = false;
+    /** whether the file is asked to be sent as it is on disk, see {@link ReplicationHandler#ZERO_COPY} */
+    private final boolean zeroCopy;
+    /** the local files to download the file as a delta against, or null */
+    private final DeltaBasis deltaBasis;
+    private long bytesReused = 0;
+    /** whether the checksum in the codec footer is verified */
+    private final boolean checkFooter;
+    /** the checksum of the file up to the checksum in its codec footer, to verify that one */
+    private final CRC32 footerChecksum = new CRC32();
+    private final byte[] footerChecksumBytes = new byte[Long.BYTES];
+    private boolean footerChecksumMismatch = false;
 
     FileFetcher(FileInterface file, Map<String, Object> fileDetails, String saveAs,
-                String solrParamOutput, long latestGen) throws IOException {
+                String solrParamOutput, long latestGen, DeltaBasis deltaBasis) throws IOException {
       this.file = file;
+      this.fileDetails = fileDetails;
       this.fileName = (String) fileDetails.get(NAME);
       this.size = (Long) fileDetails.get(SIZE);
       buf = new byte[(int)Math.min(this.size, ReplicationHandler.PACKET_SZ)];
@@ -1575,6 +1828,11 @@ public class IndexFetcher {
       } else {
         checksum = null;
       }
+      boolean hasFooter = fileDetails.get(CHECKSUM) != null && size >= CodecUtil.footerLength();
+      zeroCopy = useZeroCopy && !useInternalCompression && FILE.equals(solrParamOutput) && hasFooter;
+      // the delta is only verified by the footer
+      this.deltaBasis = hasFooter && deltaBasis != null && !deltaBasis.files.isEmpty() ? deltaBasis : null;
+      checkFooter = zeroCopy || this.deltaBasis != null;
     }
 
     public long getBytesDownloaded() {
@@ -1586,6 +1844,9 @@ public class IndexFetcher {
      */
     public void fetchFile() throws Exception {
       bytesDownloaded = 0;
+      if (deltaBasis != null && fetchDeltaOrReset()) {
+        return;
+      }
       try {
         fetch();
       } catch(Exception e) {
@@ -1602,7 +1863,20 @@ public class IndexFetcher {
     private void fetch() throws Exception {
       try {
         while (true) {
-          final FastInputStream is = getStream();
+          final FastInputStream is;
+          try {
+            is = getStream();
+          } catch (IOException e) {
+            // e.g. the leader is restarting; continue from where the file broke off
+            errorCount++;
+            if (errorCount > MAX_RETRIES || stop || fileFetchFailed) {
+              throw e;
+            }
+            log.warn("Error in opening the stream of file: {} (downloaded {} of {} bytes), retrying",
+                fileName, bytesDownloaded, size, e);
+            Thread.sleep(RETRY_WAIT_MS * errorCount);
+            continue;
+          }
           int result;
           try {
             //fetch packets one by one in a single request
@@ -1617,15 +1891,118 @@ public class IndexFetcher {
           }
         }
       } finally {
-        cleanup();
-        //if cleanup succeeds . The file is downloaded fully. do an fsync
-        fsyncService.submit(() -> {
-          try {
-            file.sync();
-          } catch (IOException e) {
-            fsyncException = e;
+        finish();
+      }
+    }
+
+    private void finish() {
+      cleanup();
+      //if cleanup succeeds . The file is downloaded fully. do an fsync
+      fsyncService.submit(() -> {
+        try {
+          file.sync();
+        } catch (IOException e) {
+          fsyncException = e;
+        }
+      });
+    }
+
+    /**
+     * Tries to download the file as a delta against the local files. If that fails, the file is emptied, to be
+     * downloaded whole.
+     *
+     * @return true if the file was downloaded
+     */
+    private boolean fetchDeltaOrReset() throws Exception {
+      try {
+        if (fetchDelta()) {
+          finish();
+          bytesReusedByDelta.addAndGet(bytesReused);
+          if (log.isInfoEnabled()) {
+            log.info("Fetched file: {} as a delta, reusing {} of {} bytes", fileName, bytesReused, size);
           }
-        });
+          return true;
+        }
+      } catch (ReplicationHandlerException e) {
+        finish();
+        throw e;
+      } catch (Exception e) {
+        log.warn("Error in fetching file: {} as a delta, fetching it whole", fileName, e);
+      }
+      file.reset();
+      bytesDownloaded = 0;
+      bytesReused = 0;
+      errorCount = 0;
+      footerChecksum.reset();
+      footerChecksumMismatch = false;
+      return false;
+    }
+
+    /**
+     * Downloads the file as a delta, see {@link IndexFileDelta}
+     *
+     * @return false if the leader didn't send a delta, or it didn't give the file
+     */
+    private boolean fetchDelta() throws Exception {
+      List<IndexInput> basis = new ArrayList<>(deltaBasis.files.size());
+      FastInputStream is = null;
+      try {
+        byte[] signatures = deltaBasis.getSignatures();
+        for (String name : deltaBasis.files) {
+          basis.add(deltaBasis.dir.openInput(name, IOContext.DEFAULT));
+        }
+        is = getDeltaStream(signatures);
+        if (is.readInt() != DELTA_MARKER) {
+          return false;
+        }
+        while (true) {
+          checkAborted();
+          int op = is.readInt();
+          if (op == IndexFileDelta.OP_END) {
+            break;
+          } else if (op == IndexFileDelta.OP_LITERAL) {
+            int len = is.readInt();
+            checkDeltaLength(len);
+            for (int remaining = len; remaining > 0; ) {
+              int read = Math.min(buf.length, remaining);
+              is.readFully(buf, 0, read);
+              writePacket(read);
+              remaining -= read;
+            }
+          } else if (op == IndexFileDelta.OP_COPY) {
+            IndexInput in = basis.get(is.readInt());
+            long start = is.readLong() * IndexFileDelta.BLOCK_SIZE;
+            long len = Math.min((long) is.readInt() * IndexFileDelta.BLOCK_SIZE, in.length() - start);
+            checkDeltaLength(len);
+            in.seek(start);
+            for (long remaining = len; remaining > 0; ) {
+              int read = (int) Math.min(buf.length, remaining);
+              in.readBytes(buf, 0, read);
+              writeBytes(read);
+              bytesReused += read;
+              remaining -= read;
+            }
+          } else {
+            throw new IOException("Unknown delta operation: " + op);
+          }
+        }
+        if (bytesDownloaded != size) {
+          return false;
+        }
+        verifyFooterChecksum();
+        return !footerChecksumMismatch;
+      } finally {
+        IOUtils.closeQuietly(is);
+        for (IndexInput in : basis) {
+          IOUtils.closeQuietly(in);
+        }
+      }
+    }
+
+    private void checkDeltaLength(long len) throws IOException {
+      if (len < 0 || bytesDownloaded + len > size) {
+        throw new IOException("Invalid delta of file: " + fileName + " (" + len + " bytes at " + bytesDownloaded
+            + " of " + size + ")");
       }
     }
 
@@ -1634,15 +2011,14 @@ public class IndexFetcher {
       byte[] longbytes = new byte[8];
       try {
         while (true) {
-          if (stop) {
-            stop = false;
-            aborted = true;
-            throw new ReplicationHandlerException("User aborted replication");
-          }
+          checkAborted();
           long checkSumServer = -1;
           fis.readFully(intbytes);
           //read the size of the packet
           int packetSize = readInt(intbytes);
+          if (packetSize == ZERO_COPY_MARKER && zeroCopy) {
+            return fetchFileAsOnDisk(fis, longbytes);
+          }
           if (packetSize <= 0) {
             log.warn("No content received for file: {}", fileName);
             return NO_CONTENT;
@@ -1671,13 +2047,14 @@ public class IndexFetcher {
             }
           }
           //if everything is fine, write down the packet to the file
-          file.write(buf, packetSize);
-          bytesDownloaded += packetSize;
+          writePacket(packetSize);
           log.debug("Fetched and wrote {} bytes of file: {}", bytesDownloaded, fileName);
           //errorCount is always set to zero after a successful packet
           errorCount = 0;
-          if (bytesDownloaded >= size)
+          if (bytesDownloaded >= size) {
+            verifyFooterChecksum();
             return 0;
+          }
         }
       } catch (ReplicationHandlerException e) {
         throw e;
@@ -1697,6 +2074,94 @@ public class IndexFetcher {
       }
     }
 
+    /**
+     * Reads the rest of the file, that the leader sent as it is on disk after {@link ReplicationHandler#ZERO_COPY_MARKER}
+     * and its length. There are no packets to checksum, so the checksum in the codec footer is verified once the file
+     * is complete.
+     */
+    private int fetchFileAsOnDisk(FastInputStream fis, byte[] longbytes) throws Exception {
+      fis.readFully(longbytes);
+      long remaining = Math.min(readLong(longbytes), size - bytesDownloaded);
+      if (remaining <= 0) {
+        log.warn("No content received for file: {}", fileName);
+        return NO_CONTENT;
+      }
+      while (remaining > 0) {
+        checkAborted();
+        int read = (int) Math.min(buf.length, remaining);
+        fis.readFully(buf, 0, read);
+        writePacket(read);
+        remaining -= read;
+        errorCount = 0;
+      }
+      log.debug("Fetched and wrote {} bytes of file: {}", bytesDownloaded, fileName);
+      if (bytesDownloaded >= size) {
+        verifyFooterChecksum();
+        return 0;
+      }
+      // the connection broke off, continue from the offset
+      return ERR;
+    }
+
+    private void checkAborted() throws ReplicationHandlerException {
+      if (stop) {
+        // the other files being downloaded concurrently stop too; cleanup() clears the flag
+        aborted = true;
+        throw new ReplicationHandlerException("User aborted replication");
+      }
+      if (fileFetchFailed) {
+        aborted = true;
+        throw new ReplicationHandlerException("Download of another file failed");
+      }
+    }
+
+    /**
+     * Writes the first bytes of the buffer to the file
+     */
+    private void writePacket(int packetSize) throws IOException {
+      if (fetchRateLimiter != null) {
+        // the downloads of all files share the bandwidth
+        synchronized (fetchRateLimiter) {
+          fetchRateLimiter.pause(packetSize);
+        }
+      }
+      writeBytes(packetSize);
+    }
+
+    /**
+     * Writes the first bytes of the buffer to the file, without counting them against the bandwidth
+     */
+    private void writeBytes(int packetSize) throws IOException {
+      if (checkFooter) {
+        // everything up to the last 8 bytes, which hold the checksum itself
+        long checksumStart = size - Long.BYTES;
+        int checksummed = (int) Math.max(0, Math.min(packetSize, checksumStart - bytesDownloaded));
+        footerChecksum.update(buf, 0, checksummed);
+        for (int i = checksummed; i < packetSize; i++) {
+          footerChecksumBytes[(int) (bytesDownloaded + i - checksumStart)] = buf[i];
+        }
+      }
+      file.write(buf, packetSize);
+      bytesDownloaded += packetSize;
+    }
+
+    /**
+     * Verifies that the checksum of the downloaded file matches its codec footer and the leader's checksum, if the
+     * file was asked to be sent as it is on disk or as a delta
+     */
+    private void verifyFooterChecksum() {
+      if (!checkFooter) {
+        return;
+      }
+      long expected = (Long) fileDetails.get(CHECKSUM);
+      long actual = footerChecksum.getValue();
+      long footer = readLong(footerChecksumBytes);
+      if (actual != footer || footer != expected) {
+        log.error("Checksum not matched for file: {} (computed {}, footer {}, leader {})", fileName, actual, footer, expected);
+        footerChecksumMismatch = true;
+      }
+    }
+
     /**
      * The webcontainer flushes the data only after it fills the buffer size. So, all data has to be read as readFully()
      * other wise it fails. So read everything as bytes and then extract an integer out of it
@@ -1727,8 +2192,8 @@ public class IndexFetcher {
       } catch (Exception e) {/* no-op */
         log.error("Error closing file: {}", this.saveAs, e);
       }
-      if (bytesDownloaded != size) {
-        //if the download is not complete then
+      if (bytesDownloaded != size || footerChecksumMismatch) {
+        //if the download is not complete or corrupt then
         //delete the file being downloaded
         try {
           file.delete();
@@ -1736,6 +2201,9 @@ public class IndexFetcher {
           log.error("Error deleting file: {}", this.saveAs, e);
         }
         //if the failure is due to a user abort it is returned normally else an exception is thrown
+        if (footerChecksumMismatch)
+          throw new SolrException(SolrException.ErrorCode.SERVER_ERROR,
+              "Checksum of downloaded " + fileName + " doesn't match the leader's");
         if (!aborted)
           throw new SolrException(SolrException.ErrorCode.SERVER_ERROR,
               "Unable to download " + fileName + " completely. Downloaded "
@@ -1763,6 +2231,9 @@ public class IndexFetcher {
       if (this.includeChecksum) {
         params.set(CHECKSUM, true);
       }
+      if (zeroCopy) {
+        params.set(ZERO_COPY, true);
+      }
       //wt=filestream this is a custom protocol
       params.set(CommonParams.WT, FILE_STREAM);
       // This happen if there is a failure there is a retry. the offset=<sizedownloaded> ensures that
@@ -1796,6 +2267,44 @@ public class IndexFetcher {
         throw new IOException("Could not download file '" + fileName + "'", e);
       }
     }
+
+    /**
+     * Open a stream of the file as a delta against the local files, whose block checksums are sent in the request body
+     */
+    private FastInputStream getDeltaStream(byte[] signatures) throws IOException {
+      ModifiableSolrParams params = new ModifiableSolrParams();
+      params.set(COMMAND, CMD_GET_FILE);
+      params.set(GENERATION, Long.toString(indexGen));
+      params.set(solrParamOutput, fileName);
+      params.set(DELTA, true);
+      params.set(CommonParams.WT, FILE_STREAM);
+
+      InputStream is = null;
+      try (HttpSolrClient client = new Builder(leaderUrl)
+          .withHttpClient(myHttpClient)
+          .withResponseParser(null)
+          .withConnectionTimeout(connTimeout)
+          .withSocketTimeout(soTimeout)
+          .build()) {
+        GenericSolrRequest req = new GenericSolrRequest(SolrRequest.METHOD.POST, ReplicationHandler.PATH, params);
+        req.setContentWriter(new RequestWriter.ContentWriter() {
+          @Override
+          public void write(OutputStream os) throws IOException {
+            os.write(signatures);
+          }
+
+          @Override
+          public String getContentType() {
+            return "application/octet-stream";
+          }
+        });
+        is = (InputStream) client.request(req).get("stream");
+        return new FastInputStream(is);
+      } catch (Exception e) {
+        org.apache.commons.io.IOUtils.closeQuietly(is);
+        throw new IOException("Could not download file '" + fileName + "' as a delta", e);
+      }
+    }
   }
 
   private static class DirectoryFile implements FileInterface {
@@ -1824,12 +2333,18 @@ public class IndexFetcher {
     public void delete() throws Exception {
       copy2Dir.deleteFile(saveAs);
     }
+
+    public void reset() throws Exception {
+      outStream.close();
+      copy2Dir.deleteFile(saveAs);
+      outStream = copy2Dir.createOutput(this.saveAs, DirectoryFactory.IOCONTEXT_NO_CACHE);
+    }
   }
 
   private class DirectoryFileFetcher extends FileFetcher {
     DirectoryFileFetcher(Directory tmpIndexDir, Map<String, Object> fileDetails, String saveAs,
-                         String solrParamOutput, long latestGen) throws IOException {
-      super(new DirectoryFile(tmpIndexDir, saveAs), fileDetails, saveAs, solrParamOutput, latestGen);
+                         String solrParamOutput, long latestGen, DeltaBasis deltaBasis) throws IOException {
+      super(new DirectoryFile(tmpIndexDir, saveAs), fileDetails, saveAs, solrParamOutput, latestGen, deltaBasis);
     }
   }
 
@@ -1873,12 +2388,18 @@ public class IndexFetcher {
     public void delete() throws Exception {
       Files.delete(file.toPath());
     }
+
+    public void reset() throws Exception {
+      fileOutputStream.close();
+      this.fileOutputStream = new FileOutputStream(file);
+      this.fileChannel = this.fileOutputStream.getChannel();
+    }
   }
 
   private class LocalFsFileFetcher extends FileFetcher {
     LocalFsFileFetcher(File dir, Map<String, Object> fileDetails, String saveAs,
                        String solrParamOutput, long latestGen) throws IOException {
-      super(new LocalFsFile(dir, saveAs), fileDetails, saveAs, solrParamOutput, latestGen);
+      super(new LocalFsFile(dir, saveAs), fileDetails, saveAs, solrParamOutput, latestGen, null);
     }
   }
 
@@ -1911,6 +2432,11 @@ public class IndexFetcher {
 
   private static final int MAX_RETRIES = 5;
 
+  private static final long RETRY_WAIT_MS = 100;
+
+  /** smaller files are downloaded whole */
+  private static final long DELTA_MIN_FILE_SIZE = 4 * IndexFileDelta.BLOCK_SIZE;
+
   private static final int NO_CONTENT = 1;
 
   private static final int ERR = 2;
@@ -1931,6 +2457,8 @@ public class IndexFetcher {
 
   static final String LAST_CYCLE_BYTES_DOWNLOADED = "lastCycleBytesDownloaded";
 
+  static final String LAST_CYCLE_BYTES_REUSED_BY_DELTA = "lastCycleBytesReusedByDelta";
+
   static final String TIMES_FAILED = "timesFailed";
 
   static final String REPLICATION_FAILED_AT = "replicationFailedAt";
@@ -0,0 +1,393 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.solr.handler;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.EOFException;
+import java.io.IOException;
+import java.util.List;
+
+import org.apache.lucene.store.IndexInput;
+import org.apache.lucene.store.RateLimiter;
+import org.apache.lucene.util.ArrayUtil;
+import org.apache.solr.common.util.Hash;
+
+/**
+ * The delta of an index file against the files a follower already holds, as in rsync: the follower sends the
+ * checksums of the blocks of its files, and the leader sends the file as copies of those blocks and literal bytes.
+ * Merges copy e.g. compressed chunks of stored fields verbatim, so a merged segment shares many blocks with the
+ * segments it was merged from.
+ *
+ * The delta is a sequence of operations, each starting with its int code: {@link #OP_LITERAL} is followed by an int
+ * length and the bytes, {@link #OP_COPY} by the int index of the follower's file, the long index of its first block and
+ * the int number of blocks, and {@link #OP_END} ends it.
+ */
+final class IndexFileDelta {
+  static final int BLOCK_SIZE = 64 * 1024;
+
+  static final int OP_END = 0;
+  static final int OP_LITERAL = 1;
+  static final int OP_COPY = 2;
+
+  /** literal bytes are sent in operations of at most this many bytes */
+  private static final int MAX_LITERAL = ReplicationHandler.PACKET_SZ;
+  /** the follower sends the checksums of at most this many blocks, i.e. of 16GB of files */
+  static final int MAX_BLOCKS = 1 << 18;
+  /** the bytes entering and leaving the rolled block are read in chunks of this size */
+  private static final int CHUNK_SIZE = 16 * 1024;
+
+  private IndexFileDelta() {}
+
+  /** The rolling checksum of rsync, to look for blocks at every offset */
+  static final class RollingChecksum {
+    private final int blockSize;
+    private int a;
+    private int b;
+
+    RollingChecksum(int blockSize) {
+      this.blockSize = blockSize;
+    }
+
+    void reset(byte[] buf, int off) {
+      a = 0;
+      b = 0;
+      for (int i = 0; i < blockSize; i++) {
+        int x = buf[off + i] & 0xff;
+        a += x;
+        b += (blockSize - i) * x;
+      }
+    }
+
+    /** moves the block by one byte */
+    void roll(byte out, byte in) {
+      int x = out & 0xff;
+      a += (in & 0xff) - x;
+      b += a - blockSize * x;
+    }
+
+    int getValue() {
+      return (a & 0xffff) | (b << 16);
+    }
+  }
+
+  static long strongChecksum(byte[] buf, int off, int len) {
+    Hash.LongPair hash = new Hash.LongPair();
+    Hash.murmurhash3_x64_128(buf, off, len, 0, hash);
+    return hash.val1;
+  }
+
+  /**
+   * Writes the checksums of the full blocks of the given files
+   */
+  static void writeSignatures(List<IndexInput> files, DataOutput out) throws IOException {
+    out.writeInt(BLOCK_SIZE);
+    out.writeInt(files.size());
+    byte[] block = new byte[BLOCK_SIZE];
+    RollingChecksum rolling = new RollingChecksum(BLOCK_SIZE);
+    for (IndexInput file : files) {
+      long numBlocks = file.length() / BLOCK_SIZE;
+      out.writeLong(numBlocks);
+      file.seek(0);
+      for (long i = 0; i < numBlocks; i++) {
+        file.readBytes(block, 0, BLOCK_SIZE);
+        rolling.reset(block, 0);
+        out.writeInt(rolling.getValue());
+        out.writeLong(strongChecksum(block, 0, BLOCK_SIZE));
+      }
+    }
+  }
+
+  /**
+   * The checksums of the blocks of the follower's files, in arrays indexed by the order the blocks were read in. The
+   * blocks are looked up by their rolling checksum in a hash table of chains, to look up every offset of the file
+   * without boxing.
+   */
+  static final class Signatures {
+    final int blockSize;
+    private int numBlocks;
+    private int[] rollings = new int[0];
+    private long[] strongs = new long[0];
+    private int[] files = new int[0];
+    private long[] indices = new long[0];
+    /** the first block of each chain, plus one, or 0 for an empty chain */
+    private int[] heads;
+    /** the next block of the chain, plus one, or 0 for the last block */
+    private int[] next;
+    private int hashShift;
+
+    private Signatures(int blockSize) {
+      this.blockSize = blockSize;
+    }
+
+    static Signatures read(DataInput in) throws IOException {
+      int blockSize = in.readInt();
+      if (blockSize <= 0 || blockSize > ReplicationHandler.PACKET_SZ) {
+        throw new IOException("Invalid block size: " + blockSize);
+      }
+      Signatures signatures = new Signatures(blockSize);
+      int numFiles = in.readInt();
+      long totalBlocks = 0;
+      for (int file = 0; file < numFiles; file++) {
+        long numBlocks = in.readLong();
+        totalBlocks += numBlocks;
+        if (numBlocks < 0 || totalBlocks > MAX_BLOCKS) {
+          throw new IOException("Too many blocks: " + totalBlocks);
+        }
+        for (long i = 0; i < numBlocks; i++) {
+          signatures.add(in.readInt(), in.readLong(), file, i);
+        }
+      }
+      signatures.buildTable();
+      return signatures;
+    }
+
+    private void add(int rolling, long strong, int file, long index) {
+      if (numBlocks == rollings.length) {
+        rollings = ArrayUtil.grow(rollings, numBlocks + 1);
+        strongs = ArrayUtil.grow(strongs, numBlocks + 1);
+        files = ArrayUtil.grow(files, numBlocks + 1);
+        indices = ArrayUtil.grow(indices, numBlocks + 1);
+      }
+      rollings[numBlocks] = rolling;
+      strongs[numBlocks] = strong;
+      files[numBlocks] = file;
+      indices[numBlocks] = index;
+      numBlocks++;
+    }
+
+    /** The table has at least twice as many chains as there are blocks, so most chains are empty */
+    private void buildTable() {
+      int bits = Math.max(4, 33 - Integer.numberOfLeadingZeros(numBlocks));
+      hashShift = 32 - bits;
+      heads = new int[1 << bits];
+      next = new int[numBlocks];
+      for (int block = 0; block < numBlocks; block++) {
+        int chain = chain(rollings[block]);
+        next[block] = heads[chain];
+        heads[chain] = block + 1;
+      }
+    }
+
+    private int chain(int rolling) {
+      return (rolling * 0x9E3779B9) >>> hashShift;
+    }
+
+    /** Whether a block of the follower has the rolling checksum */
+    boolean mightContain(int rolling) {
+      for (int block = heads[chain(rolling)] - 1; block >= 0; block = next[block] - 1) {
+        if (rollings[block] == rolling) {
+          return true;
+        }
+      }
+      return false;
+    }
+
+    /** The block that has the same bytes as the given block, or -1 */
+    int find(int rolling, byte[] buf, int off) {
+      boolean computed = false;
+      long strong = 0;
+      for (int block = heads[chain(rolling)] - 1; block >= 0; block = next[block] - 1) {
+        if (rollings[block] == rolling) {
+          if (!computed) {
+            strong = strongChecksum(buf, off, blockSize);
+            computed = true;
+          }
+          if (strongs[block] == strong) {
+            return block;
+          }
+        }
+      }
+      return -1;
+    }
+
+    /** The index of the follower's file the block is in */
+    int file(int block) {
+      return files[block];
+    }
+
+    /** The index of the block in its file */
+    long index(int block) {
+      return indices[block];
+    }
+  }
+
+  /** Reads the bytes of a file one at a time, from a chunk read ahead */
+  private static final class ChunkReader {
+    private final IndexInput in;
+    private final byte[] chunk = new byte[CHUNK_SIZE];
+    private int pos;
+    private int limit;
+
+    ChunkReader(IndexInput in) {
+      this.in = in;
+    }
+
+    void seek(long pos) throws IOException {
+      in.seek(pos);
+      this.pos = 0;
+      this.limit = 0;
+    }
+
+    byte readByte() throws IOException {
+      if (pos == limit) {
+        int len = (int) Math.min(chunk.length, in.length() - in.getFilePointer());
+        if (len <= 0) {
+          throw new EOFException("Read past the end of " + in);
+        }
+        in.readBytes(chunk, 0, len);
+        pos = 0;
+        limit = len;
+      }
+      return chunk[pos++];
+    }
+  }
+
+  /**
+   * Writes the delta of the file against the follower's files
+   *
+   * @param rateLimiter limits the literal bytes written
+   * @return the number of literal bytes
+   */
+  static long writeDelta(IndexInput file, Signatures signatures, DataOutput out, RateLimiter rateLimiter)
+      throws IOException {
+    Writer writer = new Writer(file, signatures, out, rateLimiter);
+    int blockSize = signatures.blockSize;
+    long length = file.length();
+    // the bytes entering and leaving the block as it moves, and the block itself
+    ChunkReader incoming = new ChunkReader(file.clone());
+    ChunkReader outgoing = new ChunkReader(file.clone());
+    IndexInput block = file.clone();
+    byte[] buf = new byte[blockSize];
+    RollingChecksum rolling = new RollingChecksum(blockSize);
+
+    long pos = 0;
+    boolean checksummed = false;
+    while (pos + blockSize <= length) {
+      if (!checksummed) {
+        block.seek(pos);
+        block.readBytes(buf, 0, blockSize);
+        rolling.reset(buf, 0);
+        incoming.seek(pos + blockSize);
+        outgoing.seek(pos);
+        checksummed = true;
+      }
+      int value = rolling.getValue();
+      int match = -1;
+      // only reads the block to compare the strong checksums if a block of the follower has the same rolling one
+      if (signatures.mightContain(value)) {
+        block.seek(pos);
+        block.readBytes(buf, 0, blockSize);
+        match = signatures.find(value, buf, 0);
+      }
+      if (match >= 0) {
+        writer.copy(pos, match);
+        pos += blockSize;
+        checksummed = false;
+      } else {
+        if (pos + blockSize == length) {
+          break;
+        }
+        rolling.roll(outgoing.readByte(), incoming.readByte());
+        pos++;
+        writer.literalUpTo(pos);
+      }
+    }
+    writer.finish(length);
+    return writer.literalBytes;
+  }
+
+  /** Writes the operations, joining the copies of consecutive blocks */
+  private static final class Writer {
+    private final IndexInput file;
+    private final Signatures signatures;
+    private final DataOutput out;
+    private final RateLimiter rateLimiter;
+    private final byte[] buf;
+
+    private long literalStart = 0;
+    private long literalBytes = 0;
+    private int copyFile;
+    private long copyIndex;
+    private int copyBlocks;
+
+    Writer(IndexInput file, Signatures signatures, DataOutput out, RateLimiter rateLimiter) {
+      this.file = file.clone();
+      this.signatures = signatures;
+      this.out = out;
+      this.rateLimiter = rateLimiter;
+      this.buf = new byte[MAX_LITERAL];
+    }
+
+    /** the block at the position is a copy of the follower's block */
+    void copy(long pos, int block) throws IOException {
+      if (pos > literalStart) {
+        writeCopy();
+        writeLiteral(pos);
+      }
+      int file = signatures.file(block);
+      long index = signatures.index(block);
+      if (copyBlocks > 0 && copyFile == file && copyIndex + copyBlocks == index) {
+        copyBlocks++;
+      } else {
+        writeCopy();
+        copyFile = file;
+        copyIndex = index;
+        copyBlocks = 1;
+      }
+      literalStart = pos + signatures.blockSize;
+    }
+
+    /** the bytes up to the position are literal, written once there are enough of them */
+    void literalUpTo(long pos) throws IOException {
+      if (pos - literalStart >= MAX_LITERAL) {
+        writeCopy();
+        writeLiteral(pos);
+      }
+    }
+
+    void finish(long length) throws IOException {
+      writeCopy();
+      writeLiteral(length);
+      out.writeInt(OP_END);
+    }
+
+    private void writeCopy() throws IOException {
+      if (copyBlocks > 0) {
+        out.writeInt(OP_COPY);
+        out.writeInt(copyFile);
+        out.writeLong(copyIndex);
+        out.writeInt(copyBlocks);
+        copyBlocks = 0;
+      }
+    }
+
+    private void writeLiteral(long end) throws IOException {
+      file.seek(literalStart);
+      while (literalStart < end) {
+        int len = (int) Math.min(buf.length, end - literalStart);
+        file.readBytes(buf, 0, len);
+        out.writeInt(OP_LITERAL);
+        out.writeInt(len);
+        out.write(buf, 0, len);
+        rateLimiter.pause(len);
+        literalStart += len;
+        literalBytes += len;
+      }
+    }
+  }
+}
@@ -46,6 +46,11 @@ public class RealTimeGetHandler extends SearchHandler {
     super.handleRequestBody(req, rsp);
   }
 
+  @Override
+  protected boolean isSuspendable() {
+    return true;
+  }
+
   //////////////////////// SolrInfoMBeans methods //////////////////////
 
   @Override
@@ -16,6 +16,8 @@
  */
 package org.apache.solr.handler;
 
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
@@ -27,10 +29,13 @@ import java.lang.invoke.MethodHandles;
 import java.net.URI;
 import java.nio.ByteBuffer;
 import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
@@ -66,6 +71,8 @@ import org.apache.lucene.index.SegmentCommitInfo;
 import org.apache.lucene.index.SegmentInfos;
 import org.apache.lucene.search.IndexSearcher;
 import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.FSDirectory;
+import org.apache.lucene.store.FilterDirectory;
 import org.apache.lucene.store.IOContext;
 import org.apache.lucene.store.IndexInput;
 import org.apache.lucene.store.RateLimiter;
@@ -269,7 +276,7 @@ public class ReplicationHandler extends RequestHandlerBase implements SolrCoreAw
         rsp.add(STATUS, OK_STATUS);
       }
     } else if (command.equals(CMD_GET_FILE)) {
-      getFileStream(solrParams, rsp);
+      getFileStream(req, solrParams, rsp);
     } else if (command.equals(CMD_GET_FILE_LIST)) {
       getFileList(solrParams, rsp);
     } else if (command.equalsIgnoreCase(CMD_BACKUP)) {
@@ -632,7 +639,7 @@ public class ReplicationHandler extends RequestHandlerBase implements SolrCoreAw
    * @see IndexFetcher.LocalFsFileFetcher
    * @see IndexFetcher.DirectoryFileFetcher
    */
-  private void getFileStream(SolrParams solrParams, SolrQueryResponse rsp) {
+  private void getFileStream(SolrQueryRequest req, SolrParams solrParams, SolrQueryResponse rsp) throws IOException {
     ModifiableSolrParams rawParams = new ModifiableSolrParams(solrParams);
     rawParams.set(CommonParams.WT, FILE_STREAM);
 
@@ -642,6 +649,15 @@ public class ReplicationHandler extends RequestHandlerBase implements SolrCoreAw
       rsp.add(FILE_STREAM, new LocalFsConfFileStream(solrParams));
     } else if (tlogFileName != null) {
       rsp.add(FILE_STREAM, new LocalFsTlogFileStream(solrParams));
+    } else if (solrParams.getBool(DELTA, false) && !solrParams.getBool(COMPRESSION, false)
+        && req.getContentStreams() != null) {
+      IndexFileDelta.Signatures signatures;
+      try (InputStream in = req.getContentStreams().iterator().next().getStream()) {
+        signatures = IndexFileDelta.Signatures.read(new DataInputStream(new BufferedInputStream(in)));
+      } catch (IOException e) {
+        throw new SolrException(ErrorCode.BAD_REQUEST, "Invalid block checksums", e);
+      }
+      rsp.add(FILE_STREAM, new DeltaFileStream(solrParams, signatures));
     } else {
       rsp.add(FILE_STREAM, new DirectoryFileStream(solrParams));
     }
@@ -910,6 +926,9 @@ public class ReplicationHandler extends RequestHandlerBase implements SolrCoreAw
           map.put("bytesDownloaded", val);
           map.put("downloadSpeed", val / elapsed);
         }
+        if (isReplicating()) {
+          map.put("filesRemaining", fetcher.getNumFilesRemaining());
+        }
         Properties props = loadReplicationProperties();
         addReplicationProperties(map::putNoEx, props);
       }
@@ -1018,22 +1037,27 @@ public class ReplicationHandler extends RequestHandlerBase implements SolrCoreAw
             bytesDownloaded += (Long) file.get(SIZE);
           }
 
-          Map<String, Object> currentFile = fetcher.getCurrentFile();
+          List<Map<String, Object>> currentFiles = fetcher.getCurrentFiles();
+          List<String> currFiles = new ArrayList<>();
           String currFile = null;
           long currFileSize = 0, currFileSizeDownloaded = 0;
           float percentDownloaded = 0;
-          if (currentFile != null) {
+          for (Map<String, Object> currentFile : currentFiles) {
+            currFiles.add((String) currentFile.get(NAME));
+            bytesDownloaded += (Long) currentFile.get("bytesDownloaded");
+          }
+          if (!currentFiles.isEmpty()) {
+            Map<String, Object> currentFile = currentFiles.get(0);
             currFile = (String) currentFile.get(NAME);
             currFileSize = (Long) currentFile.get(SIZE);
-            if (currentFile.containsKey("bytesDownloaded")) {
-              currFileSizeDownloaded = (Long) currentFile.get("bytesDownloaded");
-              bytesDownloaded += currFileSizeDownloaded;
-              if (currFileSize > 0)
-                percentDownloaded = (currFileSizeDownloaded * 100) / currFileSize;
-            }
+            currFileSizeDownloaded = (Long) currentFile.get("bytesDownloaded");
+            if (currFileSize > 0)
+              percentDownloaded = (currFileSizeDownloaded * 100) / currFileSize;
           }
           follower.add("filesDownloaded", filesDownloaded);
           follower.add("numFilesDownloaded", String.valueOf(filesDownloaded.size()));
+          follower.add("numFilesRemaining", String.valueOf(fetcher.getNumFilesRemaining()));
+          follower.add("maxConcurrentFileFetches", String.valueOf(fetcher.getMaxConcurrentFileFetches()));
 
           long estimatedTimeRemaining = 0;
 
@@ -1054,6 +1078,7 @@ public class ReplicationHandler extends RequestHandlerBase implements SolrCoreAw
             downloadSpeed = (bytesDownloaded / elapsed);
           if (currFile != null)
             follower.add("currentFile", currFile);
+          follower.add("currentFiles", currFiles);
           follower.add("currentFileSize", NumberUtils.readableSize(currFileSize));
           follower.add("currentFileSizeDownloaded", NumberUtils.readableSize(currFileSizeDownloaded));
           follower.add("currentFileSizePercent", String.valueOf(percentDownloaded));
@@ -1093,6 +1118,7 @@ public class ReplicationHandler extends RequestHandlerBase implements SolrCoreAw
     addVal(consumer, IndexFetcher.TIMES_CONFIG_REPLICATED, props, Integer.class);
     addVal(consumer, IndexFetcher.CONF_FILES_REPLICATED_AT, props, Date.class);
     addVal(consumer, IndexFetcher.LAST_CYCLE_BYTES_DOWNLOADED, props, Long.class);
+    addVal(consumer, IndexFetcher.LAST_CYCLE_BYTES_REUSED_BY_DELTA, props, Long.class);
     addVal(consumer, IndexFetcher.TIMES_FAILED, props, Integer.class);
     addVal(consumer, IndexFetcher.REPLICATION_FAILED_AT, props, Date.class);
     addVal(consumer, IndexFetcher.PREVIOUS_CYCLE_TIME_TAKEN, props, Long.class);
@@ -1503,13 +1529,14 @@ public class ReplicationHandler extends RequestHandlerBase implements SolrCoreAw
     protected String sLen;
     protected final boolean compress;
     protected boolean useChecksum;
+    protected final boolean zeroCopy;
 
     protected long offset = -1;
     protected int len = -1;
 
     protected Checksum checksum;
 
-    private RateLimiter rateLimiter;
+    protected RateLimiter rateLimiter;
 
     byte[] buf;
 
@@ -1525,6 +1552,7 @@ public class ReplicationHandler extends RequestHandlerBase implements SolrCoreAw
       sLen = params.get(LEN);
       compress = Boolean.parseBoolean(params.get(COMPRESSION));
       useChecksum = params.getBool(CHECKSUM, false);
+      zeroCopy = params.getBool(ZERO_COPY, false);
       indexGen = params.getLong(GENERATION);
       if (useChecksum) {
         checksum = new Adler32();
@@ -1594,11 +1622,19 @@ public class ReplicationHandler extends RequestHandlerBase implements SolrCoreAw
         initWrite();
 
         Directory dir = core.withSearcher(searcher -> searcher.getIndexReader().directory());
+        long filelen = dir.fileLength(fileName);
+        if (zeroCopy && !compress) {
+          Path path = getFilePath(dir, filelen);
+          if (path != null) {
+            transferFile(out, path, filelen);
+            return;
+          }
+        }
+
         in = dir.openInput(fileName, IOContext.READONCE);
         // if offset is mentioned move the pointer to that point
         if (offset != -1) in.seek(offset);
 
-        long filelen = dir.fileLength(fileName);
         long maxBytesBeforePause = 0;
 
         while (true) {
@@ -1641,6 +1677,67 @@ public class ReplicationHandler extends RequestHandlerBase implements SolrCoreAw
     }
 
 
+    /**
+     * The path of the file, if the index is in a file system directory and the file is complete on disk
+     */
+    private Path getFilePath(Directory dir, long filelen) {
+      Directory unwrapped = FilterDirectory.unwrap(dir);
+      if (unwrapped instanceof FSDirectory) {
+        Path path = ((FSDirectory) unwrapped).getDirectory().resolve(fileName);
+        try {
+          if (Files.size(path) == filelen) {
+            return path;
+          }
+        } catch (IOException e) {
+          // e.g. the file is still cached in memory
+          log.debug("Can't transfer {} from disk", path, e);
+        }
+      }
+      return null;
+    }
+
+    /**
+     * Writes the rest of the file from the offset as it is on disk, after {@link #ZERO_COPY_MARKER} and its length.
+     * The bytes aren't compressed or checksummed: the follower verifies the checksum of the codec footer instead. If
+     * the servlet container gives a channel to write to, the file channel transfers the bytes to it directly.
+     */
+    private void transferFile(OutputStream out, Path path, long filelen) throws IOException {
+      long position = offset == -1 ? 0 : offset;
+      fos.writeInt(ZERO_COPY_MARKER);
+      fos.writeLong(filelen - position);
+      fos.flush();
+
+      long maxBytesBeforePause = 0;
+      try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+        ByteBuffer bb = ByteBuffer.wrap(buf);
+        while (position < filelen) {
+          long count = Math.min(buf.length, filelen - position);
+          long transferred;
+          if (out instanceof WritableByteChannel) {
+            transferred = channel.transferTo(position, count, (WritableByteChannel) out);
+          } else {
+            bb.clear().limit((int) count);
+            transferred = channel.read(bb, position);
+            if (transferred > 0) {
+              out.write(buf, 0, (int) transferred);
+            }
+          }
+          if (transferred <= 0) {
+            throw new IOException("Unexpected end of file " + path + " at " + position + " of " + filelen + " bytes");
+          }
+          position += transferred;
+
+          maxBytesBeforePause += transferred;
+          if (maxBytesBeforePause >= rateLimiter.getMinPauseCheckBytes()) {
+            rateLimiter.pause(maxBytesBeforePause);
+            maxBytesBeforePause = 0;
+          }
+        }
+      }
+      out.flush();
+      log.debug("Transferred {} bytes for file {}", position, fileName);
+    }
+
     /**
      * Used to write a marker for EOF
      */
@@ -1650,6 +1747,38 @@ public class ReplicationHandler extends RequestHandlerBase implements SolrCoreAw
     }
   }
 
+  /**
+   * Writes an index file as a delta against the files of the follower, see {@link IndexFileDelta}
+   */
+  private class DeltaFileStream extends DirectoryFileStream {
+    private final IndexFileDelta.Signatures signatures;
+
+    public DeltaFileStream(SolrParams solrParams, IndexFileDelta.Signatures signatures) {
+      super(solrParams);
+      this.signatures = signatures;
+    }
+
+    @Override
+    public void write(OutputStream out) throws IOException {
+      createOutputStream(out);
+      try {
+        initWrite();
+
+        Directory dir = core.withSearcher(searcher -> searcher.getIndexReader().directory());
+        try (IndexInput in = dir.openInput(fileName, IOContext.DEFAULT)) {
+          fos.writeInt(DELTA_MARKER);
+          long literalBytes = IndexFileDelta.writeDelta(in, signatures, fos, rateLimiter);
+          fos.close(); // the request outputstream is protected
+          log.debug("Wrote {} of {} bytes for file {} as a delta", literalBytes, in.length(), fileName);
+        }
+      } catch (IOException e) {
+        log.warn("Exception while writing response for params: {}", params, e);
+      } finally {
+        extendReserveAndReleaseCommitPoint();
+      }
+    }
+  }
+
   /**This is used to write files in the conf directory.
    */
   private abstract class LocalFsFileStream extends DirectoryFileStream {
@@ -1831,12 +1960,34 @@ public class ReplicationHandler extends RequestHandlerBase implements SolrCoreAw
 
   public static final String MAX_WRITE_PER_SECOND = "maxWriteMBPerSec";
 
+  public static final String MAX_FETCH_PER_SECOND = "maxFetchMBPerSec";
+
+  public static final String MAX_CONCURRENT_FILE_FETCHES = "maxConcurrentFileFetches";
+
+  public static final String DELTA_REPLICATION = "deltaReplication";
+
   public static final String CONF_FILE_SHORT = "cf";
 
   public static final String TLOG_FILE = "tlogFile";
 
   public static final String CHECKSUM = "checksum";
 
+  /**
+   * Asks for an index file to be sent as it is on disk, when it isn't compressed. The response then starts with
+   * {@link #ZERO_COPY_MARKER} instead of the size of the first packet, if the leader could send the file that way.
+   */
+  public static final String ZERO_COPY = "zeroCopy";
+
+  static final int ZERO_COPY_MARKER = -1;
+
+  /**
+   * Asks for an index file to be sent as a delta against the files of the follower, whose block checksums are in the
+   * request body. The response then starts with {@link #DELTA_MARKER}, see {@link IndexFileDelta}.
+   */
+  public static final String DELTA = "delta";
+
+  static final int DELTA_MARKER = -2;
+
   public static final String ALIAS = "alias";
 
   public static final String CONF_CHECKSUM = "confchecksum";
@@ -19,6 +19,7 @@ package org.apache.solr.handler;
 import java.lang.invoke.MethodHandles;
 import java.util.Collection;
 import java.util.Map;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ConcurrentHashMap;
 
 import com.codahale.metrics.Counter;
@@ -204,6 +205,7 @@ public abstract class RequestHandlerBase implements SolrRequestHandler, SolrInfo
     Timer.Context timer = requestTimes.time();
     @SuppressWarnings("resource")
     Timer.Context dTimer = distrib ? distribRequestTimes.time() : localRequestTimes.time();
+    boolean suspended = false;
     try {
       TestInjection.injectLeaderTragedy(req.getCore());
       if (pluginInfo != null && pluginInfo.attributes.containsKey(USEPARAM))
@@ -212,69 +214,102 @@ public abstract class RequestHandlerBase implements SolrRequestHandler, SolrInfo
       req.getContext().remove(USEPARAM);
       rsp.setHttpCaching(httpCaching);
       handleRequestBody(req, rsp);
-      // count timeouts
-      @SuppressWarnings({"rawtypes"})
-      NamedList header = rsp.getResponseHeader();
-      if (header != null) {
-        if (Boolean.TRUE.equals(header.getBooleanArg(
-            SolrQueryResponse.RESPONSE_HEADER_PARTIAL_RESULTS_KEY))) {
-          numTimeouts.mark();
-          rsp.setHttpCaching(false);
-        }
-      }
-    } catch (Exception e) {
-      if (req.getCore() != null) {
-        boolean isTragic = req.getCore().getCoreContainer().checkTragicException(req.getCore());
-        if (isTragic) {
-          if (e instanceof SolrException) {
-            // Tragic exceptions should always throw a server error
-            assert ((SolrException) e).code() == 500;
-          } else {
-            // wrap it in a solr exception
-            e = new SolrException(SolrException.ErrorCode.SERVER_ERROR, e.getMessage(), e);
+      if (rsp.isSuspended()) {
+        // the handler completes the response later, on another thread
+        suspended = true;
+        rsp.setCompletion(rsp.getCompletion().handle((v, t) -> {
+          try {
+            Throwable cause = t instanceof CompletionException && t.getCause() != null ? t.getCause() : t;
+            if (cause == null) {
+              countTimeouts(rsp);
+            } else if (cause instanceof Exception) {
+              handleException(req, rsp, (Exception) cause);
+            } else {
+              throw new CompletionException(cause);
+            }
+          } finally {
+            stopTimers(timer, dTimer, distrib);
           }
-        }
+          return null;
+        }));
+        return;
       }
-      boolean incrementErrors = true;
-      boolean isServerError = true;
-      if (e instanceof SolrException) {
-        SolrException se = (SolrException) e;
-        if (se.code() == SolrException.ErrorCode.CONFLICT.code) {
-          incrementErrors = false;
-        } else if (se.code() >= 400 && se.code() < 500) {
-          isServerError = false;
-        }
-      } else {
-        if (e instanceof SyntaxError) {
-          isServerError = false;
-          e = new SolrException(SolrException.ErrorCode.BAD_REQUEST, e);
-        }
+      countTimeouts(rsp);
+    } catch (Exception e) {
+      handleException(req, rsp, e);
+    } finally {
+      if (!suspended) {
+        stopTimers(timer, dTimer, distrib);
       }
+    }
+  }
 
-      rsp.setException(e);
-
-      if (incrementErrors) {
-        SolrException.log(log, e);
+  private void countTimeouts(SolrQueryResponse rsp) {
+    @SuppressWarnings({"rawtypes"})
+    NamedList header = rsp.getResponseHeader();
+    if (header != null) {
+      if (Boolean.TRUE.equals(header.getBooleanArg(
+          SolrQueryResponse.RESPONSE_HEADER_PARTIAL_RESULTS_KEY))) {
+        numTimeouts.mark();
+        rsp.setHttpCaching(false);
+      }
+    }
+  }
 
-        numErrors.mark();
-        if (isServerError) {
-          numServerErrors.mark();
+  private void handleException(SolrQueryRequest req, SolrQueryResponse rsp, Exception e) {
+    if (req.getCore() != null) {
+      boolean isTragic = req.getCore().getCoreContainer().checkTragicException(req.getCore());
+      if (isTragic) {
+        if (e instanceof SolrException) {
+          // Tragic exceptions should always throw a server error
+          assert ((SolrException) e).code() == 500;
         } else {
-          numClientErrors.mark();
+          // wrap it in a solr exception
+          e = new SolrException(SolrException.ErrorCode.SERVER_ERROR, e.getMessage(), e);
         }
       }
-    } finally {
-      dTimer.stop();
-      long elapsed = timer.stop();
-      totalTime.inc(elapsed);
-      if (distrib) {
-        distribTotalTime.inc(elapsed);
+    }
+    boolean incrementErrors = true;
+    boolean isServerError = true;
+    if (e instanceof SolrException) {
+      SolrException se = (SolrException) e;
+      if (se.code() == SolrException.ErrorCode.CONFLICT.code) {
+        incrementErrors = false;
+      } else if (se.code() >= 400 && se.code() < 500) {
+        isServerError = false;
+      }
+    } else {
+      if (e instanceof SyntaxError) {
+        isServerError = false;
+        e = new SolrException(SolrException.ErrorCode.BAD_REQUEST, e);
+      }
+    }
+
+    rsp.setException(e);
+
+    if (incrementErrors) {
+      SolrException.log(log, e);
+
+      numErrors.mark();
+      if (isServerError) {
+        numServerErrors.mark();
       } else {
-        localTotalTime.inc(elapsed);
+        numClientErrors.mark();
       }
     }
   }
 
+  private void stopTimers(Timer.Context timer, Timer.Context dTimer, boolean distrib) {
+    dTimer.stop();
+    long elapsed = timer.stop();
+    totalTime.inc(elapsed);
+    if (distrib) {
+      distribTotalTime.inc(elapsed);
+    } else {
+      localTotalTime.inc(elapsed);
+    }
+  }
+
   //////////////////////// SolrInfoMBeans methods //////////////////////
 
   @Override
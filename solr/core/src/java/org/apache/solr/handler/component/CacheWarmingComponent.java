@@ -0,0 +1,388 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.solr.handler.component;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.apache.solr.common.params.CommonParams;
+import org.apache.solr.common.params.DisMaxParams;
+import org.apache.solr.common.params.EventParams;
+import org.apache.solr.common.params.ModifiableSolrParams;
+import org.apache.solr.common.params.SolrParams;
+import org.apache.solr.common.util.NamedList;
+import org.apache.solr.core.CloseHook;
+import org.apache.solr.core.SolrCore;
+import org.apache.solr.core.SolrEventListener;
+import org.apache.solr.metrics.SolrMetricsContext;
+import org.apache.solr.request.LocalSolrQueryRequest;
+import org.apache.solr.request.SolrQueryRequest;
+import org.apache.solr.request.SolrRequestHandler;
+import org.apache.solr.request.SolrRequestInfo;
+import org.apache.solr.response.SolrQueryResponse;
+import org.apache.solr.search.QueryParsing;
+import org.apache.solr.search.SolrIndexSearcher;
+import org.apache.solr.servlet.SolrRequestParsers;
+import org.apache.solr.util.plugin.SolrCoreAware;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Warms the caches of a core's first searcher, e.g. after a restart, with the queries it got most often before. The
+ * autowarming of the filterCache and queryResultCache only carries their entries over from one searcher to the next.
+ *
+ * The cache keys are Lucene queries, which can't be persisted, so the component tracks the parameters of the requests
+ * that make them instead: the query, filters, sort, paging and the parameters of the query parsers. The most frequent
+ * ones are written to a file in the data directory, on commits at most every <code>persistIntervalSec</code> and when
+ * the core is closed. When the core is opened again, they are replayed in the background, the most frequent first,
+ * for at most <code>timeBudgetMs</code>.
+ *
+ * Add it to a requestHandler in solrconfig.xml like this:
+ * <pre class="prettyprint">
+ * &lt;searchComponent name="cacheWarming" class="solr.CacheWarmingComponent"&gt;
+ *   &lt;int name="maxQueries"&gt;100&lt;/int&gt;
+ *   &lt;int name="timeBudgetMs"&gt;30000&lt;/int&gt;
+ *   &lt;int name="persistIntervalSec"&gt;300&lt;/int&gt;
+ * &lt;/searchComponent&gt;
+ *
+ * &lt;requestHandler name="/select" class="solr.SearchHandler"&gt;
+ *   &lt;arr name="last-components"&gt;
+ *     &lt;str&gt;cacheWarming&lt;/str&gt;
+ *   &lt;/arr&gt;
+ * &lt;/requestHandler&gt;</pre>
+ */
+public class CacheWarmingComponent extends SearchComponent implements SolrCoreAware {
+  private static final Logger log = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+
+  public static final String COMPONENT_NAME = "cacheWarming";
+
+  public static final String MAX_QUERIES = "maxQueries";
+  public static final String TIME_BUDGET_MS = "timeBudgetMs";
+  public static final String PERSIST_INTERVAL_SEC = "persistIntervalSec";
+  public static final String FILE_NAME = "fileName";
+
+  static final String DEFAULT_FILE_NAME = "cacheWarmingQueries.txt";
+
+  /** the parameters that make the cache keys of a request */
+  private static final Set<String> KEY_PARAMS = Collections.unmodifiableSet(new HashSet<>(Arrays.asList(
+      CommonParams.Q, CommonParams.FQ, CommonParams.SORT, CommonParams.START, CommonParams.ROWS, CommonParams.DF,
+      QueryParsing.DEFTYPE, QueryParsing.OP, DisMaxParams.QF, DisMaxParams.PF, DisMaxParams.MM, DisMaxParams.BQ,
+      DisMaxParams.BF, DisMaxParams.TIE)));
+
+  private int maxQueries = 100;
+  private long timeBudgetMs = 30000;
+  private long persistIntervalMs = TimeUnit.SECONDS.toMillis(300);
+  private String fileName = DEFAULT_FILE_NAME;
+
+  private SolrCore core;
+  private Path file;
+  /** the number of requests by their key parameters, as a query string */
+  private final Map<String, LongAdder> counts = new ConcurrentHashMap<>();
+  private volatile long lastPersisted = System.nanoTime();
+
+  /** the queries replayed on the first searcher, to tell how many requests found them in the caches */
+  private volatile Set<String> replayed = Collections.emptySet();
+  private final LongAdder replayedQueries = new LongAdder();
+  private volatile long replayTimeMs;
+  private final LongAdder requestsAfterWarming = new LongAdder();
+  private final LongAdder warmHits = new LongAdder();
+
+  @Override
+  public void init(@SuppressWarnings({"rawtypes"}) NamedList args) {
+    super.init(args);
+    SolrParams params = args.toSolrParams();
+    maxQueries = params.getInt(MAX_QUERIES, maxQueries);
+    timeBudgetMs = params.getLong(TIME_BUDGET_MS, timeBudgetMs);
+    persistIntervalMs = TimeUnit.SECONDS.toMillis(params.getLong(PERSIST_INTERVAL_SEC,
+        TimeUnit.MILLISECONDS.toSeconds(persistIntervalMs)));
+    fileName = params.get(FILE_NAME, fileName);
+  }
+
+  @Override
+  public void inform(SolrCore core) {
+    this.core = core;
+    this.file = Paths.get(core.getDataDir(), fileName);
+    SnapshotListener listener = new SnapshotListener();
+    core.registerFirstSearcherListener(listener);
+    core.registerNewSearcherListener(listener);
+    core.addCloseHook(new CloseHook() {
+      @Override
+      public void preClose(SolrCore core) {
+        persist();
+      }
+
+      @Override
+      public void postClose(SolrCore core) {
+      }
+    });
+  }
+
+  @Override
+  public void prepare(ResponseBuilder rb) throws IOException {
+  }
+
+  @Override
+  public void process(ResponseBuilder rb) throws IOException {
+    SolrParams params = rb.req.getParams();
+    if (params.get(EventParams.EVENT) != null) {
+      // warming, including our own
+      return;
+    }
+    String key = getKey(params, rb.req.getPath());
+    if (key == null) {
+      return;
+    }
+    counts.computeIfAbsent(key, k -> new LongAdder()).increment();
+    if (counts.size() > 10 * maxQueries) {
+      prune();
+    }
+    Set<String> replayed = this.replayed;
+    if (!replayed.isEmpty()) {
+      requestsAfterWarming.increment();
+      if (replayed.contains(key)) {
+        warmHits.increment();
+      }
+    }
+  }
+
+  /** The key parameters of the request as a query string, or null if it has no query */
+  static String getKey(SolrParams params, String path) {
+    if (params.get(CommonParams.Q) == null) {
+      return null;
+    }
+    ModifiableSolrParams keyParams = new ModifiableSolrParams();
+    if (path != null) {
+      keyParams.set(CommonParams.QT, path);
+    }
+    // sorted, so that the same parameters in another order make the same key
+    List<String> names = new ArrayList<>();
+    params.getParameterNamesIterator().forEachRemaining(name -> {
+      if (KEY_PARAMS.contains(name)) {
+        names.add(name);
+      }
+    });
+    Collections.sort(names);
+    for (String name : names) {
+      String[] values = params.getParams(name);
+      if (CommonParams.FQ.equals(name)) {
+        values = values.clone();
+        Arrays.sort(values);
+      }
+      keyParams.set(name, values);
+    }
+    // without the leading '?'
+    return keyParams.toQueryString().substring(1);
+  }
+
+  /** Keeps the most frequent queries, once too many are tracked */
+  private synchronized void prune() {
+    if (counts.size() <= 10 * maxQueries) {
+      return;
+    }
+    List<Map.Entry<String, Long>> top = getTopQueries(2 * maxQueries);
+    counts.clear();
+    for (Map.Entry<String, Long> entry : top) {
+      counts.computeIfAbsent(entry.getKey(), k -> new LongAdder()).add(entry.getValue());
+    }
+  }
+
+  /** The most frequent queries with their counts, the most frequent first */
+  private List<Map.Entry<String, Long>> getTopQueries(int n) {
+    List<Map.Entry<String, Long>> entries = new ArrayList<>(counts.size());
+    for (Map.Entry<String, LongAdder> entry : counts.entrySet()) {
+      entries.add(new AbstractMap.SimpleImmutableEntry<>(entry.getKey(), entry.getValue().sum()));
+    }
+    entries.sort(Map.Entry.<String, Long>comparingByValue().reversed());
+    return entries.size() > n ? entries.subList(0, n) : entries;
+  }
+
+  /** Writes the most frequent queries to the file, one per line after its count */
+  synchronized void persist() {
+    lastPersisted = System.nanoTime();
+    List<Map.Entry<String, Long>> top = getTopQueries(maxQueries);
+    if (top.isEmpty()) {
+      return;
+    }
+    try {
+      Files.createDirectories(file.getParent());
+      Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+      try (BufferedWriter writer = Files.newBufferedWriter(tmp, StandardCharsets.UTF_8)) {
+        for (Map.Entry<String, Long> entry : top) {
+          writer.write(entry.getValue() + "\t" + entry.getKey());
+          writer.newLine();
+        }
+      }
+      try {
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+      } catch (AtomicMoveNotSupportedException e) {
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING);
+      }
+      log.debug("Persisted {} queries for cache warming to {}", top.size(), file);
+    } catch (IOException e) {
+      log.warn("Could not persist the queries for cache warming to {}", file, e);
+    }
+  }
+
+  /**
+   * Reads the queries persisted before. They're counted with half their counts, so that the queries of the past
+   * decay with every restart and the recent ones take over.
+   */
+  private List<String> load() {
+    List<String> queries = new ArrayList<>();
+    try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+      for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+        int tab = line.indexOf('\t');
+        if (tab <= 0) {
+          continue;
+        }
+        String key = line.substring(tab + 1);
+        long count = Long.parseLong(line.substring(0, tab)) / 2;
+        if (count > 0) {
+          counts.computeIfAbsent(key, k -> new LongAdder()).add(count);
+        }
+        queries.add(key);
+      }
+    } catch (NoSuchFileException e) {
+      // nothing was persisted yet
+    } catch (IOException | NumberFormatException e) {
+      log.warn("Could not read the queries for cache warming from {}", file, e);
+    }
+    return queries;
+  }
+
+  /** Sends the queries to the core, until the time budget is used up */
+  private void replay(List<String> queries) {
+    long start = System.nanoTime();
+    long deadline = start + TimeUnit.MILLISECONDS.toNanos(timeBudgetMs);
+    Set<String> done = ConcurrentHashMap.newKeySet();
+    for (String key : queries) {
+      if (System.nanoTime() > deadline || core.isClosed()) {
+        break;
+      }
+      ModifiableSolrParams params = new ModifiableSolrParams(SolrRequestParsers.parseQueryString(key));
+      String path = params.get(CommonParams.QT, "/select");
+      params.remove(CommonParams.QT);
+      params.set(EventParams.EVENT, EventParams.FIRST_SEARCHER);
+      params.set(CommonParams.DISTRIB, false);
+      SolrRequestHandler handler = core.getRequestHandler(path);
+      if (handler == null) {
+        continue;
+      }
+      SolrQueryRequest req = new LocalSolrQueryRequest(core, params);
+      SolrQueryResponse rsp = new SolrQueryResponse();
+      SolrRequestInfo.setRequestInfo(new SolrRequestInfo(req, rsp));
+      try {
+        core.execute(handler, req, rsp);
+        if (rsp.getException() == null) {
+          done.add(key);
+          replayedQueries.increment();
+        }
+      } catch (Exception e) {
+        // continue with the other queries, the failure was logged
+      } finally {
+        try {
+          req.close();
+        } finally {
+          SolrRequestInfo.clearRequestInfo();
+        }
+      }
+    }
+    replayTimeMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+    replayed = Collections.unmodifiableSet(done);
+    if (log.isInfoEnabled()) {
+      log.info("Warmed the caches with {} of {} queries in {} ms", done.size(), queries.size(), replayTimeMs);
+    }
+  }
+
+  /** Replays the persisted queries on the first searcher, and persists them on commits */
+  private class SnapshotListener implements SolrEventListener {
+    @Override
+    public void init(@SuppressWarnings({"rawtypes"}) NamedList args) {
+    }
+
+    @Override
+    public void postCommit() {
+    }
+
+    @Override
+    public void postSoftCommit() {
+    }
+
+    @Override
+    public void newSearcher(SolrIndexSearcher newSearcher, SolrIndexSearcher currentSearcher) {
+      if (currentSearcher == null) {
+        List<String> queries = load();
+        if (!queries.isEmpty()) {
+          // in the background, on whichever searcher is registered, so that the first searcher isn't held up
+          core.runAsync(() -> replay(queries));
+        }
+      } else if (System.nanoTime() - lastPersisted >= TimeUnit.MILLISECONDS.toNanos(persistIntervalMs)) {
+        persist();
+      }
+    }
+  }
+
+  @Override
+  public void initializeMetrics(SolrMetricsContext parentContext, String scope) {
+    super.initializeMetrics(parentContext, scope);
+    solrMetricsContext.gauge(replayedQueries::sum, true, "replayedQueries", getCategory().toString(), scope);
+    solrMetricsContext.gauge(() -> replayTimeMs, true, "replayTimeMs", getCategory().toString(), scope);
+    solrMetricsContext.gauge(warmHits::sum, true, "warmHits", getCategory().toString(), scope);
+    solrMetricsContext.gauge(() -> {
+      long requests = requestsAfterWarming.sum();
+      return requests == 0 ? 0.0 : (double) warmHits.sum() / requests;
+    }, true, "warmHitRatio", getCategory().toString(), scope);
+    solrMetricsContext.gauge(counts::size, true, "trackedQueries", getCategory().toString(), scope);
+  }
+
+  long getReplayedQueries() {
+    return replayedQueries.sum();
+  }
+
+  long getWarmHits() {
+    return warmHits.sum();
+  }
+
+  long getRequestsAfterWarming() {
+    return requestsAfterWarming.sum();
+  }
+
+  @Override
+  public String getDescription() {
+    return "Warms the caches of the first searcher with the most frequent queries before the core was closed";
+  }
+}
@@ -16,19 +16,25 @@
  */
 package org.apache.solr.handler.component;
 
+import java.security.Principal;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
 import io.opentracing.Span;
 import io.opentracing.Tracer;
 import io.opentracing.propagation.Format;
 import org.apache.solr.client.solrj.SolrRequest;
 import org.apache.solr.client.solrj.SolrResponse;
+import org.apache.solr.client.solrj.impl.BinaryResponseParser;
 import org.apache.solr.client.solrj.impl.LBHttp2SolrClient;
 import org.apache.solr.client.solrj.impl.LBSolrClient;
 import org.apache.solr.client.solrj.request.QueryRequest;
@@ -62,12 +68,20 @@ public class HttpShardHandler extends ShardHandler {
    */
   public static String ONLY_NRT_REPLICAS = "distribOnlyRealtime";
 
+  /** Only decodes the string field values of the documents in shard responses that are read, or not at all */
+  private static final BinaryResponseParser SHARD_RESPONSE_PARSER = new BinaryResponseParser().setLazyFieldValues(true);
+
   private HttpShardHandlerFactory httpShardHandlerFactory;
   private Map<ShardResponse, Cancellable> responseCancellableMap;
   private BlockingQueue<ShardResponse> responses;
   private AtomicInteger pending;
+  private final AtomicReference<Runnable> responseListener = new AtomicReference<>();
   private Map<String, List<String>> shardToURLs;
   private LBHttp2SolrClient lbClient;
+  // hedging of the shard requests, see prepDistributed
+  private boolean hedge;
+  private double hedgePercentile;
+  private long hedgeDelay;
 
   public HttpShardHandler(HttpShardHandlerFactory httpShardHandlerFactory) {
     this.httpShardHandlerFactory = httpShardHandlerFactory;
@@ -127,11 +141,12 @@ public class HttpShardHandler extends ShardHandler {
     final List<String> urls = getURLs(shard);
     final Tracer tracer = sreq.tracer; // not null
     final Span span = tracer.activeSpan(); // probably not null?
+    SolrRequestInfo requestInfo = SolrRequestInfo.getRequestInfo();
+    final Principal principal = requestInfo != null ? requestInfo.getReq().getUserPrincipal() : null;
 
     params.remove(CommonParams.WT); // use default (currently javabin)
     params.remove(CommonParams.VERSION);
-    QueryRequest req = makeQueryRequest(sreq, params, shard);
-    req.setMethod(SolrRequest.METHOD.POST);
+    QueryRequest req = newShardRequest(sreq, params, shard, tracer, span, principal);
 
     LBSolrClient.Req lbReq = httpShardHandlerFactory.newLBHttpSolrClientReq(req, urls);
 
@@ -156,36 +171,155 @@ public class HttpShardHandler extends ShardHandler {
       return;
     }
 
-    // all variables that set inside this listener must be at least volatile
-    responseCancellableMap.put(srsp, this.lbClient.asyncReq(lbReq, new AsyncListener<>() {
-      volatile long startTime = System.nanoTime();
+    PendingShardRequest pendingRequest = new PendingShardRequest(srsp, ssr);
+    responseCancellableMap.put(srsp, pendingRequest);
+    pendingRequest.send(lbReq);
+
+    long delay = urls.size() > 1 ? getHedgeDelay() : -1;
+    if (delay >= 0) {
+      // the hedged request tries the replicas starting from the next one
+      List<String> hedgeUrls = new ArrayList<>(urls.subList(1, urls.size()));
+      hedgeUrls.add(urls.get(0));
+      QueryRequest hedgeReq = newShardRequest(sreq, new ModifiableSolrParams(params), shard, tracer, span, principal);
+      pendingRequest.hedge(httpShardHandlerFactory.newLBHttpSolrClientReq(hedgeReq, hedgeUrls), delay);
+    }
+  }
+
+  private QueryRequest newShardRequest(ShardRequest sreq, ModifiableSolrParams params, String shard,
+                                       Tracer tracer, Span span, Principal principal) {
+    QueryRequest req = makeQueryRequest(sreq, params, shard);
+    req.setMethod(SolrRequest.METHOD.POST);
+    if (req.getResponseParser() == null) {
+      req.setResponseParser(SHARD_RESPONSE_PARSER);
+    }
+    if (span != null) {
+      tracer.inject(span.context(), Format.Builtin.HTTP_HEADERS, new SolrRequestCarrier(req));
+    }
+    if (principal != null) {
+      req.setUserPrincipal(principal);
+    }
+    return req;
+  }
+
+  /** The delay in milliseconds after which shard requests are hedged, or -1 if they are not */
+  private long getHedgeDelay() {
+    if (!hedge) {
+      return -1;
+    } else if (hedgeDelay >= 0) {
+      return hedgeDelay;
+    } else {
+      return lbClient.getLatencyTracker().getLatencyPercentile(hedgePercentile);
+    }
+  }
+
+  /**
+   * The requests for a shard response: the request to the replicas of the shard, and when hedged, the same request
+   * to the replicas starting from the next one, if the first isn't answered within the hedge delay. The first
+   * response completes the shard response, and cancels the other request. A failure only completes it if no other
+   * request can still succeed.
+   */
+  private class PendingShardRequest implements Cancellable {
+    private final ShardResponse srsp;
+    private final SimpleSolrResponse ssr;
+    private final long startTime = System.nanoTime();
+    // all guarded by this; requests are sent and cancelled outside of the lock, since their listeners take it
+    private final List<Cancellable> requests = new ArrayList<>(2);
+    private ScheduledFuture<?> scheduledHedge;
+    private int inFlight;
+    private boolean done;
+
+    PendingShardRequest(ShardResponse srsp, SimpleSolrResponse ssr) {
+      this.srsp = srsp;
+      this.ssr = ssr;
+    }
+
+    void send(LBSolrClient.Req lbReq) {
+      synchronized (this) {
+        if (done) return;
+        inFlight++;
+      }
+      Cancellable request = lbClient.asyncReq(lbReq, new AsyncListener<>() {
+        @Override
+        public void onSuccess(LBSolrClient.Rsp rsp) {
+          complete(rsp, null);
+        }
 
-      @Override
-      public void onStart() {
-        if (span != null) {
-          tracer.inject(span.context(), Format.Builtin.HTTP_HEADERS, new SolrRequestCarrier(req));
+        @Override
+        public void onFailure(Throwable throwable) {
+          complete(null, throwable);
         }
-        SolrRequestInfo requestInfo = SolrRequestInfo.getRequestInfo();
-        if (requestInfo != null) req.setUserPrincipal(requestInfo.getReq().getUserPrincipal());
+      });
+      boolean cancel;
+      synchronized (this) {
+        cancel = done;
+        if (!cancel) requests.add(request);
+      }
+      if (cancel) request.cancel();
+    }
+
+    void hedge(LBSolrClient.Req lbReq, long delay) {
+      ScheduledFuture<?> future;
+      try {
+        future = httpShardHandlerFactory.getHedgeExecutor().schedule(() -> send(lbReq), delay, TimeUnit.MILLISECONDS);
+      } catch (RejectedExecutionException e) {
+        return; // shutting down
+      }
+      boolean cancel;
+      synchronized (this) {
+        cancel = done;
+        if (!cancel) scheduledHedge = future;
+      }
+      if (cancel) future.cancel(false);
+    }
+
+    private void complete(LBSolrClient.Rsp rsp, Throwable failure) {
+      List<Cancellable> toCancel;
+      ScheduledFuture<?> hedgeToCancel;
+      synchronized (this) {
+        inFlight--;
+        if (done || (rsp == null && inFlight > 0)) return; // the other request may still succeed
+        done = true;
+        toCancel = new ArrayList<>(requests);
+        hedgeToCancel = scheduledHedge;
       }
+      // cancelling the request that completed has no effect
+      cancel(toCancel, hedgeToCancel);
 
-      @Override
-      public void onSuccess(LBSolrClient.Rsp rsp) {
+      ssr.elapsedTime = TimeUnit.MILLISECONDS.convert(System.nanoTime() - startTime, TimeUnit.NANOSECONDS);
+      if (rsp != null) {
         ssr.nl = rsp.getResponse();
         srsp.setShardAddress(rsp.getServer());
-        ssr.elapsedTime = TimeUnit.MILLISECONDS.convert(System.nanoTime() - startTime, TimeUnit.NANOSECONDS);
-        responses.add(srsp);
+      } else {
+        srsp.setException(failure);
+        if (failure instanceof SolrException) {
+          srsp.setResponseCode(((SolrException) failure).code());
+        }
       }
+      responses.add(srsp);
+      notifyResponseListener();
+    }
 
-      public void onFailure(Throwable throwable) {
-        ssr.elapsedTime = TimeUnit.MILLISECONDS.convert(System.nanoTime() - startTime, TimeUnit.NANOSECONDS);
-        srsp.setException(throwable);
-        if (throwable instanceof SolrException) {
-          srsp.setResponseCode(((SolrException) throwable).code());
-        }
-        responses.add(srsp);
+    @Override
+    public void cancel() {
+      List<Cancellable> toCancel;
+      ScheduledFuture<?> hedgeToCancel;
+      synchronized (this) {
+        if (done) return;
+        done = true;
+        toCancel = new ArrayList<>(requests);
+        hedgeToCancel = scheduledHedge;
       }
-    }));
+      cancel(toCancel, hedgeToCancel);
+    }
+
+    private void cancel(List<Cancellable> toCancel, ScheduledFuture<?> hedgeToCancel) {
+      if (hedgeToCancel != null) {
+        hedgeToCancel.cancel(false);
+      }
+      for (Cancellable request : toCancel) {
+        request.cancel();
+      }
+    }
   }
 
   /**
@@ -222,10 +356,46 @@ public class HttpShardHandler extends ShardHandler {
     return take(true);
   }
 
+  @Override
+  public ShardResponse pollCompletedIncludingErrors() {
+    return take(false, false);
+  }
+
+  @Override
+  public ShardResponse pollCompletedOrError() {
+    return take(true, false);
+  }
+
+  @Override
+  public boolean hasPendingResponses() {
+    return pending.get() > 0;
+  }
+
+  @Override
+  public void onResponseAvailable(Runnable listener) {
+    responseListener.set(listener);
+    // a response may have arrived before the listener was set
+    if (!responses.isEmpty() || pending.get() == 0) {
+      notifyResponseListener();
+    }
+  }
+
+  private void notifyResponseListener() {
+    Runnable listener = responseListener.getAndSet(null);
+    if (listener != null) {
+      listener.run();
+    }
+  }
+
   private ShardResponse take(boolean bailOnError) {
+    return take(bailOnError, true);
+  }
+
+  private ShardResponse take(boolean bailOnError, boolean wait) {
     try {
       while (pending.get() > 0) {
-        ShardResponse rsp = responses.take();
+        ShardResponse rsp = wait ? responses.take() : responses.poll();
+        if (rsp == null) return null; // nothing arrived yet
         responseCancellableMap.remove(rsp);
 
         pending.decrementAndGet();
@@ -265,6 +435,10 @@ public class HttpShardHandler extends ShardHandler {
     CloudDescriptor cloudDescriptor = coreDescriptor.getCloudDescriptor();
     ZkController zkController = req.getCore().getCoreContainer().getZkController();
 
+    hedge = params.getBool(ShardParams.SHARDS_HEDGE, false);
+    hedgePercentile = params.getDouble(ShardParams.SHARDS_HEDGE_PERCENTILE, 95);
+    hedgeDelay = params.getLong(ShardParams.SHARDS_HEDGE_DELAY, -1);
+
     final ReplicaListTransformer replicaListTransformer = httpShardHandlerFactory.getReplicaListTransformer(req);
 
     AllowListUrlChecker urlChecker = req.getCore().getCoreContainer().getAllowListUrlChecker();
@@ -24,6 +24,8 @@ import java.util.Random;
 import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
 import java.util.concurrent.SynchronousQueue;
 import java.util.concurrent.TimeUnit;
 
@@ -32,6 +34,7 @@ import org.apache.solr.client.solrj.impl.Http2SolrClient;
 import org.apache.solr.client.solrj.impl.HttpClientUtil;
 import org.apache.solr.client.solrj.impl.LBHttp2SolrClient;
 import org.apache.solr.client.solrj.impl.LBSolrClient;
+import org.apache.solr.client.solrj.routing.AdaptiveReplicaListTransformer;
 import org.apache.solr.client.solrj.routing.AffinityReplicaListTransformerFactory;
 import org.apache.solr.client.solrj.routing.ReplicaListTransformer;
 import org.apache.solr.client.solrj.routing.ReplicaListTransformerFactory;
@@ -46,6 +49,7 @@ import org.apache.solr.common.params.SolrParams;
 import org.apache.solr.common.util.ExecutorUtil;
 import org.apache.solr.common.util.IOUtils;
 import org.apache.solr.common.util.NamedList;
+import org.apache.solr.common.util.SolrNamedThreadFactory;
 import org.apache.solr.common.util.StrUtils;
 import org.apache.solr.common.util.URLUtil;
 import org.apache.solr.core.PluginInfo;
@@ -58,7 +62,6 @@ import org.apache.solr.request.SolrQueryRequest;
 import org.apache.solr.security.AllowListUrlChecker;
 import org.apache.solr.security.HttpClientBuilderPlugin;
 import org.apache.solr.update.UpdateShardHandlerConfig;
-import org.apache.solr.common.util.SolrNamedThreadFactory;
 import org.apache.solr.util.stats.InstrumentedHttpListenerFactory;
 import org.apache.solr.util.stats.MetricUtils;
 import org.slf4j.Logger;
@@ -80,6 +83,9 @@ public class HttpShardHandlerFactory extends ShardHandlerFactory implements org.
   // This executor is initialized in the init method
   private ExecutorService commExecutor;
 
+  // sends the hedged shard requests, see HttpShardHandler
+  private ScheduledThreadPoolExecutor hedgeExecutor;
+
   protected volatile Http2SolrClient defaultClient;
   protected InstrumentedHttpListenerFactory httpListenerFactory;
   protected LBHttp2SolrClient loadbalancer;
@@ -176,6 +182,9 @@ public class HttpShardHandlerFactory extends ShardHandlerFactory implements org.
             defaultRouting = checkDefaultReplicaListTransformer(c, key, defaultRouting);
             stableRltFactory = new AffinityReplicaListTransformerFactory(c);
             break;
+          case ShardParams.REPLICA_ADAPTIVE:
+            defaultRouting = checkDefaultReplicaListTransformer(getNamedList(e.getValue()), key, defaultRouting);
+            break;
           default:
             throw new IllegalArgumentException("invalid replica routing spec name: " + key);
         }
@@ -184,12 +193,17 @@ public class HttpShardHandlerFactory extends ShardHandlerFactory implements org.
     if (stableRltFactory == null) {
       stableRltFactory = new AffinityReplicaListTransformerFactory();
     }
+    final ReplicaListTransformer adaptiveRlt = new AdaptiveReplicaListTransformer(loadbalancer.getLatencyTracker(), r);
+    ReplicaListTransformerFactory adaptiveRltFactory =
+        (String configSpec, SolrParams requestParams, ReplicaListTransformerFactory fallback) -> adaptiveRlt;
     if (ShardParams.REPLICA_STABLE.equals(defaultRouting)) {
       defaultRltFactory = stableRltFactory;
+    } else if (ShardParams.REPLICA_ADAPTIVE.equals(defaultRouting)) {
+      defaultRltFactory = adaptiveRltFactory;
     } else {
       defaultRltFactory = RequestReplicaListTransformerGenerator.RANDOM_RLTF;
     }
-    this.requestReplicaListTransformerGenerator = new RequestReplicaListTransformerGenerator(defaultRltFactory, stableRltFactory);
+    this.requestReplicaListTransformerGenerator = new RequestReplicaListTransformerGenerator(defaultRltFactory, stableRltFactory, adaptiveRltFactory);
   }
 
   @Override
@@ -244,7 +258,7 @@ public class HttpShardHandlerFactory extends ShardHandlerFactory implements org.
         this.maximumPoolSize,
         this.keepAliveTime, TimeUnit.SECONDS,
         blockingQueue,
-        new SolrNamedThreadFactory("httpShardExecutor"),
+        ExecutorUtil.newThreadFactory("httpShardExecutor"),
         // the Runnable added to this executor handles all exceptions so we disable stack trace collection as an optimization
         // see SOLR-11880 for more details
         false
@@ -265,6 +279,9 @@ public class HttpShardHandlerFactory extends ShardHandlerFactory implements org.
         .maxConnectionsPerHost(maxConnectionsPerHost).build();
     this.defaultClient.addListenerFactory(this.httpListenerFactory);
     this.loadbalancer = new LBHttp2SolrClient(defaultClient);
+    this.hedgeExecutor = new ScheduledThreadPoolExecutor(1, new SolrNamedThreadFactory("httpShardHedgeExecutor"));
+    this.hedgeExecutor.setRemoveOnCancelPolicy(true);
+    this.hedgeExecutor.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
 
     initReplicaListTransformers(getParameter(args, "replicaRouting", null, sb));
 
@@ -301,6 +318,9 @@ public class HttpShardHandlerFactory extends ShardHandlerFactory implements org.
         }
       } finally {
         ExecutorUtil.shutdownAndAwaitTermination(commExecutor);
+        if (hedgeExecutor != null) {
+          ExecutorUtil.shutdownAndAwaitTermination(hedgeExecutor);
+        }
       }
     }
     try {
@@ -315,6 +335,11 @@ public class HttpShardHandlerFactory extends ShardHandlerFactory implements org.
     return solrMetricsContext;
   }
 
+  /** Schedules the hedged shard requests */
+  ScheduledExecutorService getHedgeExecutor() {
+    return hedgeExecutor;
+  }
+
   protected LBSolrClient.Req newLBHttpSolrClientReq(final QueryRequest req, List<String> urls) {
     int numServersToTry = (int)Math.floor(urls.size() * this.permittedLoadBalancerRequestsMaximumFraction);
     if (numServersToTry < this.permittedLoadBalancerRequestsMinimumAbsolute) {
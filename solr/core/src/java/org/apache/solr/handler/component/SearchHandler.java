@@ -54,10 +54,12 @@ import org.apache.solr.util.plugin.SolrCoreAware;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
 import java.io.PrintWriter;
 import java.io.StringWriter;
 import java.lang.invoke.MethodHandles;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.atomic.AtomicLong;
 
 import static org.apache.solr.common.params.CommonParams.*;
@@ -414,105 +416,10 @@ public class SearchHandler extends RequestHandlerBase implements SolrCoreAware,
       }
       rb.finished = new ArrayList<>();
 
-      int nextStage = 0;
-      do {
-        rb.stage = nextStage;
-        nextStage = ResponseBuilder.STAGE_DONE;
-
-        // call all components
-        for( SearchComponent c : components ) {
-          // the next stage is the minimum of what all components report
-          nextStage = Math.min(nextStage, c.distributedProcess(rb));
-        }
-
-
-        // check the outgoing queue and send requests
-        while (rb.outgoing.size() > 0) {
-
-          // submit all current request tasks at once
-          while (rb.outgoing.size() > 0) {
-            ShardRequest sreq = rb.outgoing.remove(0);
-            sreq.actualShards = sreq.shards;
-            if (sreq.actualShards==ShardRequest.ALL_SHARDS) {
-              sreq.actualShards = rb.shards;
-            }
-            sreq.responses = new ArrayList<>(sreq.actualShards.length); // presume we'll get a response from each shard we send to
-
-            // TODO: map from shard to address[]
-            for (String shard : sreq.actualShards) {
-              ModifiableSolrParams params = new ModifiableSolrParams(sreq.params);
-              params.remove(ShardParams.SHARDS);      // not a top-level request
-              params.set(DISTRIB, "false");               // not a top-level request
-              params.remove("indent");
-              params.remove(CommonParams.HEADER_ECHO_PARAMS);
-              params.set(ShardParams.IS_SHARD, true);  // a sub (shard) request
-              params.set(ShardParams.SHARDS_PURPOSE, sreq.purpose);
-              params.set(ShardParams.SHARD_URL, shard); // so the shard knows what was asked
-              params.set(CommonParams.OMIT_HEADER, false);
-
-              // Distributed request -- need to send queryID as a part of the distributed request
-              params.setNonNull(ShardParams.QUERY_ID, rb.queryID);
-              if (rb.requestInfo != null) {
-                // we could try and detect when this is needed, but it could be tricky
-                params.set("NOW", Long.toString(rb.requestInfo.getNOW().getTime()));
-              }
-              String shardQt = params.get(ShardParams.SHARDS_QT);
-              if (shardQt != null) {
-                params.set(CommonParams.QT, shardQt);
-              } else {
-                // for distributed queries that don't include shards.qt, use the original path
-                // as the default but operators need to update their luceneMatchVersion to enable
-                // this behavior since it did not work this way prior to 5.1
-                String reqPath = (String) req.getContext().get(PATH);
-                if (!"/select".equals(reqPath)) {
-                  params.set(CommonParams.QT, reqPath);
-                } // else if path is /select, then the qt gets passed thru if set
-              }
-              shardHandler1.submit(sreq, shard, params);
-            }
-          }
-
-
-          // now wait for replies, but if anyone puts more requests on
-          // the outgoing queue, send them out immediately (by exiting
-          // this loop)
-          boolean tolerant = ShardParams.getShardsTolerantAsBool(rb.req.getParams());
-          while (rb.outgoing.size() == 0) {
-            ShardResponse srsp = tolerant ? 
-                shardHandler1.takeCompletedIncludingErrors():
-                shardHandler1.takeCompletedOrError();
-            if (srsp == null) break;  // no more requests to wait for
-
-            // Was there an exception?  
-            if (srsp.getException() != null) {
-              // If things are not tolerant, abort everything and rethrow
-              if(!tolerant) {
-                shardHandler1.cancelAll();
-                if (srsp.getException() instanceof SolrException) {
-                  throw (SolrException)srsp.getException();
-                } else {
-                  throw new SolrException(SolrException.ErrorCode.SERVER_ERROR, srsp.getException());
-                }
-              } else {
-                rsp.getResponseHeader().asShallowMap().put(SolrQueryResponse.RESPONSE_HEADER_PARTIAL_RESULTS_KEY, Boolean.TRUE);
-              }
-            }
-
-            rb.finished.add(srsp.getShardRequest());
-
-            // let the components see the responses to the request
-            for(SearchComponent c : components) {
-              c.handleResponses(rb, srsp.getShardRequest());
-            }
-          }
-        }
-
-        for(SearchComponent c : components) {
-          c.finishStage(rb);
-        }
-
-        // we are done when the next stage is MAX_VALUE
-      } while (nextStage != Integer.MAX_VALUE);
+      DistributedSearch search = new DistributedSearch(rb, components, shardHandler1);
+      if (!search.run(rsp.isSuspendable() && isSuspendable())) {
+        return; // the search completes the suspended response
+      }
     }
     
     // SOLR-5550: still provide shards.info if requested even for a short circuited distrib request
@@ -547,6 +454,180 @@ public class SearchHandler extends RequestHandlerBase implements SolrCoreAware,
     }
   }
 
+  /**
+   * Whether distributed requests may release the thread handling the request while they wait for the shards to
+   * respond, when the response can be suspended (see {@link SolrQueryResponse#suspend()}). This is only the case of
+   * this class, since subclasses may process the response after {@link #handleRequestBody}.
+   */
+  protected boolean isSuspendable() {
+    return getClass() == SearchHandler.class;
+  }
+
+  /**
+   * Runs the stages of a distributed request. If the response is suspended, the stages continue on the threads of
+   * the dispatcher when the shards respond, instead of waiting for them.
+   */
+  private static class DistributedSearch {
+    private final ResponseBuilder rb;
+    private final List<SearchComponent> components;
+    private final ShardHandler shardHandler;
+    private final boolean tolerant;
+    private int nextStage = 0;
+    private boolean inStage = false; // the components processed the current stage
+    private boolean receiving = false; // requests of the current stage were sent
+    private CompletableFuture<Void> completion; // of the suspended response
+
+    DistributedSearch(ResponseBuilder rb, List<SearchComponent> components, ShardHandler shardHandler) {
+      this.rb = rb;
+      this.components = components;
+      this.shardHandler = shardHandler;
+      this.tolerant = ShardParams.getShardsTolerantAsBool(rb.req.getParams());
+    }
+
+    /**
+     * Runs the stages until the request is done, or until it must wait for the shards if {@code suspendable}
+     * @return true if the request is done, false if the response was suspended
+     */
+    boolean run(boolean suspendable) throws IOException {
+      do {
+        if (!inStage) {
+          rb.stage = nextStage;
+          nextStage = ResponseBuilder.STAGE_DONE;
+
+          // call all components
+          for( SearchComponent c : components ) {
+            // the next stage is the minimum of what all components report
+            nextStage = Math.min(nextStage, c.distributedProcess(rb));
+          }
+          inStage = true;
+        }
+
+        // send the requests of the outgoing queue, and wait for the replies, but if anyone puts
+        // more requests on the outgoing queue, send them out immediately
+        while (true) {
+          if (rb.outgoing.size() > 0) {
+            submitOutgoing();
+            receiving = true;
+          }
+          if (!receiving) break; // no requests in this stage
+
+          ShardResponse srsp;
+          if (suspendable) {
+            srsp = tolerant ?
+                shardHandler.pollCompletedIncludingErrors():
+                shardHandler.pollCompletedOrError();
+            if (srsp == null && shardHandler.hasPendingResponses()) {
+              suspend();
+              return false;
+            }
+          } else {
+            srsp = tolerant ?
+                shardHandler.takeCompletedIncludingErrors():
+                shardHandler.takeCompletedOrError();
+          }
+          if (srsp == null) break;  // no more requests to wait for
+
+          handleResponse(srsp);
+        }
+        receiving = false;
+
+        for(SearchComponent c : components) {
+          c.finishStage(rb);
+        }
+        inStage = false;
+
+        // we are done when the next stage is MAX_VALUE
+      } while (nextStage != Integer.MAX_VALUE);
+      return true;
+    }
+
+    private void suspend() {
+      if (completion == null) {
+        completion = rb.rsp.suspend(); // releases the thread handling the request
+      }
+      shardHandler.onResponseAvailable(() -> rb.rsp.resume(this::resume));
+    }
+
+    private void resume() {
+      try {
+        if (run(true)) {
+          completion.complete(null);
+        }
+      } catch (Throwable t) {
+        completion.completeExceptionally(t);
+      }
+    }
+
+    private void submitOutgoing() {
+      // submit all current request tasks at once
+      while (rb.outgoing.size() > 0) {
+        ShardRequest sreq = rb.outgoing.remove(0);
+        sreq.actualShards = sreq.shards;
+        if (sreq.actualShards==ShardRequest.ALL_SHARDS) {
+          sreq.actualShards = rb.shards;
+        }
+        sreq.responses = new ArrayList<>(sreq.actualShards.length); // presume we'll get a response from each shard we send to
+
+        // TODO: map from shard to address[]
+        for (String shard : sreq.actualShards) {
+          ModifiableSolrParams params = new ModifiableSolrParams(sreq.params);
+          params.remove(ShardParams.SHARDS);      // not a top-level request
+          params.set(DISTRIB, "false");               // not a top-level request
+          params.remove("indent");
+          params.remove(CommonParams.HEADER_ECHO_PARAMS);
+          params.set(ShardParams.IS_SHARD, true);  // a sub (shard) request
+          params.set(ShardParams.SHARDS_PURPOSE, sreq.purpose);
+          params.set(ShardParams.SHARD_URL, shard); // so the shard knows what was asked
+          params.set(CommonParams.OMIT_HEADER, false);
+
+          // Distributed request -- need to send queryID as a part of the distributed request
+          params.setNonNull(ShardParams.QUERY_ID, rb.queryID);
+          if (rb.requestInfo != null) {
+            // we could try and detect when this is needed, but it could be tricky
+            params.set("NOW", Long.toString(rb.requestInfo.getNOW().getTime()));
+          }
+          String shardQt = params.get(ShardParams.SHARDS_QT);
+          if (shardQt != null) {
+            params.set(CommonParams.QT, shardQt);
+          } else {
+            // for distributed queries that don't include shards.qt, use the original path
+            // as the default but operators need to update their luceneMatchVersion to enable
+            // this behavior since it did not work this way prior to 5.1
+            String reqPath = (String) rb.req.getContext().get(PATH);
+            if (!"/select".equals(reqPath)) {
+              params.set(CommonParams.QT, reqPath);
+            } // else if path is /select, then the qt gets passed thru if set
+          }
+          shardHandler.submit(sreq, shard, params);
+        }
+      }
+    }
+
+    private void handleResponse(ShardResponse srsp) {
+      // Was there an exception?
+      if (srsp.getException() != null) {
+        // If things are not tolerant, abort everything and rethrow
+        if(!tolerant) {
+          shardHandler.cancelAll();
+          if (srsp.getException() instanceof SolrException) {
+            throw (SolrException)srsp.getException();
+          } else {
+            throw new SolrException(SolrException.ErrorCode.SERVER_ERROR, srsp.getException());
+          }
+        } else {
+          rb.rsp.getResponseHeader().asShallowMap().put(SolrQueryResponse.RESPONSE_HEADER_PARTIAL_RESULTS_KEY, Boolean.TRUE);
+        }
+      }
+
+      rb.finished.add(srsp.getShardRequest());
+
+      // let the components see the responses to the request
+      for(SearchComponent c : components) {
+        c.handleResponses(rb, srsp.getShardRequest());
+      }
+    }
+  }
+
   private void tagRequestWithRequestId(ResponseBuilder rb) {
     final boolean ridTaggingDisabled = rb.req.getParams().getBool(CommonParams.DISABLE_REQUEST_ID, false);
     if (! ridTaggingDisabled) {
@@ -22,6 +22,36 @@ public abstract class ShardHandler {
   public abstract void submit(ShardRequest sreq, String shard, ModifiableSolrParams params);
   public abstract ShardResponse takeCompletedIncludingErrors();
   public abstract ShardResponse takeCompletedOrError();
+
+  /**
+   * Like {@link #takeCompletedIncludingErrors()}, but doesn't wait: returns null if no request is complete yet,
+   * or when there are no more responses to wait for (see {@link #hasPendingResponses()}).
+   */
+  public ShardResponse pollCompletedIncludingErrors() {
+    return takeCompletedIncludingErrors();
+  }
+
+  /**
+   * Like {@link #takeCompletedOrError()}, but doesn't wait: returns null if no request is complete yet,
+   * or when there are no more responses to wait for (see {@link #hasPendingResponses()}).
+   */
+  public ShardResponse pollCompletedOrError() {
+    return takeCompletedOrError();
+  }
+
+  /** Are there responses to wait for? */
+  public boolean hasPendingResponses() {
+    return false;
+  }
+
+  /**
+   * Calls {@code listener} once, when a response arrives, or right away if one already did (or there are none to
+   * wait for). It may be called by the thread receiving the response, so it must not do more than hand over the
+   * work to another thread.
+   */
+  public void onResponseAvailable(Runnable listener) {
+    listener.run();
+  }
   public abstract void cancelAll();
   public abstract ShardHandlerFactory getShardHandlerFactory();
 }
@@ -33,7 +33,6 @@ import org.apache.lucene.search.Sort;
 import org.apache.lucene.util.FixedBitSet;
 import org.apache.solr.common.IteratorWriter;
 import org.apache.solr.common.util.ExecutorUtil;
-import org.apache.solr.common.util.SolrNamedThreadFactory;
 import org.apache.solr.search.SolrIndexSearcher;
 import org.apache.solr.handler.export.ExportWriter.MergeIterator;
 import org.slf4j.Logger;
@@ -141,6 +140,8 @@ class ExportBuffers {
           Thread.currentThread().interrupt();
         }
         shutdownNow();
+      } finally {
+        mergeIterator.close();
       }
     };
   }
@@ -205,7 +206,7 @@ class ExportBuffers {
    * @throws IOException on errors
    */
   public void run(Callable<Boolean> writer) throws IOException {
-    service = ExecutorUtil.newMDCAwareFixedThreadPool(1, new SolrNamedThreadFactory("ExportBuffers"));
+    service = ExecutorUtil.newMDCAwareFixedThreadPool(1, ExecutorUtil.newThreadFactory("ExportBuffers"));
     try {
       CompletableFuture.runAsync(filler, service);
       writer.call();
@@ -26,6 +26,10 @@ import java.lang.invoke.MethodHandles;
 import java.nio.charset.StandardCharsets;
 import java.util.List;
 import java.util.TreeSet;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
 
 import org.apache.lucene.index.LeafReader;
 import org.apache.lucene.index.LeafReaderContext;
@@ -90,12 +94,17 @@ import static org.apache.solr.common.util.Utils.makeMap;
  * bitmap identifies the smallest docs (default is {@link #DEFAULT_BATCH_SIZE}) that haven't been sent yet and stores them in a
  * Priority Queue.  They are then exported (written across the wire) and marked as sent (unset in the bitmap).
  * This process repeats until all matching documents have been sent.
+ * <p>
+ * The bitmap of each segment is processed separately and the sorted batches of the segments are merged. When the
+ * core container has a search executor, the next batch of each segment is sorted on it while the current batches are
+ * merged, unless {@link #PARALLEL_SORT_PARAM} is false.
  */
 public class ExportWriter implements SolrCore.RawWriter, Closeable {
   private static final Logger log = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
 
   public static final String BATCH_SIZE_PARAM = "batchSize";
   public static final String QUEUE_SIZE_PARAM = "queueSize";
+  public static final String PARALLEL_SORT_PARAM = "parallelSort";
 
   public static final int DEFAULT_BATCH_SIZE = 30000;
   public static final int DEFAULT_QUEUE_SIZE = 150000;
@@ -111,6 +120,8 @@ public class ExportWriter implements SolrCore.RawWriter, Closeable {
   final int batchSize;
   //The max combined size of the segment level priority queues.
   private int priorityQueueSize;
+  //Sorts the next batch of each segment in the background, null to sort on the filler thread.
+  final Executor sortExecutor;
   StreamExpression streamExpression;
   StreamContext streamContext;
   FieldWriter[] fieldWriters;
@@ -132,6 +143,8 @@ public class ExportWriter implements SolrCore.RawWriter, Closeable {
     this.metricsPath = metricsPath;
     this.priorityQueueSize = req.getParams().getInt(QUEUE_SIZE_PARAM, DEFAULT_QUEUE_SIZE);
     this.batchSize = DEFAULT_BATCH_SIZE;
+    this.sortExecutor = req.getParams().getBool(PARALLEL_SORT_PARAM, true)
+        ? req.getCore().getCoreContainer().getSearchExecutor() : null;
   }
 
   @Override
@@ -658,6 +671,15 @@ public class ExportWriter implements SolrCore.RawWriter, Closeable {
       }
       return outDoc;
     }
+
+    /**
+     * Waits for the batches being sorted in the background, if any.
+     */
+    public void close() {
+      for (SegmentIterator segmentIterator : segmentIterators) {
+        segmentIterator.close();
+      }
+    }
   }
 
   public MergeIterator getMergeIterator(List<LeafReaderContext> leaves, FixedBitSet[] bits, SortDoc sortDoc) throws IOException {
@@ -699,10 +721,13 @@ public class ExportWriter implements SolrCore.RawWriter, Closeable {
         log.debug("Combined priority queue size {}:", combineQueueSize);
       }
 
+      //With a single segment there is nothing to sort in parallel with, and prefetching only doubles the memory
+      Executor executor = leaves.size() > 1 ? sortExecutor : null;
+
       SegmentIterator[] segmentIterators = new SegmentIterator[leaves.size()];
       for (int i = 0; i < segmentIterators.length; i++) {
         SortQueue sortQueue = new SortQueue(sizes[i], sortDoc.copy());
-        segmentIterators[i] = new SegmentIterator(bits[i], leaves.get(i), sortQueue, sortDoc.copy());
+        segmentIterators[i] = new SegmentIterator(bits[i], leaves.get(i), sortQueue, sortDoc.copy(), executor);
       }
 
       return new MergeIterator(segmentIterators, sortDoc);
@@ -710,42 +735,58 @@ public class ExportWriter implements SolrCore.RawWriter, Closeable {
     }
   }
 
+  /**
+   * Iterates over the matching documents of a segment in sort order, one batch of the size of the queue at a time.
+   * <p>
+   * With an executor, the next batch is sorted in the background, into a second queue, while the current batch is
+   * merged, so that the segments of the index are sorted in parallel. The filler thread sorts the next batch itself
+   * if the executor didn't start it yet.
+   */
   private static class SegmentIterator {
 
     private final FixedBitSet bits;
-    private final SortQueue queue;
     private final SortDoc sortDoc;
     private final LeafReaderContext context;
-    private final SortDoc[] outDocs;
+    private final Executor executor;
+
+    private SortQueue queue;
+    private SortDoc[] outDocs;
+    //Only used with an executor: the queue and array of the batch sorted in the background
+    private SortQueue nextQueue;
+    private SortDoc[] nextOutDocs;
+    private FutureTask<Integer> nextBatch;
+    private volatile boolean closed;
 
     private SortDoc nextDoc;
     private int index;
 
 
-    public SegmentIterator(FixedBitSet bits, LeafReaderContext context, SortQueue sortQueue, SortDoc sortDoc) throws IOException {
+    public SegmentIterator(FixedBitSet bits, LeafReaderContext context, SortQueue sortQueue, SortDoc sortDoc,
+                           Executor executor) throws IOException {
       this.bits = bits;
       this.queue = sortQueue;
       this.sortDoc = sortDoc;
       this.nextDoc = sortDoc.copy();
       this.context = context;
+      this.executor = executor;
       this.outDocs = new SortDoc[sortQueue.maxSize];
-      topDocs();
+      if (executor == null) {
+        index = topDocs(queue, outDocs);
+      } else {
+        this.nextQueue = new SortQueue(sortQueue.maxSize, sortDoc.copy());
+        this.nextOutDocs = new SortDoc[sortQueue.maxSize];
+        this.index = -1;
+        sortNextBatch();
+      }
     }
 
     public SortDoc next() throws IOException {
-      SortDoc _sortDoc = null;
-      if (index > -1) {
-        _sortDoc = outDocs[index--];
-      } else {
-        topDocs();
-        if (index > -1) {
-          _sortDoc = outDocs[index--];
-        }
+      if (index < 0) {
+        index = executor == null ? topDocs(queue, outDocs) : swapNextBatch();
       }
 
-      if (_sortDoc != null) {
-        //Clear the bit so it's not loaded again.
-        bits.clear(_sortDoc.docId);
+      if (index > -1) {
+        SortDoc _sortDoc = outDocs[index--];
 
         //Load the global ordinal (only matters for strings)
         _sortDoc.setGlobalValues(nextDoc);
@@ -759,7 +800,81 @@ public class ExportWriter implements SolrCore.RawWriter, Closeable {
       return nextDoc;
     }
 
-    private void topDocs() throws IOException {
+    /**
+     * Waits for the batch being sorted in the background, if any, so that it no longer reads the segment once this
+     * returns. A batch the executor didn't start yet is skipped.
+     */
+    public void close() {
+      closed = true;
+      if (nextBatch != null) {
+        nextBatch.run(); // no-op if already started by the executor
+        try {
+          nextBatch.get();
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+          //the batch is discarded anyway
+        }
+        nextBatch = null;
+      }
+    }
+
+    private void sortNextBatch() {
+      final SortQueue batchQueue = nextQueue;
+      final SortDoc[] batchDocs = nextOutDocs;
+      nextBatch = new FutureTask<>(() -> closed ? -1 : topDocs(batchQueue, batchDocs));
+      try {
+        executor.execute(nextBatch);
+      } catch (RejectedExecutionException e) {
+        //sorted on the filler thread by swapNextBatch
+      }
+    }
+
+    /**
+     * Waits for the batch sorted in the background and makes it the current one, then starts sorting the following
+     * batch unless this one was the last.
+     */
+    private int swapNextBatch() throws IOException {
+      if (nextBatch == null) {
+        return -1;
+      }
+      nextBatch.run(); // no-op if already started by the executor
+      final int lastIndex;
+      try {
+        lastIndex = nextBatch.get();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new IOException(e);
+      } catch (ExecutionException e) {
+        if (e.getCause() instanceof IOException) {
+          throw (IOException) e.getCause();
+        }
+        throw new IOException(e.getCause());
+      }
+
+      SortQueue swapQueue = queue;
+      queue = nextQueue;
+      nextQueue = swapQueue;
+      SortDoc[] swapDocs = outDocs;
+      outDocs = nextOutDocs;
+      nextOutDocs = swapDocs;
+
+      if (lastIndex + 1 < outDocs.length) {
+        //The queue wasn't full so there are no docs left
+        nextBatch = null;
+      } else {
+        sortNextBatch();
+      }
+      return lastIndex;
+    }
+
+    /**
+     * Fills the queue with the top docs that are still set in the bitmap, unsets them and copies them to the
+     * array in reverse order.
+     *
+     * @return the index of the last doc in the array, -1 if there are no docs left
+     */
+    private int topDocs(SortQueue queue, SortDoc[] outDocs) throws IOException {
       try {
         queue.reset();
         SortDoc top = queue.top();
@@ -775,14 +890,17 @@ public class ExportWriter implements SolrCore.RawWriter, Closeable {
         }
 
         //Pop the queue and load up the array.
-        index = -1;
+        int index = -1;
 
         SortDoc _sortDoc;
         while ((_sortDoc = queue.pop()) != null) {
           if (_sortDoc.docId > -1) {
             outDocs[++index] = _sortDoc;
+            //Clear the bit so it's not loaded again.
+            bits.clear(_sortDoc.docId);
           }
         }
+        return index;
       } catch (Exception e) {
         log.error("Segment Iterator Error:", e);
         throw new IOException(e);
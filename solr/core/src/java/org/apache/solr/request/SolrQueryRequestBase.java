@@ -116,7 +116,8 @@ public abstract class SolrQueryRequestBase implements SolrQueryRequest, Closeabl
   // The index searcher associated with this request
   protected RefCounted<SolrIndexSearcher> searcherHolder;
   @Override
-  public SolrIndexSearcher getSearcher() {
+  public synchronized SolrIndexSearcher getSearcher() {
+    // synchronized, as the workers of a PipelinedUpdateProcessor share the request
     if(core == null) return null;//a request for a core admin will not have a core
     // should this reach out and get a searcher from the core singleton, or
     // should the core populate one in a factory method to create requests?
@@ -103,6 +103,15 @@ public class SolrRequestInfo {
     assert isEmpty : "SolrRequestInfo Stack should have been cleared.";
   }
 
+  /**
+   * Removes the request infos of this thread without closing them, because their request was suspended: it continues
+   * on other threads setting them again, and the last one clears them.
+   * @see SolrQueryResponse#suspend()
+   */
+  public static void detachRequestInfo() {
+    threadLocal.get().clear();
+  }
+
   private static void closeHooks(SolrRequestInfo info) {
     if (info.closeHooks != null) {
       for (Closeable hook : info.closeHooks) {
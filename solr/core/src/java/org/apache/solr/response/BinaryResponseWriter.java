@@ -58,7 +58,7 @@ public class BinaryResponseWriter implements BinaryQueryResponseWriter {
     Resolver resolver = new Resolver(req, response.getReturnFields());
     if (req.getParams().getBool(CommonParams.OMIT_HEADER, false)) response.removeResponseHeader();
     try (JavaBinCodec jbc = new JavaBinCodec(resolver)) {
-      jbc.setWritableDocFields(resolver).marshal(response.getValues(), out);
+      jbc.setWritableDocFields(resolver).setPooledBuffers(true).marshal(response.getValues(), out);
     }
   }
 
@@ -18,9 +18,14 @@ package org.apache.solr.response;
 
 import java.io.IOException;
 import java.io.Writer;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 
+import org.apache.lucene.index.IndexableField;
+
 import org.apache.solr.common.PushWriter;
 import org.apache.solr.common.SolrDocument;
 import org.apache.solr.common.params.SolrParams;
@@ -28,6 +33,11 @@ import org.apache.solr.common.util.JsonTextWriter;
 import org.apache.solr.common.util.NamedList;
 import org.apache.solr.common.util.SimpleOrderedMap;
 import org.apache.solr.request.SolrQueryRequest;
+import org.apache.solr.schema.FieldType;
+import org.apache.solr.schema.NumberType;
+import org.apache.solr.schema.PointField;
+import org.apache.solr.schema.SchemaField;
+import org.apache.solr.schema.TrieField;
 import org.apache.solr.search.ReturnFields;
 
 /**
@@ -58,7 +68,7 @@ public class JSONResponseWriter implements QueryResponseWriter {
       w = new ArrayOfNameTypeValueJSONWriter(
           writer, req, rsp, wrapperFunction, namedListStyle, true);
     } else {
-      w = new JSONWriter(
+      w = new StreamingJSONWriter(
           writer, req, rsp, wrapperFunction, namedListStyle);
     }
 
@@ -75,7 +85,7 @@ public class JSONResponseWriter implements QueryResponseWriter {
   }
 
   public static PushWriter getPushWriter(Writer writer, SolrQueryRequest req, SolrQueryResponse rsp) {
-    return new JSONWriter(writer, req, rsp);
+    return new StreamingJSONWriter(writer, req, rsp);
   }
 
 
@@ -242,6 +252,221 @@ class ArrayOfNameTypeValueJSONWriter extends JSONWriter {
   }
 }
 
+/**
+ * Writes the same output as {@link JSONWriter}, with less work per value on large responses: keys that need no
+ * escaping (field names, facet bucket keys...) are rendered once per response, the fields of documents are written
+ * with their schema field looked up once per field name, stored numeric values are written without boxing them
+ * again, and integral numbers are written without creating a String.
+ */
+static class StreamingJSONWriter extends JSONWriter {
+  // bounds the per response caches, in case the keys are values (e.g. json.nl=map)
+  static final int MAX_CACHED_KEYS = 1000;
+
+  private final Map<String, String> keys = new HashMap<>();
+  private final Map<String, DocField> docFields = new HashMap<>();
+  private final char[] digits = new char[20];
+
+  public StreamingJSONWriter(Writer writer, SolrQueryRequest req, SolrQueryResponse rsp) {
+    super(writer, req, rsp);
+  }
+
+  public StreamingJSONWriter(Writer writer, SolrQueryRequest req, SolrQueryResponse rsp,
+                             String wrapperFunction, String namedListStyle) {
+    super(writer, req, rsp, wrapperFunction, namedListStyle);
+  }
+
+  @Override
+  public void writeKey(String fname, boolean needsEscaping) throws IOException {
+    String key = keys.get(fname);
+    if (key == null) {
+      if (keys.size() >= MAX_CACHED_KEYS || !isPlainKey(fname)) {
+        super.writeKey(fname, needsEscaping);
+        return;
+      }
+      key = '"' + fname + "\":";
+      keys.put(fname, key);
+    }
+    writer.write(key);
+  }
+
+  /** whether the key is written as is, with or without escaping */
+  private static boolean isPlainKey(String fname) {
+    for (int i = 0; i < fname.length(); i++) {
+      char ch = fname.charAt(i);
+      if (!((ch > '#' && ch != '\\' && ch < '\u2028') || ch == ' ')) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  @Override
+  public void writeSolrDocument(String name, SolrDocument doc, ReturnFields returnFields, int idx) throws IOException {
+    if( idx > 0 ) {
+      writeArraySeparator();
+    }
+
+    indent();
+    writeMapOpener(doc.size());
+    incLevel();
+
+    boolean first=true;
+    for (String fname : doc.getFieldNames()) {
+      if (returnFields!= null && !returnFields.wantsField(fname)) {
+        continue;
+      }
+
+      if (first) {
+        first=false;
+      }
+      else {
+        writeMapSeparator();
+      }
+
+      indent();
+      writeKey(fname, true);
+      writeFieldValue(fname, doc.getFieldValue(fname));
+    }
+
+    if(doc.hasChildDocuments()) {
+      if(first == false) {
+        writeMapSeparator();
+        indent();
+      }
+      writeKey("_childDocuments_", true);
+      writeArrayOpener(doc.getChildDocumentCount());
+      List<SolrDocument> childDocs = doc.getChildDocuments();
+      for(int i=0; i<childDocs.size(); i++) {
+        writeSolrDocument(null, childDocs.get(i), null, i);
+      }
+      writeArrayCloser();
+    }
+
+    decLevel();
+    writeMapCloser();
+  }
+
+  private void writeFieldValue(String fname, Object val) throws IOException {
+    if (val instanceof IndexableField) {
+      writeField(fname, (IndexableField) val);
+    } else if (val != null && val.getClass() == ArrayList.class) {
+      // the values of a multi-valued field
+      List<?> vals = (List<?>) val;
+      writeArrayOpener(vals.size());
+      incLevel();
+      for (int i = 0; i < vals.size(); i++) {
+        if (i > 0) {
+          writeArraySeparator();
+          indent();
+        }
+        Object v = vals.get(i);
+        if (v instanceof IndexableField) {
+          writeField(fname, (IndexableField) v);
+        } else {
+          writeVal(null, v);
+        }
+      }
+      decLevel();
+      writeArrayCloser();
+    } else {
+      writeVal(fname, val);
+    }
+  }
+
+  /** Writes a stored field like {@link #writeVal(String, Object)} does */
+  private void writeField(String fname, IndexableField f) throws IOException {
+    if (!fname.equals(f.name())) {
+      writeVal(fname, f);
+      return;
+    }
+    DocField field = docFields.get(fname);
+    if (field == null) {
+      field = new DocField(schema.getFieldOrNull(fname));
+      if (docFields.size() < MAX_CACHED_KEYS) {
+        docFields.put(fname, field);
+      }
+    }
+    if (field.numberType != null && f.fieldType().stored()) {
+      Number num = f.numericValue();
+      if (num != null) {
+        switch (field.numberType) {
+          case INTEGER:
+            writeInt(fname, num.intValue());
+            return;
+          case LONG:
+            writeLong(fname, num.longValue());
+            return;
+          case FLOAT:
+            writeFloat(fname, num.floatValue());
+            return;
+          case DOUBLE:
+            writeDouble(fname, num.doubleValue());
+            return;
+          default:
+            break;
+        }
+      }
+    }
+    if (field.schemaField != null) {
+      field.schemaField.getType().write(this, fname, f);
+    } else {
+      writeStr(fname, f.stringValue(), true);
+    }
+  }
+
+  @Override
+  public void writeNumber(String name, Number val) throws IOException {
+    if (val instanceof Integer) {
+      writeInt(name, val.intValue());
+    } else if (val instanceof Long) {
+      writeLong(name, val.longValue());
+    } else {
+      super.writeNumber(name, val);
+    }
+  }
+
+  @Override
+  public void writeInt(String name, int val) throws IOException {
+    writeDigits(val);
+  }
+
+  @Override
+  public void writeLong(String name, long val) throws IOException {
+    writeDigits(val);
+  }
+
+  private void writeDigits(long val) throws IOException {
+    if (val == Long.MIN_VALUE) {
+      writer.write(Long.toString(val));
+      return;
+    }
+    long abs = Math.abs(val);
+    int pos = digits.length;
+    do {
+      digits[--pos] = (char) ('0' + abs % 10);
+      abs /= 10;
+    } while (abs != 0);
+    if (val < 0) {
+      digits[--pos] = '-';
+    }
+    writer.write(digits, pos, digits.length - pos);
+  }
+
+  /** The schema field of a field name, and the type of its stored values if they can be written as is */
+  private static class DocField {
+    final SchemaField schemaField;
+    final NumberType numberType;
+
+    DocField(SchemaField schemaField) {
+      this.schemaField = schemaField;
+      FieldType type = schemaField == null ? null : schemaField.getType();
+      // the known numeric types write their stored value as is
+      this.numberType = type != null && (type instanceof PointField || type instanceof TrieField)
+          && DocsStreamer.KNOWN_TYPES.contains(type.getClass()) ? type.getNumberType() : null;
+    }
+  }
+}
+
 abstract static class NaNFloatWriter extends JSONWriter {
 
   abstract protected String getNaN();
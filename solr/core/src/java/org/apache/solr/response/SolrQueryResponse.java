@@ -21,6 +21,9 @@ import java.util.Date;
 import java.util.Iterator;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.Supplier;
 
 import javax.servlet.http.HttpServletResponse;
 
@@ -104,6 +107,14 @@ public class SolrQueryResponse {
    * Should this response be tagged with HTTP caching headers?
    */
   protected boolean httpCaching=true;
+
+  /**
+   * Starts the asynchronous processing of the request when the handler suspends this response, and returns the
+   * executor of the continuations of the handler; null if the response can't be suspended
+   */
+  private Supplier<Executor> suspender;
+  private Executor continuations;
+  private CompletableFuture<Void> completion;
   
   /***
    // another way of returning an error
@@ -361,4 +372,67 @@ public class SolrQueryResponse {
   public Iterator<Entry<String, String>> httpHeaders() {
     return headers.iterator();
   }
+
+  /**
+   * Allows the handler to {@link #suspend()} this response: {@code suspender} is called when it does, to release
+   * the thread handling the request, and returns the executor of the continuations of the handler.
+   */
+  public void setSuspender(Supplier<Executor> suspender) {
+    this.suspender = suspender;
+  }
+
+  /**
+   * Can the handler {@link #suspend()} this response?
+   * @return true if the thread handling the request can be released while the handler waits
+   */
+  public boolean isSuspendable() {
+    return suspender != null;
+  }
+
+  /**
+   * Suspends this response: the handler returns without completing it, and completes the returned future when it's
+   * done, from the continuations it {@link #resume(Runnable) resumes} with. The callers of the handler chain what
+   * they do after it on {@link #getCompletion()}. Must be called at most once, by the thread handling the request.
+   *
+   * @return the future that the handler completes
+   * @throws IllegalStateException if this response can't be suspended, or already is
+   */
+  public CompletableFuture<Void> suspend() {
+    if (suspender == null || completion != null) {
+      throw new IllegalStateException(suspender == null ? "This response can't be suspended" : "Already suspended");
+    }
+    continuations = suspender.get();
+    completion = new CompletableFuture<>();
+    return completion;
+  }
+
+  /**
+   * Was this response suspended by the handler?
+   * @return true if the response is completed by {@link #getCompletion()}
+   */
+  public boolean isSuspended() {
+    return completion != null;
+  }
+
+  /**
+   * Runs a continuation of the handler of a suspended response, on a thread of the request dispatcher
+   */
+  public void resume(Runnable continuation) {
+    continuations.execute(continuation);
+  }
+
+  /**
+   * Returns the completion of a suspended response, on which the callers of the handler chain what they do after it
+   * with {@link #setCompletion(CompletableFuture)}.
+   */
+  public CompletableFuture<Void> getCompletion() {
+    return completion;
+  }
+
+  public void setCompletion(CompletableFuture<Void> completion) {
+    if (this.completion == null) {
+      throw new IllegalStateException("Not suspended");
+    }
+    this.completion = completion;
+  }
 }
@@ -0,0 +1,255 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.solr.schema;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import org.apache.lucene.document.StoredField;
+import org.apache.lucene.document.VectorField;
+import org.apache.lucene.index.IndexableField;
+import org.apache.lucene.index.VectorValues;
+import org.apache.lucene.queries.function.ValueSource;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.SortField;
+import org.apache.solr.common.SolrException;
+import org.apache.solr.common.util.StrUtils;
+import org.apache.solr.response.TextResponseWriter;
+import org.apache.solr.search.KnnQParserPlugin;
+import org.apache.solr.search.QParser;
+import org.apache.solr.uninverting.UninvertingReader.Type;
+
+/**
+ * <p>
+ * {@code DenseVectorField}s index a vector of floats of a fixed dimension in a HNSW graph, for approximate
+ * nearest neighbor search with the {@link KnnQParserPlugin}. To use:
+ * </p>
+ * <p>
+ * Define the {@code DenseVectorField} {@code fieldType} in your schema, with the dimension of its vectors and
+ * the similarity function used to compare them ({@code euclidean} (the default), {@code dot_product}...):
+ * </p>
+ * <pre class="prettyprint">
+ * &lt;fieldType name="knn_vector" class="solr.DenseVectorField" vectorDimension="4" similarityFunction="euclidean"/&gt;
+ * </pre>
+ * <p>
+ * Add fields to the schema, i.e.:
+ * </p>
+ * <pre class="prettyprint">
+ * &lt;field name="vector" type="knn_vector" indexed="true" stored="true"/&gt;
+ * </pre>
+ * <p>
+ * The value of a vector field is given as the list of its values (e.g. a JSON array), or as a string like
+ * {@code [1.0, 2.5, 3.1, 4.0]}. The vector is returned as a list of floats if the field is stored.
+ * </p>
+ * Query using the {@link KnnQParserPlugin}, for example
+ * <pre class="prettyprint">
+ * http://localhost:8983/solr/techproducts?q={!knn f=vector topK=10}[1.0, 2.5, 3.1, 4.0]
+ * </pre>
+ *
+ * @see KnnQParserPlugin
+ * @lucene.experimental
+ */
+public class DenseVectorField extends FieldType {
+
+  public static final String VECTOR_DIMENSION = "vectorDimension";
+  public static final String SIMILARITY_FUNCTION = "similarityFunction";
+
+  private int dimension;
+  private VectorValues.SimilarityFunction similarityFunction;
+
+  @Override
+  protected void init(IndexSchema schema, Map<String, String> args) {
+    super.init(schema, args);
+    String dimensionArg = args.remove(VECTOR_DIMENSION);
+    if (dimensionArg == null) {
+      throw new SolrException(SolrException.ErrorCode.SERVER_ERROR,
+          "Field type " + typeName + ": the " + VECTOR_DIMENSION + " of the vectors is required");
+    }
+    try {
+      dimension = Integer.parseInt(dimensionArg);
+    } catch (NumberFormatException e) {
+      dimension = -1;
+    }
+    if (dimension <= 0 || dimension > VectorValues.MAX_DIMENSIONS) {
+      throw new SolrException(SolrException.ErrorCode.SERVER_ERROR, "Field type " + typeName + ": "
+          + VECTOR_DIMENSION + " must be an integer between 1 and " + VectorValues.MAX_DIMENSIONS + ": " + dimensionArg);
+    }
+
+    String similarityArg = args.remove(SIMILARITY_FUNCTION);
+    try {
+      similarityFunction = similarityArg == null ? VectorValues.SimilarityFunction.EUCLIDEAN
+          : VectorValues.SimilarityFunction.valueOf(similarityArg.toUpperCase(Locale.ROOT));
+    } catch (IllegalArgumentException e) {
+      similarityFunction = VectorValues.SimilarityFunction.NONE;
+    }
+    if (similarityFunction == VectorValues.SimilarityFunction.NONE) {
+      throw new SolrException(SolrException.ErrorCode.SERVER_ERROR,
+          "Field type " + typeName + ": unknown " + SIMILARITY_FUNCTION + ": " + similarityArg);
+    }
+
+    for (int prop : new int[] {DOC_VALUES, MULTIVALUED, SORT_MISSING_FIRST, SORT_MISSING_LAST}) {
+      if ((trueProperties & prop) != 0) {
+        throw new SolrException(SolrException.ErrorCode.SERVER_ERROR,
+            "Property \"" + getPropertyName(prop) + "\" can't be set to true on DenseVectorFields");
+      }
+    }
+    properties &= ~UNINVERTIBLE;
+  }
+
+  @Override
+  public void checkSchemaField(SchemaField field) {
+    super.checkSchemaField(field);
+    if (field.multiValued()) {
+      throw new SolrException(SolrException.ErrorCode.SERVER_ERROR,
+          "Field " + field.getName() + ": a DenseVectorField can't be multiValued");
+    }
+  }
+
+  public int getDimension() {
+    return dimension;
+  }
+
+  public VectorValues.SimilarityFunction getSimilarityFunction() {
+    return similarityFunction;
+  }
+
+  /**
+   * Parses a vector, from the list of its values (numbers or strings) or from a string like
+   * {@code [1.0, 2.5, 3.1]} (the brackets are optional)
+   *
+   * @throws SolrException if the value is not a vector of this type
+   */
+  public float[] parseVector(String fieldName, Object value) {
+    List<?> values;
+    if (value instanceof float[]) {
+      values = null;
+    } else if (value instanceof Collection && ((Collection<?>) value).size() != 1) {
+      values = new ArrayList<>((Collection<?>) value);
+    } else {
+      Object single = value instanceof Collection ? ((Collection<?>) value).iterator().next() : value;
+      String str = single.toString().trim();
+      if (str.startsWith("[") && str.endsWith("]")) {
+        str = str.substring(1, str.length() - 1);
+      }
+      values = StrUtils.splitSmart(str, ',');
+    }
+
+    float[] vector;
+    try {
+      if (values == null) {
+        vector = (float[]) value;
+      } else {
+        vector = new float[values.size()];
+        for (int i = 0; i < vector.length; i++) {
+          Object v = values.get(i);
+          vector[i] = v instanceof Number ? ((Number) v).floatValue() : Float.parseFloat(v.toString().trim());
+        }
+      }
+    } catch (NumberFormatException e) {
+      throw new SolrException(SolrException.ErrorCode.BAD_REQUEST,
+          "Error while creating field '" + fieldName + "' from value '" + value + "'. Expecting a vector of floats.", e);
+    }
+    if (vector.length != dimension) {
+      throw new SolrException(SolrException.ErrorCode.BAD_REQUEST, "Error while creating field '" + fieldName
+          + "' from value '" + value + "'. Expecting a vector of dimension " + dimension + ", got " + vector.length);
+    }
+    for (float v : vector) {
+      if (!Float.isFinite(v)) {
+        throw new SolrException(SolrException.ErrorCode.BAD_REQUEST, "Error while creating field '" + fieldName
+            + "' from value '" + value + "'. The values of a vector must be finite.");
+      }
+    }
+    return vector;
+  }
+
+  @Override
+  public IndexableField createField(SchemaField field, Object value) {
+    if (!field.indexed()) {
+      return null;
+    }
+    return new VectorField(field.getName(), parseVector(field.getName(), value), similarityFunction);
+  }
+
+  @Override
+  public List<IndexableField> createFields(SchemaField field, Object value) {
+    if (value == null) {
+      return Collections.emptyList();
+    }
+    float[] vector = parseVector(field.getName(), value);
+    List<IndexableField> fields = new ArrayList<>(field.stored() ? vector.length + 1 : 1);
+    if (field.indexed()) {
+      fields.add(new VectorField(field.getName(), vector, similarityFunction));
+    }
+    if (field.stored()) {
+      // in order, one stored value per dimension
+      for (float v : vector) {
+        fields.add(new StoredField(field.getName(), v));
+      }
+    }
+    return fields;
+  }
+
+  @Override
+  public Object toObject(IndexableField f) {
+    return f.numericValue();
+  }
+
+  @Override
+  public String toExternal(IndexableField f) {
+    return f.stringValue();
+  }
+
+  @Override
+  public void write(TextResponseWriter writer, String name, IndexableField f) throws IOException {
+    writer.writeFloat(name, f.numericValue().floatValue());
+  }
+
+  @Override
+  public Type getUninversionType(SchemaField sf) {
+    return null;
+  }
+
+  @Override
+  public ValueSource getValueSource(SchemaField field, QParser parser) {
+    throw new SolrException(SolrException.ErrorCode.BAD_REQUEST,
+        "Function queries are not supported on DenseVectorFields: " + field.getName());
+  }
+
+  @Override
+  public Query getFieldQuery(QParser parser, SchemaField field, String externalVal) {
+    throw new SolrException(SolrException.ErrorCode.BAD_REQUEST,
+        "DenseVectorFields can only be queried with the {!" + KnnQParserPlugin.NAME + "} query parser: " + field.getName());
+  }
+
+  @Override
+  protected Query getSpecializedRangeQuery(QParser parser, SchemaField field, String part1, String part2,
+                                           boolean minInclusive, boolean maxInclusive) {
+    throw new SolrException(SolrException.ErrorCode.BAD_REQUEST,
+        "Range queries are not supported on DenseVectorFields: " + field.getName());
+  }
+
+  @Override
+  public SortField getSortField(SchemaField field, boolean top) {
+    throw new SolrException(SolrException.ErrorCode.BAD_REQUEST,
+        "can not sort on a dense vector field: " + field.getName());
+  }
+}
@@ -137,6 +137,11 @@ public class DocSetUtil {
   // code to produce docsets for non-docsetproducer queries
   public static DocSet createDocSetGeneric(SolrIndexSearcher searcher, Query query) throws IOException {
 
+    DocSet parallel = searcher.createDocSetParallel(query);
+    if (parallel != null) {
+      return parallel;
+    }
+
     int maxDoc = searcher.getIndexReader().maxDoc();
     DocSetCollector collector = new DocSetCollector(maxDoc);
 
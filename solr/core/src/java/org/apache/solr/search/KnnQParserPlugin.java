@@ -0,0 +1,97 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.solr.search;
+
+import org.apache.lucene.search.Query;
+import org.apache.solr.common.SolrException;
+import org.apache.solr.common.params.SolrParams;
+import org.apache.solr.request.SolrQueryRequest;
+import org.apache.solr.schema.DenseVectorField;
+import org.apache.solr.schema.SchemaField;
+
+/**
+ * {@code KnnQParserPlugin} finds the {@code topK} documents whose vector (in a {@link DenseVectorField}) is the
+ * nearest to the vector of the query, using the HNSW graph of the vectors instead of scoring every document.
+ * The documents are scored by their similarity to the query vector. Usable as {@code q} or {@code fq}, e.g.:
+ * <pre class="prettyprint">
+ * q={!knn f=vector topK=10}[1.0, 2.5, 3.1, 4.0]
+ * </pre>
+ * <p>
+ * The nearest neighbors are found among all the documents: when used with other filters, the {@code topK} nearest
+ * documents are found first, and then filtered.
+ * </p>
+ *
+ * @see DenseVectorField
+ * @lucene.experimental
+ */
+public class KnnQParserPlugin extends QParserPlugin {
+
+  public static final String NAME = "knn";
+  public static final String FIELD = "f";
+  public static final String TOP_K = "topK";
+  /** the number of additional candidates explored in the graph of each segment, for a better recall */
+  public static final String FANOUT = "fanout";
+
+  public static final int DEFAULT_TOP_K = 10;
+
+  @Override
+  public QParser createParser(String qstr, SolrParams localParams, SolrParams params, SolrQueryRequest req) {
+    return new KnnQParser(qstr, localParams, params, req);
+  }
+
+  public static class KnnQParser extends QParser {
+
+    public KnnQParser(String qstr, SolrParams localParams, SolrParams params, SolrQueryRequest req) {
+      super(qstr, localParams, params, req);
+    }
+
+    @Override
+    public Query parse() throws SyntaxError {
+      String field = localParams.get(FIELD);
+      if (field == null || field.isEmpty()) {
+        throw new SyntaxError("Field can't be empty in knn queries");
+      }
+      SchemaField schemaField = req.getSchema().getFieldOrNull(field);
+      if (schemaField == null) {
+        throw new SyntaxError("Field \"" + field + "\" not found");
+      }
+      if (!(schemaField.getType() instanceof DenseVectorField)) {
+        throw new SyntaxError("Field \"" + field + "\" is not a DenseVectorField");
+      }
+      if (!schemaField.indexed()) {
+        throw new SyntaxError("Field \"" + field + "\" is not indexed");
+      }
+      int topK = localParams.getInt(TOP_K, DEFAULT_TOP_K);
+      int fanout = localParams.getInt(FANOUT, 0);
+      if (topK < 1 || fanout < 0) {
+        throw new SyntaxError(TOP_K + " must be positive and " + FANOUT + " can't be negative");
+      }
+      if (qstr == null || qstr.trim().isEmpty()) {
+        throw new SyntaxError("The vector to search can't be empty in knn queries");
+      }
+
+      DenseVectorField type = (DenseVectorField) schemaField.getType();
+      float[] target;
+      try {
+        target = type.parseVector(field, qstr);
+      } catch (SolrException e) {
+        throw new SyntaxError(e.getMessage(), e);
+      }
+      return new KnnQuery(field, target, topK, fanout, type.getSimilarityFunction());
+    }
+  }
+}
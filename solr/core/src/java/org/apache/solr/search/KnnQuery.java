@@ -0,0 +1,295 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.solr.search;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+
+import org.apache.lucene.index.LeafReader;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.VectorValues;
+import org.apache.lucene.search.DocIdSetIterator;
+import org.apache.lucene.search.Explanation;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.QueryVisitor;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.ScoreMode;
+import org.apache.lucene.search.Scorer;
+import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.search.Weight;
+import org.apache.lucene.util.Bits;
+
+/**
+ * Matches the {@code topK} documents whose vector is the nearest to a target vector, as found by searching the
+ * HNSW graph of the vectors of each segment. The score of a document is its similarity with the target, between
+ * 0 and 1: {@code 1 / (1 + squared distance)} for the euclidean similarity, {@code (1 + similarity) / 2} for the
+ * others.
+ *
+ * @see KnnQParserPlugin
+ * @lucene.experimental
+ */
+public class KnnQuery extends Query {
+
+  private final String field;
+  private final float[] target;
+  private final int topK;
+  private final int fanout;
+  private final VectorValues.SimilarityFunction similarityFunction;
+
+  public KnnQuery(String field, float[] target, int topK, int fanout, VectorValues.SimilarityFunction similarityFunction) {
+    this.field = Objects.requireNonNull(field);
+    this.target = Objects.requireNonNull(target);
+    this.topK = topK;
+    this.fanout = fanout;
+    this.similarityFunction = Objects.requireNonNull(similarityFunction);
+  }
+
+  @Override
+  public Weight createWeight(IndexSearcher searcher, ScoreMode scoreMode, float boost) throws IOException {
+    List<LeafReaderContext> leaves = searcher.getIndexReader().leaves();
+    List<Hit> hits = new ArrayList<>();
+    for (LeafReaderContext context : leaves) {
+      collectHits(context, hits);
+    }
+    hits.sort(Comparator.comparingDouble((Hit hit) -> -hit.score).thenComparingInt(hit -> hit.globalDoc));
+    if (hits.size() > topK) {
+      hits = hits.subList(0, topK);
+    }
+
+    // the nearest documents of each segment, in order
+    Hit[][] leafHits = new Hit[leaves.size()][];
+    int[] counts = new int[leaves.size()];
+    for (Hit hit : hits) {
+      counts[hit.leaf]++;
+    }
+    for (int i = 0; i < leafHits.length; i++) {
+      leafHits[i] = new Hit[counts[i]];
+      counts[i] = 0;
+    }
+    for (Hit hit : hits) {
+      leafHits[hit.leaf][counts[hit.leaf]++] = hit;
+    }
+    for (Hit[] leaf : leafHits) {
+      Arrays.sort(leaf, Comparator.comparingInt((Hit hit) -> hit.doc));
+    }
+    return new KnnWeight(this, leafHits, boost);
+  }
+
+  private void collectHits(LeafReaderContext context, List<Hit> hits) throws IOException {
+    LeafReader reader = context.reader();
+    TopDocs topDocs = reader.searchNearestVectors(field, target, topK, fanout);
+    VectorValues vectors = reader.getVectorValues(field);
+    if (topDocs == null || vectors == null) {
+      return;
+    }
+    Bits liveDocs = reader.getLiveDocs();
+    int[] docs = new int[topDocs.scoreDocs.length];
+    int numDocs = 0;
+    for (ScoreDoc scoreDoc : topDocs.scoreDocs) {
+      if (liveDocs == null || liveDocs.get(scoreDoc.doc)) {
+        docs[numDocs++] = scoreDoc.doc;
+      }
+    }
+    Arrays.sort(docs, 0, numDocs);
+    for (int i = 0; i < numDocs; i++) {
+      if (vectors.docID() > docs[i] || vectors.advance(docs[i]) != docs[i]) {
+        continue; // duplicate
+      }
+      hits.add(new Hit(context.ord, docs[i], context.docBase + docs[i], score(vectors.vectorValue())));
+    }
+  }
+
+  /** The similarity of a vector with the target, between 0 and 1 */
+  float score(float[] vector) {
+    if (similarityFunction == VectorValues.SimilarityFunction.EUCLIDEAN) {
+      float squareDistance = 0;
+      for (int i = 0; i < target.length; i++) {
+        float diff = target[i] - vector[i];
+        squareDistance += diff * diff;
+      }
+      return 1 / (1 + squareDistance);
+    }
+    float dotProduct = 0;
+    float targetNorm = 0;
+    float vectorNorm = 0;
+    for (int i = 0; i < target.length; i++) {
+      dotProduct += target[i] * vector[i];
+      targetNorm += target[i] * target[i];
+      vectorNorm += vector[i] * vector[i];
+    }
+    float similarity = similarityFunction == VectorValues.SimilarityFunction.DOT_PRODUCT ? dotProduct
+        : (float) (dotProduct / Math.sqrt((double) targetNorm * vectorNorm));
+    // unit vectors have a similarity between -1 and 1
+    return Math.max(0, Math.min(1, (1 + similarity) / 2));
+  }
+
+  @Override
+  public String toString(String defaultField) {
+    return "{!" + KnnQParserPlugin.NAME + " f=" + field + " topK=" + topK + (fanout > 0 ? " fanout=" + fanout : "")
+        + "}" + Arrays.toString(target);
+  }
+
+  @Override
+  public void visit(QueryVisitor visitor) {
+    if (visitor.acceptField(field)) {
+      visitor.visitLeaf(this);
+    }
+  }
+
+  @Override
+  public boolean equals(Object other) {
+    return sameClassAs(other) && equalsTo(getClass().cast(other));
+  }
+
+  private boolean equalsTo(KnnQuery other) {
+    return field.equals(other.field) &&
+        topK == other.topK &&
+        fanout == other.fanout &&
+        similarityFunction == other.similarityFunction &&
+        Arrays.equals(target, other.target);
+  }
+
+  @Override
+  public int hashCode() {
+    int result = classHash();
+    result = 31 * result + field.hashCode();
+    result = 31 * result + Arrays.hashCode(target);
+    result = 31 * result + topK;
+    result = 31 * result + fanout;
+    return result;
+  }
+
+  private static class Hit {
+    final int leaf;
+    final int doc;
+    final int globalDoc;
+    final float score;
+
+    Hit(int leaf, int doc, int globalDoc, float score) {
+      this.leaf = leaf;
+      this.doc = doc;
+      this.globalDoc = globalDoc;
+      this.score = score;
+    }
+  }
+
+  private static class KnnWeight extends Weight {
+    private final Hit[][] leafHits;
+    private final float boost;
+
+    KnnWeight(Query query, Hit[][] leafHits, float boost) {
+      super(query);
+      this.leafHits = leafHits;
+      this.boost = boost;
+    }
+
+    @Override
+    public Explanation explain(LeafReaderContext context, int doc) throws IOException {
+      for (Hit hit : leafHits[context.ord]) {
+        if (hit.doc == doc) {
+          return Explanation.match(hit.score * boost, "within top " + ((KnnQuery) getQuery()).topK
+              + " nearest vectors, similarity to the target");
+        }
+      }
+      return Explanation.noMatch("not within top " + ((KnnQuery) getQuery()).topK + " nearest vectors");
+    }
+
+    @Override
+    public Scorer scorer(LeafReaderContext context) throws IOException {
+      Hit[] hits = leafHits[context.ord];
+      return hits.length == 0 ? null : new KnnScorer(this, hits, boost);
+    }
+
+    @Override
+    public boolean isCacheable(LeafReaderContext ctx) {
+      // the matches of a segment depend on the other segments
+      return false;
+    }
+  }
+
+  private static class KnnScorer extends Scorer {
+    private final Hit[] hits;
+    private final float boost;
+    private final float maxScore;
+    private int index = -1;
+
+    private final DocIdSetIterator iterator = new DocIdSetIterator() {
+      @Override
+      public int docID() {
+        if (index < 0) {
+          return -1;
+        }
+        return index < hits.length ? hits[index].doc : NO_MORE_DOCS;
+      }
+
+      @Override
+      public int nextDoc() {
+        index++;
+        return docID();
+      }
+
+      @Override
+      public int advance(int target) {
+        do {
+          index++;
+        } while (index < hits.length && hits[index].doc < target);
+        return docID();
+      }
+
+      @Override
+      public long cost() {
+        return hits.length;
+      }
+    };
+
+    KnnScorer(Weight weight, Hit[] hits, float boost) {
+      super(weight);
+      this.hits = hits;
+      this.boost = boost;
+      float max = 0;
+      for (Hit hit : hits) {
+        max = Math.max(max, hit.score);
+      }
+      this.maxScore = max * boost;
+    }
+
+    @Override
+    public float score() throws IOException {
+      return hits[index].score * boost;
+    }
+
+    @Override
+    public float getMaxScore(int upTo) throws IOException {
+      return maxScore;
+    }
+
+    @Override
+    public DocIdSetIterator iterator() {
+      return iterator;
+    }
+
+    @Override
+    public int docID() {
+      return iterator.docID();
+    }
+  }
+}
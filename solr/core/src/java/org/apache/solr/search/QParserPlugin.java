@@ -88,6 +88,7 @@ public abstract class QParserPlugin implements NamedListInitializedPlugin, SolrI
     map.put(MinHashQParserPlugin.NAME, new MinHashQParserPlugin());
     map.put(HashRangeQParserPlugin.NAME, new HashRangeQParserPlugin());
     map.put(RankQParserPlugin.NAME, new RankQParserPlugin());
+    map.put(KnnQParserPlugin.NAME, new KnnQParserPlugin());
 
     standardPlugins = Collections.unmodifiableMap(map);
   }
@@ -0,0 +1,180 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.solr.search;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.LongBuffer;
+
+import org.apache.lucene.search.DocIdSetIterator;
+import org.apache.lucene.util.Bits;
+import org.apache.lucene.util.FixedBitSet;
+import org.apache.lucene.util.RamUsageEstimator;
+
+/**
+ * An immutable bit set over the documents of a single segment, used for the segment level entries
+ * of {@link SegmentFilterCache}. The words either live in direct (off-heap) memory, in which case
+ * only the small wrapper object is on the Java heap so that large numbers of these don't inflate
+ * the old generation, or in a heap {@code long[]}. Direct memory is released once the instance is
+ * garbage collected, not when it's evicted from the cache: searchers may read it concurrently, so it
+ * can't be freed explicitly without reference counting every read. {@link SegmentFilterCache} leaves
+ * headroom for that in its limit.
+ *
+ * @lucene.internal
+ */
+final class SegmentBitSet implements Bits {
+  static final long BASE_RAM_BYTES_USED = RamUsageEstimator.shallowSizeOfInstance(SegmentBitSet.class)
+      + 2 * RamUsageEstimator.NUM_BYTES_OBJECT_HEADER; // the ByteBuffer and LongBuffer view objects
+
+  private final LongBuffer words;
+  private final int numBits;
+  private final int numWords;
+  private final int cardinality;
+
+  private SegmentBitSet(LongBuffer words, int numBits, int cardinality) {
+    this.words = words;
+    this.numBits = numBits;
+    this.numWords = FixedBitSet.bits2words(numBits);
+    this.cardinality = cardinality;
+  }
+
+  /**
+   * Copies the docs of the iterator, which must all be less than {@code numBits}.
+   * @param it may be null, which results in an empty set
+   * @param offHeap whether to allocate the bits in direct memory
+   */
+  static SegmentBitSet copyOf(DocIdSetIterator it, int numBits, boolean offHeap) throws IOException {
+    LongBuffer words = offHeap ? allocateDirect(numBits) : LongBuffer.allocate(FixedBitSet.bits2words(numBits));
+    int cardinality = 0;
+    if (it != null) {
+      int wordIndex = -1;
+      long word = 0L;
+      for (int doc = it.nextDoc(); doc != DocIdSetIterator.NO_MORE_DOCS; doc = it.nextDoc()) {
+        assert doc < numBits;
+        int i = doc >> 6;
+        if (i != wordIndex) {
+          if (wordIndex >= 0) {
+            words.put(wordIndex, word);
+          }
+          wordIndex = i;
+          word = 0L;
+        }
+        word |= 1L << doc;
+        cardinality++;
+      }
+      if (wordIndex >= 0) {
+        words.put(wordIndex, word);
+      }
+    }
+    return new SegmentBitSet(words, numBits, cardinality);
+  }
+
+  private static LongBuffer allocateDirect(int numBits) {
+    // direct buffers are zero filled
+    return ByteBuffer.allocateDirect(FixedBitSet.bits2words(numBits) * Long.BYTES)
+        .order(ByteOrder.nativeOrder())
+        .asLongBuffer();
+  }
+
+  @Override
+  public boolean get(int index) {
+    assert index >= 0 && index < numBits : "index=" + index + ", numBits=" + numBits;
+    return (words.get(index >> 6) & (1L << index)) != 0;
+  }
+
+  @Override
+  public int length() {
+    return numBits;
+  }
+
+  /** The number of set bits. */
+  int cardinality() {
+    return cardinality;
+  }
+
+  /** Whether the bits are held in direct memory. */
+  boolean isOffHeap() {
+    return words.isDirect();
+  }
+
+  /** Number of bytes used by the bits, on or off heap. */
+  long bitsBytesUsed() {
+    return (long) numWords * Long.BYTES;
+  }
+
+  /**
+   * Sets the bits of this set, shifted by {@code docBase}, in {@code target}; skipping those that
+   * aren't set in {@code liveDocs} (if non-null).
+   * @return the number of bits set
+   */
+  int orInto(FixedBitSet target, int docBase, Bits liveDocs) {
+    int count = 0;
+    for (int i = 0; i < numWords; i++) {
+      long word = words.get(i);
+      while (word != 0L) {
+        int doc = (i << 6) + Long.numberOfTrailingZeros(word);
+        word &= word - 1; // clear lowest set bit
+        if (liveDocs == null || liveDocs.get(doc)) {
+          target.set(docBase + doc);
+          count++;
+        }
+      }
+    }
+    return count;
+  }
+
+  /** An iterator over the set bits that are also set in {@code liveDocs} (if non-null). */
+  DocIdSetIterator iterator(Bits liveDocs) {
+    return new DocIdSetIterator() {
+      int doc = -1;
+
+      @Override
+      public int docID() {
+        return doc;
+      }
+
+      @Override
+      public int nextDoc() {
+        return advance(doc + 1);
+      }
+
+      @Override
+      public int advance(int target) {
+        while (target < numBits) {
+          int i = target >> 6;
+          long word = words.get(i) >>> target; // shifts by target mod 64
+          if (word != 0L) {
+            int next = target + Long.numberOfTrailingZeros(word);
+            if (liveDocs == null || liveDocs.get(next)) {
+              return doc = next;
+            }
+            target = next + 1;
+          } else {
+            target = (i + 1) << 6;
+          }
+        }
+        return doc = NO_MORE_DOCS;
+      }
+
+      @Override
+      public long cost() {
+        return cardinality;
+      }
+    };
+  }
+}
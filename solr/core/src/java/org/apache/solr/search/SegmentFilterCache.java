@@ -0,0 +1,716 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.solr.search;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Policy.Eviction;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import com.google.common.annotations.VisibleForTesting;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.search.DocIdSetIterator;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.ScoreMode;
+import org.apache.lucene.search.Scorer;
+import org.apache.lucene.search.Weight;
+import org.apache.lucene.util.Accountable;
+import org.apache.lucene.util.FixedBitSet;
+import org.apache.lucene.util.RamUsageEstimator;
+import org.apache.solr.common.SolrException;
+import org.apache.solr.metrics.MetricsMap;
+import org.apache.solr.metrics.SolrMetricsContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A filterCache implementation that, in addition to the usual top-level {@link DocSet}s, keeps the
+ * matching documents of every cached query per segment, in {@link SegmentBitSet}s keyed by
+ * (query, segment core key). The segment level entries are shared by the caches of all searchers of a
+ * core (through the cache "persistence" object), so when a new searcher is opened only the segments
+ * it doesn't share with the previous searcher need to be searched to rebuild an entry: autowarming
+ * cost is proportional to the new segments rather than the index size.
+ * <p>
+ * Configuration, in addition to the usual {@code size}, {@code maxRamMB} (both for the top-level
+ * entries) and {@code autowarmCount}:
+ * <ul>
+ *   <li>{@code offHeap}: whether segment level entries are kept in direct memory, so that multi-GB
+ *   filter caches don't live in the old generation (default true)</li>
+ *   <li>{@code maxOffHeapMB}: limit on the memory used by segment level entries (default 1024). It
+ *   applies to heap memory when {@code offHeap=false}. Off heap, the entries of all cores also share a
+ *   budget of half the direct memory of the JVM (see {@link #maxDirectMemory()}), and an entry that doesn't
+ *   fit in it isn't cached: the direct memory of evicted entries is only released once their
+ *   {@link SegmentBitSet} is garbage collected, since a searcher may still be reading it, so evicted
+ *   entries can hold direct memory beyond the limit until the next collection of the old generation.</li>
+ *   <li>{@code lazy}: if true (the default), autowarming only searches the new segments of the
+ *   hottest entries and top-level sets are assembled when first looked up; a lookup for which only
+ *   some segments are cached searches the missing ones instead of the whole index. If false,
+ *   autowarming assembles the top-level sets, and a lookup with missing segments is a miss.</li>
+ * </ul>
+ * Deleted documents aren't part of the segment level entries (they are keyed by the segment core, not
+ * the segment reader), they are applied when a top-level {@link DocSet} is assembled, so new deletes
+ * don't invalidate them. Queries whose {@link Weight} isn't
+ * {@link Weight#isCacheable(LeafReaderContext) cacheable} for a segment (e.g. because they depend on
+ * updated doc values) are only cached at the top level.
+ * The configured regenerator is not used.
+ *
+ * @lucene.experimental
+ */
+public class SegmentFilterCache extends SolrCacheBase implements SolrCache<Query,DocSet>, Accountable {
+  private static final Logger log = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+
+  public static final String MAX_OFF_HEAP_MB_PARAM = "maxOffHeapMB";
+  public static final String OFF_HEAP_PARAM = "offHeap";
+  public static final String LAZY_PARAM = "lazy";
+
+  /** The direct memory the segment level entries of all cores may use together */
+  static final DirectMemoryBudget DIRECT_MEMORY_BUDGET = new DirectMemoryBudget(maxDirectMemory() / 2);
+
+  private static final long BASE_RAM_BYTES_USED = RamUsageEstimator.shallowSizeOfInstance(SegmentFilterCache.class)
+      + 7 * RamUsageEstimator.shallowSizeOfInstance(LongAdder.class);
+
+  private Cache<Query,DocSet> cache;
+  private SegmentStore store;
+  private volatile SolrIndexSearcher searcher;
+
+  private int maxSize;
+  private long maxRamBytes;
+  private int initialSize;
+  private boolean lazy;
+  private String description = "Segment Filter Cache";
+  private long warmupTime;
+
+  private final LongAdder lookups = new LongAdder();
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder inserts = new LongAdder();
+  private final LongAdder segmentHits = new LongAdder();
+  private final LongAdder segmentMisses = new LongAdder();
+  private final LongAdder ramBytes = new LongAdder();
+  private long priorLookups;
+  private long priorHits;
+
+  private MetricsMap cacheMap;
+  private SolrMetricsContext solrMetricsContext;
+
+  @Override
+  @SuppressWarnings({"unchecked", "rawtypes"})
+  public Object init(Map args, Object persistence, CacheRegenerator regenerator) {
+    super.init(args, regenerator);
+    String str = (String) args.get(SIZE_PARAM);
+    maxSize = (str == null) ? 1024 : Integer.parseInt(str);
+    str = (String) args.get(INITIAL_SIZE_PARAM);
+    initialSize = Math.min((str == null) ? 1024 : Integer.parseInt(str), maxSize);
+    str = (String) args.get(MAX_RAM_MB_PARAM);
+    int maxRamMB = str == null ? -1 : Double.valueOf(str).intValue();
+    maxRamBytes = maxRamMB < 0 ? Long.MAX_VALUE : maxRamMB * 1024L * 1024L;
+    str = (String) args.get(MAX_OFF_HEAP_MB_PARAM);
+    long maxOffHeapBytes = (str == null ? 1024L : Double.valueOf(str).longValue()) * 1024L * 1024L;
+    str = (String) args.get(OFF_HEAP_PARAM);
+    boolean offHeap = str == null || Boolean.parseBoolean(str);
+    str = (String) args.get(LAZY_PARAM);
+    lazy = str == null || Boolean.parseBoolean(str);
+    if (offHeap && maxOffHeapBytes > DIRECT_MEMORY_BUDGET.maxBytes) {
+      long cappedBytes = DIRECT_MEMORY_BUDGET.maxBytes;
+      log.warn("{}={} exceeds half the direct memory of the JVM, using {} MB; raise -XX:MaxDirectMemorySize to use more",
+          MAX_OFF_HEAP_MB_PARAM, maxOffHeapBytes / 1024L / 1024L, cappedBytes / 1024L / 1024L);
+      maxOffHeapBytes = cappedBytes;
+    }
+
+    cache = buildCache(null);
+
+    if (persistence instanceof SegmentStore && ((SegmentStore) persistence).maxBytes == maxOffHeapBytes
+        && ((SegmentStore) persistence).offHeap == offHeap) {
+      store = (SegmentStore) persistence;
+    } else {
+      store = new SegmentStore(maxOffHeapBytes, offHeap, offHeap ? DIRECT_MEMORY_BUDGET : null);
+    }
+    description = generateDescription();
+    return store;
+  }
+
+  /**
+   * The direct memory limit of the JVM: {@code -XX:MaxDirectMemorySize} if it's set, the max heap size
+   * otherwise, as for the JVM.
+   */
+  static long maxDirectMemory() {
+    long max = Runtime.getRuntime().maxMemory();
+    try {
+      for (String arg : ManagementFactory.getRuntimeMXBean().getInputArguments()) {
+        if (arg.startsWith("-XX:MaxDirectMemorySize=")) {
+          long size = parseSize(arg.substring("-XX:MaxDirectMemorySize=".length()));
+          if (size > 0) {
+            max = size;
+          }
+        }
+      }
+    } catch (SecurityException | NumberFormatException e) {
+      log.debug("Could not get the direct memory limit of the JVM, assuming the max heap size", e);
+    }
+    return max;
+  }
+
+  /** Parses a JVM memory size, e.g. 512m */
+  static long parseSize(String size) {
+    if (size.isEmpty()) {
+      throw new NumberFormatException("Empty size");
+    }
+    int shift = "kmgt".indexOf(Character.toLowerCase(size.charAt(size.length() - 1)));
+    if (shift < 0) {
+      return Long.parseLong(size);
+    }
+    return Long.parseLong(size.substring(0, size.length() - 1)) << (10 * (shift + 1));
+  }
+
+  private Cache<Query,DocSet> buildCache(Cache<Query,DocSet> prev) {
+    Caffeine<Object,Object> builder = Caffeine.newBuilder()
+        .initialCapacity(initialSize)
+        .executor(Runnable::run)
+        .recordStats();
+    if (maxRamBytes != Long.MAX_VALUE) {
+      builder.maximumWeight(maxRamBytes);
+      builder.weigher((k, v) -> (int) (RamUsageEstimator.sizeOfObject(k) + RamUsageEstimator.sizeOfObject(v)));
+    } else {
+      builder.maximumSize(maxSize);
+    }
+    Cache<Query,DocSet> newCache = builder.removalListener(this::onRemoval).build();
+    if (prev != null) {
+      newCache.putAll(prev.asMap());
+    }
+    return newCache;
+  }
+
+  private void onRemoval(Query key, DocSet value, RemovalCause cause) {
+    ramBytes.add(-ramBytesUsed(key, value));
+  }
+
+  private static long ramBytesUsed(Query key, DocSet value) {
+    return RamUsageEstimator.sizeOfObject(key, RamUsageEstimator.QUERY_DEFAULT_RAM_BYTES_USED)
+        + RamUsageEstimator.sizeOfObject(value, RamUsageEstimator.QUERY_DEFAULT_RAM_BYTES_USED)
+        + RamUsageEstimator.LINKED_HASHTABLE_RAM_BYTES_PER_ENTRY;
+  }
+
+  /**
+   * Called by the searcher owning this cache, before it is used.
+   * Segment level entries can only be used once the searcher is known.
+   */
+  void setSearcher(SolrIndexSearcher searcher) {
+    this.searcher = searcher;
+  }
+
+  @Override
+  public DocSet get(Query key) {
+    lookups.increment();
+    DocSet result = cache.getIfPresent(key);
+    if (result != null) {
+      hits.increment();
+      return result;
+    }
+    Segments segments = segments(key);
+    if (segments == null || segments.missing == segments.sets.length || (segments.missing > 0 && !lazy)) {
+      return null;
+    }
+    if (segments.missing == 0) {
+      hits.increment();
+    }
+    result = segments.assemble(true);
+    putTopLevel(key, result);
+    return result;
+  }
+
+  @Override
+  public DocSet put(Query key, DocSet value) {
+    DocSet old = putTopLevel(key, value);
+    SolrIndexSearcher searcher = this.searcher;
+    if (searcher != null) {
+      try {
+        storeSegments(searcher, key, value);
+      } catch (IOException | RuntimeException e) {
+        // the top-level entry is still valid, we just won't be able to reuse it per segment
+        log.warn("Could not cache per segment DocSets of {}", key, e);
+      }
+    }
+    return old;
+  }
+
+  private DocSet putTopLevel(Query key, DocSet value) {
+    inserts.increment();
+    DocSet old = cache.asMap().put(key, value);
+    ramBytes.add(ramBytesUsed(key, value));
+    if (old != null) {
+      ramBytes.add(-ramBytesUsed(key, old));
+    }
+    return old;
+  }
+
+  @Override
+  public DocSet computeIfAbsent(Query key, Function<? super Query, ? extends DocSet> mappingFunction) {
+    DocSet result = get(key);
+    if (result == null) {
+      result = mappingFunction.apply(key);
+      if (result != null) {
+        put(key, result);
+      }
+    }
+    return result;
+  }
+
+  @Override
+  public DocSet remove(Query key) {
+    store.remove(key);
+    DocSet existing = cache.asMap().remove(key);
+    if (existing != null) {
+      ramBytes.add(-ramBytesUsed(key, existing));
+    }
+    return existing;
+  }
+
+  @Override
+  public void clear() {
+    cache.invalidateAll();
+    store.clear();
+    ramBytes.reset();
+  }
+
+  @Override
+  public int size() {
+    return cache.asMap().size();
+  }
+
+  /** Splits a top-level DocSet into segment level entries, for those segments not cached yet. */
+  private void storeSegments(SolrIndexSearcher searcher, Query key, DocSet value) throws IOException {
+    Weight weight = null;
+    for (LeafReaderContext leaf : searcher.getTopReaderContext().leaves()) {
+      if (store.contains(key, leaf)) {
+        continue;
+      }
+      if (weight == null) {
+        weight = createWeight(searcher, key);
+      }
+      if (weight.isCacheable(leaf)) {
+        store.put(key, leaf, SegmentBitSet.copyOf(value.iterator(leaf), leaf.reader().maxDoc(), store.offHeap));
+      }
+    }
+  }
+
+  /**
+   * Looks up the segment level entries of a query for the searcher of this cache.
+   * @return null if the searcher has no segments (or isn't known yet)
+   */
+  private Segments segments(Query key) {
+    SolrIndexSearcher searcher = this.searcher;
+    if (searcher == null) {
+      return null;
+    }
+    List<LeafReaderContext> leaves = searcher.getTopReaderContext().leaves();
+    if (leaves.isEmpty()) {
+      return null;
+    }
+    Segments segments = new Segments(searcher, key, leaves);
+    segmentHits.add(segments.sets.length - segments.missing);
+    segmentMisses.add(segments.missing);
+    return segments;
+  }
+
+  /** The segment level entries of a query for all segments of a searcher. */
+  private class Segments {
+    final SolrIndexSearcher searcher;
+    final Query key;
+    final List<LeafReaderContext> leaves;
+    final SegmentBitSet[] sets;
+    int missing;
+
+    Segments(SolrIndexSearcher searcher, Query key, List<LeafReaderContext> leaves) {
+      this.searcher = searcher;
+      this.key = key;
+      this.leaves = leaves;
+      this.sets = new SegmentBitSet[leaves.size()];
+      for (int i = 0; i < sets.length; i++) {
+        sets[i] = store.get(key, leaves.get(i));
+        if (sets[i] == null) {
+          missing++;
+        }
+      }
+    }
+
+    /** Searches the segments that have no entry yet, and caches the results. */
+    void computeMissing() {
+      if (missing == 0) {
+        return;
+      }
+      try {
+        Weight weight = createWeight(searcher, key);
+        for (int i = 0; i < sets.length; i++) {
+          if (sets[i] == null) {
+            LeafReaderContext leaf = leaves.get(i);
+            Scorer scorer = weight.scorer(leaf);
+            DocIdSetIterator it = scorer == null ? null : scorer.iterator();
+            sets[i] = SegmentBitSet.copyOf(it, leaf.reader().maxDoc(), store.offHeap);
+            if (weight.isCacheable(leaf)) {
+              store.put(key, leaf, sets[i]);
+            }
+          }
+        }
+        missing = 0;
+      } catch (IOException e) {
+        throw new SolrException(SolrException.ErrorCode.SERVER_ERROR, e);
+      }
+    }
+
+    /**
+     * Builds a top-level DocSet from the segment level entries, applying deletes.
+     * @param computeMissing if true, missing segments are searched first; they must not be missing otherwise
+     */
+    DocSet assemble(boolean computeMissing) {
+      if (computeMissing) {
+        computeMissing();
+      }
+      assert missing == 0;
+      int maxDoc = searcher.maxDoc();
+      FixedBitSet bits = new FixedBitSet(maxDoc);
+      int size = 0;
+      for (int i = 0; i < sets.length; i++) {
+        LeafReaderContext leaf = leaves.get(i);
+        size += sets[i].orInto(bits, leaf.docBase, leaf.reader().getLiveDocs());
+      }
+      BitDocSet result = new BitDocSet(bits, size);
+      return size < DocSetUtil.smallSetSize(maxDoc) ? DocSetUtil.toSmallSet(result) : result;
+    }
+  }
+
+  private static Weight createWeight(SolrIndexSearcher searcher, Query key) throws IOException {
+    return searcher.createWeight(searcher.rewrite(key), ScoreMode.COMPLETE_NO_SCORES, 1f);
+  }
+
+  @Override
+  public void warm(SolrIndexSearcher searcher, SolrCache<Query,DocSet> old) {
+    long warmingStartTime = System.nanoTime();
+    this.searcher = searcher;
+    SegmentFilterCache other = (SegmentFilterCache) old;
+
+    // only the segments that aren't shared with the old searcher are searched. Unless lazy, the
+    // top-level sets are assembled now rather than on first use.
+    if (isAutowarmingOn()) {
+      Eviction<Query,DocSet> policy = other.cache.policy().eviction().get();
+      int size = autowarm.getWarmCount(other.cache.asMap().size());
+      for (Query key : policy.hottest(size).keySet()) {
+        try {
+          Segments segments = segments(key);
+          if (segments == null) {
+            continue;
+          }
+          if (lazy) {
+            segments.computeMissing();
+          } else {
+            putTopLevel(key, segments.assemble(true));
+          }
+        } catch (Exception e) {
+          SolrException.log(log, "Error during auto-warming of key:" + key, e);
+        }
+      }
+    }
+
+    inserts.reset();
+    priorLookups = other.lookups.sum() + other.priorLookups;
+    priorHits = other.hits.sum() + other.priorHits;
+    warmupTime = TimeUnit.MILLISECONDS.convert(System.nanoTime() - warmingStartTime, TimeUnit.NANOSECONDS);
+  }
+
+  @Override
+  public void close() throws IOException {
+    SolrCache.super.close();
+    // segment level entries are shared with other searchers, they are released when their segment closes
+    cache.invalidateAll();
+    cache.cleanUp();
+    ramBytes.reset();
+    searcher = null;
+  }
+
+  @Override
+  public long ramBytesUsed() {
+    return BASE_RAM_BYTES_USED + ramBytes.sum() + store.ramBytesUsed();
+  }
+
+  /** Direct memory used by the segment level entries, which are shared by all searchers of the core. */
+  public long offHeapBytesUsed() {
+    return store.offHeap ? store.bitsBytesUsed() : 0L;
+  }
+
+  @Override
+  public int getMaxSize() {
+    return maxSize;
+  }
+
+  @Override
+  public void setMaxSize(int maxSize) {
+    if (this.maxSize == maxSize) {
+      return;
+    }
+    cache.policy().eviction().ifPresent(eviction -> {
+      if (!eviction.isWeighted()) {
+        eviction.setMaximum(maxSize);
+      }
+    });
+    this.maxSize = maxSize;
+    description = generateDescription();
+  }
+
+  @Override
+  public int getMaxRamMB() {
+    return maxRamBytes != Long.MAX_VALUE ? (int) (maxRamBytes / 1024L / 1024L) : -1;
+  }
+
+  @Override
+  public void setMaxRamMB(int maxRamMB) {
+    long newMaxRamBytes = maxRamMB < 0 ? Long.MAX_VALUE : maxRamMB * 1024L * 1024L;
+    if (newMaxRamBytes != maxRamBytes) {
+      boolean wasWeighted = maxRamBytes != Long.MAX_VALUE;
+      maxRamBytes = newMaxRamBytes;
+      if (wasWeighted && maxRamBytes != Long.MAX_VALUE) {
+        cache.policy().eviction().ifPresent(eviction -> eviction.setMaximum(newMaxRamBytes));
+      } else {
+        cache = buildCache(cache);
+      }
+      description = generateDescription();
+    }
+  }
+
+  private String generateDescription() {
+    return String.format(Locale.ROOT, "Segment Filter Cache(maxSize=%d, initialSize=%d, offHeap=%b, maxOffHeapMB=%d, lazy=%b%s)",
+        maxSize, initialSize, store.offHeap, store.maxBytes / 1024L / 1024L, lazy,
+        isAutowarmingOn() ? (", autowarmCount=" + autowarm) : "");
+  }
+
+  //////////////////////// SolrInfoBean methods //////////////////////
+
+  @Override
+  public String getName() {
+    return SegmentFilterCache.class.getName();
+  }
+
+  @Override
+  public String getDescription() {
+    return description;
+  }
+
+  @VisibleForTesting
+  MetricsMap getMetricsMap() {
+    return cacheMap;
+  }
+
+  @Override
+  public SolrMetricsContext getSolrMetricsContext() {
+    return solrMetricsContext;
+  }
+
+  @Override
+  public String toString() {
+    return name() + (cacheMap != null ? cacheMap.getValue().toString() : "");
+  }
+
+  @Override
+  public void initializeMetrics(SolrMetricsContext parentContext, String scope) {
+    solrMetricsContext = parentContext.getChildContext(this);
+    cacheMap = new MetricsMap(map -> {
+      long lookupCount = lookups.sum();
+      long hitCount = hits.sum();
+      map.put(LOOKUPS_PARAM, lookupCount);
+      map.put(HITS_PARAM, hitCount);
+      map.put(HIT_RATIO_PARAM, calcHitRatio(lookupCount, hitCount));
+      map.put(INSERTS_PARAM, inserts.sum());
+      map.put(EVICTIONS_PARAM, cache.stats().evictionCount());
+      map.put(SIZE_PARAM, cache.asMap().size());
+      map.put("warmupTime", warmupTime);
+      map.put(RAM_BYTES_USED_PARAM, ramBytesUsed());
+      map.put(MAX_RAM_MB_PARAM, getMaxRamMB());
+      map.put("segmentHits", segmentHits.sum());
+      map.put("segmentMisses", segmentMisses.sum());
+      map.put("segmentEntries", store.size());
+      map.put("segmentEvictions", store.evictionCount());
+      map.put("offHeapBytesUsed", offHeapBytesUsed());
+      map.put(MAX_OFF_HEAP_MB_PARAM, store.maxBytes / 1024L / 1024L);
+      map.put("cumulative_lookups", priorLookups + lookupCount);
+      map.put("cumulative_hits", priorHits + hitCount);
+      map.put("cumulative_hitratio", calcHitRatio(priorLookups + lookupCount, priorHits + hitCount));
+    });
+    solrMetricsContext.gauge(cacheMap, true, scope, getCategory().toString());
+  }
+
+  /** Key of a segment level entry. */
+  private static final class SegmentKey {
+    final Query query;
+    final IndexReader.CacheKey coreKey;
+    final int hashCode;
+
+    SegmentKey(Query query, IndexReader.CacheKey coreKey) {
+      this.query = query;
+      this.coreKey = coreKey;
+      this.hashCode = 31 * query.hashCode() + coreKey.hashCode();
+    }
+
+    @Override
+    public int hashCode() {
+      return hashCode;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      if (!(obj instanceof SegmentKey)) return false;
+      SegmentKey other = (SegmentKey) obj;
+      return coreKey == other.coreKey && Objects.equals(query, other.query);
+    }
+  }
+
+  /**
+   * Accounts for the direct memory of the segment level entries of all cores, which share the direct
+   * memory limit of the JVM whatever their {@code maxOffHeapMB}.
+   */
+  static final class DirectMemoryBudget {
+    final long maxBytes;
+    private final AtomicLong reservedBytes = new AtomicLong();
+
+    DirectMemoryBudget(long maxBytes) {
+      this.maxBytes = maxBytes;
+    }
+
+    /** @return false, reserving nothing, if the bytes don't fit in the budget */
+    boolean tryReserve(long bytes) {
+      long reserved;
+      do {
+        reserved = reservedBytes.get();
+        if (reserved + bytes > maxBytes) {
+          return false;
+        }
+      } while (!reservedBytes.compareAndSet(reserved, reserved + bytes));
+      return true;
+    }
+
+    void release(long bytes) {
+      reservedBytes.addAndGet(-bytes);
+    }
+
+    long reservedBytes() {
+      return reservedBytes.get();
+    }
+  }
+
+  /**
+   * The segment level entries of a core, shared by the caches of all its searchers. Entries are
+   * bounded by the memory they use, and dropped when their segment is closed.
+   */
+  static final class SegmentStore {
+    final long maxBytes;
+    final boolean offHeap;
+    /** the budget the entries reserve their bits from, or null */
+    private final DirectMemoryBudget budget;
+    private final Cache<SegmentKey,SegmentBitSet> sets;
+    private final Set<IndexReader.CacheKey> trackedCores = ConcurrentHashMap.newKeySet();
+    private final IndexReader.ClosedListener purgeCore = this::purgeCore;
+
+    SegmentStore(long maxBytes, boolean offHeap, DirectMemoryBudget budget) {
+      this.maxBytes = maxBytes;
+      this.offHeap = offHeap;
+      this.budget = budget;
+      this.sets = Caffeine.newBuilder()
+          .executor(Runnable::run)
+          .maximumWeight(maxBytes)
+          .weigher((SegmentKey k, SegmentBitSet v) -> (int) Math.min(Integer.MAX_VALUE, v.bitsBytesUsed()))
+          .removalListener((SegmentKey k, SegmentBitSet v, RemovalCause cause) -> {
+            if (budget != null && v != null) {
+              budget.release(v.bitsBytesUsed());
+            }
+          })
+          .recordStats()
+          .build();
+    }
+
+    private static IndexReader.CacheKey coreKey(LeafReaderContext leaf) {
+      IndexReader.CacheHelper cacheHelper = leaf.reader().getCoreCacheHelper();
+      return cacheHelper == null ? null : cacheHelper.getKey();
+    }
+
+    SegmentBitSet get(Query query, LeafReaderContext leaf) {
+      IndexReader.CacheKey coreKey = coreKey(leaf);
+      return coreKey == null ? null : sets.getIfPresent(new SegmentKey(query, coreKey));
+    }
+
+    boolean contains(Query query, LeafReaderContext leaf) {
+      IndexReader.CacheKey coreKey = coreKey(leaf);
+      return coreKey != null && sets.asMap().containsKey(new SegmentKey(query, coreKey));
+    }
+
+    void put(Query query, LeafReaderContext leaf, SegmentBitSet set) {
+      IndexReader.CacheHelper cacheHelper = leaf.reader().getCoreCacheHelper();
+      if (cacheHelper == null) {
+        return;
+      }
+      if (budget != null && !budget.tryReserve(set.bitsBytesUsed())) {
+        // the other cores use the direct memory the node can spare
+        return;
+      }
+      if (trackedCores.add(cacheHelper.getKey())) {
+        cacheHelper.addClosedListener(purgeCore);
+      }
+      sets.put(new SegmentKey(query, cacheHelper.getKey()), set);
+    }
+
+    void remove(Query query) {
+      sets.asMap().keySet().removeIf(k -> k.query.equals(query));
+    }
+
+    private void purgeCore(IndexReader.CacheKey coreKey) {
+      trackedCores.remove(coreKey);
+      sets.asMap().keySet().removeIf(k -> k.coreKey == coreKey);
+    }
+
+    void clear() {
+      sets.invalidateAll();
+    }
+
+    long size() {
+      return sets.estimatedSize();
+    }
+
+    long evictionCount() {
+      return sets.stats().evictionCount();
+    }
+
+    long bitsBytesUsed() {
+      sets.cleanUp(); // apply pending weight changes
+      return sets.policy().eviction().get().weightedSize().orElse(0L);
+    }
+
+    long ramBytesUsed() {
+      return size() * (SegmentBitSet.BASE_RAM_BYTES_USED + RamUsageEstimator.LINKED_HASHTABLE_RAM_BYTES_PER_ENTRY
+          + RamUsageEstimator.shallowSizeOfInstance(SegmentKey.class))
+          + (offHeap ? 0L : bitsBytesUsed());
+    }
+  }
+}
@@ -29,7 +29,12 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
@@ -60,6 +65,7 @@ import org.apache.solr.common.SolrException;
 import org.apache.solr.common.SolrException.ErrorCode;
 import org.apache.solr.common.params.ModifiableSolrParams;
 import org.apache.solr.common.util.ObjectReleaseTracker;
+import org.apache.solr.core.CoreContainer;
 import org.apache.solr.core.DirectoryFactory;
 import org.apache.solr.core.DirectoryFactory.DirContext;
 import org.apache.solr.core.SolrConfig;
@@ -143,6 +149,10 @@ public class SolrIndexSearcher extends IndexSearcher implements Closeable, SolrI
 
   private final StatsCache statsCache;
 
+  // slices of consecutive segments searched in parallel, null if all segments are searched on the request thread
+  private final List<List<LeafReaderContext>> searchSlices;
+  private final ExecutorService searchExecutor;
+
   private Set<String> metricNames = ConcurrentHashMap.newKeySet();
   private SolrMetricsContext solrMetricsContext;
 
@@ -238,6 +248,250 @@ public class SolrIndexSearcher extends IndexSearcher implements Closeable, SolrI
     return collector;
   }
 
+  /**
+   * Groups the leaves into at most <code>maxSlices</code> slices of consecutive segments, with roughly the same
+   * number of documents and at least <code>minDocsPerSlice</code> documents each.
+   */
+  static List<List<LeafReaderContext>> groupSlices(List<LeafReaderContext> leaves, int maxSlices, int minDocsPerSlice) {
+    long maxDoc = 0;
+    for (LeafReaderContext leaf : leaves) {
+      maxDoc += leaf.reader().maxDoc();
+    }
+    final int numSlices = (int) Math.min(Math.min(maxSlices, leaves.size()), maxDoc / Math.max(1, minDocsPerSlice));
+    final List<List<LeafReaderContext>> slices = new ArrayList<>(Math.max(1, numSlices));
+    if (numSlices <= 1) {
+      slices.add(leaves);
+      return slices;
+    }
+    final long docsPerSlice = (maxDoc + numSlices - 1) / numSlices;
+    List<LeafReaderContext> slice = new ArrayList<>();
+    long sliceDocs = 0;
+    for (int i = 0; i < leaves.size(); i++) {
+      LeafReaderContext leaf = leaves.get(i);
+      slice.add(leaf);
+      sliceDocs += leaf.reader().maxDoc();
+      int remainingLeaves = leaves.size() - i - 1;
+      int remainingSlices = numSlices - slices.size() - 1;
+      // keep at least one segment for each of the remaining slices
+      if (remainingSlices > 0 && (sliceDocs >= docsPerSlice || remainingLeaves == remainingSlices)) {
+        slices.add(slice);
+        slice = new ArrayList<>();
+        sliceDocs = 0;
+      }
+    }
+    slices.add(slice);
+    return slices;
+  }
+
+  /** The number of slices of segments searched in parallel, 1 if this searcher doesn't search in parallel. */
+  int getNumSearchSlices() {
+    return searchSlices == null ? 1 : searchSlices.size();
+  }
+
+  /**
+   * The contiguous slices of segments searched in parallel, or null if this searcher doesn't search in parallel.
+   *
+   * @see #runSlices
+   * @lucene.internal
+   */
+  public List<List<LeafReaderContext>> getSearchSlices() {
+    return searchSlices;
+  }
+
+  /**
+   * Returns true if the command can be executed with one collector per slice of segments rather than a single
+   * collector chain.
+   */
+  private boolean isParallelSearch(QueryCommand cmd, ProcessedFilter pf) {
+    return searchSlices != null
+        // DelegatingCollectors keep state across segments and are finished once for the whole index
+        && pf.postFilter == null
+        // RankQuery supplies its own collector, which may not be merged
+        && !(cmd.getQuery() instanceof RankQuery)
+        && !cmd.getSegmentTerminateEarly()
+        && !cmd.getTerminateEarly()
+        && !cmd.isQueryCancellable();
+  }
+
+  /**
+   * Searches the slices of segments in parallel with one collector per slice.
+   *
+   * @param qr if not null, slices that exceed the time allowed are marked as partial results rather than failing
+   *           the search
+   */
+  private void searchSlices(QueryResult qr, Query query, long timeAllowed, List<? extends Collector> collectors)
+      throws IOException {
+    assert collectors.size() == searchSlices.size();
+    final Weight weight = createWeight(rewrite(query), collectors.get(0).scoreMode(), 1);
+    final boolean partialResults = qr != null;
+    final List<Callable<Boolean>> callables = new ArrayList<>(collectors.size());
+    for (int i = 0; i < collectors.size(); i++) {
+      final List<LeafReaderContext> slice = searchSlices.get(i);
+      final Collector collector = collectors.get(i);
+      callables.add(() -> searchSlice(query, slice, weight, collector, timeAllowed, partialResults));
+    }
+
+    boolean partial = false;
+    for (boolean timedOut : runSlices(callables)) {
+      partial |= timedOut;
+    }
+    if (partial) {
+      qr.setPartialResults(true);
+    }
+  }
+
+  /**
+   * Runs tasks in parallel, typically one per slice of {@link #getSearchSlices()}, and returns their results in
+   * order. The first task runs on the calling thread and the others on the search executor. The calling thread also
+   * runs the tasks that the executor didn't start yet, so that a busy executor doesn't delay the request more than
+   * a sequential search would. The time allowed of the request applies to all the tasks.
+   * <p>
+   * Must only be called if {@link #getSearchSlices()} is not null.
+   *
+   * @lucene.internal
+   */
+  public <T> List<T> runSlices(List<? extends Callable<T>> callables) throws IOException {
+    assert searchExecutor != null;
+    final Thread requestThread = Thread.currentThread();
+    final Long timeoutAt = SolrQueryTimeoutImpl.getTimeoutAtNs();
+    final List<FutureTask<T>> tasks = new ArrayList<>(callables.size());
+    for (Callable<T> callable : callables) {
+      tasks.add(new FutureTask<T>(() -> {
+        if (Thread.currentThread() == requestThread) {
+          return callable.call();
+        }
+        SolrQueryTimeoutImpl.setTimeoutAtNs(timeoutAt);
+        try {
+          return callable.call();
+        } finally {
+          SolrQueryTimeoutImpl.reset();
+        }
+      }));
+    }
+
+    try {
+      for (int i = 1; i < tasks.size(); i++) {
+        try {
+          searchExecutor.execute(tasks.get(i));
+        } catch (RejectedExecutionException e) {
+          // run below on this thread
+        }
+      }
+      for (FutureTask<T> task : tasks) {
+        task.run(); // no-op if already started by the executor
+      }
+      final List<T> results = new ArrayList<>(tasks.size());
+      for (FutureTask<T> task : tasks) {
+        results.add(task.get());
+      }
+      return results;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new SolrException(ErrorCode.SERVER_ERROR, e);
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof IOException) {
+        throw (IOException) cause;
+      } else if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      } else if (cause instanceof Error) {
+        throw (Error) cause;
+      }
+      throw new SolrException(ErrorCode.SERVER_ERROR, cause);
+    } finally {
+      for (FutureTask<T> task : tasks) {
+        task.cancel(false);
+      }
+    }
+  }
+
+  /** Searches one slice of segments, returning true if it exceeded the time allowed. */
+  private boolean searchSlice(Query query, List<LeafReaderContext> slice, Weight weight, Collector collector,
+      long timeAllowed, boolean partialResults) throws IOException {
+    if (timeAllowed > 0) {
+      collector = new TimeLimitingCollector(collector, TimeLimitingCollector.getGlobalCounter(), timeAllowed);
+    }
+    try {
+      search(slice, weight, collector);
+      return false;
+    } catch (TimeLimitingCollector.TimeExceededException | ExitableDirectoryReader.ExitingReaderException x) {
+      if (!partialResults) {
+        throw x;
+      }
+      log.warn("Query: [{}]; ", query, x);
+      return true;
+    }
+  }
+
+  private static int maxDoc(List<LeafReaderContext> slice) {
+    int maxDoc = 0;
+    for (LeafReaderContext leaf : slice) {
+      maxDoc += leaf.reader().maxDoc();
+    }
+    return maxDoc;
+  }
+
+  /**
+   * Collects the documents matching the query by searching the slices of segments in parallel, or returns null if
+   * this searcher doesn't search in parallel.
+   */
+  DocSet createDocSetParallel(Query query) throws IOException {
+    if (searchSlices == null) {
+      return null;
+    }
+    final List<SliceDocSetCollector> collectors = new ArrayList<>(searchSlices.size());
+    for (List<LeafReaderContext> slice : searchSlices) {
+      collectors.add(new SliceDocSetCollector(slice.get(0).docBase, maxDoc(slice)));
+    }
+    searchSlices(null, query, 0, collectors);
+    return DocSetUtil.getDocSet(unionOfSlices(collectors), this);
+  }
+
+  /**
+   * Collects the documents of a slice relative to its first document, so that the bit set of a dense slice is sized
+   * to the slice rather than to the whole index.
+   */
+  private static class SliceDocSetCollector extends DocSetCollector {
+    final int sliceBase;
+
+    SliceDocSetCollector(int sliceBase, int sliceMaxDoc) {
+      super(sliceMaxDoc);
+      this.sliceBase = sliceBase;
+    }
+
+    @Override
+    protected void doSetNextReader(LeafReaderContext context) throws IOException {
+      this.base = context.docBase - sliceBase;
+    }
+  }
+
+  /** Merges the DocSets collected by slice, which are disjoint and in doc id order. */
+  private DocSet unionOfSlices(List<SliceDocSetCollector> collectors) {
+    int size = 0;
+    for (DocSetCollector collector : collectors) {
+      size += collector.size();
+    }
+    if (size <= DocSetUtil.smallSetSize(maxDoc())) {
+      final int[] docs = new int[size];
+      int upto = 0;
+      for (SliceDocSetCollector collector : collectors) {
+        DocIterator it = collector.getDocSet().iterator();
+        while (it.hasNext()) {
+          docs[upto++] = collector.sliceBase + it.nextDoc();
+        }
+      }
+      return new SortedIntDocSet(docs, size);
+    }
+    final FixedBitSet bits = new FixedBitSet(maxDoc());
+    for (SliceDocSetCollector collector : collectors) {
+      DocIterator it = collector.getDocSet().iterator();
+      while (it.hasNext()) {
+        bits.set(collector.sliceBase + it.nextDoc());
+      }
+    }
+    return new BitDocSet(bits, size);
+  }
+
   public SolrIndexSearcher(SolrCore core, String path, IndexSchema schema, SolrIndexConfig config, String name,
       boolean enableCache, DirectoryFactory directoryFactory) throws IOException {
     // We don't need to reserve the directory because we get it from the factory
@@ -286,6 +540,22 @@ public class SolrIndexSearcher extends IndexSearcher implements Closeable, SolrI
     this.queryResultMaxDocsCached = solrConfig.queryResultMaxDocsCached;
     this.useFilterForSortedQuery = solrConfig.useFilterForSortedQuery;
 
+    final CoreContainer coreContainer = core.getCoreContainer();
+    final ExecutorService executor = coreContainer == null ? null : coreContainer.getSearchExecutor();
+    List<List<LeafReaderContext>> slices = null;
+    if (executor != null) {
+      int maxSlices = solrConfig.parallelSearchMaxThreads > 0 ? solrConfig.parallelSearchMaxThreads
+          : coreContainer.getConfig().getSearchThreads() + 1; // the request thread searches a slice too
+      slices = groupSlices(leafContexts, maxSlices, solrConfig.parallelSearchMinDocsPerSlice);
+    }
+    if (slices != null && slices.size() > 1) {
+      this.searchSlices = slices;
+      this.searchExecutor = executor;
+    } else {
+      this.searchSlices = null;
+      this.searchExecutor = null;
+    }
+
     this.docFetcher = new SolrDocumentFetcher(this, solrConfig, enableCache);
 
     this.cachingEnabled = enableCache;
@@ -296,6 +566,9 @@ public class SolrIndexSearcher extends IndexSearcher implements Closeable, SolrI
       if (fieldValueCache != null) clist.add(fieldValueCache);
       filterCache = solrConfig.filterCacheConfig == null ? null : solrConfig.filterCacheConfig.newInstance();
       if (filterCache != null) clist.add(filterCache);
+      if (filterCache instanceof SegmentFilterCache) {
+        ((SegmentFilterCache) filterCache).setSearcher(this);
+      }
       queryResultCache = solrConfig.queryResultCacheConfig == null ? null
           : solrConfig.queryResultCacheConfig.newInstance();
       if (queryResultCache != null) clist.add(queryResultCache);
@@ -888,6 +1161,13 @@ public class SolrIndexSearcher extends IndexSearcher implements Closeable, SolrI
       }
     }
 
+    if (pf.postFilter == null) {
+      DocSet parallel = createDocSetParallel(pf.filter);
+      if (parallel != null) {
+        return parallel;
+      }
+    }
+
     DocSetCollector setCollector = new DocSetCollector(maxDoc());
     Collector collector = setCollector;
     if (pf.postFilter != null) {
@@ -1521,6 +1801,11 @@ public class SolrIndexSearcher extends IndexSearcher implements Closeable, SolrI
     final Query query = QueryUtils.combineQueryAndFilter(QueryUtils.makeQueryable(cmd.getQuery()), pf.filter);
     Relation hitsRelation;
 
+    if (isParallelSearch(cmd, pf)) {
+      getDocListParallel(qr, cmd, query, lastDocRequested, false);
+      return;
+    }
+
     // handle zero case...
     if (lastDocRequested <= 0) {
       final float[] topscore = new float[] {Float.NEGATIVE_INFINITY};
@@ -1611,6 +1896,116 @@ public class SolrIndexSearcher extends IndexSearcher implements Closeable, SolrI
     qr.setDocList(new DocSlice(0, sliceLen, ids, scores, totalHits, maxScore, hitsRelation));
   }
 
+  /**
+   * Parallel version of {@link #getDocListNC} and {@link #getDocListAndSetNC}: collects the top documents, and the
+   * DocSet if requested, of each slice of segments and merges them.
+   */
+  private void getDocListParallel(QueryResult qr, QueryCommand cmd, Query query, int lastDocRequested,
+      boolean needDocSet) throws IOException {
+    final int len = cmd.getSupersetMaxDoc();
+    final boolean needScores = (cmd.getFlags() & GET_SCORES) != 0;
+    final int numSlices = searchSlices.size();
+    final List<TopDocsCollector<?>> topCollectors = lastDocRequested > 0 ? new ArrayList<>(numSlices) : null;
+    final List<SliceDocSetCollector> setCollectors = needDocSet ? new ArrayList<>(numSlices) : null;
+    final List<TotalHitCountCollector> countCollectors =
+        topCollectors == null && setCollectors == null ? new ArrayList<>(numSlices) : null;
+    final List<MaxScoreCollector> maxScoreCollectors = needScores ? new ArrayList<>(numSlices) : null;
+    final List<Collector> collectors = new ArrayList<>(numSlices);
+    for (List<LeafReaderContext> slice : searchSlices) {
+      final List<Collector> sliceCollectors = new ArrayList<>(3);
+      if (topCollectors != null) {
+        // a slice can't have more hits than documents, no need for the full size priority queue in every slice
+        TopDocsCollector<?> topCollector = buildTopDocsCollector(Math.min(len, maxDoc(slice)), cmd);
+        topCollectors.add(topCollector);
+        sliceCollectors.add(topCollector);
+      }
+      if (setCollectors != null) {
+        SliceDocSetCollector setCollector = new SliceDocSetCollector(slice.get(0).docBase, maxDoc(slice));
+        setCollectors.add(setCollector);
+        sliceCollectors.add(setCollector);
+      }
+      if (countCollectors != null) {
+        TotalHitCountCollector countCollector = new TotalHitCountCollector();
+        countCollectors.add(countCollector);
+        sliceCollectors.add(countCollector);
+      }
+      if (maxScoreCollectors != null) {
+        MaxScoreCollector maxScoreCollector = new MaxScoreCollector();
+        maxScoreCollectors.add(maxScoreCollector);
+        sliceCollectors.add(maxScoreCollector);
+      }
+      collectors.add(MultiCollector.wrap(sliceCollectors));
+    }
+
+    searchSlices(qr, query, cmd.getTimeAllowed(), collectors);
+
+    final DocSet set = setCollectors == null ? null : DocSetUtil.getDocSet(unionOfSlices(setCollectors), this);
+    int totalHits = 0;
+    Relation hitsRelation = Relation.EQUAL_TO;
+    float maxScore = Float.NaN;
+    if (maxScoreCollectors != null) {
+      for (MaxScoreCollector maxScoreCollector : maxScoreCollectors) {
+        float sliceMaxScore = maxScoreCollector.getMaxScore();
+        if (Float.isNaN(maxScore) || sliceMaxScore > maxScore) {
+          maxScore = sliceMaxScore;
+        }
+      }
+    }
+
+    final int[] ids;
+    final float[] scores;
+    if (topCollectors == null) {
+      if (set != null) {
+        totalHits = set.size();
+      } else {
+        for (TotalHitCountCollector countCollector : countCollectors) {
+          totalHits += countCollector.getTotalHits();
+        }
+      }
+      if (maxScoreCollectors == null) {
+        maxScore = Float.NEGATIVE_INFINITY;
+      }
+      ids = new int[0];
+      scores = new float[0];
+      // no docs on this page, so cursor doesn't change
+      qr.setNextCursorMark(cmd.getCursorMark());
+    } else {
+      final TopDocs[] sliceTopDocs = cmd.getSort() == null ? new TopDocs[numSlices] : new TopFieldDocs[numSlices];
+      for (int i = 0; i < numSlices; i++) {
+        TopDocsCollector<?> topCollector = topCollectors.get(i);
+        totalHits += topCollector.getTotalHits();
+        sliceTopDocs[i] = topCollector.topDocs(0, len);
+      }
+      final TopDocs topDocs = cmd.getSort() == null ? TopDocs.merge(len, sliceTopDocs)
+          : TopDocs.merge(weightSort(cmd.getSort()), len, (TopFieldDocs[]) sliceTopDocs);
+      final ScoreMode scoreModeUsed = collectors.get(0).scoreMode();
+      if (!needDocSet && scoreModeUsed != ScoreMode.COMPLETE && scoreModeUsed != ScoreMode.COMPLETE_NO_SCORES) {
+        hitsRelation = topDocs.totalHits.relation;
+      }
+      if (cmd.getSort() != null && needScores) {
+        TopFieldCollector.populateScores(topDocs.scoreDocs, this, query);
+      }
+      populateNextCursorMarkFromTopDocs(qr, cmd, topDocs);
+
+      ids = new int[topDocs.scoreDocs.length];
+      scores = needScores ? new float[topDocs.scoreDocs.length] : null;
+      for (int i = 0; i < topDocs.scoreDocs.length; i++) {
+        ScoreDoc scoreDoc = topDocs.scoreDocs[i];
+        ids[i] = scoreDoc.doc;
+        if (scores != null) scores[i] = scoreDoc.score;
+      }
+    }
+    if (totalHits == 0) {
+      maxScore = 0.0f;
+    }
+
+    int sliceLen = Math.max(0, Math.min(lastDocRequested, ids.length));
+    qr.setDocList(new DocSlice(0, sliceLen, ids, scores, totalHits, maxScore, hitsRelation));
+    if (needDocSet) {
+      qr.setDocSet(set);
+    }
+  }
+
   // any DocSet returned is for the query only, without any filtering... that way it may
   // be cached if desired.
   private DocSet getDocListAndSetNC(QueryResult qr, QueryCommand cmd) throws IOException {
@@ -1632,6 +2027,11 @@ public class SolrIndexSearcher extends IndexSearcher implements Closeable, SolrI
     ProcessedFilter pf = getProcessedFilter(cmd.getFilter(), cmd.getFilterList());
     final Query query = QueryUtils.combineQueryAndFilter(QueryUtils.makeQueryable(cmd.getQuery()), pf.filter);
 
+    if (isParallelSearch(cmd, pf)) {
+      getDocListParallel(qr, cmd, query, lastDocRequested, true);
+      return pf.filter == null ? qr.getDocSet() : null;
+    }
+
     // handle zero case...
     if (lastDocRequested <= 0) {
       final float[] topscore = new float[] {Float.NEGATIVE_INFINITY};
@@ -91,6 +91,19 @@ public class SolrQueryTimeoutImpl implements QueryTimeout {
     timeoutAt.set(time);
   }
 
+  /**
+   * Sets the time (nanoseconds) at which the request should be considered timed out, as returned by
+   * {@link #getTimeoutAtNs()} on the request thread, so that another thread working for the request observes
+   * the same timeout.
+   */
+  static void setTimeoutAtNs(Long timeoutAtNs) {
+    if (timeoutAtNs == null) {
+      reset();
+    } else {
+      timeoutAt.set(timeoutAtNs);
+    }
+  }
+
   /**
    * Cleanup the ThreadLocal timeout value.
    */
@@ -744,6 +744,22 @@ abstract class FacetFieldProcessor extends FacetProcessor<FacetField> {
       }
     }
 
+    @Override
+    public boolean isMergeable() {
+      for (SlotAcc acc : subAccs) {
+        if (!acc.isMergeable()) return false;
+      }
+      return true;
+    }
+
+    @Override
+    public void merge(SlotAcc other) throws IOException {
+      final SlotAcc[] otherAccs = ((MultiAcc) other).subAccs;
+      for (int i = 0; i < subAccs.length; i++) {
+        subAccs[i].merge(otherAccs[i]);
+      }
+    }
+
     @Override
     public SlotAcc registerSweepingAccs(SweepingCountSlotAcc baseSweepingAcc) {
       final FacetFieldProcessor p = (FacetFieldProcessor) fcontext.processor;
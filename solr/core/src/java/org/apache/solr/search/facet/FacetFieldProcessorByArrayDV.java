@@ -17,8 +17,10 @@
 package org.apache.solr.search.facet;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.Callable;
 
 import org.apache.lucene.index.DocValues;
 import org.apache.lucene.index.LeafReaderContext;
@@ -33,6 +35,7 @@ import org.apache.lucene.util.UnicodeUtil;
 import org.apache.solr.common.SolrException;
 import org.apache.solr.schema.SchemaField;
 import org.apache.solr.search.facet.SlotAcc.CountSlotAcc;
+import org.apache.solr.search.facet.SlotAcc.CountSlotArrAcc;
 import org.apache.solr.search.facet.SlotAcc.SweepCountAccStruct;
 import org.apache.solr.search.facet.SlotAcc.SweepingCountSlotAcc;
 import org.apache.solr.search.facet.SweepCountAware.SegCountGlobal;
@@ -125,6 +128,13 @@ class FacetFieldProcessorByArrayDV extends FacetFieldProcessorByArray {
 
     if (freq.perSeg != null) accumSeg = canDoPerSeg && freq.perSeg;  // internal - override perSeg heuristic
 
+    if (others.isEmpty() && allBucketsAcc == null && otherAccs == null && countAcc.isMergeable()
+        && (collectAcc == null || collectAcc.isMergeable())
+        && domainSize >= fcontext.searcher.getCore().getSolrConfig().parallelSearchMinDocsPerSlice
+        && collectDocsParallel(accumSeg)) {
+      return;
+    }
+
     final int maxSize = others.size() + 1; // others + base
     final List<LeafReaderContext> leaves = fcontext.searcher.getIndexReader().leaves();
     final DocIdSetIterator[] subIterators = new DocIdSetIterator[maxSize];
@@ -204,6 +214,130 @@ class FacetFieldProcessorByArrayDV extends FacetFieldProcessorByArray {
     return si.lookupOrd(ord);
   }
 
+  /**
+   * Collects each slice of segments of a searcher that searches in parallel into its own accumulators, on the
+   * searcher's search executor, and then merges them into {@link #countAcc} and {@link #collectAcc}.
+   *
+   * @return false, without collecting anything, if the searcher doesn't search in parallel
+   */
+  private boolean collectDocsParallel(boolean accumSeg) throws IOException {
+    final List<List<LeafReaderContext>> slices = fcontext.searcher.getSearchSlices();
+    if (slices == null) {
+      return false;
+    }
+
+    // the first slice is collected directly into the processor's accumulators
+    final CountSlotAcc[] sliceCountAccs = new CountSlotAcc[slices.size()];
+    final SlotAcc[] sliceCollectAccs = new SlotAcc[slices.size()];
+    final List<Callable<Void>> tasks = new ArrayList<>(slices.size());
+    for (int i = 0; i < slices.size(); i++) {
+      final List<LeafReaderContext> slice = slices.get(i);
+      final CountSlotAcc sliceCountAcc = i == 0 ? countAcc : new CountSlotArrAcc(fcontext, nTerms);
+      final SlotAcc sliceCollectAcc = i == 0 || collectAcc == null ? collectAcc : newSliceAcc(collectAcc);
+      sliceCountAccs[i] = sliceCountAcc;
+      sliceCollectAccs[i] = sliceCollectAcc;
+      tasks.add(() -> {
+        collectSlice(slice, sliceCountAcc, sliceCollectAcc, accumSeg);
+        return null;
+      });
+    }
+
+    fcontext.searcher.runSlices(tasks);
+
+    for (int i = 1; i < slices.size(); i++) {
+      countAcc.merge(sliceCountAccs[i]);
+      if (collectAcc != null) {
+        collectAcc.merge(sliceCollectAccs[i]);
+      }
+    }
+    return true;
+  }
+
+  /** Creates an empty accumulator for the same aggregations as an accumulator created by createCollectAcc */
+  private SlotAcc newSliceAcc(SlotAcc acc) throws IOException {
+    if (acc instanceof MultiAcc) {
+      final SlotAcc[] subAccs = ((MultiAcc) acc).subAccs;
+      final SlotAcc[] sliceAccs = new SlotAcc[subAccs.length];
+      for (int i = 0; i < subAccs.length; i++) {
+        sliceAccs[i] = newSliceAcc(subAccs[i]);
+      }
+      return new MultiAcc(fcontext, sliceAccs);
+    }
+    SlotAcc sliceAcc = freq.getFacetStats().get(acc.key).createSlotAcc(fcontext, nDocs, maxSlots);
+    sliceAcc.key = acc.key;
+    return sliceAcc;
+  }
+
+  /**
+   * Collects the base domain of one slice of segments. Unlike {@link #collectDocs()}, this only uses state
+   * that is local to the slice, plus the read-only ord ranges and ordinal map of the processor.
+   */
+  private void collectSlice(List<LeafReaderContext> slice, CountSlotAcc sliceCountAcc, SlotAcc sliceCollectAcc,
+                            boolean accumSeg) throws IOException {
+    int[] segCounts = null;
+    for (LeafReaderContext subCtx : slice) {
+      final DocIdSetIterator disi = fcontext.base.iterator(subCtx);
+      if (disi == null) {
+        continue;
+      }
+      if (sliceCollectAcc != null) {
+        sliceCollectAcc.setNextReader(subCtx);
+      }
+
+      final SortedSetDocValues dv;
+      if (multiValuedField) {
+        dv = subCtx.reader().getSortedSetDocValues(sf.getName());
+      } else {
+        SortedDocValues singleDv = subCtx.reader().getSortedDocValues(sf.getName());
+        dv = singleDv == null ? null : DocValues.singleton(singleDv);
+      }
+      if (dv == null || dv.getValueCount() < 1) {
+        continue;
+      }
+      final LongValues toGlobal = ordinalMap == null ? null : ordinalMap.getGlobalOrds(subCtx.ord);
+
+      int doc;
+      if (accumSeg) {
+        // count per segment ord, and map to global ords (over the full range) at the end
+        final int segMax = (int) dv.getValueCount();
+        if (segCounts == null || segCounts.length < segMax) {
+          segCounts = new int[segMax];
+        } else {
+          Arrays.fill(segCounts, 0, segMax, 0);
+        }
+        while ((doc = disi.nextDoc()) != DocIdSetIterator.NO_MORE_DOCS) {
+          if (dv.advanceExact(doc)) {
+            for (long segOrd = dv.nextOrd(); segOrd != SortedSetDocValues.NO_MORE_ORDS; segOrd = dv.nextOrd()) {
+              segCounts[(int) segOrd]++;
+            }
+          }
+        }
+        for (int segOrd = 0; segOrd < segMax; segOrd++) {
+          if (segCounts[segOrd] > 0) {
+            int ord = toGlobal == null ? segOrd : (int) toGlobal.get(segOrd);
+            sliceCountAcc.incrementCount(ord, segCounts[segOrd]);
+          }
+        }
+      } else {
+        while ((doc = disi.nextDoc()) != DocIdSetIterator.NO_MORE_DOCS) {
+          if (dv.advanceExact(doc)) {
+            for (long segOrd = dv.nextOrd(); segOrd != SortedSetDocValues.NO_MORE_ORDS; segOrd = dv.nextOrd()) {
+              int ord = toGlobal == null ? (int) segOrd : (int) toGlobal.get(segOrd);
+              int arrIdx = ord - startTermIndex;
+              if (arrIdx >= 0 && arrIdx < nTerms) {
+                sliceCountAcc.incrementCount(arrIdx, 1);
+                if (sliceCollectAcc != null) {
+                  // mergeable accumulators don't use the slot context, which isn't thread safe
+                  sliceCollectAcc.collect(doc, arrIdx, null);
+                }
+              }
+            }
+          }
+        }
+      }
+    }
+  }
+
   private void collectPerSeg(SortedDocValues singleDv, SweepDISI disi, LongValues toGlobal) throws IOException {
     int segMax = singleDv.getValueCount();
     final SegCountPerSeg segCounter = getSegCountPerSeg(disi, segMax);
@@ -139,6 +139,25 @@ public class HLLAgg extends StrAggValueSource {
       sets = resizer.resize(sets, null);
     }
 
+    @Override
+    public boolean isMergeable() {
+      return true;
+    }
+
+    @Override
+    public void merge(SlotAcc other) {
+      final HLL[] otherSets = ((BaseNumericAcc) other).sets;
+      for (int i = 0; i < otherSets.length; i++) {
+        HLL hll = otherSets[i];
+        if (hll == null) continue;
+        if (sets[i] == null) {
+          sets[i] = hll;
+        } else {
+          sets[i].union(hll);
+        }
+      }
+    }
+
     @Override
     protected void collectValues(int doc, int slot) throws IOException {
       HLL hll = sets[slot];
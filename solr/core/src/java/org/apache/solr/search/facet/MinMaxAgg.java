@@ -252,6 +252,23 @@ public class MinMaxAgg extends SimpleAggValueSource {
       }
     }
 
+    @Override
+    public boolean isMergeable() {
+      return isFieldSource();
+    }
+
+    @Override
+    public void merge(SlotAcc other) {
+      final double[] otherResult = ((DFuncAcc) other).result;
+      for (int i = 0; i < otherResult.length; i++) {
+        double val = otherResult[i];
+        if (Double.isNaN(val)) continue;
+        if (Double.compare(val, result[i]) * minmax < 0 || Double.isNaN(result[i])) {
+          result[i] = val;
+        }
+      }
+    }
+
     @Override
     public Object getValue(int slot) {
       double val = result[slot];
@@ -284,6 +301,26 @@ public class MinMaxAgg extends SimpleAggValueSource {
       }
     }
 
+    @Override
+    public boolean isMergeable() {
+      return isFieldSource();
+    }
+
+    @Override
+    public void merge(SlotAcc other) {
+      final LFuncAcc o = (LFuncAcc) other;
+      for (int i = 0; i < o.result.length; i++) {
+        if (!o.exists.get(i)) continue;
+        long val = o.result[i];
+        if (!exists.get(i)) {
+          exists.set(i);
+          result[i] = val;
+        } else if (Long.compare(val, result[i]) * minmax < 0) {
+          result[i] = val;
+        }
+      }
+    }
+
     @Override
     public Object getValue(int slot) {
       long val = result[slot];
@@ -340,6 +377,23 @@ public class MinMaxAgg extends SimpleAggValueSource {
       }
     }
 
+    @Override
+    public boolean isMergeable() {
+      return isFieldSource();
+    }
+
+    @Override
+    public void merge(SlotAcc other) {
+      final long[] otherResult = ((DateFuncAcc) other).result;
+      for (int i = 0; i < otherResult.length; i++) {
+        long val = otherResult[i];
+        if (val == MISSING) continue;
+        if (Long.compare(val, result[i]) * minmax < 0 || result[i] == MISSING) {
+          result[i] = val;
+        }
+      }
+    }
+
     // let compare be the default for now (since we can't yet correctly handle sortMissingLast
 
     @Override
@@ -388,6 +442,24 @@ public class MinMaxAgg extends SimpleAggValueSource {
     public void resize(Resizer resizer) {
       slotOrd = resizer.resize(slotOrd, MISSING);
     }
+
+    // slots hold global ords, so they can be compared across segments
+    @Override
+    public boolean isMergeable() {
+      return true;
+    }
+
+    @Override
+    public void merge(SlotAcc other) {
+      final int[] otherOrds = ((OrdAcc) other).slotOrd;
+      for (int i = 0; i < otherOrds.length; i++) {
+        int ord = otherOrds[i];
+        if (ord == MISSING) continue;
+        if ((ord - slotOrd[i]) * minmax < 0 || slotOrd[i] == MISSING) {
+          slotOrd[i] = ord;
+        }
+      }
+    }
   }
 
   class SingleValuedOrdAcc extends OrdAcc {
@@ -510,6 +582,23 @@ public class MinMaxAgg extends SimpleAggValueSource {
       this.slotOrd = resizer.resize(slotOrd, MISSING);
     }
 
+    @Override
+    public boolean isMergeable() {
+      return true;
+    }
+
+    @Override
+    public void merge(SlotAcc other) {
+      final long[] otherOrds = ((MinMaxSortedSetDVAcc) other).slotOrd;
+      for (int i = 0; i < otherOrds.length; i++) {
+        long ord = otherOrds[i];
+        if (ord == MISSING) continue;
+        if (slotOrd[i] == MISSING || Long.compare(ord, slotOrd[i]) * minmax < 0) {
+          slotOrd[i] = ord;
+        }
+      }
+    }
+
     @Override
     public void collectValues(int doc, int slotNum) throws IOException {
       long newOrd = MISSING;
@@ -213,6 +213,26 @@ public class PercentileAgg extends SimpleAggValueSource {
     public void resize(Resizer resizer) {
       digests = resizer.resize(digests, null);
     }
+
+    @Override
+    public boolean isMergeable() {
+      return isFieldSource();
+    }
+
+    @Override
+    public void merge(SlotAcc other) {
+      final AVLTreeDigest[] otherDigests = ((Acc) other).digests;
+      for (int i = 0; i < otherDigests.length; i++) {
+        AVLTreeDigest digest = otherDigests[i];
+        if (digest == null) continue;
+        if (digests[i] == null) {
+          digests[i] = digest;
+        } else {
+          digests[i].add(digest);
+        }
+      }
+      sortvals = null;
+    }
   }
 
   abstract class BasePercentileDVAcc extends DocValuesAcc {
@@ -284,6 +304,26 @@ public class PercentileAgg extends SimpleAggValueSource {
     public void resize(Resizer resizer) {
       digests = resizer.resize(digests, null);
     }
+
+    @Override
+    public boolean isMergeable() {
+      return true;
+    }
+
+    @Override
+    public void merge(SlotAcc other) {
+      final AVLTreeDigest[] otherDigests = ((BasePercentileDVAcc) other).digests;
+      for (int i = 0; i < otherDigests.length; i++) {
+        AVLTreeDigest digest = otherDigests[i];
+        if (digest == null) continue;
+        if (digests[i] == null) {
+          digests[i] = digest;
+        } else {
+          digests[i].add(digest);
+        }
+      }
+      sortvals = null;
+    }
   }
 
   class PercentileSortedNumericAcc extends BasePercentileDVAcc {
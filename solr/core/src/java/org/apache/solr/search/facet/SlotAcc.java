@@ -29,6 +29,7 @@ import java.util.function.IntFunction;
 import org.apache.lucene.index.LeafReaderContext;
 import org.apache.lucene.queries.function.FunctionValues;
 import org.apache.lucene.queries.function.ValueSource;
+import org.apache.lucene.queries.function.valuesource.FieldCacheSource;
 import org.apache.lucene.search.DocIdSetIterator;
 import org.apache.lucene.search.Query;
 import org.apache.lucene.util.FixedBitSet;
@@ -153,6 +154,25 @@ public abstract class SlotAcc implements Closeable {
 
   public abstract void resize(Resizer resizer);
 
+  /**
+   * Returns true if {@link #merge} is supported, which allows collecting disjoint sets of segments in parallel,
+   * each into its own accumulator, and merging them afterwards.
+   */
+  public boolean isMergeable() {
+    return false;
+  }
+
+  /**
+   * Merges the values of each slot of another accumulator into this one. The other accumulator must have been
+   * created by the same aggregation, with the same number of slots, and must have collected a disjoint set of
+   * segments. It should not be used after this call.
+   *
+   * @see #isMergeable
+   */
+  public void merge(SlotAcc other) throws IOException {
+    throw new UnsupportedOperationException(getClass().getSimpleName() + " can't be merged");
+  }
+
   @Override
   public void close() throws IOException {
   }
@@ -293,6 +313,14 @@ public abstract class SlotAcc implements Closeable {
       super.setNextReader(readerContext);
       values = valueSource.getValues(fcontext.qcontext, readerContext);
     }
+
+    /**
+     * Returns true if the values are read from a plain field. Other functions may share state across segments
+     * through the query context, so subclasses should only be {@link #isMergeable() mergeable} if this is true.
+     */
+    protected boolean isFieldSource() {
+      return valueSource instanceof FieldCacheSource;
+    }
   }
 
 // have a version that counts the number of times a Slot has been hit? (for avg... what else?)
@@ -416,6 +444,19 @@ public abstract class SlotAcc implements Closeable {
       double val = values.doubleVal(doc); // todo: worth trying to share this value across multiple stats that need it?
       result[slotNum] += val;
     }
+
+    @Override
+    public boolean isMergeable() {
+      return isFieldSource();
+    }
+
+    @Override
+    public void merge(SlotAcc other) {
+      final double[] otherResult = ((SumSlotAcc) other).result;
+      for (int i = 0; i < otherResult.length; i++) {
+        result[i] += otherResult[i];
+      }
+    }
   }
 
   static class SumsqSlotAcc extends DoubleFuncSlotAcc {
@@ -915,6 +956,19 @@ public abstract class SlotAcc implements Closeable {
       return result[slot];
     }
 
+    @Override
+    public boolean isMergeable() {
+      return true;
+    }
+
+    @Override
+    public void merge(SlotAcc other) {
+      final long[] otherResult = ((CountSlotArrAcc) other).result;
+      for (int i = 0; i < otherResult.length; i++) {
+        result[i] += otherResult[i];
+      }
+    }
+
     // internal and expert
     long[] getCountArray() {
       return result;
@@ -93,6 +93,19 @@ public class SumAgg extends SimpleAggValueSource {
       }
     }
 
+    @Override
+    public boolean isMergeable() {
+      return true;
+    }
+
+    @Override
+    public void merge(SlotAcc other) {
+      final double[] otherResult = ((SumSortedNumericAcc) other).result;
+      for (int i = 0; i < otherResult.length; i++) {
+        result[i] += otherResult[i];
+      }
+    }
+
   }
 
   class SumSortedSetAcc extends DocValuesAcc.DoubleSortedSetDVAcc {
@@ -111,6 +124,19 @@ public class SumAgg extends SimpleAggValueSource {
         result[slot] += val;
       }
     }
+
+    @Override
+    public boolean isMergeable() {
+      return true;
+    }
+
+    @Override
+    public void merge(SlotAcc other) {
+      final double[] otherResult = ((SumSortedSetAcc) other).result;
+      for (int i = 0; i < otherResult.length; i++) {
+        result[i] += otherResult[i];
+      }
+    }
   }
 
   class SumUnInvertedFieldAcc extends UnInvertedFieldAcc.DoubleUnInvertedFieldAcc {
@@ -47,6 +47,11 @@ public abstract class UniqueBlockAgg extends UniqueAgg {
     public void calcCounts() {
       // noop already done
     }
+
+    @Override
+    public boolean isMergeable() {
+      return false;
+    }
     
     @Override
     public void reset() throws IOException {
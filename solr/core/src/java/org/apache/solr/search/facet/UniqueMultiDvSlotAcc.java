@@ -53,6 +53,11 @@ class UniqueMultiDvSlotAcc extends UniqueSlotAcc {
     }
   }
 
+  @Override
+  public boolean isMergeable() {
+    return true;
+  }
+
   @Override
   protected BytesRef lookupOrd(int ord) throws IOException {
     return topLevel.lookupOrd(ord);
@@ -54,6 +54,11 @@ class UniqueSinglevaluedSlotAcc extends UniqueSlotAcc {
     }
   }
 
+  @Override
+  public boolean isMergeable() {
+    return true;
+  }
+
   @Override
   protected BytesRef lookupOrd(int ord) throws IOException {
     return topLevel.lookupOrd(ord);
@@ -164,4 +164,20 @@ abstract class UniqueSlotAcc extends SlotAcc {
       counts = resizer.resize(counts, 0);
     }
   }
+
+  /** Only valid for subclasses that set the bits of global ords. */
+  @Override
+  public void merge(SlotAcc other) {
+    final FixedBitSet[] otherArr = ((UniqueSlotAcc) other).arr;
+    for (int i = 0; i < otherArr.length; i++) {
+      FixedBitSet bits = otherArr[i];
+      if (bits == null) continue;
+      if (arr[i] == null) {
+        arr[i] = bits;
+      } else {
+        arr[i].or(bits);
+      }
+    }
+    counts = null;
+  }
 }
\ No newline at end of file
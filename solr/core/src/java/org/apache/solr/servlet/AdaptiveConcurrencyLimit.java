@@ -0,0 +1,139 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.solr.servlet;
+
+import java.util.concurrent.TimeUnit;
+
+import org.apache.solr.common.annotation.SolrThreadSafe;
+
+/**
+ * A limit on concurrent requests that adapts to their latency, with a gradient: while the latency of the recent
+ * requests stays close to the long term latency, the limit grows, and when it rises above it, e.g. because requests
+ * queue up for the CPU or the disk, the limit shrinks in proportion. The excess requests are rejected before the
+ * latency of all of them collapses.
+ *
+ * The limit is updated once per window of at least {@link #MIN_WINDOW_SAMPLES} requests and
+ * {@link #WINDOW_MS} milliseconds, and stays between the given minimum and maximum.
+ */
+@SolrThreadSafe
+public class AdaptiveConcurrencyLimit {
+  static final int MIN_WINDOW_SAMPLES = 10;
+  static final long WINDOW_MS = 500;
+  /** recent latency up to this many times the long term latency doesn't shrink the limit */
+  private static final double TOLERANCE = 1.5;
+  /** the limit shrinks by at most this factor per window */
+  private static final double MIN_GRADIENT = 0.5;
+  /** weight of the new limit, per window */
+  private static final double SMOOTHING = 0.2;
+  /**
+   * weight of the recent latency in the long term latency, per window: higher latency is accepted slowly, so that the
+   * limit keeps shrinking under sustained overload, and lower latency quickly
+   */
+  private static final double LONG_TERM_RISE_ALPHA = 0.01;
+  private static final double LONG_TERM_FALL_ALPHA = 0.2;
+
+  private final int minLimit;
+  private final int maxLimit;
+  private final long windowNanos;
+
+  // all guarded by this
+  private double limit;
+  private int inFlight;
+  private double longTermNanos = -1;
+  private long windowStartNanos = System.nanoTime();
+  private long windowSumNanos;
+  private int windowCount;
+  private int windowMaxInFlight;
+
+  public AdaptiveConcurrencyLimit(int minLimit, int maxLimit) {
+    this(minLimit, maxLimit, WINDOW_MS);
+  }
+
+  AdaptiveConcurrencyLimit(int minLimit, int maxLimit, long windowMs) {
+    this.minLimit = Math.max(1, Math.min(minLimit, maxLimit));
+    this.maxLimit = Math.max(this.minLimit, maxLimit);
+    this.windowNanos = TimeUnit.MILLISECONDS.toNanos(windowMs);
+    this.limit = this.maxLimit;
+  }
+
+  /**
+   * Acquires a slot for a request, waiting up to the given time for one if the limit is reached.
+   *
+   * @return false if no slot was acquired
+   */
+  public synchronized boolean tryAcquire(long timeoutMs) throws InterruptedException {
+    long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(Math.max(0, timeoutMs));
+    while (inFlight >= getLimit()) {
+      long remaining = deadline - System.nanoTime();
+      if (remaining <= 0) {
+        return false;
+      }
+      TimeUnit.NANOSECONDS.timedWait(this, remaining);
+    }
+    inFlight++;
+    windowMaxInFlight = Math.max(windowMaxInFlight, inFlight);
+    return true;
+  }
+
+  /**
+   * Releases the slot of a request.
+   *
+   * @param latencyNanos the time the request took, since its slot was acquired
+   */
+  public synchronized void release(long latencyNanos) {
+    inFlight--;
+    windowSumNanos += latencyNanos;
+    windowCount++;
+    long now = System.nanoTime();
+    if (windowCount >= MIN_WINDOW_SAMPLES && now - windowStartNanos >= windowNanos) {
+      updateLimit();
+      windowStartNanos = now;
+      windowSumNanos = 0;
+      windowCount = 0;
+      windowMaxInFlight = inFlight;
+    }
+    notifyAll();
+  }
+
+  private void updateLimit() {
+    double recentNanos = Math.max(1, (double) windowSumNanos / windowCount);
+    if (longTermNanos < 0) {
+      longTermNanos = recentNanos;
+    } else {
+      double alpha = recentNanos > longTermNanos ? LONG_TERM_RISE_ALPHA : LONG_TERM_FALL_ALPHA;
+      longTermNanos = alpha * recentNanos + (1 - alpha) * longTermNanos;
+    }
+    double gradient = Math.max(MIN_GRADIENT, Math.min(1.0, TOLERANCE * longTermNanos / recentNanos));
+    if (gradient == 1.0 && windowMaxInFlight < limit / 2) {
+      // the limit wasn't what held the requests back, so there's no sign it could be higher
+      return;
+    }
+    // some queueing is allowed for, so that the limit grows while the latency holds
+    double newLimit = limit * gradient + Math.sqrt(limit);
+    limit = Math.max(minLimit, Math.min(maxLimit, (1 - SMOOTHING) * limit + SMOOTHING * newLimit));
+  }
+
+  /** The current limit of concurrent requests */
+  public synchronized int getLimit() {
+    return (int) limit;
+  }
+
+  /** The number of requests holding a slot */
+  public synchronized int getInFlight() {
+    return inFlight;
+  }
+}
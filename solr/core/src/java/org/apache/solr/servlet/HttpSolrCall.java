@@ -16,6 +16,7 @@
  */
 package org.apache.solr.servlet;
 
+import javax.servlet.AsyncContext;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import java.io.EOFException;
@@ -36,9 +37,14 @@ import java.util.List;
 import java.util.Map;
 import java.util.Random;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
 import java.util.concurrent.TimeUnit;
 
+import io.opentracing.Scope;
 import io.opentracing.Span;
+import io.opentracing.Tracer;
 import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.http.Header;
@@ -74,6 +80,7 @@ import org.apache.solr.common.params.MapSolrParams;
 import org.apache.solr.common.params.ModifiableSolrParams;
 import org.apache.solr.common.params.SolrParams;
 import org.apache.solr.common.util.CommandOperation;
+import org.apache.solr.common.util.ExecutorUtil;
 import org.apache.solr.common.util.ContentStream;
 import org.apache.solr.common.util.JsonSchemaValidator;
 import org.apache.solr.common.util.NamedList;
@@ -86,6 +93,7 @@ import org.apache.solr.core.CoreContainer;
 import org.apache.solr.core.SolrConfig;
 import org.apache.solr.core.SolrCore;
 import org.apache.solr.handler.ContentStreamHandlerBase;
+import org.apache.solr.handler.component.SearchHandler;
 import org.apache.solr.logging.MDCLoggingContext;
 import org.apache.solr.request.LocalSolrQueryRequest;
 import org.apache.solr.request.SolrQueryRequest;
@@ -112,6 +120,7 @@ import org.apache.solr.util.TimeOut;
 import org.apache.zookeeper.KeeperException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
 import org.slf4j.MarkerFactory;
 
 import static org.apache.solr.common.cloud.ZkStateReader.COLLECTION_PROP;
@@ -125,6 +134,7 @@ import static org.apache.solr.common.params.CollectionParams.CollectionAction.RE
 import static org.apache.solr.common.params.CommonParams.NAME;
 import static org.apache.solr.common.params.CoreAdminParams.ACTION;
 import static org.apache.solr.servlet.SolrDispatchFilter.Action.ADMIN;
+import static org.apache.solr.servlet.SolrDispatchFilter.Action.ASYNC;
 import static org.apache.solr.servlet.SolrDispatchFilter.Action.FORWARD;
 import static org.apache.solr.servlet.SolrDispatchFilter.Action.PASSTHROUGH;
 import static org.apache.solr.servlet.SolrDispatchFilter.Action.PROCESS;
@@ -163,6 +173,7 @@ public class HttpSolrCall {
   protected SolrCore core = null;
   protected SolrQueryRequest solrReq = null;
   private boolean mustClearSolrRequestInfo = false;
+  private CompletableFuture<Void> completion;
   protected SolrRequestHandler handler = null;
   protected final SolrParams queryParams;
   protected String path;
@@ -561,23 +572,16 @@ public class HttpSolrCall {
              */
             SolrRequestInfo.setRequestInfo(new SolrRequestInfo(solrReq, solrRsp, action));
             mustClearSolrRequestInfo = true;
-            execute(solrRsp);
-            if (shouldAudit()) {
-              EventType eventType = solrRsp.getException() == null ? EventType.COMPLETED : EventType.ERROR;
-              if (shouldAudit(eventType)) {
-                cores.getAuditLoggerPlugin().doAudit(
-                        new AuditEvent(eventType, req, getAuthCtx(), solrReq.getRequestTimer().getTime(), solrRsp.getException()));
-              }
+            if (isAsyncSupported()) {
+              solrRsp.setSuspender(this::startAsync);
             }
-            HttpCacheHeaderUtil.checkHttpCachingVeto(solrRsp, resp, reqMethod);
-            Iterator<Map.Entry<String, String>> headers = solrRsp.httpHeaders();
-            while (headers.hasNext()) {
-              Map.Entry<String, String> entry = headers.next();
-              resp.addHeader(entry.getKey(), entry.getValue());
+            execute(solrRsp);
+            if (solrRsp.isSuspended()) {
+              // the response is written by the thread completing it
+              completion = solrRsp.getCompletion().whenComplete((v, t) -> completeAsync(solrRsp, reqMethod, t));
+              return ASYNC;
             }
-            QueryResponseWriter responseWriter = getResponseWriter();
-            if (invalidStates != null) solrReq.getContext().put(CloudSolrClient.STATE_VERSION, invalidStates);
-            writeResponse(solrRsp, responseWriter, reqMethod);
+            writeProcessResponse(solrRsp, reqMethod);
           }
           return RETURN;
         default: return action;
@@ -603,6 +607,91 @@ public class HttpSolrCall {
 
   }
 
+  private void writeProcessResponse(SolrQueryResponse solrRsp, Method reqMethod) throws IOException {
+    if (shouldAudit()) {
+      EventType eventType = solrRsp.getException() == null ? EventType.COMPLETED : EventType.ERROR;
+      if (shouldAudit(eventType)) {
+        cores.getAuditLoggerPlugin().doAudit(
+                new AuditEvent(eventType, req, getAuthCtx(), solrReq.getRequestTimer().getTime(), solrRsp.getException()));
+      }
+    }
+    HttpCacheHeaderUtil.checkHttpCachingVeto(solrRsp, response, reqMethod);
+    Iterator<Map.Entry<String, String>> headers = solrRsp.httpHeaders();
+    while (headers.hasNext()) {
+      Map.Entry<String, String> entry = headers.next();
+      response.addHeader(entry.getKey(), entry.getValue());
+    }
+    QueryResponseWriter responseWriter = getResponseWriter();
+    if (invalidStates != null) solrReq.getContext().put(CloudSolrClient.STATE_VERSION, invalidStates);
+    writeResponse(solrRsp, responseWriter, reqMethod);
+  }
+
+  /**
+   * Whether the handler may suspend the response of the request, to release the request thread while it waits (for
+   * the shards of a distributed search). Requires the async dispatch of {@link SolrDispatchFilter}.
+   */
+  protected boolean isAsyncSupported() {
+    return solrDispatchFilter.isAsyncDispatch() && req.isAsyncSupported() && handler instanceof SearchHandler;
+  }
+
+  /**
+   * Puts the request in asynchronous mode, and returns the executor of the continuations of the handler: they run on
+   * the threads of the container, with the thread context of this request.
+   */
+  private Executor startAsync() {
+    AsyncContext asyncContext = req.startAsync();
+    asyncContext.setTimeout(0); // the shard requests have their own timeouts
+    SolrRequestInfo requestInfo = SolrRequestInfo.getRequestInfo();
+    Map<String, String> mdc = MDC.getCopyOfContextMap();
+    Tracer tracer = (Tracer) req.getAttribute(Tracer.class.getName());
+    Span span = (Span) req.getAttribute(Span.class.getName());
+    return continuation -> asyncContext.start(() -> {
+      if (mdc != null) {
+        MDC.setContextMap(mdc);
+      }
+      SolrRequestInfo.setRequestInfo(requestInfo);
+      ExecutorUtil.setServerThreadFlag(Boolean.TRUE);
+      try (Scope scope = tracer.scopeManager().activate(span)) {
+        assert scope != null; // prevent javac warning about scope being unused
+        continuation.run();
+      } finally {
+        ExecutorUtil.setServerThreadFlag(null);
+        // cleared by destroy() if the continuation completed the request
+        SolrRequestInfo.detachRequestInfo();
+        MDCLoggingContext.reset();
+      }
+    });
+  }
+
+  private void completeAsync(SolrQueryResponse solrRsp, Method reqMethod, Throwable failure) {
+    try {
+      if (failure == null) {
+        writeProcessResponse(solrRsp, reqMethod);
+        return;
+      }
+    } catch (Throwable t) {
+      failure = t;
+    }
+    if (failure instanceof CompletionException && failure.getCause() != null) {
+      failure = failure.getCause();
+    }
+    if (shouldAudit(EventType.ERROR)) {
+      cores.getAuditLoggerPlugin().doAudit(new AuditEvent(EventType.ERROR, failure, req));
+    }
+    try {
+      sendError(failure);
+    } catch (IOException e) {
+      log.info("Unable to write error response", e);
+    }
+  }
+
+  /**
+   * The completion of the request when {@link #call()} returned {@link Action#ASYNC}, once its response is written
+   */
+  public CompletableFuture<Void> getCompletion() {
+    return completion;
+  }
+
   private boolean shouldAudit() {
     return cores.getAuditLoggerPlugin() != null;
   }
@@ -25,6 +25,7 @@ import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 
 import org.apache.solr.client.solrj.SolrRequest;
+import org.apache.solr.common.MapWriter;
 import org.apache.solr.common.annotation.SolrThreadSafe;
 import org.apache.solr.common.cloud.ClusterPropertiesListener;
 import org.apache.solr.common.cloud.SolrZkClient;
@@ -49,6 +50,7 @@ public class RateLimitManager implements ClusterPropertiesListener {
 
   public final static int DEFAULT_CONCURRENT_REQUESTS= (Runtime.getRuntime().availableProcessors()) * 3;
   public final static long DEFAULT_SLOT_ACQUISITION_TIMEOUT_MS = -1;
+  public final static int DEFAULT_MIN_ALLOWED_REQUESTS = Runtime.getRuntime().availableProcessors();
   private final Map<String, RequestRateLimiter> requestRateLimiterMap;
 
   private final Map<HttpServletRequest, RequestRateLimiter.SlotMetadata> activeRequestsMap;
@@ -100,7 +102,7 @@ public class RateLimitManager implements ClusterPropertiesListener {
       return true;
     }
 
-    RequestRateLimiter.SlotMetadata result = requestRateLimiter.handleRequest();
+    RequestRateLimiter.SlotMetadata result = requestRateLimiter.handleRequest(getCollection(request));
 
     if (result != null) {
       // Can be the case if request rate limiter is disabled
@@ -120,6 +122,22 @@ public class RateLimitManager implements ClusterPropertiesListener {
     return false;
   }
 
+  // The collection (or core) the request is for, taken from the first segment of its path, or null if none
+  static String getCollection(HttpServletRequest request) {
+    String[] segments = ServletUtils.getPathAfterContext(request).split("/", 5);
+    // e.g. ["", "collection1", "select"], or ["", "api", "c", "collection1", "select"] for V2
+    int index = 1;
+    if (segments.length > 3 && ("api".equals(segments[1]) || "____v2".equals(segments[1]))
+        && ("c".equals(segments[2]) || "collections".equals(segments[2]))) {
+      index = 3;
+    }
+    // requests to the node, e.g. /admin/info/system, are not for a collection
+    if (segments.length <= index + 1 || segments[index].isEmpty() || "admin".equals(segments[index])) {
+      return null;
+    }
+    return segments[index];
+  }
+
   /* For a rejected request type, do the following:
    * For each request rate limiter whose type that is not of the type of the request which got rejected,
    * check if slot borrowing is enabled. If enabled, try to acquire a slot.
@@ -182,6 +200,20 @@ public class RateLimitManager implements ClusterPropertiesListener {
     return requestRateLimiterMap.get(requestType.toString());
   }
 
+  /**
+   * Writes the current limits and requests in flight of the adaptive rate limiters, by request type and collection,
+   * e.g. <code>QUERY.collection1.limit</code>; <code>_all</code> stands for the requests without a collection.
+   */
+  public void writeAdaptiveLimits(MapWriter.EntryWriter ew) {
+    for (Map.Entry<String, RequestRateLimiter> entry : requestRateLimiterMap.entrySet()) {
+      for (Map.Entry<String, AdaptiveConcurrencyLimit> limit : entry.getValue().getAdaptiveLimits().entrySet()) {
+        String prefix = entry.getKey() + "." + (limit.getKey().isEmpty() ? "_all" : limit.getKey());
+        ew.putNoEx(prefix + ".limit", limit.getValue().getLimit());
+        ew.putNoEx(prefix + ".inFlight", limit.getValue().getInFlight());
+      }
+    }
+  }
+
   public static class Builder {
     protected SolrZkClient solrZkClient;
 
@@ -17,6 +17,8 @@
 
 package org.apache.solr.servlet;
 
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
 
@@ -29,6 +31,9 @@ import org.apache.solr.core.RateLimiterConfig;
  * The control flow is as follows:
  * Handle request -- Check if slot is available -- If available, acquire slot and proceed --
  * else reject the same.
+ *
+ * If the rate limiter is adaptive, the slots are not fixed: each collection has an {@link AdaptiveConcurrencyLimit}
+ * that resizes its slots between the configured minimum and allowed requests, following the latency of its requests.
  */
 @SolrThreadSafe
 public class RequestRateLimiter {
@@ -44,6 +49,10 @@ public class RequestRateLimiter {
   private final SlotMetadata guaranteedSlotMetadata;
   private final SlotMetadata borrowedSlotMetadata;
   private static final SlotMetadata nullSlotMetadata = new SlotMetadata(null);
+  // beyond this many collections, the others share a limit
+  private static final int MAX_ADAPTIVE_LIMITS = 1000;
+  private static final String SHARED_LIMIT = "";
+  private final Map<String, AdaptiveConcurrencyLimit> adaptiveLimits = new ConcurrentHashMap<>();
 
   public RequestRateLimiter(RateLimiterConfig rateLimiterConfig) {
     this.rateLimiterConfig = rateLimiterConfig;
@@ -74,6 +83,40 @@ public class RequestRateLimiter {
     return null;
   }
 
+  /**
+   * Handles an incoming request to the given collection, which may be null. Only adaptive rate limiters differentiate
+   * the collections, the others delegate to {@link #handleRequest()}.
+   */
+  public SlotMetadata handleRequest(String collection) throws InterruptedException {
+    if (!rateLimiterConfig.isEnabled || !rateLimiterConfig.isAdaptive) {
+      return handleRequest();
+    }
+
+    AdaptiveConcurrencyLimit limit = getAdaptiveLimit(collection == null ? SHARED_LIMIT : collection);
+    if (limit.tryAcquire(rateLimiterConfig.waitForSlotAcquisition)) {
+      return new AdaptiveSlotMetadata(limit);
+    }
+
+    return null;
+  }
+
+  private AdaptiveConcurrencyLimit getAdaptiveLimit(String collection) {
+    AdaptiveConcurrencyLimit limit = adaptiveLimits.get(collection);
+    if (limit == null) {
+      if (adaptiveLimits.size() >= MAX_ADAPTIVE_LIMITS) {
+        collection = SHARED_LIMIT;
+      }
+      limit = adaptiveLimits.computeIfAbsent(collection,
+          k -> new AdaptiveConcurrencyLimit(rateLimiterConfig.minAllowedRequests, rateLimiterConfig.allowedRequests));
+    }
+    return limit;
+  }
+
+  /** The adaptive limits by collection, "" for the requests without a collection */
+  public Map<String, AdaptiveConcurrencyLimit> getAdaptiveLimits() {
+    return adaptiveLimits;
+  }
+
   /**
    * Whether to allow another request type to borrow a slot from this request rate limiter. Typically works fine
    * if there is a relatively lesser load on this request rate limiter's type compared to the others (think of skew).
@@ -83,6 +126,11 @@ public class RequestRateLimiter {
    * @lucene.experimental -- Can cause slots to be blocked if a request borrows a slot and is itself long lived.
    */
   public SlotMetadata allowSlotBorrowing() throws InterruptedException {
+    if (rateLimiterConfig.isAdaptive) {
+      // no fixed slots to borrow from
+      return nullSlotMetadata;
+    }
+
     if (borrowableSlotsPool.tryAcquire(rateLimiterConfig.waitForSlotAcquisition, TimeUnit.MILLISECONDS)) {
       return borrowedSlotMetadata;
     }
@@ -112,4 +160,25 @@ public class RequestRateLimiter {
       return usedPool != null;
     }
   }
+
+  // Represents a slot of an adaptive limit, which learns the latency of the request when released
+  static class AdaptiveSlotMetadata extends SlotMetadata {
+    private final AdaptiveConcurrencyLimit limit;
+    private final long startTime = System.nanoTime();
+
+    AdaptiveSlotMetadata(AdaptiveConcurrencyLimit limit) {
+      super(null);
+      this.limit = limit;
+    }
+
+    @Override
+    public void decrementRequest() {
+      limit.release(System.nanoTime() - startTime);
+    }
+
+    @Override
+    public boolean isReleasable() {
+      return true;
+    }
+  }
 }
@@ -20,6 +20,7 @@ import javax.naming.Context;
 import javax.naming.InitialContext;
 import javax.naming.NamingException;
 import javax.naming.NoInitialContextException;
+import javax.servlet.AsyncContext;
 import javax.servlet.FilterChain;
 import javax.servlet.FilterConfig;
 import javax.servlet.ReadListener;
@@ -121,6 +122,14 @@ public class SolrDispatchFilter extends BaseSolrFilter {
 
   private RateLimitManager rateLimitManager;
 
+  /**
+   * Enables the async dispatch of requests: distributed searches release the request thread while they wait for the
+   * shards to respond, and continue on another thread of the container when they do.
+   */
+  public static final String ASYNC_DISPATCH_PROP = "solr.asyncDispatch";
+
+  private boolean asyncDispatch = Boolean.getBoolean(ASYNC_DISPATCH_PROP);
+
   /**
    * Enum to define action that needs to be processed.
    * PASSTHROUGH: Pass through to another filter via webapp.
@@ -128,9 +137,10 @@ public class SolrDispatchFilter extends BaseSolrFilter {
    * RETURN: Returns the control, and no further specific processing is needed.
    *  This is generally when an error is set and returned.
    * RETRY:Retry the request. In cases when a core isn't found to work with, this is set.
+   * ASYNC: The request was suspended, its response is written and the request is completed by another thread.
    */
   public enum Action {
-    PASSTHROUGH, FORWARD, RETURN, RETRY, ADMIN, REMOTEQUERY, PROCESS
+    PASSTHROUGH, FORWARD, RETURN, RETRY, ADMIN, REMOTEQUERY, PROCESS, ASYNC
   }
   
   public SolrDispatchFilter() {
@@ -178,6 +188,11 @@ public class SolrDispatchFilter extends BaseSolrFilter {
         StartupLoggingUtils.changeLogLevel(logLevel);
       }
       
+      String async = config.getInitParameter("asyncDispatch");
+      if (async != null) {
+        asyncDispatch = Boolean.parseBoolean(async);
+      }
+
       String exclude = config.getInitParameter("excludePatterns");
       if(exclude != null) {
         String[] excludeArray = exclude.split(",");
@@ -205,6 +220,8 @@ public class SolrDispatchFilter extends BaseSolrFilter {
       if (zkController != null) {
         zkController.zkStateReader.registerClusterPropertiesListener(this.rateLimitManager);
       }
+
+      registerRateLimiterMetrics();
       
       if (log.isDebugEnabled()) {
         log.debug("user.dir={}", System.getProperty("user.dir"));
@@ -256,6 +273,17 @@ public class SolrDispatchFilter extends BaseSolrFilter {
     }
   }
 
+  private void registerRateLimiterMetrics() {
+    try {
+      // reads the field when reported, since tests replace the rate limit manager
+      MetricsMap adaptiveLimits = new MetricsMap(ew -> rateLimitManager.writeAdaptiveLimits(ew));
+      metricManager.registerGauge(null, SolrMetricManager.getRegistryName(SolrInfoBean.Group.node), adaptiveLimits,
+          metricTag, SolrMetricManager.ResolutionStrategy.IGNORE, "adaptiveLimits", "rateLimiter");
+    } catch (Exception e) {
+      log.warn("Error registering rate limiter metrics", e);
+    }
+  }
+
   private void logWelcomeBanner() {
     // _Really_ sorry about how clumsy this is as a result of the logging call checker, but this is the only one
     // that's so ugly so far.
@@ -394,6 +422,11 @@ public class SolrDispatchFilter extends BaseSolrFilter {
   public CoreContainer getCores() {
     return cores;
   }
+
+  /** Are requests dispatched asynchronously when they can be? See {@link #ASYNC_DISPATCH_PROP} */
+  public boolean isAsyncDispatch() {
+    return asyncDispatch;
+  }
   
   @Override
   public void destroy() {
@@ -409,6 +442,7 @@ public class SolrDispatchFilter extends BaseSolrFilter {
       if (metricManager != null) {
         try {
           metricManager.unregisterGauges(registryName, metricTag);
+          metricManager.unregisterGauges(SolrMetricManager.getRegistryName(SolrInfoBean.Group.node), metricTag);
         } catch (NullPointerException e) {
           // okay
         } catch (Exception e) {
@@ -457,6 +491,7 @@ public class SolrDispatchFilter extends BaseSolrFilter {
     request.setAttribute(Tracer.class.getName(), tracer);
     request.setAttribute(Span.class.getName(), span);
     boolean accepted = false;
+    boolean async = false;
     try (var scope = tracer.scopeManager().activate(span)) {
       assert scope != null; // prevent javac warning about scope being unused
 
@@ -515,6 +550,10 @@ public class SolrDispatchFilter extends BaseSolrFilter {
           case FORWARD:
             request.getRequestDispatcher(call.getPath()).forward(request, response);
             break;
+          case ASYNC:
+            async = true;
+            completeAsync(call, request, response, accepted, span);
+            break;
           case ADMIN:
           case PROCESS:
           case REMOTEQUERY:
@@ -522,19 +561,47 @@ public class SolrDispatchFilter extends BaseSolrFilter {
             break;
         }
       } finally {
-        call.destroy();
+        if (!async) {
+          call.destroy();
+        }
         ExecutorUtil.setServerThreadFlag(null);
       }
     } finally {
-      consumeInputFully(request, response);
-      SolrRequestInfo.reset();
-      SolrRequestParsers.cleanupMultipartFiles(request);
+      if (async) {
+        // the thread completing the request clears it
+        SolrRequestInfo.detachRequestInfo();
+      } else {
+        finishRequest(request, response, accepted, span);
+      }
+    }
+  }
 
-      if (accepted) {
-        rateLimitManager.decrementActiveRequests(request);
+  /** Completes the request once the response of the suspended call is written, from the thread writing it */
+  private void completeAsync(HttpSolrCall call, HttpServletRequest request, HttpServletResponse response,
+                             boolean accepted, Span span) {
+    AsyncContext asyncContext = request.getAsyncContext();
+    call.getCompletion().whenComplete((v, t) -> {
+      try {
+        call.destroy();
+      } finally {
+        try {
+          finishRequest(request, response, accepted, span);
+        } finally {
+          asyncContext.complete();
+        }
       }
-      span.finish();
+    });
+  }
+
+  private void finishRequest(HttpServletRequest request, HttpServletResponse response, boolean accepted, Span span) {
+    consumeInputFully(request, response);
+    SolrRequestInfo.reset();
+    SolrRequestParsers.cleanupMultipartFiles(request);
+
+    if (accepted) {
+      rateLimitManager.decrementActiveRequests(request);
     }
+    span.finish();
   }
   
   // we make sure we read the full client request so that the client does
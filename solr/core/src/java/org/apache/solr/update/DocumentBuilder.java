@@ -16,6 +16,7 @@
  */
 package org.apache.solr.update;
 
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
@@ -31,6 +32,7 @@ import org.apache.solr.common.SolrException;
 import org.apache.solr.common.SolrInputDocument;
 import org.apache.solr.common.SolrInputField;
 import org.apache.solr.schema.CopyField;
+import org.apache.solr.schema.DenseVectorField;
 import org.apache.solr.schema.IndexSchema;
 import org.apache.solr.schema.SchemaField;
 
@@ -153,8 +155,11 @@ public class DocumentBuilder {
       SchemaField sfield = schema.getFieldOrNull(name);
       boolean used = false;
       
+      // the values of a vector field are a single value
+      boolean isVector = sfield != null && sfield.getType() instanceof DenseVectorField;
+
       // Make sure it has the correct number
-      if( sfield!=null && !sfield.multiValued() && field.getValueCount() > 1 ) {
+      if( sfield!=null && !sfield.multiValued() && !isVector && field.getValueCount() > 1 ) {
         throw new SolrException( SolrException.ErrorCode.BAD_REQUEST,
             "ERROR: "+getID(doc, schema)+"multiple values encountered for non multiValued field " + 
               sfield.getName() + ": " +field.getValue() );
@@ -167,7 +172,7 @@ public class DocumentBuilder {
       boolean hasField = false;
       try {
         @SuppressWarnings({"rawtypes"})
-        Iterator it = field.iterator();
+        Iterator it = isVector ? Collections.singletonList(field.getValues()).iterator() : field.iterator();
         while (it.hasNext()) {
           Object v = it.next();
           if( v == null ) {
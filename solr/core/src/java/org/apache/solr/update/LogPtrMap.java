@@ -0,0 +1,216 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.solr.update;
+
+import java.util.Arrays;
+
+import org.apache.lucene.util.Accountable;
+import org.apache.lucene.util.ArrayUtil;
+import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.RamUsageEstimator;
+
+/**
+ * A map from indexed id to {@link UpdateLog.LogPtr}, as used by the {@link UpdateLog} to find the
+ * latest update of a document in the transaction logs. Instead of one {@link BytesRef} and one
+ * {@link UpdateLog.LogPtr} per entry, ids are copied into a single byte array and pointers and versions
+ * are held in primitive arrays indexed by entry ordinal, with an open addressing (linear probing)
+ * table from id hash to ordinal. This keeps the number of objects independent of the number of
+ * updates between two commits.
+ * <p>
+ * A map created with a maximum size keeps (at least) the last {@code maxSize} ids that were put:
+ * once full, it keeps its entries as a read-only previous generation and starts over, the previous
+ * previous generation is dropped.
+ * <p>
+ * This class is not thread safe, the {@link UpdateLog} accesses it while synchronized.
+ *
+ * @lucene.internal
+ */
+public final class LogPtrMap implements Accountable {
+  private static final long BASE_RAM_BYTES_USED = RamUsageEstimator.shallowSizeOfInstance(LogPtrMap.class);
+  private static final int INITIAL_CAPACITY = 16;
+
+  private final int maxSize;
+  private LogPtrMap previous;
+
+  private int size;
+  private byte[] ids;
+  private int idsLength;
+  private int[] idStarts;  // ord -> start of the id in ids; the end is the start of the next ord
+  private int[] hashes;    // ord -> hash of the id
+  private long[] pointers;
+  private long[] versions;
+  private long[] previousPointers;
+  private int[] table;     // slot -> ord + 1, 0 if empty
+  private int mask;
+
+  /** Creates an unbounded map. */
+  public LogPtrMap() {
+    this(-1);
+  }
+
+  /**
+   * Creates a map keeping at least the last {@code maxSize} ids, and at most twice as many.
+   * @param maxSize the maximum number of entries of a generation, -1 for no limit
+   */
+  public LogPtrMap(int maxSize) {
+    this.maxSize = maxSize;
+    reset();
+  }
+
+  private void reset() {
+    size = 0;
+    ids = new byte[INITIAL_CAPACITY * 8];
+    idsLength = 0;
+    idStarts = new int[INITIAL_CAPACITY + 1];
+    hashes = new int[INITIAL_CAPACITY];
+    pointers = new long[INITIAL_CAPACITY];
+    versions = new long[INITIAL_CAPACITY];
+    previousPointers = new long[INITIAL_CAPACITY];
+    table = new int[INITIAL_CAPACITY * 2];
+    mask = table.length - 1;
+  }
+
+  /** Returns the slot of the given id, either holding it or empty. */
+  private int slot(BytesRef id, int hash) {
+    int slot = hash & mask;
+    for (;;) {
+      int ord = table[slot] - 1;
+      if (ord < 0 || (hashes[ord] == hash && idEquals(ord, id))) {
+        return slot;
+      }
+      slot = (slot + 1) & mask;
+    }
+  }
+
+  private boolean idEquals(int ord, BytesRef id) {
+    int start = idStarts[ord];
+    int end = idStarts[ord + 1];
+    return Arrays.equals(ids, start, end, id.bytes, id.offset, id.offset + id.length);
+  }
+
+  /** Returns the position and version of the latest update of the given id, or null if there is none. */
+  public UpdateLog.LogPtr get(BytesRef id) {
+    int hash = id.hashCode();
+    int ord = table[slot(id, hash)] - 1;
+    if (ord >= 0) {
+      return new UpdateLog.LogPtr(pointers[ord], versions[ord], previousPointers[ord]);
+    }
+    return previous == null ? null : previous.get(id);
+  }
+
+  /** Records the position and version of the latest update of the given id. The id is copied. */
+  public void put(BytesRef id, UpdateLog.LogPtr ptr) {
+    put(id, ptr.pointer, ptr.version, ptr.previousPointer);
+  }
+
+  /** Records the position and version of the latest update of the given id. The id is copied. */
+  public void put(BytesRef id, long pointer, long version, long previousPointer) {
+    int hash = id.hashCode();
+    int slot = slot(id, hash);
+    int ord = table[slot] - 1;
+    if (ord < 0) {
+      if (size == maxSize) {
+        rotate();
+        slot = slot(id, hash);
+      }
+      ord = add(id, hash);
+      table[slot] = ord + 1;
+      if (2 * size > table.length) {
+        rehash(table.length * 2);
+      }
+    }
+    pointers[ord] = pointer;
+    versions[ord] = version;
+    previousPointers[ord] = previousPointer;
+  }
+
+  private int add(BytesRef id, int hash) {
+    int ord = size++;
+    if (ord == hashes.length) {
+      int newLength = ArrayUtil.oversize(ord + 1, Long.BYTES);
+      hashes = ArrayUtil.growExact(hashes, newLength);
+      pointers = ArrayUtil.growExact(pointers, newLength);
+      versions = ArrayUtil.growExact(versions, newLength);
+      previousPointers = ArrayUtil.growExact(previousPointers, newLength);
+      idStarts = ArrayUtil.growExact(idStarts, newLength + 1);
+    }
+    ids = ArrayUtil.grow(ids, idsLength + id.length);
+    System.arraycopy(id.bytes, id.offset, ids, idsLength, id.length);
+    idsLength += id.length;
+    idStarts[ord + 1] = idsLength;
+    hashes[ord] = hash;
+    return ord;
+  }
+
+  private void rehash(int newCapacity) {
+    table = new int[newCapacity];
+    mask = newCapacity - 1;
+    for (int ord = 0; ord < size; ord++) {
+      int slot = hashes[ord] & mask;
+      while (table[slot] != 0) {
+        slot = (slot + 1) & mask;
+      }
+      table[slot] = ord + 1;
+    }
+  }
+
+  /** Moves the entries of this map to a previous generation, dropping the existing one. */
+  private void rotate() {
+    LogPtrMap generation = new LogPtrMap(-1);
+    generation.size = size;
+    generation.ids = ids;
+    generation.idsLength = idsLength;
+    generation.idStarts = idStarts;
+    generation.hashes = hashes;
+    generation.pointers = pointers;
+    generation.versions = versions;
+    generation.previousPointers = previousPointers;
+    generation.table = table;
+    generation.mask = mask;
+    previous = generation;
+    reset();
+  }
+
+  /** Number of ids in this map; ids of a previous generation that were put again are counted twice. */
+  public int size() {
+    return size + (previous == null ? 0 : previous.size);
+  }
+
+  /** Removes all entries, and releases the memory used. */
+  public void clear() {
+    previous = null;
+    reset();
+  }
+
+  @Override
+  public long ramBytesUsed() {
+    return BASE_RAM_BYTES_USED
+        + RamUsageEstimator.sizeOf(ids)
+        + RamUsageEstimator.sizeOf(idStarts)
+        + RamUsageEstimator.sizeOf(hashes)
+        + RamUsageEstimator.sizeOf(pointers)
+        + RamUsageEstimator.sizeOf(versions)
+        + RamUsageEstimator.sizeOf(previousPointers)
+        + RamUsageEstimator.sizeOf(table)
+        + (previous == null ? 0 : previous.ramBytesUsed());
+  }
+
+  @Override
+  public String toString() {
+    return "LogPtrMap(size=" + size() + ")";
+  }
+}
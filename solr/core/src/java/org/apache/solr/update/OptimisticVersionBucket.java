@@ -0,0 +1,127 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.solr.update;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.apache.solr.common.SolrException;
+
+/**
+ * A version bucket for heavy concurrent indexing. The highest version is maintained with
+ * compare-and-set rather than under the bucket lock, and the lock is first acquired optimistically:
+ * an update only parks when another update of the same bucket is in progress, and such contention
+ * is recorded in the {@link VersionInfo} statistics. If <code>lockTimeoutMs</code> is greater than 0,
+ * waiting for the lock fails after that time, like with {@link TimedVersionBucket}.
+ *
+ * @lucene.internal
+ */
+public class OptimisticVersionBucket extends VersionBucket {
+  private static final VarHandle HIGHEST;
+  static {
+    try {
+      HIGHEST = MethodHandles.lookup().findVarHandle(VersionBucket.class, "highest", long.class);
+    } catch (ReflectiveOperationException e) {
+      throw new ExceptionInInitializerError(e);
+    }
+  }
+
+  // not fair: a free lock is taken right away rather than handed over to a parked thread
+  private final ReentrantLock lock = new ReentrantLock();
+  private final Condition condition = lock.newCondition();
+  private final VersionInfo.LockStats stats;
+
+  public OptimisticVersionBucket(VersionInfo.LockStats stats) {
+    this.stats = stats;
+  }
+
+  @Override
+  public void updateHighest(long val) {
+    long abs = Math.abs(val);
+    for (;;) {
+      long current = (long) HIGHEST.getVolatile(this);
+      if (current == 0 || current >= abs || HIGHEST.compareAndSet(this, current, abs)) {
+        return;
+      }
+    }
+  }
+
+  @Override
+  public void seedHighest(long val) {
+    for (;;) {
+      long current = (long) HIGHEST.getVolatile(this);
+      if (current >= val || HIGHEST.compareAndSet(this, current, val)) {
+        return;
+      }
+    }
+  }
+
+  /**
+   * This will run the function with the lock. If <code>lockTimeoutMs</code> is greater than 0, it will
+   * throw an exception if it can't obtain the lock within that time.
+   */
+  @Override
+  public <T,R> R runWithLock(int lockTimeoutMs, CheckedFunction<T,R> function) throws IOException {
+    if (!lock.tryLock()) {
+      long start = System.nanoTime();
+      boolean locked = true;
+      try {
+        if (lockTimeoutMs > 0) {
+          locked = lock.tryLock(lockTimeoutMs, TimeUnit.MILLISECONDS);
+        } else {
+          lock.lockInterruptibly();
+        }
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new RuntimeException(e);
+      } finally {
+        stats.bucketContended(System.nanoTime() - start);
+      }
+      if (!locked) {
+        throw new SolrException(SolrException.ErrorCode.SERVER_ERROR,
+            "Unable to get version bucket lock in " + lockTimeoutMs + " ms");
+      }
+    }
+    return function.apply();
+  }
+
+  @Override
+  public void unlock() {
+    lock.unlock();
+  }
+
+  @Override
+  public void signalAll() {
+    condition.signalAll();
+  }
+
+  @Override
+  public void awaitNanos(long nanosTimeout) {
+    try {
+      if (nanosTimeout > 0) {
+        condition.awaitNanos(nanosTimeout);
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new RuntimeException(e);
+    }
+  }
+}
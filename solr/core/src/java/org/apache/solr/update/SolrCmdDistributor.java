@@ -27,11 +27,14 @@ import java.net.SocketTimeoutException;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.CompletionService;
 import java.util.concurrent.ExecutorCompletionService;
 import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 import io.opentracing.Span;
 import io.opentracing.Tracer;
@@ -59,6 +62,13 @@ import org.slf4j.LoggerFactory;
 
 /**
  * Used for distributing commands from a shard leader to its replicas.
+ * <p>
+ * If the system property {@code solr.cloud.replication.batchSize} is greater than 1, consecutive adds (or deletes
+ * by id) to the same node with the same parameters are coalesced into a single request of up to that many commands,
+ * which is sent when it is full, when its first command is older than {@code solr.cloud.replication.maxBatchDelayMs}
+ * on the arrival of the next one, or before any other command to the node. Commits, deletes by query and synchronous
+ * adds and deletes first send the pending batches to all nodes, so that they're never reordered with the commands
+ * that were distributed before them.
  */
 public class SolrCmdDistributor implements Closeable {
   private static final Logger log = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
@@ -67,6 +77,10 @@ public class SolrCmdDistributor implements Closeable {
   private boolean finished = false; // see finish()
 
   private int retryPause = 500;
+
+  private final int maxBatchSize = Integer.getInteger("solr.cloud.replication.batchSize", 1);
+  private final long maxBatchDelayNs = TimeUnit.MILLISECONDS.toNanos(Long.getLong("solr.cloud.replication.maxBatchDelayMs", 100));
+  private final Map<String, Batch> batches = new LinkedHashMap<>(); // by node url
   
   private final List<Error> allErrors = new ArrayList<>();
   private final List<Error> errors = Collections.synchronizedList(new ArrayList<Error>());
@@ -104,6 +118,7 @@ public class SolrCmdDistributor implements Closeable {
   }
   
   public void close() {
+    batches.clear();
     clients.shutdown();
   }
 
@@ -205,9 +220,18 @@ public class SolrCmdDistributor implements Closeable {
     
     if (!cmd.isDeleteById()) {
       blockAndDoRetries(); // For DBQ, flush all writes before submitting
+    } else if (sync) {
+      flushBatches();
     }
     
     for (Node node : nodes) {
+      if (cmd.isDeleteById() && !sync && maxBatchSize > 1) {
+        Batch batch = batchFor(cmd, node, params, true, cmd.commitWithin, rollupTracker, leaderTracker);
+        batch.req.uReq.deleteById(cmd.getId(), cmd.getRoute(), cmd.getVersion());
+        batch.added(false);
+        continue;
+      }
+      flushBatch(node);
       UpdateRequest uReq = new UpdateRequest();
       uReq.setParams(params);
       uReq.setCommitWithin(cmd.commitWithin);
@@ -231,7 +255,20 @@ public class SolrCmdDistributor implements Closeable {
   public void distribAdd(AddUpdateCommand cmd, List<Node> nodes, ModifiableSolrParams params, boolean synchronous,
                          RollupRequestReplicationTracker rollupTracker,
                          LeaderRequestReplicationTracker leaderTracker) throws IOException {
+    if (synchronous) {
+      flushBatches();
+    }
     for (Node node : nodes) {
+      if (!synchronous && !cmd.isInPlaceUpdate() && maxBatchSize > 1) {
+        // in-place updates pass their previous version as a request parameter
+        Batch batch = batchFor(cmd, node, params, false, -1, rollupTracker, leaderTracker);
+        if (cmd.isLastDocInBatch)
+          batch.req.uReq.lastDocInBatch();
+        batch.req.uReq.add(cmd.solrDoc, cmd.commitWithin, cmd.overwrite);
+        batch.added(cmd.isLastDocInBatch);
+        continue;
+      }
+      flushBatch(node);
       UpdateRequest uReq = new UpdateRequest();
       if (cmd.isLastDocInBatch)
         uReq.lastDocInBatch();
@@ -263,6 +300,7 @@ public class SolrCmdDistributor implements Closeable {
   }
 
   public void blockAndDoRetries() throws IOException {
+    flushBatches();
     clients.blockUntilFinished();
     
     // wait for any async commits to complete
@@ -281,6 +319,81 @@ public class SolrCmdDistributor implements Closeable {
 
   }
   
+  /**
+   * Returns the pending batch of commands to the given node, after sending the pending batch if it can't take a
+   * command with the given parameters.
+   */
+  private Batch batchFor(UpdateCommand cmd, Node node, ModifiableSolrParams params, boolean deletes, int commitWithin,
+                         RollupRequestReplicationTracker rollupTracker,
+                         LeaderRequestReplicationTracker leaderTracker) throws IOException {
+    String paramsString = params.toString();
+    Batch batch = batches.get(node.getUrl());
+    if (batch != null && !batch.accepts(node, paramsString, deletes, commitWithin, rollupTracker, leaderTracker)) {
+      flushBatch(node);
+      batch = null;
+    }
+    if (batch == null) {
+      UpdateRequest uReq = new UpdateRequest();
+      // the caller may modify its parameters for the next command
+      uReq.setParams(new ModifiableSolrParams(params));
+      if (deletes) {
+        uReq.setCommitWithin(commitWithin);
+      }
+      batch = new Batch(new Req(cmd, node, uReq, false, rollupTracker, leaderTracker), paramsString, deletes, commitWithin);
+      batches.put(node.getUrl(), batch);
+    }
+    return batch;
+  }
+
+  private void flushBatch(Node node) throws IOException {
+    Batch batch = batches.remove(node.getUrl());
+    if (batch != null) {
+      submit(batch.req, false);
+    }
+  }
+
+  private void flushBatches() throws IOException {
+    if (batches.isEmpty()) {
+      return;
+    }
+    List<Batch> toSend = new ArrayList<>(batches.values());
+    batches.clear();
+    for (Batch batch : toSend) {
+      submit(batch.req, false);
+    }
+  }
+
+  /** Adds or deletes by id to one node, sent as a single request */
+  private class Batch {
+    final Req req;
+    final String params;
+    final boolean deletes;
+    final int commitWithin;
+    final long startNs = System.nanoTime();
+    int size;
+
+    Batch(Req req, String params, boolean deletes, int commitWithin) {
+      this.req = req;
+      this.params = params;
+      this.deletes = deletes;
+      this.commitWithin = commitWithin;
+    }
+
+    boolean accepts(Node node, String params, boolean deletes, int commitWithin,
+                    RollupRequestReplicationTracker rollupTracker, LeaderRequestReplicationTracker leaderTracker) {
+      return this.deletes == deletes && this.commitWithin == commitWithin && this.params.equals(params)
+          && req.node.equals(node) && req.rollupTracker == rollupTracker && req.leaderTracker == leaderTracker;
+    }
+
+    /** Called after a command was added, sends the batch if it is complete */
+    void added(boolean last) throws IOException {
+      size++;
+      if (last || size >= maxBatchSize || System.nanoTime() - startNs >= maxBatchDelayNs) {
+        flushBatch(req.node);
+      }
+    }
+  }
+
   void addCommit(UpdateRequest ureq, CommitUpdateCommand cmd) {
     if (cmd == null) return;
     ureq.setAction(cmd.optimize ? AbstractUpdateRequest.ACTION.OPTIMIZE
@@ -39,6 +39,8 @@ public class StreamingSolrClients {
   private static final Logger log = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
 
   private final int runnerCount = Integer.getInteger("solr.cloud.replication.runners", 1);
+  // maximum number of requests queued for a node before the sender blocks
+  private final int queueSize = Integer.getInteger("solr.cloud.replication.queueSize", 100);
   // should be less than solr.jetty.http.idleTimeout
   private final int pollQueueTime = Integer.getInteger("solr.cloud.client.pollQueueTime", 10000);
 
@@ -70,7 +72,7 @@ public class StreamingSolrClients {
       // on a greater scale since the current behavior is to only increase the number of connections/Runners when
       // the queue is more than half full.
       client = new ErrorReportingConcurrentUpdateSolrClient.Builder(url, httpClient, req, errors)
-          .withQueueSize(100)
+          .withQueueSize(queueSize)
           .withThreadCount(runnerCount)
           .withExecutorService(updateExecutor)
           .alwaysStreamDeletes()
@@ -21,12 +21,19 @@ import java.io.File;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.io.RandomAccessFile;
+import java.lang.invoke.MethodHandle;
 import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
 import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
 import java.nio.channels.Channels;
 import java.nio.channels.FileChannel;
 import java.nio.file.Files;
+import java.security.AccessController;
+import java.security.PrivilegedAction;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.Iterator;
@@ -44,6 +51,7 @@ import org.apache.solr.common.util.FastInputStream;
 import org.apache.solr.common.util.FastOutputStream;
 import org.apache.solr.common.util.JavaBinCodec;
 import org.apache.solr.common.util.ObjectReleaseTracker;
+import org.apache.solr.common.util.SuppressForbidden;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -80,9 +88,17 @@ public class TransactionLog implements Closeable {
   int numRecords;
   boolean isBuffer;
 
+  volatile Mapping mapping;  // non null if reads go through memory mappings of the log file
+
   protected volatile boolean deleteOnClose = true;  // we can delete old tlogs since they are currently only used for real-time-get (and in the future, recovery)
 
   AtomicInteger refcount = new AtomicInteger(1);
+
+  // group fsync state, guarded by syncLock
+  private final Object syncLock = new Object();
+  private long syncRequests;    // number of groupSync calls so far
+  private long syncedRequests;  // number of groupSync calls covered by a completed fsync
+  private boolean syncing;      // whether a caller is currently syncing on behalf of the others
   Map<String, Integer> globalStringMap = new HashMap<>();
   List<String> globalStringList = new ArrayList<>();
 
@@ -245,7 +261,7 @@ public class TransactionLog implements Closeable {
     byte[] buf = new byte[END_MESSAGE.length()];
     long pos = size - END_MESSAGE.length() - 4;
     if (pos < 0) return false;
-    @SuppressWarnings("resource") final ChannelFastInputStream is = new ChannelFastInputStream(channel, pos);
+    @SuppressWarnings("resource") final ChannelFastInputStream is = newInputStream(pos);
     is.read(buf);
     for (int i = 0; i < buf.length; i++) {
       if (buf[i] != END_MESSAGE.charAt(i)) return false;
@@ -526,7 +542,7 @@ public class TransactionLog implements Closeable {
          ***/
       }
 
-      ChannelFastInputStream fis = new ChannelFastInputStream(channel, pos);
+      ChannelFastInputStream fis = newInputStream(pos);
       try (LogCodec codec = new LogCodec(resolver)) {
         return codec.readVal(fis);
       }
@@ -583,6 +599,70 @@ public class TransactionLog implements Closeable {
     }
   }
 
+  /** Notified after each fsync done by {@link #groupSync(long, SyncListener)}. */
+  @FunctionalInterface
+  interface SyncListener {
+    /**
+     * @param batchSize the number of callers whose updates were made durable by this fsync
+     * @param elapsedNanos the time it took to flush and fsync the log
+     */
+    void synced(long batchSize, long elapsedNanos);
+  }
+
+  /**
+   * Like {@link #finish(UpdateLog.SyncLevel)} with {@link UpdateLog.SyncLevel#FSYNC}, but concurrent
+   * callers share fsyncs: while an fsync is in progress, callers wait for the next one, which a single
+   * caller does on behalf of all of them, and all of them are released together when it completes.
+   *
+   * @param maxDelayMs how long the caller doing an fsync waits for others to join before syncing
+   * @param listener notified of each fsync done by this caller, may be null
+   */
+  public void groupSync(long maxDelayMs, SyncListener listener) {
+    try {
+      long request;
+      synchronized (syncLock) {
+        request = ++syncRequests;
+        while (syncing && syncedRequests < request) {
+          syncLock.wait();
+        }
+        if (syncedRequests >= request) {
+          return;  // synced by another caller
+        }
+        syncing = true;
+      }
+
+      try {
+        if (maxDelayMs > 0) {
+          Thread.sleep(maxDelayMs);
+        }
+        long covered;
+        synchronized (syncLock) {
+          // all these callers wrote their updates before asking for a sync, so the flush covers them
+          covered = syncRequests;
+        }
+        long start = System.nanoTime();
+        finish(UpdateLog.SyncLevel.FSYNC);
+        long elapsed = System.nanoTime() - start;
+        long batchSize;
+        synchronized (syncLock) {
+          batchSize = covered - syncedRequests;
+          syncedRequests = covered;
+        }
+        if (listener != null) {
+          listener.synced(batchSize, elapsed);
+        }
+      } finally {
+        synchronized (syncLock) {
+          syncing = false;
+          syncLock.notifyAll();
+        }
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new SolrException(SolrException.ErrorCode.SERVER_ERROR, "Interrupted while waiting for fsync of " + this, e);
+    }
+  }
+
   public void close() {
     try {
       if (debug) {
@@ -593,6 +673,11 @@ public class TransactionLog implements Closeable {
         fos.flush();
         fos.close();
       }
+      Mapping mapping = this.mapping;
+      this.mapping = null;
+      if (mapping != null) {
+        mapping.close();
+      }
 
       if (deleteOnClose) {
         try {
@@ -613,6 +698,8 @@ public class TransactionLog implements Closeable {
     if (refcount.get() > 0) {
       log.error("Error: Forcing close of {}", this);
       refcount.set(0);
+      // readers may still use the mapped buffers, which are then unmapped once they are garbage collected
+      mapping = null;
       close();
     }
   }
@@ -636,6 +723,23 @@ public class TransactionLog implements Closeable {
     return fos.size();
   }
 
+  /**
+   * Makes readers and lookups read the log through read-only memory mappings of the file rather than
+   * through positional reads on its channel, which saves a system call per buffer fill when replaying
+   * or scanning large logs. Does nothing if the buffers couldn't be unmapped when the log is closed.
+   */
+  void enableMmapReads() {
+    if (channel != null && mapping == null && Mapping.UNMAP_SUPPORTED) {
+      mapping = new Mapping(channel);
+    }
+  }
+
+  /** Returns a stream reading the log file from the given position. */
+  protected ChannelFastInputStream newInputStream(long position) {
+    Mapping mapping = this.mapping;
+    return mapping == null ? new ChannelFastInputStream(channel, position) : new MappedFastInputStream(mapping, position);
+  }
+
   /** Returns a reader that can be used while a log is still in use.
    * Currently only *one* LogReader may be outstanding, and that log may only
    * be used from a single thread.
@@ -659,7 +763,7 @@ public class TransactionLog implements Closeable {
 
     public LogReader(long startingPos) {
       incref();
-      fis = new ChannelFastInputStream(channel, startingPos);
+      fis = newInputStream(startingPos);
     }
 
     // for classes that extend
@@ -819,7 +923,7 @@ public class TransactionLog implements Closeable {
         assert sz == channel.size();
       }
 
-      fis = new ChannelFastInputStream(channel, 0);
+      fis = newInputStream(0);
       if (sz >= 4) {
         // readHeader(fis);  // should not be needed
         prevPos = sz - 4;
@@ -937,6 +1041,161 @@ public class TransactionLog implements Closeable {
       return "readFromStream=" + readFromStream + " pos=" + pos + " end=" + end + " bufferPos=" + getBufferPos() + " position=" + position();
     }
   }
-}
 
+  /**
+   * Read-only memory mappings of a log file, in chunks of at most {@link #CHUNK_SIZE} bytes. The log
+   * file grows while it is written, so the mappings are extended on demand, once enough new data was
+   * written; the tail of the file that isn't mapped yet is read through the channel.
+   */
+  static final class Mapping {
+    static final int CHUNK_BITS = 30;
+    static final long CHUNK_SIZE = 1L << CHUNK_BITS;
+    /** How much unmapped data the file must have before the mappings are extended. */
+    static final long EXTEND_THRESHOLD = 1L << 20;
+
+    /** Whether the buffers can be unmapped when the log is closed; if not, the log isn't mapped */
+    static final boolean UNMAP_SUPPORTED;
+    /** Why the buffers can't be unmapped, or null */
+    static final String UNMAP_NOT_SUPPORTED_REASON;
+    private static final MethodHandle UNMAPPER;
+
+    static {
+      Object unmapper = AccessController.doPrivileged((PrivilegedAction<Object>) Mapping::lookupUnmapper);
+      if (unmapper instanceof MethodHandle) {
+        UNMAPPER = (MethodHandle) unmapper;
+        UNMAP_SUPPORTED = true;
+        UNMAP_NOT_SUPPORTED_REASON = null;
+      } else {
+        UNMAPPER = null;
+        UNMAP_SUPPORTED = false;
+        UNMAP_NOT_SUPPORTED_REASON = unmapper.toString();
+      }
+    }
+
+    private final FileChannel channel;
+    // chunks is always written before length, and read after it
+    private volatile MappedByteBuffer[] chunks = new MappedByteBuffer[0];
+    private volatile long length;
+    // partial chunks that were mapped again when the file grew, which readers may still use until the log is closed
+    private final List<MappedByteBuffer> replaced = new ArrayList<>();
 
+    Mapping(FileChannel channel) {
+      this.channel = channel;
+    }
+
+    /** The number of bytes from the start of the file that are mapped. */
+    long length() {
+      return length;
+    }
+
+    /** Maps the file up to its current size, if at least {@code threshold} bytes aren't mapped yet. */
+    synchronized void extend(long threshold) throws IOException {
+      long size = channel.size();
+      if (size - length < Math.max(1, threshold)) {
+        return;
+      }
+      int numChunks = (int) ((size + CHUNK_SIZE - 1) >>> CHUNK_BITS);
+      MappedByteBuffer[] newChunks = Arrays.copyOf(chunks, numChunks);
+      // the last chunk mapped so far may be partial
+      for (int i = Math.max(0, chunks.length - 1); i < numChunks; i++) {
+        long start = (long) i << CHUNK_BITS;
+        long chunkLength = Math.min(CHUNK_SIZE, size - start);
+        if (newChunks[i] == null || newChunks[i].capacity() < chunkLength) {
+          if (newChunks[i] != null) {
+            replaced.add(newChunks[i]);
+          }
+          newChunks[i] = channel.map(FileChannel.MapMode.READ_ONLY, start, chunkLength);
+        }
+      }
+      chunks = newChunks;
+      length = size;
+    }
+
+    /**
+     * Copies up to {@code len} bytes at the given position of the file.
+     * @return the number of bytes read, 0 if the position isn't mapped
+     */
+    int read(long position, byte[] target, int offset, int len) {
+      long length = this.length;
+      if (position >= length) {
+        return 0;
+      }
+      MappedByteBuffer[] chunks = this.chunks;
+      ByteBuffer chunk = chunks[(int) (position >>> CHUNK_BITS)].duplicate();
+      int positionInChunk = (int) (position & (CHUNK_SIZE - 1));
+      int n = (int) Math.min(len, Math.min(chunk.capacity() - positionInChunk, length - position));
+      chunk.position(positionInChunk);
+      chunk.get(target, offset, n);
+      return n;
+    }
+
+    /**
+     * Unmaps the buffers, once the log is closed: reading them afterwards would crash the JVM, so nothing may read
+     * the mapping anymore.
+     */
+    synchronized void close() {
+      MappedByteBuffer[] chunks = this.chunks;
+      this.chunks = new MappedByteBuffer[0];
+      length = 0;
+      for (MappedByteBuffer chunk : chunks) {
+        unmap(chunk);
+      }
+      for (MappedByteBuffer chunk : replaced) {
+        unmap(chunk);
+      }
+      replaced.clear();
+    }
+
+    private static void unmap(MappedByteBuffer buffer) {
+      try {
+        UNMAPPER.invokeExact((ByteBuffer) buffer);
+      } catch (Throwable t) {
+        log.warn("Could not unmap a buffer of a transaction log, it's unmapped once it's garbage collected", t);
+      }
+    }
+
+    /**
+     * Looks up {@code sun.misc.Unsafe#invokeCleaner}, as Lucene's {@code MMapDirectory} does.
+     * @return the method handle unmapping a buffer, or the reason why unmapping isn't supported
+     */
+    @SuppressForbidden(reason = "Needs access to sun.misc.Unsafe to unmap buffers")
+    private static Object lookupUnmapper() {
+      try {
+        Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+        MethodHandle unmapper = MethodHandles.lookup().findVirtual(unsafeClass, "invokeCleaner",
+            MethodType.methodType(void.class, ByteBuffer.class));
+        Field f = unsafeClass.getDeclaredField("theUnsafe");
+        f.setAccessible(true);
+        return unmapper.bindTo(f.get(null));
+      } catch (SecurityException e) {
+        return "Unmapping is not supported, because not all required permissions are given to the Solr JAR file: " + e;
+      } catch (ReflectiveOperationException | RuntimeException e) {
+        return "Unmapping is not supported on this platform: " + e;
+      }
+    }
+  }
+
+  /** Reads a log file through its {@link Mapping}, falling back to the channel for the part that isn't mapped. */
+  static class MappedFastInputStream extends ChannelFastInputStream {
+    private final Mapping mapping;
+
+    public MappedFastInputStream(Mapping mapping, long chPosition) {
+      super(mapping.channel, chPosition);
+      this.mapping = mapping;
+    }
+
+    @Override
+    public int readWrappedStream(byte[] target, int offset, int len) throws IOException {
+      if (readFromStream >= mapping.length()) {
+        mapping.extend(Mapping.EXTEND_THRESHOLD);
+      }
+      int n = mapping.read(readFromStream, target, offset, len);
+      return n > 0 ? n : super.readWrappedStream(target, offset, len);
+    }
+
+    @Override
+    public void close() {
+      // the channel is owned by the log
+    }
+  }
+}
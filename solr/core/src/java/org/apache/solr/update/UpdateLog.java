@@ -31,12 +31,10 @@ import java.util.Collections;
 import java.util.Deque;
 import java.util.HashMap;
 import java.util.HashSet;
-import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.ListIterator;
 import java.util.Locale;
-import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ExecutorCompletionService;
 import java.util.concurrent.Future;
@@ -48,7 +46,9 @@ import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
 
 import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Histogram;
 import com.codahale.metrics.Meter;
+import com.codahale.metrics.Timer;
 import org.apache.hadoop.fs.FileSystem;
 import org.apache.lucene.util.BytesRef;
 import org.apache.solr.common.SolrDocumentBase;
@@ -195,9 +195,9 @@ public class UpdateLog implements PluginInfoInitialized, SolrMetricProducer {
   protected LinkedList<TransactionLog> newestLogsOnStartup = new LinkedList<>();
   protected int numOldRecords;  // number of records in the recent logs
 
-  protected Map<BytesRef,LogPtr> map = new HashMap<>();
-  protected Map<BytesRef,LogPtr> prevMap;  // used while committing/reopening is happening
-  protected Map<BytesRef,LogPtr> prevMap2;  // used while committing/reopening is happening
+  protected LogPtrMap map = new LogPtrMap();
+  protected LogPtrMap prevMap;  // used while committing/reopening is happening
+  protected LogPtrMap prevMap2;  // used while committing/reopening is happening
   protected TransactionLog prevMapLog;  // the transaction log used to look up entries found in prevMap
   protected TransactionLog prevMapLog2;  // the transaction log used to look up entries found in prevMap2
 
@@ -205,17 +205,15 @@ public class UpdateLog implements PluginInfoInitialized, SolrMetricProducer {
   protected final int numDeletesByQueryToKeep = 100;
   protected int numRecordsToKeep;
   protected int maxNumLogsToKeep;
+  protected boolean groupFsync;
+  protected boolean mmapReads;
+  protected int groupFsyncMaxDelayMs;
   protected int numVersionBuckets; // This should only be used to initialize VersionInfo... the actual number of buckets may be rounded up to a power of two.
   protected Long maxVersionFromIndex = null;
   protected boolean existOldBufferLog = false;
 
   // keep track of deletes only... this is not updated on an add
-  protected LinkedHashMap<BytesRef, LogPtr> oldDeletes = new LinkedHashMap<BytesRef, LogPtr>(numDeletesToKeep) {
-    @Override
-    protected boolean removeEldestEntry(@SuppressWarnings({"rawtypes"})Map.Entry eldest) {
-      return size() > numDeletesToKeep;
-    }
-  };
+  protected LogPtrMap oldDeletes = new LogPtrMap(numDeletesToKeep);
 
   /**
    * Holds the query and the version for a DeleteByQuery command
@@ -252,6 +250,8 @@ public class UpdateLog implements PluginInfoInitialized, SolrMetricProducer {
   protected Meter applyingBufferedOpsMeter;
   protected Meter replayOpsMeter;
   protected Meter copyOverOldUpdatesMeter;
+  protected Timer fsyncTimer;
+  protected Histogram fsyncBatchSizeHistogram;
   protected SolrMetricsContext solrMetricsContext;
 
   public static class LogPtr {
@@ -288,6 +288,19 @@ public class UpdateLog implements PluginInfoInitialized, SolrMetricProducer {
     }
   }
 
+  /** Heap memory used by the maps from id to the latest update in the logs, and by the recent deletes. */
+  public long getIdMapsRamBytesUsed() {
+    synchronized (this) {
+      long size = oldDeletes.ramBytesUsed();
+      for (LogPtrMap idMap : Arrays.asList(map, prevMap, prevMap2)) {
+        if (idMap != null) {
+          size += idMap.ramBytesUsed();
+        }
+      }
+      return size;
+    }
+  }
+
   public long getTotalLogsSize() {
     long size = 0;
     synchronized (this) {
@@ -327,6 +340,10 @@ public class UpdateLog implements PluginInfoInitialized, SolrMetricProducer {
     return numVersionBuckets;
   }
 
+  public boolean isGroupFsync() {
+    return groupFsync;
+  }
+
   protected static int objToInt(Object obj, int def) {
     if (obj != null) {
       return Integer.parseInt(obj.toString());
@@ -334,6 +351,13 @@ public class UpdateLog implements PluginInfoInitialized, SolrMetricProducer {
     else return def;
   }
 
+  protected static boolean objToBoolean(Object obj, boolean def) {
+    if (obj != null) {
+      return Boolean.parseBoolean(obj.toString());
+    }
+    else return def;
+  }
+
   @Override
   public void init(PluginInfo info) {
     dataDir = (String)info.initArgs.get("dir");
@@ -345,9 +369,19 @@ public class UpdateLog implements PluginInfoInitialized, SolrMetricProducer {
     if (numVersionBuckets <= 0)
       throw new SolrException(SolrException.ErrorCode.SERVER_ERROR,
           "Number of version buckets must be greater than 0!");
+    groupFsync = objToBoolean(info.initArgs.get("groupFsync"), false);
+    mmapReads = objToBoolean(info.initArgs.get("mmapReads"), false);
+    if (mmapReads && !TransactionLog.Mapping.UNMAP_SUPPORTED) {
+      log.warn("mmapReads is disabled: {}", TransactionLog.Mapping.UNMAP_NOT_SUPPORTED_REASON);
+      mmapReads = false;
+    }
+    groupFsyncMaxDelayMs = objToInt(info.initArgs.get("groupFsyncMaxDelayMs"), 0);
+    if (groupFsyncMaxDelayMs < 0)
+      throw new SolrException(SolrException.ErrorCode.SERVER_ERROR,
+          "groupFsyncMaxDelayMs must not be negative!");
 
-    log.info("Initializing UpdateLog: dataDir={} defaultSyncLevel={} numRecordsToKeep={} maxNumLogsToKeep={} numVersionBuckets={}",
-        dataDir, defaultSyncLevel, numRecordsToKeep, maxNumLogsToKeep, numVersionBuckets);
+    log.info("Initializing UpdateLog: dataDir={} defaultSyncLevel={} numRecordsToKeep={} maxNumLogsToKeep={} numVersionBuckets={} groupFsync={} groupFsyncMaxDelayMs={} mmapReads={}",
+        dataDir, defaultSyncLevel, numRecordsToKeep, maxNumLogsToKeep, numVersionBuckets, groupFsync, groupFsyncMaxDelayMs, mmapReads);
   }
 
   /* Note, when this is called, uhandler is not completely constructed.
@@ -460,7 +494,16 @@ public class UpdateLog implements PluginInfoInitialized, SolrMetricProducer {
     applyingBufferedOpsMeter = solrMetricsContext.meter("ops", scope, "applyingBuffered");
     replayOpsMeter = solrMetricsContext.meter("ops", scope, "replay");
     copyOverOldUpdatesMeter = solrMetricsContext.meter("ops", scope, "copyOverOldUpdates");
+    fsyncTimer = solrMetricsContext.timer("time", scope, "fsync");
+    fsyncBatchSizeHistogram = solrMetricsContext.histogram("batchSize", scope, "fsync");
     solrMetricsContext.gauge(() -> state.getValue(), true, "state", scope);
+    solrMetricsContext.gauge(() -> getIdMapsRamBytesUsed(), true, "ramBytesUsed", scope, "idMaps");
+    if (versionInfo != null && versionInfo.isOptimisticVersionBuckets()) {
+      VersionInfo.LockStats lockStats = versionInfo.getLockStats();
+      solrMetricsContext.gauge(() -> lockStats.getBucketContentions(), true, "contentions", scope, "versionBuckets");
+      solrMetricsContext.gauge(() -> lockStats.getBucketWaitMs(), true, "waitMs", scope, "versionBuckets");
+      solrMetricsContext.gauge(() -> lockStats.getUpdateLockContentions(), true, "contentions", scope, "updateLock");
+    }
   }
 
   @Override
@@ -473,7 +516,11 @@ public class UpdateLog implements PluginInfoInitialized, SolrMetricProducer {
    * change the implementation of the transaction log.
    */
   public TransactionLog newTransactionLog(File tlogFile, Collection<String> globalStrings, boolean openExisting) {
-    return new TransactionLog(tlogFile, globalStrings, openExisting);
+    TransactionLog tlog = new TransactionLog(tlogFile, globalStrings, openExisting);
+    if (mmapReads) {
+      tlog.enableMmapReads();
+    }
+    return tlog;
   }
 
   public String getLogDir() {
@@ -623,7 +670,7 @@ public class UpdateLog implements PluginInfoInitialized, SolrMetricProducer {
     // note: sync required to ensure maps aren't changed out form under us
     if (cmd.isInPlaceUpdate()) {
       BytesRef indexedId = cmd.getIndexedId();
-      for (Map<BytesRef, LogPtr> currentMap : Arrays.asList(map, prevMap, prevMap2)) {
+      for (LogPtrMap currentMap : Arrays.asList(map, prevMap, prevMap2)) {
         if (currentMap != null) {
           LogPtr prevEntry = currentMap.get(indexedId);
           if (null != prevEntry) {
@@ -791,7 +838,7 @@ public class UpdateLog implements PluginInfoInitialized, SolrMetricProducer {
     prevMap = map;
     prevMapLog = tlog;
 
-    map = new HashMap<>();
+    map = new LogPtrMap();
   }
 
   private void clearOldMaps() {
@@ -870,7 +917,7 @@ public class UpdateLog implements PluginInfoInitialized, SolrMetricProducer {
       // any added documents will make it into this commit or not.
       // But we do know that any updates already added will definitely
       // show up in the latest reader after the commit succeeds.
-      map = new HashMap<>();
+      map = new LogPtrMap();
 
       if (debug) {
         log.debug("TLOG: preSoftCommit: prevMap={} new map={}", System.identityHashCode(prevMap), System.identityHashCode(map));
@@ -1111,12 +1158,28 @@ public class UpdateLog implements PluginInfoInitialized, SolrMetricProducer {
     }
 
     try {
-      currLog.finish(syncLevel);
+      if (syncLevel != SyncLevel.FSYNC) {
+        currLog.finish(syncLevel);
+      } else if (groupFsync) {
+        // concurrent requests share fsyncs
+        currLog.groupSync(groupFsyncMaxDelayMs, this::fsynced);
+      } else {
+        long start = System.nanoTime();
+        currLog.finish(syncLevel);
+        fsynced(1, System.nanoTime() - start);
+      }
     } finally {
       currLog.decref();
     }
   }
 
+  private void fsynced(long batchSize, long elapsedNanos) {
+    if (fsyncTimer != null) {
+      fsyncTimer.update(elapsedNanos, TimeUnit.NANOSECONDS);
+      fsyncBatchSizeHistogram.update(batchSize);
+    }
+  }
+
 
   public Future<RecoveryInfo> recoverFromLog() {
     recoveryInfo = new RecoveryInfo();
@@ -1812,7 +1875,8 @@ public class UpdateLog implements PluginInfoInitialized, SolrMetricProducer {
     public void doReplay(TransactionLog translog) {
       try {
         loglog.warn("Starting log replay {}  active={} starting pos={} inSortedOrder={}", translog, activeLog, recoveryInfo.positionOfStart, inSortedOrder);
-        long lastStatusTime = System.nanoTime();
+        long startTime = System.nanoTime();
+        long lastStatusTime = startTime;
         if (inSortedOrder) {
           tlogReader = translog.getSortedReader(recoveryInfo.positionOfStart);
         } else {
@@ -1845,9 +1909,9 @@ public class UpdateLog implements PluginInfoInitialized, SolrMetricProducer {
                 long csize = tlogReader.currentSize();
                 if (log.isInfoEnabled()) {
                   loglog.info(
-                      "log replay status {} active={} starting pos={} current pos={} current size={} % read={}",
+                      "log replay status {} active={} starting pos={} current pos={} current size={} % read={} records/sec={}",
                       translog, activeLog, recoveryInfo.positionOfStart, cpos, csize,
-                      Math.floor(cpos / (double) csize * 100.));
+                      Math.floor(cpos / (double) csize * 100.), recordsPerSecond(nextCount, now - startTime));
                 }
 
               }
@@ -1967,6 +2031,11 @@ public class UpdateLog implements PluginInfoInitialized, SolrMetricProducer {
 
         waitForAllUpdatesGetExecuted(pendingTasks);
         if (exceptionOnExecuteUpdate.get() != null) throw exceptionOnExecuteUpdate.get();
+        if (log.isInfoEnabled()) {
+          long elapsed = System.nanoTime() - startTime;
+          loglog.info("log replay read {} records of {} in {} ms, records/sec={}", nextCount, translog,
+              TimeUnit.NANOSECONDS.toMillis(elapsed), recordsPerSecond(nextCount, elapsed));
+        }
 
         CommitUpdateCommand cmd = new CommitUpdateCommand(req, false);
         cmd.setVersion(commitVersion);
@@ -2002,6 +2071,10 @@ public class UpdateLog implements PluginInfoInitialized, SolrMetricProducer {
       }
     }
 
+    private long recordsPerSecond(long numRecords, long elapsedNanos) {
+      return elapsedNanos <= 0 ? 0 : numRecords * TimeUnit.SECONDS.toNanos(1) / elapsedNanos;
+    }
+
     private void waitForAllUpdatesGetExecuted(AtomicInteger pendingTasks) {
       TimeOut timeOut = new TimeOut(Integer.MAX_VALUE, TimeUnit.MILLISECONDS, TimeSource.CURRENT_TIME);
       try {
@@ -64,7 +64,7 @@ public class UpdateShardHandler implements SolrInfoBean {
   private ExecutorService updateExecutor = new ExecutorUtil.MDCAwareThreadPoolExecutor(0, Integer.MAX_VALUE,
       60L, TimeUnit.SECONDS,
       new SynchronousQueue<>(),
-      new SolrNamedThreadFactory("updateExecutor"),
+      ExecutorUtil.newThreadFactory("updateExecutor"),
       // the Runnable added to this executor handles all exceptions so we disable stack trace collection as an optimization
       // see SOLR-11880 for more details
       false);
@@ -36,6 +36,17 @@ public class VersionBucket {
       highest = Math.max(highest, Math.abs(val));
     }
   }
+
+  /**
+   * Raises the highest version to at least the given value, even if it isn't known yet.
+   */
+  public void seedHighest(long val) {
+    synchronized (this) {
+      if (highest < val) {
+        highest = val;
+      }
+    }
+  }
   
   @FunctionalInterface
   public interface CheckedFunction<T, R> {
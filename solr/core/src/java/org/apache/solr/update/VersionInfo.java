@@ -19,6 +19,9 @@ package org.apache.solr.update;
 import java.io.IOException;
 import java.lang.invoke.MethodHandles;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 
@@ -47,13 +50,46 @@ import static org.apache.solr.common.params.CommonParams.VERSION_FIELD;
 public class VersionInfo {
   private static final Logger log = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
   private static final String SYS_PROP_BUCKET_VERSION_LOCK_TIMEOUT_MS = "bucketVersionLockTimeoutMs";
+  private static final String SYS_PROP_OPTIMISTIC_VERSION_BUCKETS = "optimisticVersionBuckets";
 
   private final UpdateLog ulog;
   private final VersionBucket[] buckets;
   private SchemaField versionField;
   final ReadWriteLock lock = new ReentrantReadWriteLock(true);
+  // with optimistic version buckets, updates take the read lock of one of these stripes rather than
+  // of the shared lock, and blocking updates takes all the write locks
+  private final ReadWriteLock[] updateLocks;
+  private final LockStats lockStats = new LockStats();
 
   private int versionBucketLockTimeoutMs;
+  private boolean optimisticVersionBuckets;
+
+  /** Counts how often updates had to wait for a lock, when using optimistic version buckets. */
+  public static class LockStats {
+    private final LongAdder bucketContentions = new LongAdder();
+    private final LongAdder bucketWaitNanos = new LongAdder();
+    private final LongAdder updateLockContentions = new LongAdder();
+
+    void bucketContended(long waitNanos) {
+      bucketContentions.increment();
+      bucketWaitNanos.add(waitNanos);
+    }
+
+    /** Number of times an update waited for another update of the same version bucket. */
+    public long getBucketContentions() {
+      return bucketContentions.sum();
+    }
+
+    /** Total time updates spent waiting for version bucket locks, in milliseconds. */
+    public long getBucketWaitMs() {
+      return TimeUnit.NANOSECONDS.toMillis(bucketWaitNanos.sum());
+    }
+
+    /** Number of times an update waited because updates were blocked, or for a lock stripe. */
+    public long getUpdateLockContentions() {
+      return updateLockContentions.sum();
+    }
+  }
 
   /**
    * Gets and returns the {@link org.apache.solr.common.params.CommonParams#VERSION_FIELD} from the specified
@@ -96,14 +132,34 @@ public class VersionInfo {
     versionField = getAndCheckVersionField(schema);
     versionBucketLockTimeoutMs = ulog.uhandler.core.getSolrConfig().getInt("updateHandler/versionBucketLockTimeoutMs",
         Integer.parseInt(System.getProperty(SYS_PROP_BUCKET_VERSION_LOCK_TIMEOUT_MS, "0")));
+    optimisticVersionBuckets = ulog.uhandler.core.getSolrConfig().getBool("updateHandler/optimisticVersionBuckets",
+        Boolean.parseBoolean(System.getProperty(SYS_PROP_OPTIMISTIC_VERSION_BUCKETS, "false")));
     buckets = new VersionBucket[ BitUtil.nextHighestPowerOfTwo(nBuckets) ];
     for (int i=0; i<buckets.length; i++) {
-      if (versionBucketLockTimeoutMs > 0) {
+      if (optimisticVersionBuckets) {
+        buckets[i] = new OptimisticVersionBucket(lockStats);
+      } else if (versionBucketLockTimeoutMs > 0) {
         buckets[i] = new TimedVersionBucket();
       } else {
         buckets[i] = new VersionBucket();
       }
     }
+    if (optimisticVersionBuckets) {
+      updateLocks = new ReadWriteLock[BitUtil.nextHighestPowerOfTwo(Math.max(16, 2 * Runtime.getRuntime().availableProcessors()))];
+      for (int i = 0; i < updateLocks.length; i++) {
+        updateLocks[i] = new ReentrantReadWriteLock(true);
+      }
+    } else {
+      updateLocks = null;
+    }
+  }
+
+  public boolean isOptimisticVersionBuckets() {
+    return optimisticVersionBuckets;
+  }
+
+  public LockStats getLockStats() {
+    return lockStats;
   }
   
   public int getVersionBucketLockTimeoutMs() {
@@ -118,18 +174,45 @@ public class VersionInfo {
   }
 
   public void lockForUpdate() {
-    lock.readLock().lock();
+    if (updateLocks == null) {
+      lock.readLock().lock();
+    } else {
+      Lock readLock = updateLock().readLock();
+      if (!readLock.tryLock()) {
+        lockStats.updateLockContentions.increment();
+        readLock.lock();
+      }
+    }
   }
 
   public void unlockForUpdate() {
-    lock.readLock().unlock();
+    if (updateLocks == null) {
+      lock.readLock().unlock();
+    } else {
+      updateLock().readLock().unlock();
+    }
+  }
+
+  /** The lock stripe of the current thread; a thread always uses the same one. */
+  private ReadWriteLock updateLock() {
+    return updateLocks[(int) Thread.currentThread().getId() & (updateLocks.length - 1)];
   }
 
   public void blockUpdates() {
     lock.writeLock().lock();
+    if (updateLocks != null) {
+      for (ReadWriteLock updateLock : updateLocks) {
+        updateLock.writeLock().lock();
+      }
+    }
   }
 
   public void unblockUpdates() {
+    if (updateLocks != null) {
+      for (int i = updateLocks.length - 1; i >= 0; i--) {
+        updateLocks[i].writeLock().unlock();
+      }
+    }
     lock.writeLock().unlock();
   }
 
@@ -275,10 +358,7 @@ public class VersionInfo {
   public void seedBucketsWithHighestVersion(long highestVersion) {
     for (int i=0; i<buckets.length; i++) {
       // should not happen, but in case other threads are calling updateHighest on the version bucket
-      synchronized (buckets[i]) {
-        if (buckets[i].highest < highestVersion)
-          buckets[i].highest = highestVersion;
-      }
+      buckets[i].seedHighest(highestVersion);
     }
   }
 
@@ -0,0 +1,458 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.solr.update.processor;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.apache.solr.common.SolrException;
+import org.apache.solr.common.SolrInputField;
+import org.apache.solr.common.params.UpdateParams;
+import org.apache.solr.common.util.IOUtils;
+import org.apache.solr.common.util.NamedList;
+import org.apache.solr.common.util.SimpleOrderedMap;
+import org.apache.solr.request.SolrQueryRequest;
+import org.apache.solr.request.SolrRequestInfo;
+import org.apache.solr.response.SolrQueryResponse;
+import org.apache.solr.schema.IndexSchema;
+import org.apache.solr.schema.SchemaField;
+import org.apache.solr.update.AddUpdateCommand;
+import org.apache.solr.update.CommitUpdateCommand;
+import org.apache.solr.update.DeleteUpdateCommand;
+import org.apache.solr.update.MergeIndexesCommand;
+import org.apache.solr.update.RollbackUpdateCommand;
+import org.apache.solr.update.processor.UpdateRequestProcessorChain.LazyUpdateProcessorFactoryHolder.LazyUpdateRequestProcessorFactory;
+import org.slf4j.MDC;
+
+/**
+ * Runs an {@link UpdateRequestProcessorChain} on a pool of worker threads, so that parsing a large update request
+ * on the request thread overlaps with processing, analyzing and indexing the documents it contains.
+ * <p>
+ * Each worker has its own instance of the chain and a bounded queue of commands; the request thread blocks when
+ * the queue of a worker is full. The workers run with the {@link SolrRequestInfo} (with the same NOW) and the MDC
+ * of the request, and their responses are merged into the response of the request when they finish. Adds and deletes by id are routed to a worker by a hash of their (root) id, so
+ * that the commands of a request on the same document are processed in order. Other commands (commit, rollback,
+ * delete by query and merge) first wait for the queued commands and finish the chains of the workers, and then run
+ * on the request thread.
+ * <p>
+ * The first command to fail fails the request: the workers skip their remaining commands and the failure is
+ * thrown to the request thread by the next command it submits, or by {@link #finish()}.
+ * <p>
+ * Processors that keep state for the whole request can't be split between the workers, see
+ * {@link #isSupported(UpdateRequestProcessorChain, SolrQueryRequest)}.
+ *
+ * @see UpdateParams#PIPELINE_THREADS
+ * @lucene.experimental
+ */
+public class PipelinedUpdateProcessor extends UpdateRequestProcessor {
+
+  /** An operation on the chain of a worker */
+  private interface Op {
+    void apply(UpdateRequestProcessor processor) throws IOException;
+  }
+
+  private static final Op STOP = p -> {};
+
+  private final UpdateRequestProcessorChain chain;
+  private final SolrQueryRequest req;
+  private final SolrQueryResponse rsp;
+  private final ExecutorService executor;
+  private final int numWorkers;
+  private final int queueSize;
+  private final SchemaField uniqueKey;
+  private final AtomicReference<Throwable> failure = new AtomicReference<>();
+  private final Date requestNow;
+  private final Map<String, String> mdc;
+
+  private Worker[] workers;
+  private UpdateRequestProcessor processor; // for the commands run on the request thread
+  private int nextWorker;
+
+  public PipelinedUpdateProcessor(UpdateRequestProcessorChain chain, SolrQueryRequest req, SolrQueryResponse rsp,
+                                  ExecutorService executor, int numWorkers, int queueSize) {
+    super(null);
+    if (numWorkers < 1 || queueSize < 1) {
+      throw new SolrException(SolrException.ErrorCode.BAD_REQUEST,
+          UpdateParams.PIPELINE_THREADS + " and " + UpdateParams.PIPELINE_QUEUE_SIZE + " must be positive");
+    }
+    this.chain = chain;
+    this.req = req;
+    this.rsp = rsp;
+    this.executor = executor;
+    this.numWorkers = numWorkers;
+    this.queueSize = queueSize;
+    this.uniqueKey = req.getSchema().getUniqueKeyField();
+    // the workers see the time and the logging context of the request
+    SolrRequestInfo requestInfo = SolrRequestInfo.getRequestInfo();
+    this.requestNow = requestInfo != null ? requestInfo.getNOW() : null;
+    this.mdc = MDC.getCopyOfContextMap();
+  }
+
+  /**
+   * Whether the commands of a request may be processed by several instances of the chain. Not in SolrCloud, where
+   * each instance of the distributed processor would forward and version its commands to the replicas on its own, and
+   * not with a {@link TolerantUpdateProcessorFactory}, whose <code>maxErrors</code> applies to the whole request.
+   */
+  public static boolean isSupported(UpdateRequestProcessorChain chain, SolrQueryRequest req) {
+    if (req.getCore().getCoreContainer().isZooKeeperAware()) {
+      return false;
+    }
+    for (UpdateRequestProcessorFactory factory : chain.getProcessors()) {
+      if (factory instanceof LazyUpdateRequestProcessorFactory) {
+        factory = ((LazyUpdateRequestProcessorFactory) factory).getDelegate();
+      }
+      if (factory instanceof TolerantUpdateProcessorFactory) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  @Override
+  public void processAdd(AddUpdateCommand cmd) throws IOException {
+    // loaders may reuse the command for the next document
+    AddUpdateCommand add = (AddUpdateCommand) cmd.clone();
+    submit(workerFor(add), p -> p.processAdd(add));
+  }
+
+  @Override
+  public void processDelete(DeleteUpdateCommand cmd) throws IOException {
+    if (!cmd.isDeleteById()) {
+      runOnRequestThread(p -> p.processDelete(cmd));
+      return;
+    }
+    DeleteUpdateCommand delete = (DeleteUpdateCommand) cmd.clone();
+    submit(Math.floorMod(delete.getId().hashCode(), numWorkers), p -> p.processDelete(delete));
+  }
+
+  @Override
+  public void processMergeIndexes(MergeIndexesCommand cmd) throws IOException {
+    runOnRequestThread(p -> p.processMergeIndexes(cmd));
+  }
+
+  @Override
+  public void processCommit(CommitUpdateCommand cmd) throws IOException {
+    runOnRequestThread(p -> p.processCommit(cmd));
+  }
+
+  @Override
+  public void processRollback(RollbackUpdateCommand cmd) throws IOException {
+    runOnRequestThread(p -> p.processRollback(cmd));
+  }
+
+  @Override
+  public void finish() throws IOException {
+    stopWorkers(true);
+    checkFailure();
+    if (processor != null) {
+      processor.finish();
+    }
+  }
+
+  @Override
+  protected void doClose() {
+    try {
+      stopWorkers(false);
+    } finally {
+      if (processor != null) {
+        IOUtils.closeQuietly(processor);
+      }
+    }
+  }
+
+  private int workerFor(AddUpdateCommand cmd) {
+    SolrInputField id = uniqueKey == null || cmd.solrDoc == null ? null : cmd.solrDoc.getField(uniqueKey.getName());
+    if (id == null || id.getValueCount() != 1) {
+      // the id may be assigned by the chain, or the chain rejects the document
+      nextWorker = (nextWorker + 1) % numWorkers;
+      return nextWorker;
+    }
+    Object root = cmd.solrDoc.getFieldValue(IndexSchema.ROOT_FIELD_NAME);
+    String key = (root != null ? root : id.getFirstValue()).toString();
+    return Math.floorMod(key.hashCode(), numWorkers);
+  }
+
+  private void submit(int worker, Op op) throws IOException {
+    checkFailure();
+    if (workers == null) {
+      startWorkers();
+    }
+    try {
+      workers[worker].queue.put(op);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new SolrException(SolrException.ErrorCode.SERVER_ERROR, e);
+    }
+  }
+
+  private void runOnRequestThread(Op op) throws IOException {
+    stopWorkers(true);
+    checkFailure();
+    if (processor == null) {
+      processor = chain.createProcessor(req, rsp);
+    }
+    op.apply(processor);
+  }
+
+  private void startWorkers() {
+    workers = new Worker[numWorkers];
+    for (int i = 0; i < numWorkers; i++) {
+      workers[i] = new Worker();
+    }
+    for (int i = 0; i < numWorkers; i++) {
+      try {
+        executor.execute(workers[i]);
+      } catch (RuntimeException e) {
+        // the workers that did not start stop immediately
+        for (int j = i; j < numWorkers; j++) {
+          workers[j].done.countDown();
+        }
+        failure.compareAndSet(null, e);
+        throw e;
+      }
+    }
+  }
+
+  /**
+   * Waits for the workers to process their queued commands, then finishes (if requested) and closes their chains.
+   * The workers are started again by the next add or delete by id. Failures are left to {@link #checkFailure()}.
+   */
+  private void stopWorkers(boolean finish) {
+    if (workers == null) {
+      return;
+    }
+    Worker[] stopping = workers;
+    workers = null;
+    boolean interrupted = false;
+    try {
+      for (Worker worker : stopping) {
+        while (worker.done.getCount() > 0) {
+          try {
+            if (worker.queue.offer(STOP)) {
+              break;
+            }
+            worker.done.await(10, TimeUnit.MILLISECONDS);
+          } catch (InterruptedException e) {
+            interrupted = true;
+          }
+        }
+      }
+      for (Worker worker : stopping) {
+        // the chain of a worker must not be used by two threads
+        while (true) {
+          try {
+            worker.done.await();
+            break;
+          } catch (InterruptedException e) {
+            interrupted = true;
+          }
+        }
+      }
+    } finally {
+      if (interrupted) {
+        Thread.currentThread().interrupt();
+      }
+    }
+
+    for (Worker worker : stopping) {
+      try {
+        if (finish && failure.get() == null) {
+          worker.processor.finish();
+          mergeResponse(worker.response);
+        }
+      } catch (Throwable t) {
+        failure.compareAndSet(null, t);
+      } finally {
+        try {
+          worker.processor.close();
+        } catch (Throwable t) {
+          failure.compareAndSet(null, t);
+        }
+      }
+    }
+  }
+
+  /**
+   * Merges the response of a worker into the response of the request. Values of the same name are merged rather than
+   * added once per worker: numbers are summed, and named lists and lists are merged, otherwise the first value is
+   * kept. In the response header only lists are merged.
+   */
+  @SuppressWarnings({"unchecked"})
+  private void mergeResponse(SolrQueryResponse workerRsp) {
+    NamedList<Object> header = rsp.getResponseHeader();
+    NamedList<Object> workerHeader = workerRsp.getResponseHeader();
+    NamedList<Object> values = rsp.getValues();
+    for (Map.Entry<String, Object> entry : (NamedList<Object>) workerRsp.getValues()) {
+      if (entry.getValue() == workerHeader) {
+        if (header != null) {
+          // e.g. the status, which is the same for all workers
+          for (Map.Entry<String, Object> headerEntry : workerHeader) {
+            int index = header.indexOf(headerEntry.getKey(), 0);
+            if (index < 0) {
+              header.add(headerEntry.getKey(), headerEntry.getValue());
+            } else {
+              mergeList(header, index, headerEntry.getValue());
+            }
+          }
+        }
+      } else {
+        mergeValue(values, entry.getKey(), entry.getValue());
+      }
+    }
+    mergeValues(rsp.getToLog(), workerRsp.getToLog());
+    if (workerRsp.getException() != null && rsp.getException() == null) {
+      rsp.setException(workerRsp.getException());
+    }
+  }
+
+  private static void mergeValues(NamedList<Object> values, NamedList<?> other) {
+    for (Map.Entry<String, ?> entry : other) {
+      mergeValue(values, entry.getKey(), entry.getValue());
+    }
+  }
+
+  @SuppressWarnings({"unchecked"})
+  private static void mergeValue(NamedList<Object> values, String name, Object value) {
+    int index = values.indexOf(name, 0);
+    if (index < 0) {
+      values.add(name, value);
+      return;
+    }
+    Object existing = values.getVal(index);
+    if (existing instanceof Long || existing instanceof Integer) {
+      if (value instanceof Long || value instanceof Integer) {
+        if (existing instanceof Integer && value instanceof Integer) {
+          values.setVal(index, (Integer) existing + (Integer) value);
+        } else {
+          values.setVal(index, ((Number) existing).longValue() + ((Number) value).longValue());
+        }
+      }
+    } else if (existing instanceof NamedList && value instanceof NamedList && existing != value) {
+      mergeValues((NamedList<Object>) existing, (NamedList<?>) value);
+    } else {
+      mergeList(values, index, value);
+    }
+  }
+
+  /** Appends a list to the list at the index, e.g. the ids of the documents added by each worker */
+  private static void mergeList(NamedList<Object> values, int index, Object value) {
+    Object existing = values.getVal(index);
+    if (existing instanceof List && value instanceof List && existing != value) {
+      List<Object> merged = new ArrayList<>((List<?>) existing);
+      merged.addAll((List<?>) value);
+      values.setVal(index, merged);
+    }
+  }
+
+  private void checkFailure() throws IOException {
+    Throwable t = failure.get();
+    if (t == null) {
+      return;
+    }
+    if (t instanceof IOException) {
+      throw (IOException) t;
+    } else if (t instanceof RuntimeException) {
+      throw (RuntimeException) t;
+    } else if (t instanceof Error) {
+      throw (Error) t;
+    }
+    throw new SolrException(SolrException.ErrorCode.SERVER_ERROR, t);
+  }
+
+  private class Worker implements Runnable {
+    final BlockingQueue<Op> queue = new ArrayBlockingQueue<>(queueSize);
+    final CountDownLatch done = new CountDownLatch(1);
+    final SolrQueryResponse response = new SolrQueryResponse();
+    final UpdateRequestProcessor processor;
+
+    Worker() {
+      response.addResponseHeader(new SimpleOrderedMap<>());
+      processor = chain.createProcessor(req, response);
+    }
+
+    @Override
+    public void run() {
+      Map<String, String> previousMdc = MDC.getCopyOfContextMap();
+      try {
+        if (mdc != null) {
+          MDC.setContextMap(mdc);
+        }
+        SolrRequestInfo.setRequestInfo(new SolrRequestInfo(req, response) {
+          @Override
+          public Date getNOW() {
+            return requestNow != null ? requestNow : super.getNOW();
+          }
+        });
+        try {
+          process();
+        } finally {
+          SolrRequestInfo.clearRequestInfo();
+        }
+      } catch (Throwable t) {
+        failure.compareAndSet(null, t);
+      } finally {
+        if (previousMdc != null) {
+          MDC.setContextMap(previousMdc);
+        } else {
+          MDC.clear();
+        }
+        done.countDown();
+      }
+    }
+
+    private void process() {
+      boolean interrupted = false;
+      try {
+        while (true) {
+          Op op;
+          try {
+            op = queue.take();
+          } catch (InterruptedException e) {
+            // keep draining the queue, so that the request thread does not block
+            interrupted = true;
+            failure.compareAndSet(null, e);
+            continue;
+          }
+          if (op == STOP) {
+            return;
+          }
+          if (failure.get() != null) {
+            continue; // the request fails anyway
+          }
+          try {
+            op.apply(processor);
+          } catch (Throwable t) {
+            failure.compareAndSet(null, t);
+          }
+        }
+      } finally {
+        if (interrupted) {
+          Thread.currentThread().interrupt();
+        }
+      }
+    }
+  }
+}
@@ -29,12 +29,20 @@ import java.nio.file.Paths;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Properties;
+import java.util.concurrent.TimeUnit;
 
 import com.google.common.collect.ImmutableMap;
 import org.apache.commons.io.FileUtils;
 import org.apache.lucene.util.IOUtils;
 import org.apache.solr.SolrTestCaseJ4;
 import org.apache.solr.common.SolrException;
+import org.apache.solr.common.params.ModifiableSolrParams;
+import org.apache.solr.common.util.TimeSource;
+import org.apache.solr.request.LocalSolrQueryRequest;
+import org.apache.solr.request.SolrQueryRequest;
+import org.apache.solr.update.AddUpdateCommand;
+import org.apache.solr.update.CommitUpdateCommand;
+import org.apache.solr.util.TimeOut;
 import org.junit.After;
 import org.junit.BeforeClass;
 import org.junit.Test;
@@ -210,6 +218,70 @@ public class TestCoreDiscovery extends SolrTestCaseJ4 {
     }
   }
 
+  @Test
+  public void testCoreLoadMetrics() throws Exception {
+    // the index must survive restarting the container
+    String savedFactory = System.getProperty("solr.directoryFactory");
+    System.setProperty("solr.directoryFactory", "solr.StandardDirectoryFactory");
+    try {
+      doTestCoreLoadMetrics();
+    } finally {
+      if (savedFactory == null) {
+        System.clearProperty("solr.directoryFactory");
+      } else {
+        System.setProperty("solr.directoryFactory", savedFactory);
+      }
+    }
+  }
+
+  private void doTestCoreLoadMetrics() throws Exception {
+    setMeUp();
+    addCoreWithProps("core1", makeCoreProperties("core1", false, true, "dataDir=core1"));
+    addCoreWithProps("core2", makeCoreProperties("core2", false, true, "dataDir=core2"));
+    addCoreWithProps("lazy1", makeCoreProperties("lazy1", true, false, "dataDir=lazy1"));
+
+    CoreContainer cc = init();
+    try {
+      CoreLoadMetrics metrics = cc.getCoreLoadMetrics();
+      assertFalse(metrics.isLoading());
+      assertEquals(2, metrics.getCoresLoaded());
+      assertEquals(0, metrics.getCoresFailed());
+      assertTrue(metrics.getLoadTimeMs() >= metrics.getDiscoveryTimeMs());
+      assertEquals(0, metrics.getWarmedFiles());
+
+      // the lazy core isn't loaded on startup
+      try (SolrCore lazy1 = cc.getCore("lazy1")) {
+        assertNotNull(lazy1);
+      }
+      assertEquals(2, metrics.getCoresLoaded());
+
+      try (SolrCore core1 = cc.getCore("core1");
+           SolrQueryRequest req = new LocalSolrQueryRequest(core1, new ModifiableSolrParams())) {
+        AddUpdateCommand cmd = new AddUpdateCommand(req);
+        cmd.solrDoc = sdoc("id", "1", "text", "some text");
+        core1.getUpdateHandler().addDoc(cmd);
+        core1.getUpdateHandler().commit(new CommitUpdateCommand(req, false));
+      }
+    } finally {
+      cc.shutdown();
+    }
+
+    System.setProperty(IndexFileWarmer.WARM_EXTENSIONS_PROP, "si");
+    try {
+      cc = init();
+      try {
+        CoreLoadMetrics metrics = cc.getCoreLoadMetrics();
+        TimeOut timeOut = new TimeOut(30, TimeUnit.SECONDS, TimeSource.NANO_TIME);
+        timeOut.waitFor("the segment info of core1 wasn't warmed", () -> metrics.getWarmedFiles() == 1);
+        assertTrue(metrics.getWarmedBytes() > 0);
+      } finally {
+        cc.shutdown();
+      }
+    } finally {
+      System.clearProperty(IndexFileWarmer.WARM_EXTENSIONS_PROP);
+    }
+  }
+
   @Test
   public void testPropFilePersistence() throws Exception {
     setMeUp();
@@ -0,0 +1,141 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.solr.handler;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.lucene.store.ByteBuffersDirectory;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.IOContext;
+import org.apache.lucene.store.IndexInput;
+import org.apache.lucene.store.IndexOutput;
+import org.apache.lucene.store.RateLimiter;
+import org.apache.solr.SolrTestCase;
+import org.junit.Test;
+
+public class TestIndexFileDelta extends SolrTestCase {
+  private static final int BLOCK_SIZE = IndexFileDelta.BLOCK_SIZE;
+
+  private static byte[] randomBytes(int length) {
+    byte[] bytes = new byte[length];
+    random().nextBytes(bytes);
+    return bytes;
+  }
+
+  private static void write(Directory dir, String name, byte[]... parts) throws IOException {
+    try (IndexOutput out = dir.createOutput(name, IOContext.DEFAULT)) {
+      for (byte[] part : parts) {
+        out.writeBytes(part, part.length);
+      }
+    }
+  }
+
+  /** applies the delta as the follower does */
+  private static byte[] apply(byte[] delta, List<byte[]> basis) throws IOException {
+    DataInputStream in = new DataInputStream(new ByteArrayInputStream(delta));
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    while (true) {
+      int op = in.readInt();
+      if (op == IndexFileDelta.OP_END) {
+        return out.toByteArray();
+      } else if (op == IndexFileDelta.OP_LITERAL) {
+        byte[] literal = new byte[in.readInt()];
+        in.readFully(literal);
+        out.write(literal);
+      } else {
+        assertEquals(IndexFileDelta.OP_COPY, op);
+        byte[] file = basis.get(in.readInt());
+        int start = (int) in.readLong() * BLOCK_SIZE;
+        int len = Math.min(in.readInt() * BLOCK_SIZE, file.length - start);
+        out.write(file, start, len);
+      }
+    }
+  }
+
+  @Test
+  public void testDelta() throws Exception {
+    byte[] first = randomBytes(5 * BLOCK_SIZE + 100);
+    byte[] second = randomBytes(3 * BLOCK_SIZE);
+    // as a merge would: parts of both files at unaligned offsets, with new bytes in between
+    byte[] header = randomBytes(37);
+    byte[] between = randomBytes(1000);
+    byte[] footer = randomBytes(16);
+    byte[] merged;
+    try (Directory dir = new ByteBuffersDirectory()) {
+      write(dir, "first", first);
+      write(dir, "second", second);
+      write(dir, "merged", header, Arrays.copyOfRange(first, BLOCK_SIZE, 5 * BLOCK_SIZE), between, second, footer);
+      try (IndexInput in = dir.openInput("merged", IOContext.DEFAULT)) {
+        merged = new byte[(int) in.length()];
+        in.readBytes(merged, 0, merged.length);
+      }
+
+      List<IndexInput> basis = new ArrayList<>();
+      basis.add(dir.openInput("first", IOContext.DEFAULT));
+      basis.add(dir.openInput("second", IOContext.DEFAULT));
+      ByteArrayOutputStream signatures = new ByteArrayOutputStream();
+      IndexFileDelta.writeSignatures(basis, new DataOutputStream(signatures));
+      for (IndexInput in : basis) {
+        in.close();
+      }
+
+      IndexFileDelta.Signatures read = IndexFileDelta.Signatures.read(
+          new DataInputStream(new ByteArrayInputStream(signatures.toByteArray())));
+      ByteArrayOutputStream delta = new ByteArrayOutputStream();
+      long literalBytes;
+      try (IndexInput in = dir.openInput("merged", IOContext.DEFAULT)) {
+        literalBytes = IndexFileDelta.writeDelta(in, read, new DataOutputStream(delta),
+            new RateLimiter.SimpleRateLimiter(Double.MAX_VALUE));
+      }
+
+      assertEquals(header.length + between.length + footer.length, literalBytes);
+      assertArrayEquals(merged, apply(delta.toByteArray(), Arrays.asList(first, second)));
+    }
+  }
+
+  @Test
+  public void testNoMatches() throws Exception {
+    byte[] file = randomBytes(2 * BLOCK_SIZE + 5);
+    try (Directory dir = new ByteBuffersDirectory()) {
+      write(dir, "file", file);
+      ByteArrayOutputStream signatures = new ByteArrayOutputStream();
+      IndexFileDelta.writeSignatures(new ArrayList<>(), new DataOutputStream(signatures));
+      IndexFileDelta.Signatures read = IndexFileDelta.Signatures.read(
+          new DataInputStream(new ByteArrayInputStream(signatures.toByteArray())));
+      ByteArrayOutputStream delta = new ByteArrayOutputStream();
+      try (IndexInput in = dir.openInput("file", IOContext.DEFAULT)) {
+        assertEquals(file.length, IndexFileDelta.writeDelta(in, read, new DataOutputStream(delta),
+            new RateLimiter.SimpleRateLimiter(Double.MAX_VALUE)));
+      }
+      assertArrayEquals(file, apply(delta.toByteArray(), new ArrayList<>()));
+    }
+  }
+
+  @Test
+  public void testInvalidSignatures() {
+    byte[] invalid = {0, 0, 0, 0};
+    expectThrows(IOException.class, () -> IndexFileDelta.Signatures.read(
+        new DataInputStream(new ByteArrayInputStream(invalid))));
+  }
+}
@@ -17,6 +17,7 @@
 package org.apache.solr.handler;
 
 import java.io.BufferedReader;
+import java.io.DataInputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
@@ -29,6 +30,7 @@ import java.io.Writer;
 import java.lang.invoke.MethodHandles;
 import java.net.MalformedURLException;
 import java.net.URL;
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Paths;
 import java.util.ArrayList;
@@ -36,9 +38,11 @@ import java.util.Arrays;
 import java.util.Collection;
 import java.util.Date;
 import java.util.List;
+import java.util.Map;
 import java.util.Properties;
 import java.util.Set;
 import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
 
 import org.apache.lucene.index.DirectoryReader;
 import org.apache.lucene.index.IndexReader;
@@ -1611,6 +1615,153 @@ public class TestReplicationHandler extends SolrTestCaseJ4 {
     assertTrue(timeTakenInSeconds - approximateTimeInSeconds > 0);
   }
 
+  @Test
+  public void testConcurrentFileFetches() throws Exception {
+    clearIndexWithReplication();
+
+    // a few segments, so that there are files to download concurrently
+    int totalDocs = 0;
+    for (int i = 0; i < 5; i++) {
+      for (int j = 0; j < 10; j++) {
+        index(leaderClient, "id", totalDocs++, "name", TestUtil.randomSimpleString(random(), 100, 1000));
+      }
+      leaderClient.commit();
+    }
+
+    SolrQuery q = new SolrQuery();
+    q.add("qt", "/replication")
+        .add("command", "fetchindex")
+        .add("wait", "true")
+        .add(ReplicationHandler.MAX_CONCURRENT_FILE_FETCHES, "4")
+        .add(ReplicationHandler.MAX_FETCH_PER_SECOND, "100")
+        .add("leaderUrl", buildUrl(leaderJetty.getLocalPort()) + "/" + DEFAULT_TEST_CORENAME);
+    NamedList<Object> resp = followerClient.query(q).getResponse();
+    assertEquals(ReplicationHandler.OK_STATUS, resp.get("status"));
+
+    rQuery(totalDocs, "*:*", followerClient);
+    assertVersions(leaderClient, followerClient);
+
+    // an invalid value fails the fetch
+    q.set(ReplicationHandler.MAX_CONCURRENT_FILE_FETCHES, "many");
+    resp = followerClient.query(q).getResponse();
+    assertEquals(ReplicationHandler.ERR_STATUS, resp.get("status"));
+  }
+
+  @Test
+  @SuppressWarnings({"unchecked"})
+  public void testZeroCopyFileContent() throws Exception {
+    clearIndexWithReplication();
+    for (int i = 0; i < 20; i++) {
+      index(leaderClient, "id", i, "name", TestUtil.randomSimpleString(random(), 100, 1000));
+    }
+    leaderClient.commit();
+
+    long generation = (Long) getIndexVersion(leaderClient).get(ReplicationHandler.GENERATION);
+    ModifiableSolrParams params = new ModifiableSolrParams();
+    params.set("command", ReplicationHandler.CMD_GET_FILE_LIST);
+    params.set(ReplicationHandler.GENERATION, String.valueOf(generation));
+    params.set("qt", ReplicationHandler.PATH);
+    List<Map<String, Object>> files = (List<Map<String, Object>>) leaderClient.request(new QueryRequest(params))
+        .get(ReplicationHandler.CMD_GET_FILE_LIST);
+    Map<String, Object> largest = files.get(0);
+    for (Map<String, Object> file : files) {
+      if ((Long) file.get(ReplicationHandler.SIZE) > (Long) largest.get(ReplicationHandler.SIZE)) {
+        largest = file;
+      }
+    }
+    long size = (Long) largest.get(ReplicationHandler.SIZE);
+    long expectedChecksum = (Long) largest.get(ReplicationHandler.CHECKSUM);
+
+    String url = buildUrl(leaderJetty.getLocalPort()) + "/" + DEFAULT_TEST_CORENAME + ReplicationHandler.PATH
+        + "?command=" + ReplicationHandler.CMD_GET_FILE + "&wt=" + ReplicationHandler.FILE_STREAM
+        + "&checksum=true&" + ReplicationHandler.ZERO_COPY + "=true"
+        + "&generation=" + generation + "&file=" + largest.get(CommonParams.NAME);
+    byte[] content = new byte[(int) size];
+    try (DataInputStream in = new DataInputStream(new URL(url).openStream())) {
+      int first = in.readInt();
+      if (first == ReplicationHandler.ZERO_COPY_MARKER) {
+        // the index is on disk: the file follows as it is
+        assertEquals(size, in.readLong());
+        in.readFully(content);
+      } else {
+        // e.g. the index is in memory: the file follows in checksummed packets
+        int offset = 0;
+        for (int packetSize = first; packetSize > 0; packetSize = in.readInt()) {
+          in.readLong();
+          in.readFully(content, offset, packetSize);
+          offset += packetSize;
+        }
+        assertEquals(size, offset);
+      }
+    }
+
+    CRC32 crc = new CRC32();
+    crc.update(content, 0, content.length - Long.BYTES);
+    long footer = ByteBuffer.wrap(content, content.length - Long.BYTES, Long.BYTES).getLong();
+    assertEquals(expectedChecksum, footer);
+    assertEquals(footer, crc.getValue());
+  }
+
+  @Test
+  public void testDeltaReplication() throws Exception {
+    // a delta is only fetched against files with the same extension, so neither the flushed nor the merged segments
+    // may be compound files
+    String useCompoundFile = System.getProperty("useCompoundFile");
+    System.setProperty("useCompoundFile", "false");
+    System.setProperty("solr.tests.mergePolicyFactory", "org.apache.solr.index.TieredMergePolicyFactory");
+    try {
+      leaderJetty.stop();
+      leaderJetty.start();
+      leaderClient.close();
+      leaderClient = createNewSolrClient(leaderJetty.getLocalPort());
+      doTestDeltaReplication();
+    } finally {
+      if (useCompoundFile == null) {
+        System.clearProperty("useCompoundFile");
+      } else {
+        System.setProperty("useCompoundFile", useCompoundFile);
+      }
+      System.clearProperty("solr.tests.mergePolicyFactory");
+    }
+  }
+
+  private void doTestDeltaReplication() throws Exception {
+    clearIndexWithReplication();
+
+    // segments with large enough stored fields files to be fetched as deltas once they're merged
+    int totalDocs = 0;
+    for (int i = 0; i < 3; i++) {
+      for (int j = 0; j < 500; j++) {
+        index(leaderClient, "id", totalDocs++, "name", TestUtil.randomSimpleString(random(), 1000, 2000));
+      }
+      leaderClient.commit();
+    }
+
+    SolrQuery q = new SolrQuery();
+    q.add("qt", "/replication")
+        .add("command", "fetchindex")
+        .add("wait", "true")
+        .add(ReplicationHandler.DELTA_REPLICATION, "true")
+        .add("leaderUrl", buildUrl(leaderJetty.getLocalPort()) + "/" + DEFAULT_TEST_CORENAME);
+    NamedList<Object> resp = followerClient.query(q).getResponse();
+    assertEquals(ReplicationHandler.OK_STATUS, resp.get("status"));
+    rQuery(totalDocs, "*:*", followerClient);
+    assertVersions(leaderClient, followerClient);
+
+    // the merged segment is fetched as deltas against the follower's segments
+    leaderClient.optimize();
+    resp = followerClient.query(q).getResponse();
+    assertEquals(ReplicationHandler.OK_STATUS, resp.get("status"));
+    rQuery(totalDocs, "*:*", followerClient);
+    assertVersions(leaderClient, followerClient);
+    NamedList<Object> details = getDetails(followerClient);
+    @SuppressWarnings({"unchecked"})
+    NamedList<Object> follower = (NamedList<Object>) details.get("follower");
+    Long bytesReused = (Long) follower.get(IndexFetcher.LAST_CYCLE_BYTES_REUSED_BY_DELTA);
+    assertNotNull(details.toString(), bytesReused);
+    assertTrue(details.toString(), bytesReused > 0);
+  }
+
   @Test
   public void doTestIllegalFilePaths() throws Exception {
     // Loop through the file=, cf=, tlogFile= params and prove that it throws exception for path traversal attempts
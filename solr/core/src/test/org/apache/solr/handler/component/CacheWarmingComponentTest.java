@@ -0,0 +1,97 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.solr.handler.component;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.solr.SolrTestCaseJ4;
+import org.apache.solr.common.params.ModifiableSolrParams;
+import org.apache.solr.common.util.TimeSource;
+import org.apache.solr.util.TimeOut;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class CacheWarmingComponentTest extends SolrTestCaseJ4 {
+
+  @BeforeClass
+  public static void beforeTest() throws Exception {
+    initCore("solrconfig-cache-warming.xml", "schema12.xml");
+    assertU(adoc("id", "1", "subject", "aa"));
+    assertU(adoc("id", "2", "subject", "aa"));
+    assertU(adoc("id", "3", "subject", "bb"));
+    assertU(commit());
+  }
+
+  private static CacheWarmingComponent getComponent() {
+    return (CacheWarmingComponent) h.getCore().getSearchComponent("cacheWarming");
+  }
+
+  @Test
+  public void testKey() {
+    ModifiableSolrParams params = params("q", "subject:aa", "fq", "id:2", "wt", "json");
+    params.add("fq", "id:1");
+    ModifiableSolrParams reordered = params("fq", "id:1", "wt", "xml", "q", "subject:aa");
+    reordered.add("fq", "id:2");
+    assertEquals(CacheWarmingComponent.getKey(params, "/select"), CacheWarmingComponent.getKey(reordered, "/select"));
+    assertNotEquals(CacheWarmingComponent.getKey(params, "/select"), CacheWarmingComponent.getKey(params, null));
+    assertNull(CacheWarmingComponent.getKey(params("fq", "id:1"), "/select"));
+  }
+
+  @Test
+  public void testWarmingAfterReload() throws Exception {
+    for (int i = 0; i < 3; i++) {
+      assertQ(req("qt", "/select", "q", "subject:aa", "fq", "id:1"), "//result[@numFound='1']");
+    }
+    assertQ(req("qt", "/select", "q", "subject:bb", "sort", "id asc"), "//result[@numFound='1']");
+    // the warming queries of the new searcher aren't counted
+    assertQ(req("qt", "/select", "q", "subject:aa", "event", "newSearcher"), "//result[@numFound='2']");
+
+    // the queries are persisted on commit, the most frequent first
+    assertU(commit());
+    Path file = Paths.get(h.getCore().getDataDir(), CacheWarmingComponent.DEFAULT_FILE_NAME);
+    List<String> lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+    assertEquals(lines.toString(), 2, lines.size());
+    assertTrue(lines.get(0), lines.get(0).startsWith("3\t"));
+    assertTrue(lines.get(0), lines.get(0).contains("id%3A1"));
+    assertTrue(lines.get(1), lines.get(1).startsWith("1\t"));
+
+    h.reload();
+    CacheWarmingComponent component = getComponent();
+    TimeOut timeOut = new TimeOut(30, TimeUnit.SECONDS, TimeSource.NANO_TIME);
+    timeOut.waitFor("the queries weren't replayed", () -> component.getReplayedQueries() == 2);
+    assertTrue(h.getCore().withSearcher(searcher -> searcher.getFilterCache().size()) > 0);
+
+    assertQ(req("qt", "/select", "q", "subject:aa", "fq", "id:1"), "//result[@numFound='1']");
+    assertQ(req("qt", "/select", "q", "subject:aa", "fq", "id:2"), "//result[@numFound='1']");
+    assertEquals(1, component.getWarmHits());
+    assertEquals(2, component.getRequestsAfterWarming());
+
+    // the persisted counts were halved, so that the query counted once before the reload was dropped
+    component.persist();
+    lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+    assertEquals(lines.toString(), 2, lines.size());
+    assertTrue(lines.get(0), lines.get(0).startsWith("2\t"));
+    assertTrue(lines.get(0), lines.get(0).contains("id%3A1"));
+    assertTrue(lines.get(1), lines.get(1).startsWith("1\t"));
+    assertTrue(lines.get(1), lines.get(1).contains("id%3A2"));
+  }
+}
@@ -0,0 +1,97 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.solr.handler.component;
+
+import java.util.Locale;
+
+import org.apache.solr.client.solrj.SolrQuery;
+import org.apache.solr.client.solrj.request.CollectionAdminRequest;
+import org.apache.solr.client.solrj.request.UpdateRequest;
+import org.apache.solr.client.solrj.response.QueryResponse;
+import org.apache.solr.cloud.SolrCloudTestCase;
+import org.apache.solr.common.SolrDocumentList;
+import org.apache.solr.common.SolrException;
+import org.apache.solr.common.SolrInputDocument;
+import org.apache.solr.common.params.ShardParams;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ * Distributed searches with hedged shard requests and the adaptive replica order
+ */
+public class ShardRequestHedgingTest extends SolrCloudTestCase {
+  private static final String COLLECTION = "hedging";
+  private static final int NUM_DOCS = 50;
+
+  @BeforeClass
+  public static void setupCluster() throws Exception {
+    configureCluster(2)
+        .addConfig("config", TEST_PATH().resolve("configsets").resolve("cloud-minimal").resolve("conf"))
+        .configure();
+
+    CollectionAdminRequest.createCollection(COLLECTION, "config", 2, 2)
+        .process(cluster.getSolrClient());
+    cluster.waitForActiveCollection(COLLECTION, 2, 4);
+
+    UpdateRequest update = new UpdateRequest();
+    for (int i = 0; i < NUM_DOCS; i++) {
+      SolrInputDocument doc = new SolrInputDocument();
+      doc.addField("id", String.format(Locale.ROOT, "%03d", i));
+      update.add(doc);
+    }
+    update.commit(cluster.getSolrClient(), COLLECTION);
+  }
+
+  private static SolrQuery query(String q) {
+    SolrQuery query = new SolrQuery(q);
+    query.setSort("id", SolrQuery.ORDER.asc);
+    query.set(ShardParams.SHARDS_PREFERENCE, ShardParams.SHARDS_PREFERENCE_REPLICA_BASE + ":" + ShardParams.REPLICA_ADAPTIVE);
+    query.set(ShardParams.SHARDS_HEDGE, true);
+    return query;
+  }
+
+  @Test
+  public void testHedgedRequests() throws Exception {
+    for (int i = 0; i < 20; i++) {
+      SolrQuery query = query("*:*");
+      // every shard request is hedged right away, or after the percentile once enough shard requests completed
+      if (i % 2 == 0) {
+        query.set(ShardParams.SHARDS_HEDGE_DELAY, 0);
+      } else {
+        query.set(ShardParams.SHARDS_HEDGE_PERCENTILE, 50);
+      }
+      query.setStart(i);
+      query.setRows(10);
+      QueryResponse rsp = cluster.getSolrClient().query(COLLECTION, query);
+
+      SolrDocumentList docs = rsp.getResults();
+      assertEquals(NUM_DOCS, docs.getNumFound());
+      assertEquals(10, docs.size());
+      for (int j = 0; j < docs.size(); j++) {
+        assertEquals(String.format(Locale.ROOT, "%03d", i + j), docs.get(j).getFieldValue("id"));
+      }
+    }
+  }
+
+  @Test
+  public void testErrors() throws Exception {
+    SolrQuery query = query("id:[1 TO");
+    query.set(ShardParams.SHARDS_HEDGE_DELAY, 0);
+    SolrException e = expectThrows(SolrException.class, () -> cluster.getSolrClient().query(COLLECTION, query));
+    assertEquals(SolrException.ErrorCode.BAD_REQUEST.code, e.code());
+  }
+}
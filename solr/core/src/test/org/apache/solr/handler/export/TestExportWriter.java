@@ -38,6 +38,7 @@ import org.apache.solr.common.util.Utils;
 import org.apache.solr.index.LogDocMergePolicyFactory;
 import org.apache.solr.request.SolrQueryRequest;
 import org.apache.solr.schema.SchemaField;
+import org.junit.AfterClass;
 import org.junit.Before;
 import org.junit.BeforeClass;
 import org.junit.Test;
@@ -51,9 +52,17 @@ public class TestExportWriter extends SolrTestCaseJ4 {
     // force LogDocMergePolicy so that we get a predictable doc order
     // when testing index order results
     systemSetPropertySolrTestsMergePolicyFactory(LogDocMergePolicyFactory.class.getName());
+    // sort the segments in parallel unless parallelSort=false
+    System.setProperty("solr.tests.searchThreads", "2");
     initCore("solrconfig-sortingresponse.xml","schema-sortingresponse.xml");
   }
 
+  @AfterClass
+  public static void afterClass() {
+    systemClearPropertySolrTestsMergePolicyFactory();
+    System.clearProperty("solr.tests.searchThreads");
+  }
+
   @Before
   @Override
   public void setUp() throws Exception {
@@ -709,6 +718,36 @@ public class TestExportWriter extends SolrTestCaseJ4 {
     validateSort(numDocs);
   }
 
+  @Test
+  public void testParallelSort() throws Exception {
+    assertU(delQ("*:*"));
+    assertU(commit());
+
+    int numDocs = 2000;
+    for (int i = 0; i < numDocs; i++) {
+      int number = TestUtil.nextInt(random(), 0, 99);
+      assertU(adoc("id", String.valueOf(i),
+          "intdv", String.valueOf(number),
+          "stringdv", "s" + (number % 13),
+          "longdv", String.valueOf(i)));
+      if (i % 150 == 149) {
+        assertU(commit());
+      }
+    }
+    assertU(commit());
+
+    // a small queue size so that each segment is sorted in many batches
+    for (String sort : new String[] {"intdv asc", "stringdv desc,intdv asc", "stringdv asc,longdv desc"}) {
+      String queueSize = String.valueOf(TestUtil.nextInt(random(), 10, 500));
+      String parallel = h.query(req("q", "*:*", "qt", "/export", "fl", "id,intdv,stringdv", "sort", sort,
+          "queueSize", queueSize));
+      String sequential = h.query(req("q", "*:*", "qt", "/export", "fl", "id,intdv,stringdv", "sort", sort,
+          "queueSize", queueSize, ExportWriter.PARALLEL_SORT_PARAM, "false"));
+      assertJsonEquals(parallel, sequential);
+      assertEquals(numDocs, ((Number) Utils.getObjectByPath(Utils.fromJSONString(parallel), false, "/response/numFound")).intValue());
+    }
+  }
+
   private void createLargeIndex() throws Exception {
     int BATCH_SIZE = 5000;
     int NUM_BATCHES = 20;
@@ -33,6 +33,7 @@ import org.apache.solr.common.params.CommonParams;
 import org.apache.solr.common.util.JsonTextWriter;
 import org.apache.solr.common.util.NamedList;
 import org.apache.solr.request.SolrQueryRequest;
+import org.apache.solr.request.SolrRequestInfo;
 import org.apache.solr.search.ReturnFields;
 import org.apache.solr.search.SolrReturnFields;
 import org.junit.BeforeClass;
@@ -292,6 +293,49 @@ public class JSONWriterTest extends SolrTestCaseJ4 {
 
   }
 
+  @Test
+  public void testStreamingWriterWritesSameOutput() throws Exception {
+    clearIndex();
+    for (int i = 0; i < 50; i++) {
+      assertU(adoc("id", Integer.toString(i),
+          "val_i", Integer.toString(random().nextInt()),
+          "val_l", Long.toString(i == 0 ? Long.MIN_VALUE : random().nextLong()),
+          "val_f", Float.toString(random().nextFloat() * 100),
+          "val_d", Double.toString(random().nextDouble() - 0.5),
+          "val_b", Boolean.toString(random().nextBoolean()),
+          "val_dt", "2020-01-0" + (1 + i % 9) + "T00:00:00Z",
+          "val_s", "cat\"" + (i % 7),
+          "val_t", "text \u2028 " + i,
+          "val_is", Integer.toString(-i), "val_is", Integer.toString(i),
+          "val_i_dvo", Integer.toString(i % 3)));
+    }
+    assertU(commit());
+
+    for (String[] params : new String[][] {
+        {"indent", "true"},
+        {"indent", "false", "json.nl", "map"},
+        {"fl", "*,val_i_dvo,score,[docid]", "json.wrf", "callback"}}) {
+      SolrQueryRequest req = req(params("q", "*:*", "rows", "100", "facet", "true", "facet.field", "val_s",
+          "json.facet", "{f:{type:terms, field:val_s, facet:{sum:'sum(val_i_dvo)', x:'unique(val_i_dvo)'}}}"), params);
+      try {
+        SolrRequestInfo.setRequestInfo(new SolrRequestInfo(req, new SolrQueryResponse()));
+        SolrQueryResponse rsp = h.queryAndResponse("", req);
+
+        StringWriter expected = new StringWriter();
+        JSONWriter jsonWriter = new JSONWriter(expected, req, rsp);
+        jsonWriter.writeResponse();
+        jsonWriter.close();
+
+        StringWriter actual = new StringWriter();
+        new JSONResponseWriter().write(actual, req, rsp);
+        assertEquals(expected.toString(), actual.toString());
+      } finally {
+        SolrRequestInfo.clearRequestInfo();
+        req.close();
+      }
+    }
+  }
+
   @Test
   public void testConstantsUnchanged() {
     assertEquals("json.nl", JSONWriter.JSON_NL_STYLE);
@@ -0,0 +1,79 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.solr.schema;
+
+import java.util.Arrays;
+
+import org.apache.lucene.index.VectorValues;
+import org.apache.solr.SolrTestCaseJ4;
+import org.apache.solr.common.SolrInputDocument;
+import org.junit.BeforeClass;
+
+public class DenseVectorFieldTest extends SolrTestCaseJ4 {
+
+  @BeforeClass
+  public static void beforeClass() throws Exception {
+    initCore("solrconfig-minimal.xml", "schema-densevector.xml");
+  }
+
+  @Override
+  public void setUp() throws Exception {
+    clearIndex();
+    assertU(commit());
+    super.setUp();
+  }
+
+  public void testBasic() {
+    SchemaField field = h.getCore().getLatestSchema().getField("vector");
+    assertEquals(DenseVectorField.class, field.getType().getClass());
+    DenseVectorField type = (DenseVectorField) field.getType();
+    assertEquals(4, type.getDimension());
+    assertEquals(VectorValues.SimilarityFunction.EUCLIDEAN, type.getSimilarityFunction());
+    assertEquals(VectorValues.SimilarityFunction.DOT_PRODUCT,
+        ((DenseVectorField) h.getCore().getLatestSchema().getField("vector_dot").getType()).getSimilarityFunction());
+  }
+
+  public void testStoredVector() throws Exception {
+    assertU(adoc("id", "1", "vector", "[1.5, -2, 3.25, 4]"));
+    SolrInputDocument doc = new SolrInputDocument();
+    doc.addField("id", "2");
+    doc.addField("vector", Arrays.asList(0.5f, 1f, 2d, 3));
+    doc.addField("vector_unstored", Arrays.asList(0.5f, 1f, 2d, 3));
+    assertU(adoc(doc));
+    assertU(commit());
+
+    assertJQ(req("q", "id:1", "fl", "vector"), "/response/docs/[0]/vector==[1.5, -2.0, 3.25, 4.0]");
+    assertJQ(req("q", "id:2", "fl", "vector"), "/response/docs/[0]/vector==[0.5, 1.0, 2.0, 3.0]");
+    assertJQ(req("q", "id:2", "fl", "id,vector_unstored"), "/response/docs/[0]=={'id':'2'}");
+  }
+
+  public void testBadVectors() {
+    ignoreException("Expecting a vector");
+    assertFailedU(adoc("id", "1", "vector", "[1.0, 2.0, 3.0]"));
+    assertFailedU(adoc("id", "1", "vector", "[1.0, 2.0, 3.0, 4.0, 5.0]"));
+    assertFailedU(adoc("id", "1", "vector", "[1.0, 2.0, 3.0, foo]"));
+    unIgnoreException("Expecting a vector");
+
+    ignoreException("must be finite");
+    assertFailedU(adoc("id", "1", "vector", "[1.0, 2.0, 3.0, NaN]"));
+    unIgnoreException("must be finite");
+
+    ignoreException("can not sort");
+    assertQEx("sorting on a vector", req("q", "*:*", "sort", "vector asc"), 400);
+    unIgnoreException("can not sort");
+  }
+}
@@ -0,0 +1,133 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.solr.search;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.solr.SolrTestCaseJ4;
+import org.apache.solr.common.util.Utils;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class KnnQParserPluginTest extends SolrTestCaseJ4 {
+
+  private static final int NUM_DOCS = 30;
+  private static final float[][] VECTORS = new float[NUM_DOCS][];
+
+  @BeforeClass
+  public static void beforeClass() throws Exception {
+    initCore("solrconfig-minimal.xml", "schema-densevector.xml");
+    for (int i = 0; i < NUM_DOCS; i++) {
+      VECTORS[i] = new float[] {i % 10, i / 10, random().nextInt(5), 1};
+      assertU(adoc("id", Integer.toString(i), "cat_s", i % 2 == 0 ? "even" : "odd", "vector", vector(VECTORS[i])));
+      if (i % 10 == 9) {
+        assertU(commit()); // a few segments
+      }
+    }
+    assertU(commit());
+  }
+
+  private static String vector(float[] vector) {
+    StringBuilder sb = new StringBuilder("[");
+    for (float v : vector) {
+      sb.append(sb.length() > 1 ? ", " : "").append(v);
+    }
+    return sb.append(']').toString();
+  }
+
+  @SuppressWarnings({"unchecked"})
+  private static List<Map<String, Object>> docs(String... params) throws Exception {
+    String json = h.query(req(params));
+    return (List<Map<String, Object>>) ((Map<String, Object>) ((Map<String, Object>) Utils.fromJSONString(json)).get("response")).get("docs");
+  }
+
+  /** the ids of the nearest documents by euclidean distance, as scored by the query */
+  private static List<String> nearest(float[] target, int k, boolean evenOnly) {
+    List<Integer> ids = new ArrayList<>();
+    for (int i = 0; i < NUM_DOCS; i++) {
+      ids.add(i);
+    }
+    Comparator<Integer> byDistance = Comparator.comparingDouble(i -> {
+      double d = 0;
+      for (int j = 0; j < target.length; j++) {
+        d += (target[j] - VECTORS[i][j]) * (target[j] - VECTORS[i][j]);
+      }
+      return d;
+    });
+    ids.sort(byDistance.thenComparing(Comparator.naturalOrder()));
+    List<String> nearest = new ArrayList<>();
+    for (int id : ids.subList(0, k)) {
+      if (!evenOnly || id % 2 == 0) {
+        nearest.add(Integer.toString(id));
+      }
+    }
+    return nearest;
+  }
+
+  private static List<String> ids(List<Map<String, Object>> docs) {
+    List<String> ids = new ArrayList<>();
+    for (Map<String, Object> doc : docs) {
+      ids.add((String) doc.get("id"));
+    }
+    return ids;
+  }
+
+  @Test
+  public void testExactMatchScoresOne() throws Exception {
+    List<Map<String, Object>> docs = docs("q", "{!knn f=vector topK=3}" + vector(VECTORS[7]), "fl", "id,score", "wt", "json");
+    assertEquals(3, docs.size());
+    assertEquals(1.0, ((Number) docs.get(0).get("score")).doubleValue(), 0.0);
+  }
+
+  @Test
+  public void testNearestDocuments() throws Exception {
+    // on a graph this small, the search explores every document
+    float[] target = {random().nextFloat() * 10, random().nextFloat() * 3, random().nextFloat() * 5, 1};
+    int topK = 1 + random().nextInt(10);
+    String knn = "{!knn f=vector topK=" + topK + " fanout=" + NUM_DOCS + "}" + vector(target);
+
+    List<Map<String, Object>> docs = docs("q", knn, "fl", "id,score", "rows", "100", "wt", "json");
+    List<String> actual = ids(docs);
+    actual.sort(Comparator.naturalOrder());
+    List<String> expected = nearest(target, topK, false);
+    expected.sort(Comparator.naturalOrder());
+    assertEquals(expected, actual);
+    for (int i = 1; i < docs.size(); i++) {
+      assertTrue(((Number) docs.get(i - 1).get("score")).floatValue() >= ((Number) docs.get(i).get("score")).floatValue());
+    }
+
+    // as a filter, the nearest documents are filtered by the other filters
+    docs = docs("q", "*:*", "fq", knn, "fq", "cat_s:even", "fl", "id", "rows", "100", "wt", "json");
+    actual = ids(docs);
+    actual.sort(Comparator.naturalOrder());
+    expected = nearest(target, topK, true);
+    expected.sort(Comparator.naturalOrder());
+    assertEquals(expected, actual);
+  }
+
+  @Test
+  public void testBadQueries() throws Exception {
+    assertQEx("missing field", req("q", "{!knn}[1, 2, 3, 4]"), 400);
+    assertQEx("not a vector field", req("q", "{!knn f=cat_s}[1, 2, 3, 4]"), 400);
+    assertQEx("wrong dimension", req("q", "{!knn f=vector}[1, 2, 3]"), 400);
+    assertQEx("bad topK", req("q", "{!knn f=vector topK=0}[1, 2, 3, 4]"), 400);
+    assertQEx("no vector", req("q", "{!knn f=vector}"), 400);
+  }
+}
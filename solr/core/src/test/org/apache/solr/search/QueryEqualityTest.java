@@ -369,6 +369,18 @@ public class QueryEqualityTest extends SolrTestCaseJ4 {
     }
   }
 
+  public void testKnnQuery() throws Exception {
+    SolrQueryRequest req = req("df", "foo_s", "vec", "[1.0, 2.0, 3.0, 4.0]");
+    try {
+      assertQueryEquals("knn", req,
+                        "{!knn f=test_vector}[1.0, 2.0, 3.0, 4.0]",
+                        "{!knn f=test_vector topK=10}1,2,3,4",
+                        "{!knn f=test_vector topK=10 v=$vec}");
+    } finally {
+      req.close();
+    }
+  }
+
   public void testQueryNested() throws Exception {
     SolrQueryRequest req = req("df", "foo_s");
     try {
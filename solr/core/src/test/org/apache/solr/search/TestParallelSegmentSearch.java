@@ -0,0 +1,171 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.solr.search;
+
+import java.util.List;
+
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.BooleanClause;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.MatchAllDocsQuery;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.Sort;
+import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.search.TopDocs;
+import org.apache.solr.SolrTestCaseJ4;
+import org.apache.solr.index.NoMergePolicyFactory;
+import org.apache.solr.schema.SchemaField;
+import org.apache.solr.util.RefCounted;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class TestParallelSegmentSearch extends SolrTestCaseJ4 {
+
+  private static final String[] WORDS = {"a", "b", "c", "d"};
+
+  @BeforeClass
+  public static void beforeClass() throws Exception {
+    // one segment per commit
+    systemSetPropertySolrTestsMergePolicyFactory(NoMergePolicyFactory.class.getName());
+    System.setProperty("solr.tests.maxBufferedDocs", "1000");
+    System.setProperty("solr.tests.ramBufferSizeMB", "5000");
+    System.setProperty("solr.tests.searchThreads", "3");
+    System.setProperty("solr.parallelSearchMinDocsPerSlice", "1");
+    initCore("solrconfig.xml", "schema.xml");
+  }
+
+  @AfterClass
+  public static void afterClass() {
+    systemClearPropertySolrTestsMergePolicyFactory();
+    System.clearProperty("solr.tests.maxBufferedDocs");
+    System.clearProperty("solr.tests.ramBufferSizeMB");
+    System.clearProperty("solr.tests.searchThreads");
+    System.clearProperty("solr.parallelSearchMinDocsPerSlice");
+  }
+
+  private void index() {
+    clearIndex();
+    int id = 0;
+    int numSegments = 4 + random().nextInt(4);
+    for (int segment = 0; segment < numSegments; segment++) {
+      int numDocs = 1 + random().nextInt(50);
+      for (int i = 0; i < numDocs; i++) {
+        StringBuilder text = new StringBuilder();
+        for (int j = random().nextInt(5); j >= 0; j--) {
+          text.append(WORDS[random().nextInt(WORDS.length)]).append(' ');
+        }
+        assertU(adoc("id", Integer.toString(id++), "val_i_dv", Integer.toString(random().nextInt(20)),
+            "text_t", text.toString()));
+      }
+      if (random().nextInt(5) == 0) {
+        assertU(delI(Integer.toString(random().nextInt(id))));
+      }
+      assertU(commit());
+    }
+  }
+
+  @Test
+  public void testSlices() throws Exception {
+    index();
+    RefCounted<SolrIndexSearcher> ref = h.getCore().getSearcher();
+    try {
+      SolrIndexSearcher searcher = ref.get();
+      List<LeafReaderContext> leaves = searcher.getTopReaderContext().leaves();
+      assertTrue(searcher.getNumSearchSlices() > 1);
+      assertTrue(searcher.getNumSearchSlices() <= 4);
+
+      for (int maxSlices = 1; maxSlices <= leaves.size() + 1; maxSlices++) {
+        List<List<LeafReaderContext>> slices = SolrIndexSearcher.groupSlices(leaves, maxSlices, 1);
+        assertEquals(Math.min(maxSlices, leaves.size()), slices.size());
+        int ord = 0;
+        for (List<LeafReaderContext> slice : slices) {
+          assertFalse(slice.isEmpty());
+          for (LeafReaderContext leaf : slice) {
+            assertEquals(ord++, leaf.ord);
+          }
+        }
+        assertEquals(leaves.size(), ord);
+      }
+      assertEquals(1, SolrIndexSearcher.groupSlices(leaves, leaves.size(), searcher.maxDoc()).size());
+    } finally {
+      ref.decref();
+    }
+  }
+
+  @Test
+  public void testSameResultsAsSequentialSearch() throws Exception {
+    index();
+    RefCounted<SolrIndexSearcher> ref = h.getCore().getSearcher();
+    try {
+      SolrIndexSearcher searcher = ref.get();
+      assertTrue(searcher.getNumSearchSlices() > 1);
+      IndexSearcher sequential = new IndexSearcher(searcher.getIndexReader());
+      sequential.setSimilarity(searcher.getSimilarity());
+
+      SchemaField val = h.getCore().getLatestSchema().getField("val_i_dv");
+      SchemaField id = h.getCore().getLatestSchema().getField("id");
+      Sort sort = new Sort(val.getSortField(random().nextBoolean()), id.getSortField(false));
+
+      for (int iter = 0; iter < 20; iter++) {
+        BooleanQuery.Builder builder = new BooleanQuery.Builder();
+        builder.add(new TermQuery(new Term("text_t", WORDS[random().nextInt(WORDS.length)])), BooleanClause.Occur.SHOULD);
+        builder.add(new TermQuery(new Term("text_t", WORDS[random().nextInt(WORDS.length)])), BooleanClause.Occur.SHOULD);
+        Query query = iter % 4 == 0 ? new MatchAllDocsQuery() : builder.build();
+        int len = random().nextInt(30);
+
+        // by score
+        TopDocs expected = sequential.search(query, Math.max(1, len));
+        DocListAndSet actual = searcher.getDocListAndSet(query, (Query) null, null, 0, len,
+            SolrIndexSearcher.GET_SCORES);
+        assertEquals(expected.totalHits.value, actual.docSet.size());
+        assertEquals(expected.totalHits.value, actual.docList.matches());
+        assertDocs(expected, len, actual.docList, true);
+
+        // by field, without DocSet
+        expected = sequential.search(query, Math.max(1, len), sort);
+        DocList actualList = searcher.getDocList(query, (Query) null, sort, 0, len);
+        assertEquals(expected.totalHits.value, actualList.matches());
+        assertDocs(expected, len, actualList, false);
+
+        // DocSet only, dense enough to be collected in bit sets
+        DocSet set = searcher.getDocSet(val.getType().getRangeQuery(null, val, "3", "12", true, true));
+        expected = sequential.search(val.getType().getRangeQuery(null, val, "3", "12", true, true), searcher.maxDoc());
+        assertEquals(expected.totalHits.value, set.size());
+        for (ScoreDoc doc : expected.scoreDocs) {
+          assertTrue(set.exists(doc.doc));
+        }
+      }
+    } finally {
+      ref.decref();
+    }
+  }
+
+  private static void assertDocs(TopDocs expected, int len, DocList actual, boolean scores) {
+    assertEquals(len == 0 ? 0 : expected.scoreDocs.length, actual.size());
+    DocIterator it = actual.iterator();
+    for (int i = 0; i < actual.size(); i++) {
+      assertEquals(expected.scoreDocs[i].doc, it.nextDoc());
+      if (scores) {
+        assertEquals(expected.scoreDocs[i].score, it.score(), 0f);
+      }
+    }
+  }
+}
@@ -0,0 +1,223 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.solr.search;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.DocIdSetIterator;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.util.BitSetIterator;
+import org.apache.lucene.util.FixedBitSet;
+import org.apache.solr.SolrTestCaseJ4;
+import org.apache.solr.index.NoMergePolicyFactory;
+import org.apache.solr.util.RefCounted;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class TestSegmentFilterCache extends SolrTestCaseJ4 {
+
+  @BeforeClass
+  public static void beforeClass() throws Exception {
+    // we need a predictable segmentation: one segment per commit
+    systemSetPropertySolrTestsMergePolicyFactory(NoMergePolicyFactory.class.getName());
+    System.setProperty("solr.tests.maxBufferedDocs", "1000");
+    System.setProperty("solr.tests.ramBufferSizeMB", "5000");
+    System.setProperty("solr.filterCache.class", SegmentFilterCache.class.getName());
+    initCore("solrconfig.xml", "schema.xml");
+  }
+
+  @AfterClass
+  public static void afterClass() {
+    systemClearPropertySolrTestsMergePolicyFactory();
+    System.clearProperty("solr.tests.maxBufferedDocs");
+    System.clearProperty("solr.tests.ramBufferSizeMB");
+    System.clearProperty("solr.filterCache.class");
+  }
+
+  @Test
+  public void testSegmentsSurviveReopen() throws Exception {
+    clearIndex();
+    assertU(commit());
+    for (int i = 0; i < 20; i++) {
+      assertU(adoc("id", Integer.toString(i), "cat_s", i % 2 == 0 ? "even" : "odd"));
+      if (i == 9) {
+        assertU(commit());
+      }
+    }
+    assertU(commit());
+
+    Query even = new TermQuery(new Term("cat_s", "even"));
+    RefCounted<SolrIndexSearcher> ref = h.getCore().getSearcher();
+    try {
+      SolrIndexSearcher searcher = ref.get();
+      assertEquals(2, searcher.getTopReaderContext().leaves().size());
+      assertTrue(searcher.getFilterCache() instanceof SegmentFilterCache);
+      assertEquals(10, searcher.getDocSet(even).size());
+      SegmentFilterCache cache = (SegmentFilterCache) searcher.getFilterCache();
+      assertTrue(cache.offHeapBytesUsed() > 0);
+      assertTrue(SegmentFilterCache.DIRECT_MEMORY_BUDGET.reservedBytes() >= cache.offHeapBytesUsed());
+    } finally {
+      ref.decref();
+    }
+
+    // a new segment, and a delete in an existing one
+    assertU(adoc("id", "20", "cat_s", "even"));
+    assertU(delI("0"));
+    assertU(commit());
+
+    ref = h.getCore().getSearcher();
+    try {
+      SolrIndexSearcher searcher = ref.get();
+      assertEquals(3, searcher.getTopReaderContext().leaves().size());
+      SegmentFilterCache cache = (SegmentFilterCache) searcher.getFilterCache();
+      Map<String,Object> stats = cache.getMetricsMap().getValue();
+      // the query was autowarmed: two segments were reused, only the new one was searched
+      assertEquals(2L, stats.get("segmentHits"));
+      assertEquals(1L, stats.get("segmentMisses"));
+      // the top-level set is assembled lazily
+      assertEquals(0, cache.size());
+
+      DocSet docs = searcher.getDocSet(even);
+      assertEquals(10, docs.size());
+      assertTrue(docs.exists(searcher.getFirstMatch(new Term("id", "20"))));
+      stats = cache.getMetricsMap().getValue();
+      assertEquals(5L, stats.get("segmentHits"));
+      assertEquals(1L, stats.get("segmentMisses"));
+      assertEquals(1L, stats.get("hits"));
+    } finally {
+      ref.decref();
+    }
+
+    assertQ(req("q", "*:*", "fq", "cat_s:even"), "//result[@numFound='10']");
+    assertQ(req("q", "id:0", "fq", "cat_s:even"), "//result[@numFound='0']");
+  }
+
+  @Test
+  public void testLazyLookup() throws Exception {
+    clearIndex();
+    assertU(commit());
+    for (int i = 0; i < 20; i++) {
+      assertU(adoc("id", Integer.toString(i), "cat_s", i % 3 == 0 ? "a" : "b"));
+      if (i == 9) {
+        assertU(commit());
+      }
+    }
+    assertU(commit());
+
+    Map<String,String> args = new HashMap<>();
+    args.put("name", "filterCache");
+    args.put(SolrCache.SIZE_PARAM, "10");
+    args.put(SegmentFilterCache.OFF_HEAP_PARAM, Boolean.toString(random().nextBoolean()));
+    Query a = new TermQuery(new Term("cat_s", "a"));
+
+    SegmentFilterCache cache = new SegmentFilterCache();
+    Object persistence = cache.init(args, null, null);
+    RefCounted<SolrIndexSearcher> ref = h.getCore().getSearcher();
+    try {
+      SolrIndexSearcher searcher = ref.get();
+      cache.setSearcher(searcher);
+      // nothing cached for any segment: a miss
+      assertNull(cache.get(a));
+      cache.put(a, DocSetUtil.createDocSetGeneric(searcher, a));
+      assertEquals(1, cache.size());
+    } finally {
+      ref.decref();
+    }
+
+    assertU(adoc("id", "20", "cat_s", "a"));
+    assertU(delI("3"));
+    assertU(commit());
+
+    // a new cache sharing the segment entries, as the cache of the next searcher would
+    SegmentFilterCache next = new SegmentFilterCache();
+    assertSame(persistence, next.init(args, persistence, null));
+    ref = h.getCore().getSearcher();
+    try {
+      SolrIndexSearcher searcher = ref.get();
+      next.setSearcher(searcher);
+      DocSet docs = next.get(a);
+      assertNotNull(docs);
+      assertTrue(DocSetUtil.equals(DocSetUtil.createDocSetGeneric(searcher, a), docs));
+      assertEquals(1, next.size());
+      assertSame(docs, next.get(a));
+    } finally {
+      ref.decref();
+    }
+    cache.close();
+    next.close();
+  }
+
+  @Test
+  public void testMaxDirectMemory() {
+    assertEquals(512L << 20, SegmentFilterCache.parseSize("512m"));
+    assertEquals(2L << 30, SegmentFilterCache.parseSize("2G"));
+    assertEquals(1048576L, SegmentFilterCache.parseSize("1048576"));
+    expectThrows(NumberFormatException.class, () -> SegmentFilterCache.parseSize(""));
+    assertTrue(SegmentFilterCache.maxDirectMemory() > 0);
+  }
+
+  @Test
+  public void testDirectMemoryBudget() {
+    SegmentFilterCache.DirectMemoryBudget budget = new SegmentFilterCache.DirectMemoryBudget(100);
+    assertTrue(budget.tryReserve(60));
+    assertFalse(budget.tryReserve(50));
+    assertEquals(60, budget.reservedBytes());
+    budget.release(60);
+    assertTrue(budget.tryReserve(50));
+    assertEquals(50, budget.reservedBytes());
+  }
+
+  @Test
+  public void testSegmentBitSet() throws Exception {
+    int numBits = 1 + random().nextInt(10000);
+    FixedBitSet expected = new FixedBitSet(numBits);
+    for (int i = 0; i < numBits / 3; i++) {
+      expected.set(random().nextInt(numBits));
+    }
+    FixedBitSet liveDocs = new FixedBitSet(numBits);
+    for (int i = 0; i < numBits; i++) {
+      if (random().nextInt(10) != 0) liveDocs.set(i);
+    }
+
+    SegmentBitSet bits = SegmentBitSet.copyOf(new BitSetIterator(expected, 0L), numBits, random().nextBoolean());
+    assertEquals(expected.cardinality(), bits.cardinality());
+    for (int i = 0; i < numBits; i++) {
+      assertEquals(expected.get(i), bits.get(i));
+    }
+
+    int docBase = random().nextInt(100);
+    FixedBitSet target = new FixedBitSet(docBase + numBits);
+    int count = bits.orInto(target, docBase, liveDocs);
+    DocIdSetIterator it = bits.iterator(liveDocs);
+    int expectedCount = 0;
+    for (int doc = expected.nextSetBit(0); doc != DocIdSetIterator.NO_MORE_DOCS;
+         doc = doc + 1 < numBits ? expected.nextSetBit(doc + 1) : DocIdSetIterator.NO_MORE_DOCS) {
+      if (liveDocs.get(doc)) {
+        assertTrue(target.get(docBase + doc));
+        assertEquals(doc, it.nextDoc());
+        expectedCount++;
+      }
+    }
+    assertEquals(DocIdSetIterator.NO_MORE_DOCS, it.nextDoc());
+    assertEquals(expectedCount, count);
+    assertEquals(expectedCount, target.cardinality());
+  }
+}
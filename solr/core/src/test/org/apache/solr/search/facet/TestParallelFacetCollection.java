@@ -0,0 +1,125 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.solr.search.facet;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import org.apache.solr.SolrTestCaseJ4;
+import org.apache.solr.common.util.Utils;
+import org.apache.solr.index.NoMergePolicyFactory;
+import org.apache.solr.search.SolrIndexSearcher;
+import org.apache.solr.util.RefCounted;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ * Compares terms facets collected in parallel over slices of segments by the "dv" method with the same facets
+ * computed sequentially by the "enum" method.
+ */
+public class TestParallelFacetCollection extends SolrTestCaseJ4 {
+
+  @BeforeClass
+  public static void beforeClass() throws Exception {
+    // one segment per commit
+    systemSetPropertySolrTestsMergePolicyFactory(NoMergePolicyFactory.class.getName());
+    System.setProperty("solr.tests.maxBufferedDocs", "1000");
+    System.setProperty("solr.tests.ramBufferSizeMB", "5000");
+    System.setProperty("solr.tests.searchThreads", "3");
+    System.setProperty("solr.parallelSearchMinDocsPerSlice", "1");
+    initCore("solrconfig.xml", "schema.xml");
+  }
+
+  @AfterClass
+  public static void afterClass() {
+    systemClearPropertySolrTestsMergePolicyFactory();
+    System.clearProperty("solr.tests.maxBufferedDocs");
+    System.clearProperty("solr.tests.ramBufferSizeMB");
+    System.clearProperty("solr.tests.searchThreads");
+    System.clearProperty("solr.parallelSearchMinDocsPerSlice");
+  }
+
+  @SuppressWarnings({"unchecked"})
+  private Map<String, Object> facets(String q, String facet, String method) throws Exception {
+    String json = h.query(req("q", q, "rows", "0", "wt", "json",
+        "json.facet", "{f:" + String.format(Locale.ROOT, facet, method) + "}"));
+    return (Map<String, Object>) ((Map<String, Object>) Utils.fromJSONString(json)).get("facets");
+  }
+
+  private void index() {
+    clearIndex();
+    int id = 0;
+    int numSegments = 4 + random().nextInt(4);
+    for (int segment = 0; segment < numSegments; segment++) {
+      int numDocs = 1 + random().nextInt(40);
+      for (int i = 0; i < numDocs; i++) {
+        if (random().nextInt(10) == 0) {
+          // no values
+          assertU(adoc("id", Integer.toString(id++)));
+          continue;
+        }
+        // small integral values, so that sums don't depend on the order of addition
+        assertU(adoc("id", Integer.toString(id++),
+            "cat_s", "cat" + random().nextInt(8),
+            "cat2_s_dvo", "val" + random().nextInt(30),
+            "val_i_dvo", Integer.toString(random().nextInt(100) - 50),
+            "val_d_dvo", Integer.toString(random().nextInt(100))));
+      }
+      assertU(commit());
+    }
+  }
+
+  @Test
+  @SuppressWarnings({"unchecked"})
+  public void testSameFacetsAsSequentialCollection() throws Exception {
+    index();
+    RefCounted<SolrIndexSearcher> ref = h.getCore().getSearcher();
+    try {
+      assertNotNull(ref.get().getSearchSlices());
+    } finally {
+      ref.decref();
+    }
+
+    String stats = "{ids:'unique(id)', sum:'sum(val_d_dvo)', min:'min(val_i_dvo)', max:'max(val_i_dvo)'," +
+        " minCat:'min(cat2_s_dvo)', maxCat:'max(cat2_s_dvo)', uniq:'unique(cat2_s_dvo)', hll:'hll(val_i_dvo)'}";
+    String[] facets = {
+        "{type:terms, field:cat_s, method:%s, limit:-1, sort:'index asc'}",
+        "{type:terms, field:cat_s, method:%s, limit:-1, sort:'index asc', perSeg:true}",
+        "{type:terms, field:cat_s, method:%s, limit:-1, sort:'index asc', facet:" + stats + "}",
+        "{type:terms, field:cat_s, method:%s, limit:-1, sort:'index asc', prefix:cat1, facet:" + stats + "}"
+    };
+
+    for (String facet : facets) {
+      for (String q : new String[] {"*:*", "{!frange l=10 u=60}val_d_dvo"}) {
+        assertEquals(facet + " " + q, facets(q, facet, "enum"), facets(q, facet, "dv"));
+      }
+    }
+
+    // merged digests may differ slightly from a digest of the same values added in order
+    String facet = "{type:terms, field:cat_s, method:%s, limit:-1, sort:'index asc', facet:{median:'percentile(val_d_dvo,50)'}}";
+    List<Map<String, Object>> sequential = (List<Map<String, Object>>) ((Map<String, Object>) facets("*:*", facet, "enum").get("f")).get("buckets");
+    List<Map<String, Object>> parallel = (List<Map<String, Object>>) ((Map<String, Object>) facets("*:*", facet, "dv").get("f")).get("buckets");
+    assertEquals(sequential.size(), parallel.size());
+    for (int i = 0; i < sequential.size(); i++) {
+      assertEquals(sequential.get(i).get("val"), parallel.get(i).get("val"));
+      assertEquals(((Number) sequential.get(i).get("median")).doubleValue(),
+          ((Number) parallel.get(i).get("median")).doubleValue(), 2.0);
+    }
+  }
+}
@@ -0,0 +1,126 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.solr.servlet;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import org.apache.solr.client.solrj.SolrQuery;
+import org.apache.solr.client.solrj.request.CollectionAdminRequest;
+import org.apache.solr.client.solrj.request.UpdateRequest;
+import org.apache.solr.client.solrj.response.FacetField;
+import org.apache.solr.client.solrj.response.QueryResponse;
+import org.apache.solr.cloud.SolrCloudTestCase;
+import org.apache.solr.common.SolrDocumentList;
+import org.apache.solr.common.SolrException;
+import org.apache.solr.common.SolrInputDocument;
+import org.apache.solr.common.util.ExecutorUtil;
+import org.apache.solr.common.util.SolrNamedThreadFactory;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ * Distributed searches with the async dispatch of {@link SolrDispatchFilter}, which suspends their requests while
+ * they wait for the shards
+ */
+public class AsyncDispatchTest extends SolrCloudTestCase {
+  private static final String COLLECTION = "async_dispatch";
+  private static final int NUM_DOCS = 100;
+
+  @BeforeClass
+  public static void setupCluster() throws Exception {
+    System.setProperty(SolrDispatchFilter.ASYNC_DISPATCH_PROP, "true");
+    configureCluster(2)
+        .addConfig("config", TEST_PATH().resolve("configsets").resolve("cloud-minimal").resolve("conf"))
+        .configure();
+
+    CollectionAdminRequest.createCollection(COLLECTION, "config", 3, 1)
+        .process(cluster.getSolrClient());
+    cluster.waitForActiveCollection(COLLECTION, 3, 3);
+
+    UpdateRequest update = new UpdateRequest();
+    for (int i = 0; i < NUM_DOCS; i++) {
+      SolrInputDocument doc = new SolrInputDocument();
+      doc.addField("id", String.format(Locale.ROOT, "%03d", i));
+      doc.addField("cat_s", "cat" + (i % 7));
+      update.add(doc);
+    }
+    update.commit(cluster.getSolrClient(), COLLECTION);
+  }
+
+  @AfterClass
+  public static void clearProperty() {
+    System.clearProperty(SolrDispatchFilter.ASYNC_DISPATCH_PROP);
+  }
+
+  @Test
+  public void testDistributedSearch() throws Exception {
+    assertTrue(cluster.getJettySolrRunner(0).getSolrDispatchFilter().isAsyncDispatch());
+
+    SolrQuery query = new SolrQuery("*:*");
+    query.setRows(10);
+    query.setStart(5);
+    query.setSort("id", SolrQuery.ORDER.asc);
+    query.setFacet(true);
+    query.addFacetField("cat_s");
+    query.setFacetLimit(3);
+    QueryResponse rsp = cluster.getSolrClient().query(COLLECTION, query);
+
+    SolrDocumentList docs = rsp.getResults();
+    assertEquals(NUM_DOCS, docs.getNumFound());
+    assertEquals(10, docs.size());
+    for (int i = 0; i < docs.size(); i++) {
+      assertEquals(String.format(Locale.ROOT, "%03d", i + 5), docs.get(i).getFieldValue("id"));
+    }
+    FacetField facet = rsp.getFacetField("cat_s");
+    assertEquals(3, facet.getValueCount());
+    assertEquals("cat0", facet.getValues().get(0).getName());
+    assertEquals(15, facet.getValues().get(0).getCount());
+  }
+
+  @Test
+  public void testConcurrentSearches() throws Exception {
+    ExecutorService executor = ExecutorUtil.newMDCAwareCachedThreadPool(new SolrNamedThreadFactory("asyncDispatchTest"));
+    try {
+      List<Future<Long>> futures = new ArrayList<>();
+      for (int i = 0; i < 50; i++) {
+        final String cat = "cat" + (i % 7);
+        futures.add(executor.submit(() -> cluster.getSolrClient()
+            .query(COLLECTION, new SolrQuery("cat_s:" + cat)).getResults().getNumFound()));
+      }
+      for (int i = 0; i < futures.size(); i++) {
+        assertEquals(i % 7 == 0 ? 15 : 14, futures.get(i).get().longValue());
+      }
+    } finally {
+      ExecutorUtil.shutdownAndAwaitTermination(executor);
+    }
+  }
+
+  @Test
+  public void testErrors() throws Exception {
+    SolrException e = expectThrows(SolrException.class, () ->
+        cluster.getSolrClient().query(COLLECTION, new SolrQuery("id:[1 TO")));
+    assertEquals(SolrException.ErrorCode.BAD_REQUEST.code, e.code());
+
+    // the nodes still answer after the error
+    assertEquals(NUM_DOCS, cluster.getSolrClient().query(COLLECTION, new SolrQuery("*:*")).getResults().getNumFound());
+  }
+}
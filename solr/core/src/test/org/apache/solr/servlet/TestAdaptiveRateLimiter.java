@@ -0,0 +1,124 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.solr.servlet;
+
+import javax.servlet.http.HttpServletRequest;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.solr.SolrTestCase;
+import org.apache.solr.client.solrj.SolrRequest;
+import org.apache.solr.core.RateLimiterConfig;
+import org.junit.Test;
+
+import static org.apache.solr.servlet.RateLimitManager.DEFAULT_SLOT_ACQUISITION_TIMEOUT_MS;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class TestAdaptiveRateLimiter extends SolrTestCase {
+
+  /** runs a window of requests that take the given latency, returning how many got a slot */
+  private static int runWindow(AdaptiveConcurrencyLimit limit, int requests, long latencyMs) throws Exception {
+    int acquired = 0;
+    while (acquired < requests && limit.tryAcquire(0)) {
+      acquired++;
+    }
+    for (int i = 0; i < acquired; i++) {
+      limit.release(TimeUnit.MILLISECONDS.toNanos(latencyMs));
+    }
+    return acquired;
+  }
+
+  @Test
+  public void testLimitFollowsLatency() throws Exception {
+    AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(2, 20, 0);
+    assertEquals(20, limit.getLimit());
+
+    for (int i = 0; i < 5; i++) {
+      assertEquals(AdaptiveConcurrencyLimit.MIN_WINDOW_SAMPLES, runWindow(limit, AdaptiveConcurrencyLimit.MIN_WINDOW_SAMPLES, 1));
+    }
+    assertEquals(20, limit.getLimit());
+
+    // the latency rises, e.g. because the requests queue up
+    for (int i = 0; i < 10; i++) {
+      runWindow(limit, 20, 20);
+    }
+    int reduced = limit.getLimit();
+    assertTrue("limit: " + reduced, reduced < 15);
+    assertEquals(reduced, runWindow(limit, 20, 20));
+    assertEquals(0, limit.getInFlight());
+
+    // the latency is back to normal
+    for (int i = 0; i < 40; i++) {
+      runWindow(limit, 20, 1);
+    }
+    assertEquals(20, limit.getLimit());
+  }
+
+  @Test
+  public void testWaitForSlot() throws Exception {
+    AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(1, 1);
+    assertTrue(limit.tryAcquire(0));
+    assertFalse(limit.tryAcquire(0));
+    assertFalse(limit.tryAcquire(10));
+
+    Thread releaser = new Thread(() -> limit.release(1));
+    releaser.start();
+    assertTrue(limit.tryAcquire(TimeUnit.SECONDS.toMillis(30)));
+    releaser.join();
+  }
+
+  @Test
+  public void testLimitsByCollection() throws Exception {
+    RateLimiterConfig config = new RateLimiterConfig(SolrRequest.SolrRequestType.QUERY,
+        true, 1, DEFAULT_SLOT_ACQUISITION_TIMEOUT_MS, 2 /* allowedRequests */, true /* isSlotBorrowing */);
+    config.isAdaptive = true;
+    config.minAllowedRequests = 1;
+    RequestRateLimiter rateLimiter = new RequestRateLimiter(config);
+
+    RequestRateLimiter.SlotMetadata first = rateLimiter.handleRequest("c1");
+    RequestRateLimiter.SlotMetadata second = rateLimiter.handleRequest("c1");
+    assertNotNull(first);
+    assertNotNull(second);
+    assertNull(rateLimiter.handleRequest("c1"));
+    // other collections have their own limit
+    assertNotNull(rateLimiter.handleRequest("c2"));
+    assertNotNull(rateLimiter.handleRequest(null));
+    // and there are no fixed slots to borrow
+    assertFalse(rateLimiter.allowSlotBorrowing().isReleasable());
+
+    assertEquals(2, rateLimiter.getAdaptiveLimits().get("c1").getInFlight());
+    first.decrementRequest();
+    assertEquals(1, rateLimiter.getAdaptiveLimits().get("c1").getInFlight());
+    assertNotNull(rateLimiter.handleRequest("c1"));
+  }
+
+  @Test
+  public void testCollection() {
+    assertEquals("collection1", RateLimitManager.getCollection(request("/collection1/select", null)));
+    assertEquals("collection1", RateLimitManager.getCollection(request("/collection1", "/update/json")));
+    assertEquals("collection1", RateLimitManager.getCollection(request("/____v2", "/c/collection1/select")));
+    assertNull(RateLimitManager.getCollection(request("/admin/info/system", null)));
+    assertNull(RateLimitManager.getCollection(request("/collection1", null)));
+  }
+
+  private static HttpServletRequest request(String servletPath, String pathInfo) {
+    HttpServletRequest request = mock(HttpServletRequest.class);
+    when(request.getServletPath()).thenReturn(servletPath);
+    when(request.getPathInfo()).thenReturn(pathInfo);
+    return request;
+  }
+}
@@ -0,0 +1,105 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.solr.update;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.lucene.util.BytesRef;
+import org.apache.solr.SolrTestCase;
+import org.junit.Test;
+
+public class LogPtrMapTest extends SolrTestCase {
+
+  @Test
+  public void testAgainstHashMap() {
+    LogPtrMap map = new LogPtrMap();
+    Map<BytesRef,UpdateLog.LogPtr> expected = new HashMap<>();
+    int numIds = atLeast(1000);
+    for (int i = 0; i < numIds * 3; i++) {
+      BytesRef id = new BytesRef(Integer.toString(random().nextInt(numIds)));
+      UpdateLog.LogPtr ptr = new UpdateLog.LogPtr(random().nextLong(), random().nextLong(), random().nextLong());
+      map.put(id, ptr);
+      expected.put(id, ptr);
+    }
+    assertEquals(expected.size(), map.size());
+    for (Map.Entry<BytesRef,UpdateLog.LogPtr> entry : expected.entrySet()) {
+      assertPtrEquals(entry.getValue(), map.get(entry.getKey()));
+    }
+    assertNull(map.get(new BytesRef("missing")));
+
+    long ramBytesUsed = map.ramBytesUsed();
+    map.clear();
+    assertEquals(0, map.size());
+    assertTrue(map.ramBytesUsed() < ramBytesUsed);
+    for (BytesRef id : expected.keySet()) {
+      assertNull(map.get(id));
+    }
+  }
+
+  @Test
+  public void testIdIsCopied() {
+    LogPtrMap map = new LogPtrMap();
+    byte[] bytes = new byte[] {0, 'a', 'b', 0};
+    BytesRef id = new BytesRef(bytes, 1, 2);
+    map.put(id, 1L, 2L, -1L);
+    bytes[1] = 'c';
+    assertNull(map.get(id));
+    UpdateLog.LogPtr ptr = map.get(new BytesRef("ab"));
+    assertNotNull(ptr);
+    assertEquals(1L, ptr.pointer);
+    assertEquals(2L, ptr.version);
+    assertEquals(-1L, ptr.previousPointer);
+  }
+
+  @Test
+  public void testMaxSize() {
+    int maxSize = 10 + random().nextInt(100);
+    LogPtrMap map = new LogPtrMap(maxSize);
+    List<BytesRef> ids = new ArrayList<>();
+    int numIds = maxSize * (2 + random().nextInt(5)) + 1 + random().nextInt(maxSize);
+    for (int i = 0; i < numIds; i++) {
+      BytesRef id = new BytesRef("id" + i);
+      ids.add(id);
+      map.put(id, i, i, -1L);
+    }
+    assertTrue(map.size() >= maxSize);
+    assertTrue(map.size() <= 2 * maxSize);
+    // the last maxSize ids are always kept
+    for (int i = numIds - maxSize; i < numIds; i++) {
+      assertEquals(i, map.get(ids.get(i)).version);
+    }
+    assertNull(map.get(ids.get(0)));
+
+    // an id of the previous generation that is put again shadows its previous entry
+    BytesRef last = ids.get(numIds - 1);
+    for (int i = 0; i < maxSize; i++) {
+      map.put(new BytesRef("new" + i), 0L, 0L, -1L);
+    }
+    map.put(last, 42L, 42L, -1L);
+    assertEquals(42L, map.get(last).version);
+  }
+
+  private static void assertPtrEquals(UpdateLog.LogPtr expected, UpdateLog.LogPtr actual) {
+    assertNotNull(actual);
+    assertEquals(expected.pointer, actual.pointer);
+    assertEquals(expected.version, actual.version);
+    assertEquals(expected.previousPointer, actual.previousPointer);
+  }
+}
@@ -0,0 +1,100 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.solr.update;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import org.apache.solr.SolrTestCase;
+import org.apache.solr.common.SolrException;
+import org.apache.solr.common.util.ExecutorUtil;
+import org.apache.solr.common.util.SolrNamedThreadFactory;
+import org.junit.Test;
+
+public class OptimisticVersionBucketTest extends SolrTestCase {
+
+  @Test
+  public void testHighest() {
+    OptimisticVersionBucket bucket = new OptimisticVersionBucket(new VersionInfo.LockStats());
+    // unknown until seeded
+    bucket.updateHighest(10);
+    assertEquals(0, bucket.highest);
+    bucket.seedHighest(5);
+    assertEquals(5, bucket.highest);
+    bucket.updateHighest(-20);
+    assertEquals(20, bucket.highest);
+    bucket.updateHighest(15);
+    assertEquals(20, bucket.highest);
+    bucket.seedHighest(10);
+    assertEquals(20, bucket.highest);
+  }
+
+  @Test
+  public void testContention() throws Exception {
+    VersionInfo.LockStats stats = new VersionInfo.LockStats();
+    OptimisticVersionBucket bucket = new OptimisticVersionBucket(stats);
+
+    // uncontended
+    assertEquals("ok", bucket.runWithLock(0, () -> {
+      try {
+        return "ok";
+      } finally {
+        bucket.unlock();
+      }
+    }));
+    assertEquals(0, stats.getBucketContentions());
+
+    CountDownLatch locked = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    ExecutorService executor = ExecutorUtil.newMDCAwareSingleThreadExecutor(new SolrNamedThreadFactory("testContention"));
+    try {
+      Future<Object> holder = executor.submit(() -> bucket.runWithLock(0, () -> {
+        try {
+          locked.countDown();
+          release.await();
+          return null;
+        } catch (InterruptedException e) {
+          throw new RuntimeException(e);
+        } finally {
+          bucket.unlock();
+        }
+      }));
+      locked.await();
+
+      expectThrows(SolrException.class, () -> bucket.runWithLock(10, () -> {
+        bucket.unlock();
+        return null;
+      }));
+      assertEquals(1, stats.getBucketContentions());
+
+      release.countDown();
+      holder.get();
+    } finally {
+      ExecutorUtil.shutdownAndAwaitTermination(executor);
+    }
+
+    assertEquals("ok", bucket.runWithLock(10, () -> {
+      try {
+        return "ok";
+      } finally {
+        bucket.unlock();
+      }
+    }));
+    assertEquals(1, stats.getBucketContentions());
+  }
+}
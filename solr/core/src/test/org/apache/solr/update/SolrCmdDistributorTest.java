@@ -22,6 +22,7 @@ import java.io.IOException;
 import java.net.SocketException;
 import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.concurrent.CountDownLatch;
@@ -359,6 +360,7 @@ public class SolrCmdDistributorTest extends BaseDistributedSearchTestCase {
     testDeletes(false, false);
     testDeletes(true, true);
     testDeletes(true, false);
+    testBatches();
     getRfFromResponseShouldNotCloseTheInputStream();
     testStuckUpdates();
   }
@@ -429,6 +431,50 @@ public class SolrCmdDistributorTest extends BaseDistributedSearchTestCase {
     }
   }
 
+  private void testBatches() throws Exception {
+    List<HttpSolrClient> solrClients = Arrays.asList((HttpSolrClient) controlClient, (HttpSolrClient) clients.get(0));
+    List<Node> nodes = new ArrayList<>();
+    long[] numFoundBefore = new long[solrClients.size()];
+    for (int i = 0; i < solrClients.size(); i++) {
+      HttpSolrClient client = solrClients.get(i);
+      client.commit(true, true);
+      numFoundBefore[i] = client.query(new SolrQuery("*:*")).getResults().getNumFound();
+      ZkNodeProps nodeProps = new ZkNodeProps(ZkStateReader.BASE_URL_PROP, client.getBaseURL(),
+          ZkStateReader.CORE_NAME_PROP, "");
+      nodes.add(new StdNode(new ZkCoreNodeProps(nodeProps)));
+    }
+
+    int numAdds = 30 + random().nextInt(50);
+    int numDeletes = 0;
+    System.setProperty("solr.cloud.replication.batchSize", Integer.toString(2 + random().nextInt(10)));
+    try (SolrCmdDistributor cmdDistrib = new SolrCmdDistributor(updateShardHandler)) {
+      for (int i = 0; i < numAdds; i++) {
+        AddUpdateCommand cmd = new AddUpdateCommand(null);
+        int currentId = id.incrementAndGet();
+        cmd.solrDoc = sdoc("id", currentId);
+        cmdDistrib.distribAdd(cmd, nodes, new ModifiableSolrParams());
+        if (random().nextInt(5) == 0) {
+          DeleteUpdateCommand dcmd = new DeleteUpdateCommand(null);
+          dcmd.setId(String.valueOf(currentId));
+          cmdDistrib.distribDelete(dcmd, nodes, new ModifiableSolrParams());
+          numDeletes++;
+        }
+      }
+      ModifiableSolrParams params = new ModifiableSolrParams();
+      params.set(DistributedUpdateProcessor.COMMIT_END_POINT, true);
+      cmdDistrib.distribCommit(new CommitUpdateCommand(null, false), nodes, params);
+      cmdDistrib.finish();
+      assertEquals(cmdDistrib.getErrors().toString(), 0, cmdDistrib.getErrors().size());
+    } finally {
+      System.clearProperty("solr.cloud.replication.batchSize");
+    }
+
+    for (int i = 0; i < solrClients.size(); i++) {
+      assertEquals(numFoundBefore[i] + numAdds - numDeletes,
+          solrClients.get(i).query(new SolrQuery("*:*")).getResults().getNumFound());
+    }
+  }
+
   private void testMinRfOnRetries(NodeType nodeType) throws Exception {
     final HttpSolrClient solrclient = (HttpSolrClient) clients.get(0);
     final MockStreamingSolrClients streamingClients = new MockStreamingSolrClients(updateShardHandler);
@@ -24,9 +24,14 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Locale;
 import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.apache.solr.SolrTestCase;
 import org.apache.solr.common.SolrInputDocument;
+import org.apache.solr.common.util.ExecutorUtil;
+import org.apache.solr.common.util.SolrNamedThreadFactory;
 import org.apache.solr.update.TransactionLog.LogReader;
 import org.junit.Test;
 
@@ -72,4 +77,114 @@ public class TransactionLogTest extends SolrTestCase {
       assertEquals(uuid, (UUID) doc.getFieldValue("uuid"));
     }
   }
+
+  @Test
+  public void testGroupSync() throws Exception {
+    String tlogFileName = String.format(Locale.ROOT, UpdateLog.LOG_FILENAME_PATTERN, UpdateLog.TLOG_NAME,
+        Long.MAX_VALUE);
+    Path path = createTempDir();
+    File logFile = new File(path.toFile(), tlogFileName);
+    int numThreads = 2 + random().nextInt(6);
+    int numDocsPerThread = atLeast(20);
+    long maxDelayMs = random().nextInt(3);
+    AtomicLong synced = new AtomicLong();
+    AtomicLong numSyncs = new AtomicLong();
+    TransactionLog.SyncListener listener = (batchSize, elapsedNanos) -> {
+      assertTrue(batchSize > 0);
+      synced.addAndGet(batchSize);
+      numSyncs.incrementAndGet();
+    };
+
+    try (TransactionLog tlog = new TransactionLog(logFile, new ArrayList<>())) {
+      tlog.deleteOnClose = false;
+      ExecutorService executor = ExecutorUtil.newMDCAwareFixedThreadPool(numThreads,
+          new SolrNamedThreadFactory("testGroupSync"));
+      try {
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < numThreads; t++) {
+          int thread = t;
+          futures.add(executor.submit(() -> {
+            for (int i = 0; i < numDocsPerThread; i++) {
+              AddUpdateCommand updateCommand = new AddUpdateCommand(null);
+              updateCommand.solrDoc = new SolrInputDocument();
+              updateCommand.solrDoc.addField("id", thread + "_" + i);
+              tlog.write(updateCommand);
+              tlog.groupSync(maxDelayMs, listener);
+            }
+          }));
+        }
+        for (Future<?> future : futures) {
+          future.get();
+        }
+      } finally {
+        ExecutorUtil.shutdownAndAwaitTermination(executor);
+      }
+      // every call was covered by exactly one fsync
+      assertEquals(numThreads * numDocsPerThread, synced.get());
+      assertTrue(numSyncs.get() <= synced.get());
+    }
+
+    try (TransactionLog tlog = new TransactionLog(logFile, new ArrayList<>(), true)) {
+      LogReader reader = tlog.getReader(0);
+      int numEntries = 0;
+      while (reader.next() != null) {
+        numEntries++;
+      }
+      reader.close();
+      assertEquals(numThreads * numDocsPerThread, numEntries);
+    }
+  }
+
+  @Test
+  public void testMmapReads() throws Exception {
+    assumeTrue(TransactionLog.Mapping.UNMAP_NOT_SUPPORTED_REASON, TransactionLog.Mapping.UNMAP_SUPPORTED);
+    String tlogFileName = String.format(Locale.ROOT, UpdateLog.LOG_FILENAME_PATTERN, UpdateLog.TLOG_NAME,
+        Long.MAX_VALUE);
+    Path path = createTempDir();
+    File logFile = new File(path.toFile(), tlogFileName);
+    try (TransactionLog tlog = new TransactionLog(logFile, new ArrayList<>())) {
+      tlog.enableMmapReads();
+      List<Long> positions = new ArrayList<>();
+      String text = "x".repeat(1000);
+      // written in two steps, so that the second part is only mapped once the mapping is extended
+      int numDocs = 0;
+      for (int step = 0; step < 2; step++) {
+        long size = tlog.getLogSizeFromStream() + TransactionLog.Mapping.EXTEND_THRESHOLD + random().nextInt(10000);
+        while (tlog.getLogSizeFromStream() < size) {
+          AddUpdateCommand updateCommand = new AddUpdateCommand(null);
+          updateCommand.solrDoc = new SolrInputDocument();
+          updateCommand.solrDoc.addField("id", Integer.toString(numDocs++));
+          updateCommand.solrDoc.addField("text", text);
+          positions.add(tlog.write(updateCommand));
+        }
+
+        LogReader reader = tlog.getReader(0);
+        for (int i = 0; i < numDocs; i++) {
+          assertDoc(i, reader.next());
+        }
+        assertNull(reader.next());
+        reader.close();
+      }
+      assertTrue(tlog.mapping.length() > 0);
+
+      for (int i = 0; i < 100; i++) {
+        int doc = random().nextInt(numDocs);
+        assertDoc(doc, tlog.lookup(positions.get(doc)));
+      }
+
+      TransactionLog.ReverseReader reverseReader = tlog.getReverseReader();
+      for (int i = numDocs - 1; i >= 0; i--) {
+        assertNotNull(reverseReader.next());
+        assertEquals((long) positions.get(i), reverseReader.position());
+      }
+      assertNull(reverseReader.next());
+      reverseReader.close();
+    }
+  }
+
+  private static void assertDoc(int id, Object entry) {
+    assertNotNull(entry);
+    SolrInputDocument doc = (SolrInputDocument) ((List<?>) entry).get(((List<?>) entry).size() - 1);
+    assertEquals(Integer.toString(id), doc.getFieldValue("id"));
+  }
 }
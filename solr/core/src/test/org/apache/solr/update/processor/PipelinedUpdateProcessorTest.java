@@ -0,0 +1,174 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.solr.update.processor;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+
+import org.apache.solr.SolrTestCaseJ4;
+import org.apache.solr.common.SolrException;
+import org.apache.solr.common.params.UpdateParams;
+import org.apache.solr.common.util.ExecutorUtil;
+import org.apache.solr.common.util.SolrNamedThreadFactory;
+import org.apache.solr.request.SolrQueryRequest;
+import org.apache.solr.request.SolrRequestInfo;
+import org.apache.solr.response.SolrQueryResponse;
+import org.apache.solr.update.AddUpdateCommand;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class PipelinedUpdateProcessorTest extends SolrTestCaseJ4 {
+
+  @BeforeClass
+  public static void beforeClass() throws Exception {
+    initCore("solrconfig.xml", "schema15.xml");
+  }
+
+  @Test
+  public void testUpdatesOfSameDocumentInOrder() throws Exception {
+    clearIndex();
+    int numIds = 20 + random().nextInt(20);
+    boolean[] exists = new boolean[numIds];
+    int[] values = new int[numIds];
+
+    StringBuilder json = new StringBuilder("{");
+    for (int i = 0; i < numIds; i++) {
+      json.append("\"add\":{\"doc\":{\"id\":\"").append(i).append("\",\"val_i\":0}},");
+      exists[i] = true;
+    }
+    int numOps = 500 + random().nextInt(500);
+    for (int op = 0; op < numOps; op++) {
+      int id = random().nextInt(numIds);
+      int r = random().nextInt(100);
+      if (r < 70) {
+        json.append("\"add\":{\"doc\":{\"id\":\"").append(id).append("\",\"val_i\":{\"inc\":1}}},");
+        values[id] = exists[id] ? values[id] + 1 : 1;
+        exists[id] = true;
+      } else if (r < 85) {
+        json.append("\"add\":{\"doc\":{\"id\":\"").append(id).append("\",\"val_i\":").append(r).append("}},");
+        values[id] = r;
+        exists[id] = true;
+      } else if (r < 98) {
+        json.append("\"delete\":{\"id\":\"").append(id).append("\"},");
+        exists[id] = false;
+      } else {
+        json.append("\"delete\":{\"query\":\"id:").append(id).append("\"},");
+        exists[id] = false;
+      }
+    }
+    json.setLength(json.length() - 1);
+    json.append('}');
+
+    updateJ(json.toString(), params(UpdateParams.PIPELINE_THREADS, Integer.toString(1 + random().nextInt(4)),
+        UpdateParams.PIPELINE_QUEUE_SIZE, Integer.toString(1 + random().nextInt(20)),
+        UpdateParams.COMMIT, "true"));
+
+    for (int i = 0; i < numIds; i++) {
+      if (exists[i]) {
+        assertJQ(req("q", "id:" + i, "fl", "val_i"), "/response/numFound==1", "/response/docs/[0]/val_i==" + values[i]);
+      } else {
+        assertJQ(req("q", "id:" + i), "/response/numFound==0");
+      }
+    }
+  }
+
+  @Test
+  public void testFailure() throws Exception {
+    clearIndex();
+    StringBuilder json = new StringBuilder("[");
+    for (int i = 0; i < 200; i++) {
+      json.append("{\"id\":\"").append(i).append("\",\"val_i\":").append(i == 100 ? "\"NaN\"" : i).append("},");
+    }
+    json.setLength(json.length() - 1);
+    json.append(']');
+
+    SolrException e = expectThrows(SolrException.class, () -> updateJ(json.toString(),
+        params(UpdateParams.PIPELINE_THREADS, "2", UpdateParams.PIPELINE_QUEUE_SIZE, "5")));
+    assertEquals(SolrException.ErrorCode.BAD_REQUEST.code, e.code());
+  }
+
+  @Test
+  public void testSupportedChains() throws Exception {
+    try (SolrQueryRequest req = req()) {
+      assertTrue(PipelinedUpdateProcessor.isSupported(h.getCore().getUpdateProcessingChain(null), req));
+      UpdateRequestProcessorChain tolerant = new UpdateRequestProcessorChain(
+          Arrays.asList(new TolerantUpdateProcessorFactory(), new RunUpdateProcessorFactory()), h.getCore());
+      assertFalse(PipelinedUpdateProcessor.isSupported(tolerant, req));
+    }
+  }
+
+  @Test
+  public void testRequestInfoAndMergedResponse() throws Exception {
+    Set<Date> nows = ConcurrentHashMap.newKeySet();
+    Set<String> threads = ConcurrentHashMap.newKeySet();
+    UpdateRequestProcessorFactory counting = new UpdateRequestProcessorFactory() {
+      @Override
+      public UpdateRequestProcessor getInstance(SolrQueryRequest req, SolrQueryResponse rsp, UpdateRequestProcessor next) {
+        return new UpdateRequestProcessor(next) {
+          int adds;
+
+          @Override
+          public void processAdd(AddUpdateCommand cmd) throws IOException {
+            nows.add(SolrRequestInfo.getRequestInfo().getNOW());
+            threads.add(Thread.currentThread().getName());
+            adds++;
+          }
+
+          @Override
+          public void finish() throws IOException {
+            rsp.add("adds", adds);
+          }
+        };
+      }
+    };
+    UpdateRequestProcessorChain chain = new UpdateRequestProcessorChain(Collections.singletonList(counting), h.getCore());
+    ExecutorService executor = ExecutorUtil.newMDCAwareFixedThreadPool(3, new SolrNamedThreadFactory("testPipeline"));
+    SolrQueryRequest req = req();
+    SolrQueryResponse rsp = new SolrQueryResponse();
+    Date requestNow = new Date(1000L);
+    SolrRequestInfo.setRequestInfo(new SolrRequestInfo(req, rsp) {
+      {
+        now = requestNow;
+      }
+    });
+    try {
+      PipelinedUpdateProcessor processor = new PipelinedUpdateProcessor(chain, req, rsp, executor, 3, 5);
+      int numDocs = 50 + random().nextInt(50);
+      for (int i = 0; i < numDocs; i++) {
+        AddUpdateCommand cmd = new AddUpdateCommand(req);
+        cmd.solrDoc = sdoc("id", Integer.toString(i));
+        processor.processAdd(cmd);
+      }
+      processor.finish();
+      processor.close();
+
+      assertEquals(Collections.singleton(requestNow), nows);
+      assertTrue(threads.toString(), threads.size() > 1);
+      assertEquals(rsp.getValues().toString(), 1, rsp.getValues().getAll("adds").size());
+      assertEquals(numDocs, rsp.getValues().get("adds"));
+    } finally {
+      SolrRequestInfo.clearRequestInfo();
+      req.close();
+      ExecutorUtil.shutdownAndAwaitTermination(executor);
+    }
+  }
+}
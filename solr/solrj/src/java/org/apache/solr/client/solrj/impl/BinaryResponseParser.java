@@ -39,6 +39,18 @@ public class BinaryResponseParser extends ResponseParser {
     return this;
   }
 
+  protected boolean lazyFieldValues;
+
+  /**
+   * If true, the string values of the fields of documents are kept as UTF-8 bytes and only decoded when first read
+   * from the document, so that reading a few fields of large documents doesn't pay for decoding the others.
+   * Documents written back to javabin as they are (e.g. merged shard responses) skip decoding altogether.
+   */
+  public BinaryResponseParser setLazyFieldValues(boolean lazy) {
+    this.lazyFieldValues = lazy;
+    return this;
+  }
+
   @Override
   public String getWriterType() {
     return "javabin";
@@ -56,6 +68,9 @@ public class BinaryResponseParser extends ResponseParser {
   }
 
   protected JavaBinCodec createCodec() {
+    if (lazyFieldValues) {
+      return new LazyFieldValuesCodec(stringCache);
+    }
     return new JavaBinCodec(null, stringCache);
   }
 
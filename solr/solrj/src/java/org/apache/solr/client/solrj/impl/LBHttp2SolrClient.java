@@ -72,6 +72,7 @@ import static org.apache.solr.common.params.CommonParams.ADMIN_PATHS;
  */
 public class LBHttp2SolrClient extends LBSolrClient {
   private Http2SolrClient httpClient;
+  private final ServerLatencyTracker latencyTracker = new ServerLatencyTracker();
 
   public LBHttp2SolrClient(Http2SolrClient httpClient, String... baseSolrUrls) {
     super(Arrays.asList(baseSolrUrls));
@@ -82,6 +83,11 @@ public class LBHttp2SolrClient extends LBSolrClient {
     return httpClient;
   }
 
+  /** The response times and outstanding requests of the servers of the async requests */
+  public ServerLatencyTracker getLatencyTracker() {
+    return latencyTracker;
+  }
+
   public Cancellable asyncReq(Req req, AsyncListener<Rsp> asyncListener) {
     Rsp rsp = new Rsp();
     boolean isNonRetryable = req.request instanceof IsUpdateRequest || ADMIN_PATHS.contains(req.request.getPath());
@@ -148,9 +154,15 @@ public class LBHttp2SolrClient extends LBSolrClient {
                          boolean isZombie, RetryListener listener) {
     rsp.server = baseUrl;
     req.getRequest().setBasePath(baseUrl);
-    return ((Http2SolrClient)getClient(baseUrl)).asyncRequest(req.getRequest(), null, new AsyncListener<>() {
+    final long startTime = System.nanoTime();
+    final AtomicBoolean finished = new AtomicBoolean(false);
+    latencyTracker.requestStarted(baseUrl);
+    Cancellable cancellable = ((Http2SolrClient)getClient(baseUrl)).asyncRequest(req.getRequest(), null, new AsyncListener<>() {
       @Override
       public void onSuccess(NamedList<Object> result) {
+        if (finished.compareAndSet(false, true)) {
+          latencyTracker.requestFinished(baseUrl, System.nanoTime() - startTime, true);
+        }
         rsp.rsp = result;
         if (isZombie) {
           zombieServers.remove(baseUrl);
@@ -160,6 +172,9 @@ public class LBHttp2SolrClient extends LBSolrClient {
 
       @Override
       public void onFailure(Throwable oe) {
+        if (finished.compareAndSet(false, true)) {
+          latencyTracker.requestFinished(baseUrl, System.nanoTime() - startTime, false);
+        }
         try {
           throw (Exception) oe;
         } catch (BaseHttpSolrClient.RemoteExecutionException e) {
@@ -202,5 +217,12 @@ public class LBHttp2SolrClient extends LBSolrClient {
         }
       }
     });
+    return () -> {
+      // a cancelled request doesn't call the listener
+      if (finished.compareAndSet(false, true)) {
+        latencyTracker.requestFinished(baseUrl, System.nanoTime() - startTime, false);
+      }
+      cancellable.cancel();
+    };
   }
 }
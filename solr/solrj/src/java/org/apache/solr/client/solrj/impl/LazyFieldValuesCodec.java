@@ -0,0 +1,170 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.solr.client.solrj.impl;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BiConsumer;
+
+import org.apache.solr.common.SolrDocument;
+import org.apache.solr.common.util.DataInputInputStream;
+import org.apache.solr.common.util.JavaBinCodec;
+import org.apache.solr.common.util.NamedList;
+import org.apache.solr.common.util.Utf8CharSequence;
+
+/**
+ * A {@link JavaBinCodec} that keeps the string values of the fields of documents as UTF-8 bytes, which are only
+ * decoded when the value is first read from the document.
+ *
+ * @see BinaryResponseParser#setLazyFieldValues(boolean)
+ */
+class LazyFieldValuesCodec extends JavaBinCodec {
+
+  LazyFieldValuesCodec(StringCache stringCache) {
+    super(null, stringCache);
+  }
+
+  @Override
+  public SolrDocument readSolrDocument(DataInputInputStream dis) throws IOException {
+    boolean readAsCharSeq = readStringAsCharSeq;
+    readStringAsCharSeq = true;
+    try {
+      return super.readSolrDocument(dis);
+    } finally {
+      readStringAsCharSeq = readAsCharSeq;
+    }
+  }
+
+  @Override
+  protected SolrDocument createSolrDocument(int sz) {
+    return new LazySolrDocument(new LazyFieldValues(sz));
+  }
+
+  static class LazySolrDocument extends SolrDocument {
+    LazySolrDocument(LazyFieldValues fields) {
+      super(fields);
+    }
+
+    @Override
+    public void writeMap(EntryWriter ew) throws IOException {
+      // UTF-8 values are written back as is
+      ((LazyFieldValues) _fields).forEachRaw(ew.getBiConsumer());
+    }
+  }
+
+  /** Field values that decode a value (or the values of a multi-valued field) on first access */
+  static class LazyFieldValues extends LinkedHashMap<String, Object> {
+    private boolean decoded; // all values are decoded
+
+    LazyFieldValues(int size) {
+      super(size);
+    }
+
+    @Override
+    public Object get(Object key) {
+      Object val = super.get(key);
+      if (decoded || val == null) {
+        return val;
+      }
+      Object str = decode(val);
+      if (str != val) {
+        super.put((String) key, str); // not a structural modification
+      }
+      return str;
+    }
+
+    @Override
+    public Object getOrDefault(Object key, Object defaultValue) {
+      return containsKey(key) ? get(key) : defaultValue;
+    }
+
+    @Override
+    public Set<Map.Entry<String, Object>> entrySet() {
+      decodeAll();
+      return super.entrySet();
+    }
+
+    @Override
+    public Collection<Object> values() {
+      decodeAll();
+      return super.values();
+    }
+
+    @Override
+    public boolean containsValue(Object value) {
+      decodeAll();
+      return super.containsValue(value);
+    }
+
+    @Override
+    public void forEach(BiConsumer<? super String, ? super Object> action) {
+      decodeAll();
+      super.forEach(action);
+    }
+
+    void forEachRaw(BiConsumer<? super String, ? super Object> action) {
+      super.forEach(action);
+    }
+
+    private void decodeAll() {
+      if (!decoded) {
+        decoded = true;
+        replaceAll((name, val) -> decode(val));
+      }
+    }
+
+    /**
+     * Decodes the value, including the values (and keys) nested in its lists, maps and named lists, which are read
+     * as UTF-8 bytes too. Nested documents decode their own values.
+     */
+    @SuppressWarnings({"unchecked"})
+    static Object decode(Object val) {
+      if (val instanceof Utf8CharSequence) {
+        return val.toString();
+      } else if (val instanceof SolrDocument) {
+        return val;
+      } else if (val instanceof List) {
+        ((List<Object>) val).replaceAll(LazyFieldValues::decode);
+        return val;
+      } else if (val instanceof Collection) {
+        Collection<Object> vals = (Collection<Object>) val;
+        Collection<Object> decoded = val instanceof Set ? new LinkedHashSet<>(vals.size()) : new ArrayList<>(vals.size());
+        for (Object v : vals) {
+          decoded.add(decode(v));
+        }
+        return decoded;
+      } else if (val instanceof NamedList) {
+        NamedList<Object> namedList = (NamedList<Object>) val;
+        for (int i = 0; i < namedList.size(); i++) {
+          namedList.setVal(i, decode(namedList.getVal(i)));
+        }
+        return val;
+      } else if (val instanceof Map) {
+        Map<Object, Object> decoded = new LinkedHashMap<>();
+        ((Map<Object, Object>) val).forEach((k, v) -> decoded.put(decode(k), decode(v)));
+        return decoded;
+      }
+      return val;
+    }
+  }
+}
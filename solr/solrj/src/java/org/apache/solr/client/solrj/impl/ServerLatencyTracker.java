@@ -0,0 +1,174 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.solr.client.solrj.impl;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Tracks the response times and the outstanding requests of the servers a {@link LBHttp2SolrClient} sends requests
+ * to, to prefer the servers that answer the fastest, and to know how long requests usually take.
+ *
+ * Servers are identified by their URL, with or without the scheme and trailing slash, e.g.
+ * <code>http://host:8983/solr/collection1_shard1_replica_n1/</code>.
+ *
+ * @lucene.experimental
+ */
+public class ServerLatencyTracker {
+
+  /** weight of the last response time in the moving average */
+  private static final double ALPHA = 0.3;
+  /** the moving average of an idle server decays by half every this many nanoseconds, so that it's tried again */
+  private static final long HALF_LIFE_NANOS = TimeUnit.SECONDS.toNanos(10);
+  /** number of recent response times the percentiles are computed from */
+  private static final int NUM_SAMPLES = 1024;
+  /** percentiles aren't computed from fewer response times */
+  private static final int MIN_SAMPLES = 20;
+  /** percentiles are recomputed at most this often */
+  private static final long PERCENTILE_REFRESH_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+  private final Map<String, ServerStats> servers = new ConcurrentHashMap<>();
+  private final AtomicLongArray samples = new AtomicLongArray(NUM_SAMPLES);
+  private final AtomicLong numSamples = new AtomicLong();
+  private volatile Percentile lastPercentile;
+
+  private static class ServerStats {
+    // guarded by this
+    double averageNanos;
+    long lastUpdateNanos;
+    boolean hasAverage;
+    int outstanding;
+  }
+
+  private static class Percentile {
+    final double percentile;
+    final long valueNanos;
+    final long computedAtNanos;
+
+    Percentile(double percentile, long valueNanos, long computedAtNanos) {
+      this.percentile = percentile;
+      this.valueNanos = valueNanos;
+      this.computedAtNanos = computedAtNanos;
+    }
+  }
+
+  private static String key(String server) {
+    int start = server.indexOf("://");
+    start = start < 0 ? 0 : start + 3;
+    int end = server.endsWith("/") ? server.length() - 1 : server.length();
+    return server.substring(start, end);
+  }
+
+  /** Called when a request is sent to the server */
+  public void requestStarted(String server) {
+    ServerStats stats = servers.computeIfAbsent(key(server), k -> new ServerStats());
+    synchronized (stats) {
+      stats.outstanding++;
+    }
+  }
+
+  /**
+   * Called when a request to the server finishes.
+   *
+   * @param elapsedNanos the time since the request was sent
+   * @param completed true if the server answered; false if the request failed or was cancelled, then it only took
+   *                  at least the elapsed time, which only slows down the average
+   */
+  public void requestFinished(String server, long elapsedNanos, boolean completed) {
+    ServerStats stats = servers.computeIfAbsent(key(server), k -> new ServerStats());
+    long now = System.nanoTime();
+    synchronized (stats) {
+      stats.outstanding = Math.max(0, stats.outstanding - 1);
+      if (!stats.hasAverage) {
+        stats.averageNanos = elapsedNanos;
+        stats.hasAverage = true;
+        stats.lastUpdateNanos = now;
+      } else if (completed || elapsedNanos > stats.averageNanos) {
+        stats.averageNanos = ALPHA * elapsedNanos + (1 - ALPHA) * stats.averageNanos;
+        stats.lastUpdateNanos = now;
+      }
+    }
+    if (completed) {
+      samples.set((int) (numSamples.getAndIncrement() % NUM_SAMPLES), elapsedNanos);
+    }
+  }
+
+  /**
+   * The expected cost of sending a request to the server: the average response time, raised by the requests already
+   * outstanding on it, as in C3. Servers without a known response time score 0, so that they are tried first.
+   */
+  public double getScore(String server) {
+    ServerStats stats = servers.get(key(server));
+    if (stats == null) {
+      return 0;
+    }
+    long now = System.nanoTime();
+    synchronized (stats) {
+      if (!stats.hasAverage) {
+        return 0;
+      }
+      double average = stats.averageNanos;
+      if (stats.outstanding == 0) {
+        average *= Math.pow(0.5, (double) (now - stats.lastUpdateNanos) / HALF_LIFE_NANOS);
+      }
+      double queue = 1 + stats.outstanding;
+      return average * queue * queue * queue;
+    }
+  }
+
+  /** The number of outstanding requests to the server */
+  public int getOutstandingRequests(String server) {
+    ServerStats stats = servers.get(key(server));
+    if (stats == null) {
+      return 0;
+    }
+    synchronized (stats) {
+      return stats.outstanding;
+    }
+  }
+
+  /**
+   * The given percentile of the recent response times of all servers, in milliseconds, or -1 if too few requests
+   * completed yet.
+   *
+   * @param percentile between 0 and 100
+   */
+  public long getLatencyPercentile(double percentile) {
+    long now = System.nanoTime();
+    Percentile last = lastPercentile;
+    if (last != null && last.percentile == percentile && now - last.computedAtNanos < PERCENTILE_REFRESH_NANOS) {
+      return TimeUnit.NANOSECONDS.toMillis(last.valueNanos);
+    }
+    int count = (int) Math.min(numSamples.get(), NUM_SAMPLES);
+    if (count < MIN_SAMPLES) {
+      return -1;
+    }
+    long[] values = new long[count];
+    for (int i = 0; i < count; i++) {
+      values[i] = samples.get(i);
+    }
+    Arrays.sort(values);
+    int index = (int) Math.ceil(Math.min(100, Math.max(0, percentile)) / 100 * count) - 1;
+    long value = values[Math.max(0, index)];
+    lastPercentile = new Percentile(percentile, value, now);
+    return TimeUnit.NANOSECONDS.toMillis(value);
+  }
+}
@@ -103,7 +103,7 @@ public class JavaBinUpdateRequestCodec {
       nl.add("docs", docIter);
     }
     try (JavaBinCodec codec = new JavaBinCodec()) {
-      codec.marshal(nl, os);
+      codec.setPooledBuffers(true).marshal(nl, os);
     }
   }
 
@@ -0,0 +1,69 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.solr.client.solrj.routing;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import org.apache.solr.client.solrj.impl.ServerLatencyTracker;
+import org.apache.solr.common.cloud.Replica;
+
+/**
+ * Orders the replicas by their {@link ServerLatencyTracker#getScore(String) score}: the replicas expected to answer
+ * the fastest, given their recent response times and outstanding requests, come first. Replicas with the same score,
+ * e.g. without any request yet, are shuffled.
+ */
+public class AdaptiveReplicaListTransformer implements ReplicaListTransformer {
+
+  private final ServerLatencyTracker latencyTracker;
+  private final Random r;
+
+  public AdaptiveReplicaListTransformer(ServerLatencyTracker latencyTracker, Random r) {
+    this.latencyTracker = latencyTracker;
+    this.r = r;
+  }
+
+  @Override
+  public void transform(List<?> choices) {
+    if (choices.size() > 1) {
+      sortByScore(choices);
+    }
+  }
+
+  private <T> void sortByScore(List<T> choices) {
+    Collections.shuffle(choices, r);
+    // the scores change concurrently, so they are computed once for the sort
+    List<T> shuffled = new ArrayList<>(choices);
+    double[] scores = new double[shuffled.size()];
+    List<Integer> order = new ArrayList<>(shuffled.size());
+    for (int i = 0; i < scores.length; i++) {
+      scores[i] = latencyTracker.getScore(getUrl(shuffled.get(i)));
+      order.add(i);
+    }
+    order.sort(Comparator.comparingDouble(i -> scores[i]));
+    for (int i = 0; i < scores.length; i++) {
+      choices.set(i, shuffled.get(order.get(i)));
+    }
+  }
+
+  private static String getUrl(Object choice) {
+    return choice instanceof Replica ? ((Replica) choice).getCoreUrl() : choice.toString();
+  }
+}
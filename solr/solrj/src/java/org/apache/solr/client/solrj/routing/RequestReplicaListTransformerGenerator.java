@@ -41,6 +41,7 @@ public class RequestReplicaListTransformerGenerator {
       (String configSpec, SolrParams requestParams, ReplicaListTransformerFactory fallback) -> shufflingReplicaListTransformer;
   private final ReplicaListTransformerFactory stableRltFactory;
   private final ReplicaListTransformerFactory defaultRltFactory;
+  private final ReplicaListTransformerFactory adaptiveRltFactory;
   private final String defaultShardPreferences;
   private final String nodeName;
   private final String localHostAddress;
@@ -58,13 +59,26 @@ public class RequestReplicaListTransformerGenerator {
     this(defaultRltFactory, stableRltFactory, null, null, null, null);
   }
 
+  public RequestReplicaListTransformerGenerator(ReplicaListTransformerFactory defaultRltFactory, ReplicaListTransformerFactory stableRltFactory, ReplicaListTransformerFactory adaptiveRltFactory) {
+    this(defaultRltFactory, stableRltFactory, adaptiveRltFactory, null, null, null, null);
+  }
+
   public RequestReplicaListTransformerGenerator(String defaultShardPreferences, String nodeName, String localHostAddress, NodesSysPropsCacher sysPropsCacher) {
     this(null, null, defaultShardPreferences, nodeName, localHostAddress, sysPropsCacher);
   }
 
   public RequestReplicaListTransformerGenerator(ReplicaListTransformerFactory defaultRltFactory, ReplicaListTransformerFactory stableRltFactory, String defaultShardPreferences, String nodeName, String localHostAddress, NodesSysPropsCacher sysPropsCacher) {
+    this(defaultRltFactory, stableRltFactory, null, defaultShardPreferences, nodeName, localHostAddress, sysPropsCacher);
+  }
+
+  /**
+   * @param adaptiveRltFactory orders the replicas for the "adaptive" base replica order; if null, they are ordered
+   *                           randomly
+   */
+  public RequestReplicaListTransformerGenerator(ReplicaListTransformerFactory defaultRltFactory, ReplicaListTransformerFactory stableRltFactory, ReplicaListTransformerFactory adaptiveRltFactory, String defaultShardPreferences, String nodeName, String localHostAddress, NodesSysPropsCacher sysPropsCacher) {
     this.defaultRltFactory = Objects.requireNonNullElse(defaultRltFactory, RANDOM_RLTF);
     this.stableRltFactory = Objects.requireNonNullElseGet(stableRltFactory, AffinityReplicaListTransformerFactory::new);
+    this.adaptiveRltFactory = Objects.requireNonNullElse(adaptiveRltFactory, RANDOM_RLTF);
     this.defaultShardPreferences = Objects.requireNonNullElse(defaultShardPreferences, "");
     this.nodeName = nodeName;
     this.localHostAddress = localHostAddress;
@@ -93,7 +107,8 @@ public class RequestReplicaListTransformerGenerator {
               localHostAddress != null ? localHostAddress : this.localHostAddress, // could still be null
               sysPropsCacher != null ? sysPropsCacher : this.sysPropsCacher, // could still be null
               defaultRltFactory,
-              stableRltFactory);
+              stableRltFactory,
+              adaptiveRltFactory);
       ReplicaListTransformer baseReplicaListTransformer = replicaComp.getBaseReplicaListTransformer();
       if (replicaComp.getSortRules() == null) {
         // only applying base transformation
@@ -84,12 +84,24 @@ public interface ShardParams {
   /** Value denoting stable replica sort */
   String REPLICA_STABLE = "stable";
 
+  /** Value denoting replica sort by recent response times and outstanding requests */
+  String REPLICA_ADAPTIVE = "adaptive";
+
   /** configure dividend param for stable replica sort */
   String ROUTING_DIVIDEND = "dividend";
 
   /** configure hash param for stable replica sort */
   String ROUTING_HASH = "hash";
 
+  /** Send shard requests that aren't answered in time to another replica of the shard too? (true/false) */
+  String SHARDS_HEDGE = "shards.hedge";
+
+  /** The percentile of recent shard response times after which shard requests are hedged */
+  String SHARDS_HEDGE_PERCENTILE = "shards.hedge.percentile";
+
+  /** Fixed delay in milliseconds after which shard requests are hedged, instead of {@value #SHARDS_HEDGE_PERCENTILE} */
+  String SHARDS_HEDGE_DELAY = "shards.hedge.delay";
+
   String _ROUTE_ = "_route_";
 
   /** Force a single-pass distributed query? (true/false) */
@@ -66,6 +66,15 @@ public interface UpdateParams
 
   public static final String EXPUNGE_DELETES = "expungeDeletes";
 
+  /**
+   * Number of worker threads that process and index the documents of an update request while the request thread
+   * parses it.  0 (the default) processes the documents on the request thread.
+   */
+  public static final String PIPELINE_THREADS = "update.pipeline.threads";
+
+  /** Maximum number of parsed commands queued for each worker thread when {@link #PIPELINE_THREADS} is set. */
+  public static final String PIPELINE_QUEUE_SIZE = "update.pipeline.queueSize";
+
   /** Return versions of updates? */
   public static final String VERSIONS = "versions";
 
@@ -17,6 +17,7 @@
 package org.apache.solr.common.util;
 
 import java.lang.invoke.MethodHandles;
+import java.lang.reflect.Method;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
@@ -41,6 +42,33 @@ public class ExecutorUtil {
 
   private static volatile List<InheritableThreadLocalProvider> providers = new ArrayList<>();
 
+  /**
+   * System property enabling virtual threads in the executors of Solr whose threads are created by
+   * {@link #newThreadFactory(String)}, when the JVM supports them (Java 21+).
+   */
+  public static final String VIRTUAL_THREADS_PROP = "solr.virtualThreads";
+
+  // Thread.ofVirtual(), Thread.Builder.name(String, long) and Thread.Builder.factory(), null if not supported
+  private static final Method OF_VIRTUAL;
+  private static final Method BUILDER_NAME;
+  private static final Method BUILDER_FACTORY;
+
+  static {
+    Method ofVirtual, name, factory;
+    try {
+      Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+      ofVirtual = Thread.class.getMethod("ofVirtual");
+      name = builderClass.getMethod("name", String.class, long.class);
+      factory = builderClass.getMethod("factory");
+      ofVirtual.invoke(null); // fails if virtual threads are a disabled preview feature
+    } catch (ReflectiveOperationException | RuntimeException | LinkageError e) {
+      ofVirtual = name = factory = null;
+    }
+    OF_VIRTUAL = ofVirtual;
+    BUILDER_NAME = name;
+    BUILDER_FACTORY = factory;
+  }
+
   /**
    * Resets everything added via {@link #addThreadLocalProvider(InheritableThreadLocalProvider)}.
    * Useful to call at the beginning of tests.
@@ -104,6 +132,38 @@ public class ExecutorUtil {
     }
   }
 
+  /**
+   * Does the JVM support virtual threads?
+   */
+  public static boolean isVirtualThreadsSupported() {
+    return OF_VIRTUAL != null;
+  }
+
+  /**
+   * Are virtual threads enabled ({@link #VIRTUAL_THREADS_PROP}) and supported?
+   */
+  public static boolean isVirtualThreadsEnabled() {
+    return isVirtualThreadsSupported() && Boolean.getBoolean(VIRTUAL_THREADS_PROP);
+  }
+
+  /**
+   * Creates the factory of the threads of an executor: a factory of virtual threads if they're
+   * {@link #isVirtualThreadsEnabled() enabled}, and a {@link SolrNamedThreadFactory} otherwise. Virtual threads
+   * are meant for executors running many tasks that block on I/O, like requests to other nodes, whose
+   * thread pools may then be unbounded.
+   */
+  public static ThreadFactory newThreadFactory(String namePrefix) {
+    if (isVirtualThreadsEnabled()) {
+      try {
+        Object builder = BUILDER_NAME.invoke(OF_VIRTUAL.invoke(null), namePrefix + "-vthread-", 1L);
+        return (ThreadFactory) BUILDER_FACTORY.invoke(builder);
+      } catch (ReflectiveOperationException | RuntimeException e) {
+        log.warn("Could not create virtual threads for {}, using platform threads", namePrefix, e);
+      }
+    }
+    return new SolrNamedThreadFactory(namePrefix);
+  }
+
   /**
    * See {@link java.util.concurrent.Executors#newFixedThreadPool(int, ThreadFactory)}
    */
@@ -232,6 +232,20 @@ public class FastOutputStream extends OutputStream implements DataOutput {
     this.written = written;
   }
 
+  /**
+   * Encodes the given string to UTF-8 directly into the buffer, if its encoded length {@code utf8Len} fits in it.
+   *
+   * @return false if nothing was written because the string is too long for the buffer
+   */
+  public boolean writeUTF16toUTF8(CharSequence s, int utf8Len) throws IOException {
+    if (utf8Len > buf.length) {
+      return false;
+    }
+    reserve(utf8Len);
+    pos += ByteUtils.UTF16toUTF8(s, 0, s.length(), buf, pos);
+    return true;
+  }
+
   /**Copies a {@link Utf8CharSequence} without making extra copies
    */
   public void writeUtf8CharSeq(Utf8CharSequence utf8) throws IOException {
@@ -113,7 +113,9 @@ public class JavaBinCodec implements PushWriter {
           NAMED_LST = (byte) (6 << 5), // NamedList
           EXTERN_STRING = (byte) (7 << 5);
 
-  private static final int MAX_UTF8_SIZE_FOR_ARRAY_GROW_STRATEGY = 65536;
+  /** Output buffer of the current thread, lent to a codec while it marshals with {@link #setPooledBuffers(boolean)} */
+  private static final ThreadLocal<byte[]> POOLED_BUFFER = new ThreadLocal<>();
+  private static final int POOLED_BUFFER_SIZE = 8192;
 
 
   private static byte VERSION = 2;
@@ -124,6 +126,8 @@ public class JavaBinCodec implements PushWriter {
   private boolean alreadyMarshalled;
   private boolean alreadyUnmarshalled;
   protected boolean readStringAsCharSeq = false;
+  private boolean pooledBuffers = false;
+  private byte[] borrowedBuffer;
 
   public JavaBinCodec() {
     resolver =null;
@@ -148,6 +152,16 @@ public class JavaBinCodec implements PushWriter {
   public JavaBinCodec(ObjectResolver resolver) {
     this(resolver, null);
   }
+  /**
+   * If true, {@link #marshal(Object, OutputStream)} borrows its output buffer from a per-thread pool instead of
+   * allocating one, and returns it when done (or on {@link #close()} for a codec created to push to a stream).
+   * The codec must not be written to after that.
+   */
+  public JavaBinCodec setPooledBuffers(boolean flag) {
+    pooledBuffers = flag;
+    return this;
+  }
+
   public JavaBinCodec setWritableDocFields(WritableDocFields writableDocFields){
     this.writableDocFields = writableDocFields;
     return this;
@@ -170,15 +184,34 @@ public class JavaBinCodec implements PushWriter {
     } finally {
       alreadyMarshalled = true;
       daos.flushBuffer();
+      releaseBuffer();
     }
   }
 
   protected void initWrite(OutputStream os) throws IOException {
     assert !alreadyMarshalled;
-    init(FastOutputStream.wrap(os));
+    if (pooledBuffers && !(os instanceof FastOutputStream)) {
+      borrowedBuffer = POOLED_BUFFER.get();
+      if (borrowedBuffer == null) {
+        borrowedBuffer = new byte[POOLED_BUFFER_SIZE];
+      } else {
+        POOLED_BUFFER.set(null); // a nested codec on this thread allocates its own
+      }
+      init(new FastOutputStream(os, borrowedBuffer, 0));
+    } else {
+      init(FastOutputStream.wrap(os));
+    }
     daos.writeByte(VERSION);
   }
 
+  private void releaseBuffer() {
+    if (borrowedBuffer != null) {
+      POOLED_BUFFER.set(borrowedBuffer);
+      borrowedBuffer = null;
+      daos = null;
+    }
+  }
+
 
   /** expert: sets a new output stream */
   public void init(FastOutputStream os) {
@@ -571,7 +604,7 @@ public class JavaBinCodec implements PushWriter {
   public SolrDocument readSolrDocument(DataInputInputStream dis) throws IOException {
     tagByte = dis.readByte();
     int size = readSize(dis);
-    SolrDocument doc = new SolrDocument(new LinkedHashMap<>(size));
+    SolrDocument doc = createSolrDocument(size);
     for (int i = 0; i < size; i++) {
       String fieldName;
       Object obj = readVal(dis); // could be a field name, or a child document
@@ -579,7 +612,7 @@ public class JavaBinCodec implements PushWriter {
         doc.addChildDocument((SolrDocument)obj);
         continue;
       } else {
-        fieldName = (String)obj;
+        fieldName = obj.toString();
       }
       Object fieldVal = readVal(dis);
       doc.setField(fieldName, fieldVal);
@@ -587,6 +620,10 @@ public class JavaBinCodec implements PushWriter {
     return doc;
   }
 
+  protected SolrDocument createSolrDocument(int sz) {
+    return new SolrDocument(new LinkedHashMap<>(sz));
+  }
+
   public SolrDocumentList readSolrDocumentList(DataInputInputStream dis) throws IOException {
     SolrDocumentList solrDocs = new SolrDocumentList();
     @SuppressWarnings("unchecked")
@@ -896,18 +933,12 @@ public class JavaBinCodec implements PushWriter {
       writeUTF8Str((Utf8CharSequence) s);
       return;
     }
+    // double pass logic, see SOLR-7971: the length goes first, then the string is encoded
+    // straight into the output buffer, or through a scratch buffer if it doesn't fit
     int end = s.length();
-    int maxSize = end * ByteUtils.MAX_UTF8_BYTES_PER_CHAR;
-
-    if (maxSize <= MAX_UTF8_SIZE_FOR_ARRAY_GROW_STRATEGY) {
-      if (bytes == null || bytes.length < maxSize) bytes = new byte[maxSize];
-      int sz = ByteUtils.UTF16toUTF8(s, 0, end, bytes, 0);
-      writeTag(STR, sz);
-      daos.write(bytes, 0, sz);
-    } else {
-      // double pass logic for large strings, see SOLR-7971
-      int sz = ByteUtils.calcUTF16toUTF8Length(s, 0, end);
-      writeTag(STR, sz);
+    int sz = ByteUtils.calcUTF16toUTF8Length(s, 0, end);
+    writeTag(STR, sz);
+    if (!daos.writeUTF16toUTF8(s, sz)) {
       if (bytes == null || bytes.length < 8192) bytes = new byte[8192];
       ByteUtils.writeUTF16toUTF8(s, 0, end, daos, bytes);
     }
@@ -1276,5 +1307,6 @@ public class JavaBinCodec implements PushWriter {
     if (daos != null) {
       daos.flushBuffer();
     }
+    releaseBuffer();
   }
 }
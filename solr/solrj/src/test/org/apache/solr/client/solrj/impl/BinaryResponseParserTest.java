@@ -0,0 +1,116 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.solr.client.solrj.impl;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.lucene.util.TestUtil;
+import org.apache.solr.SolrTestCase;
+import org.apache.solr.common.SolrDocument;
+import org.apache.solr.common.SolrDocumentList;
+import org.apache.solr.common.util.JavaBinCodec;
+import org.apache.solr.common.util.NamedList;
+import org.apache.solr.common.util.SimpleOrderedMap;
+
+public class BinaryResponseParserTest extends SolrTestCase {
+
+  private static byte[] marshal(Object o) throws IOException {
+    try (JavaBinCodec codec = new JavaBinCodec(); ByteArrayOutputStream os = new ByteArrayOutputStream()) {
+      codec.marshal(o, os);
+      return os.toByteArray();
+    }
+  }
+
+  private static NamedList<Object> response() {
+    SolrDocumentList docs = new SolrDocumentList();
+    for (int i = 0; i < 20; i++) {
+      SolrDocument doc = new SolrDocument();
+      doc.setField("id", Integer.toString(i));
+      doc.setField("text", TestUtil.randomUnicodeString(random(), 50));
+      doc.setField("tags", Arrays.asList("a" + i, TestUtil.randomUnicodeString(random(), 10)));
+      doc.setField("num", i);
+      NamedList<Object> attrs = new SimpleOrderedMap<>();
+      attrs.add("color", "c" + i);
+      attrs.add("sizes", Arrays.asList("s" + i, "m" + i));
+      doc.setField("attrs", attrs);
+      doc.setField("labels", Collections.singletonMap("lang" + i, Arrays.asList("en", "de")));
+      if (i % 5 == 0) {
+        SolrDocument child = new SolrDocument();
+        child.setField("id", i + "-child");
+        child.setField("text", TestUtil.randomSimpleString(random()));
+        doc.addChildDocument(child);
+      }
+      docs.add(doc);
+    }
+    docs.setNumFound(docs.size());
+    NamedList<Object> header = new SimpleOrderedMap<>();
+    header.add("q", "*:*");
+    NamedList<Object> rsp = new NamedList<>();
+    rsp.add("responseHeader", header);
+    rsp.add("response", docs);
+    return rsp;
+  }
+
+  @SuppressWarnings({"unchecked"})
+  public void testLazyFieldValues() throws Exception {
+    NamedList<Object> expected = response();
+    byte[] bytes = marshal(expected);
+    BinaryResponseParser parser = new BinaryResponseParser().setLazyFieldValues(true);
+
+    // written back as they were read
+    assertArrayEquals(bytes, marshal(parser.processResponse(new ByteArrayInputStream(bytes), null)));
+
+    NamedList<Object> actual = parser.processResponse(new ByteArrayInputStream(bytes), null);
+    assertTrue(((NamedList<Object>) actual.get("responseHeader")).get("q") instanceof String);
+    SolrDocumentList expectedDocs = (SolrDocumentList) expected.get("response");
+    SolrDocumentList actualDocs = (SolrDocumentList) actual.get("response");
+    assertEquals(expectedDocs.size(), actualDocs.size());
+    for (int i = 0; i < expectedDocs.size(); i++) {
+      SolrDocument expectedDoc = expectedDocs.get(i);
+      SolrDocument actualDoc = actualDocs.get(i);
+      if (random().nextBoolean()) {
+        Object id = actualDoc.getFieldValue("id");
+        assertTrue(id instanceof String);
+        assertEquals(expectedDoc.getFieldValue("id"), id);
+        assertEquals(expectedDoc.getFieldValues("tags"), actualDoc.getFieldValues("tags"));
+        assertTrue(actualDoc.getFirstValue("tags") instanceof String);
+        // nested values are decoded as well
+        NamedList<Object> attrs = (NamedList<Object>) actualDoc.getFieldValue("attrs");
+        assertTrue(attrs.get("color") instanceof String);
+        assertTrue(((List<Object>) attrs.get("sizes")).get(0) instanceof String);
+        Map<Object, Object> labels = (Map<Object, Object>) actualDoc.getFieldValue("labels");
+        assertTrue(labels.keySet().iterator().next() instanceof String);
+        assertTrue(((List<Object>) labels.get("lang" + i)).get(0) instanceof String);
+      }
+      for (Map.Entry<String, Object> field : actualDoc) {
+        assertEquals(expectedDoc.getFieldValue(field.getKey()), field.getValue());
+      }
+      assertEquals(expectedDoc.size(), actualDoc.size());
+      assertEquals(expectedDoc.getChildDocumentCount(), actualDoc.getChildDocumentCount());
+      if (expectedDoc.hasChildDocuments()) {
+        assertEquals(expectedDoc.getChildDocuments().get(0).getFieldValue("text"),
+            actualDoc.getChildDocuments().get(0).getFieldValue("text"));
+      }
+    }
+  }
+}
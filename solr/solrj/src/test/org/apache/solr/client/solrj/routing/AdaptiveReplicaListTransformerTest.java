@@ -0,0 +1,125 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.solr.client.solrj.routing;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.solr.SolrTestCase;
+import org.apache.solr.client.solrj.impl.ServerLatencyTracker;
+import org.apache.solr.common.cloud.Replica;
+import org.apache.solr.common.params.ModifiableSolrParams;
+import org.apache.solr.common.params.ShardParams;
+import org.apache.solr.common.params.SolrParams;
+import org.junit.Test;
+
+public class AdaptiveReplicaListTransformerTest extends SolrTestCase {
+
+  private static final String FAST = "http://host1:8983/solr/c1_s1_r1/";
+  private static final String SLOW = "http://host2:8983/solr/c1_s1_r2/";
+  private static final String BUSY = "http://host3:8983/solr/c1_s1_r3/";
+
+  private final ServerLatencyTracker tracker = new ServerLatencyTracker();
+  private final AdaptiveReplicaListTransformer transformer = new AdaptiveReplicaListTransformer(tracker, random());
+
+  private void respond(String server, long millis) {
+    tracker.requestStarted(server);
+    tracker.requestFinished(server, TimeUnit.MILLISECONDS.toNanos(millis), true);
+  }
+
+  @Test
+  public void testFastestFirst() {
+    for (int i = 0; i < 10; i++) {
+      respond(FAST, 10);
+      respond(SLOW, 200);
+      respond(BUSY, 10);
+    }
+    // outstanding requests make a server slower
+    for (int i = 0; i < 3; i++) {
+      tracker.requestStarted(BUSY);
+    }
+    assertEquals(3, tracker.getOutstandingRequests(BUSY));
+
+    List<String> urls = new ArrayList<>(Arrays.asList(SLOW, BUSY, FAST));
+    Collections.shuffle(urls, random());
+    transformer.transform(urls);
+    assertEquals(Arrays.asList(FAST, SLOW, BUSY), urls);
+
+    // servers without response times are tried first
+    String unknown = "host4:8983/solr/c1_s1_r4";
+    urls.add(unknown);
+    transformer.transform(urls);
+    assertEquals(unknown, urls.get(0));
+  }
+
+  @Test
+  public void testReplicas() {
+    List<Replica> replicas = new ArrayList<>();
+    for (String url : Arrays.asList(SLOW, FAST)) {
+      Map<String, Object> propMap = new HashMap<>();
+      propMap.put("core", url.substring(url.indexOf("c1"), url.length() - 1));
+      propMap.put("type", "NRT");
+      propMap.put("node_name", url.substring("http://".length(), url.indexOf("/solr")) + "_solr");
+      replicas.add(new Replica("r" + replicas.size(), propMap, "c1", "s1"));
+    }
+    respond(FAST, 10);
+    respond(SLOW, 100);
+    transformer.transform(replicas);
+    assertEquals(FAST, replicas.get(0).getCoreUrl());
+  }
+
+  @Test
+  public void testFailuresOnlySlowDown() {
+    respond(FAST, 100);
+    double score = tracker.getScore(FAST);
+    // a fast failure isn't a fast response
+    tracker.requestStarted(FAST);
+    tracker.requestFinished(FAST, TimeUnit.MILLISECONDS.toNanos(1), false);
+    assertTrue(tracker.getScore(FAST) <= score);
+    tracker.requestStarted(FAST);
+    tracker.requestFinished(FAST, TimeUnit.MILLISECONDS.toNanos(1000), false);
+    assertTrue(tracker.getScore(FAST) > score);
+  }
+
+  @Test
+  public void testLatencyPercentile() {
+    assertEquals(-1, tracker.getLatencyPercentile(95));
+    for (int i = 1; i <= 100; i++) {
+      respond(FAST, i);
+    }
+    assertEquals(95, tracker.getLatencyPercentile(95));
+    assertEquals(50, tracker.getLatencyPercentile(50));
+    assertEquals(100, tracker.getLatencyPercentile(100));
+  }
+
+  @Test
+  public void testPreferenceRule() {
+    RequestReplicaListTransformerGenerator generator = new RequestReplicaListTransformerGenerator(null, null,
+        (String configSpec, SolrParams requestParams, ReplicaListTransformerFactory fallback) -> transformer);
+    ModifiableSolrParams params = new ModifiableSolrParams();
+    params.set(ShardParams.SHARDS_PREFERENCE, ShardParams.SHARDS_PREFERENCE_REPLICA_BASE + ":" + ShardParams.REPLICA_ADAPTIVE);
+    assertSame(transformer, generator.getReplicaListTransformer(params));
+
+    // without response times, the adaptive order is random
+    assertNotSame(transformer, new RequestReplicaListTransformerGenerator().getReplicaListTransformer(params));
+  }
+}
@@ -0,0 +1,73 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.solr.common.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+import org.apache.solr.SolrTestCaseJ4;
+import org.slf4j.MDC;
+
+public class TestExecutorUtil extends SolrTestCaseJ4 {
+
+  public void testPlatformThreads() throws Exception {
+    System.clearProperty(ExecutorUtil.VIRTUAL_THREADS_PROP);
+    assertFalse(ExecutorUtil.isVirtualThreadsEnabled());
+    assertTrue(ExecutorUtil.newThreadFactory("testExecutor") instanceof SolrNamedThreadFactory);
+    assertTasksRun(ExecutorUtil.newThreadFactory("testExecutor"));
+  }
+
+  public void testVirtualThreads() throws Exception {
+    System.setProperty(ExecutorUtil.VIRTUAL_THREADS_PROP, "true");
+    try {
+      assertEquals(ExecutorUtil.isVirtualThreadsSupported(), ExecutorUtil.isVirtualThreadsEnabled());
+      ThreadFactory factory = ExecutorUtil.newThreadFactory("testExecutor");
+      // falls back to platform threads if the JVM doesn't support virtual threads
+      assertEquals(!ExecutorUtil.isVirtualThreadsSupported(), factory instanceof SolrNamedThreadFactory);
+      if (ExecutorUtil.isVirtualThreadsSupported()) {
+        assertTrue(factory.newThread(() -> {}).getName().startsWith("testExecutor-vthread-"));
+      }
+      assertTasksRun(factory);
+    } finally {
+      System.clearProperty(ExecutorUtil.VIRTUAL_THREADS_PROP);
+    }
+  }
+
+  /** many concurrent blocking tasks run, with the MDC of their submitter */
+  private void assertTasksRun(ThreadFactory factory) throws Exception {
+    ExecutorService executor = ExecutorUtil.newMDCAwareCachedThreadPool(factory);
+    MDC.put("testKey", "testValue");
+    try {
+      List<Future<String>> futures = new ArrayList<>();
+      for (int i = 0; i < 100; i++) {
+        futures.add(executor.submit(() -> {
+          Thread.sleep(10);
+          return MDC.get("testKey");
+        }));
+      }
+      for (Future<String> future : futures) {
+        assertEquals("testValue", future.get());
+      }
+    } finally {
+      MDC.remove("testKey");
+      ExecutorUtil.shutdownAndAwaitTermination(executor);
+    }
+  }
+}
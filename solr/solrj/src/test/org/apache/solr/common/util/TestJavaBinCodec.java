@@ -68,6 +68,21 @@ public class TestJavaBinCodec extends SolrTestCaseJ4 {
     }
   }
 
+  public void testPooledBuffers() throws Exception {
+    List<Object> values = generateAllDataTypes();
+    // strings that cross the end of the output buffer, or are longer than it
+    for (int i = 0; i < 200; i++) {
+      values.add(TestUtil.randomUnicodeString(random(), random().nextInt(10) == 0 ? 20000 : 100));
+    }
+    byte[] expected = getBytes(values);
+    for (int i = 0; i < 3; i++) {
+      try (JavaBinCodec jbc = new JavaBinCodec(); ByteArrayOutputStream os = new ByteArrayOutputStream()) {
+        jbc.setPooledBuffers(true).marshal(values, os);
+        assertArrayEquals(expected, os.toByteArray());
+      }
+    }
+  }
+
   public void testReadAsCharSeq() throws Exception {
     List<Object> types = new ArrayList<>();
     SolrInputDocument idoc = new SolrInputDocument();
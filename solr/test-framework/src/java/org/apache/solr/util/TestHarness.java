@@ -214,6 +214,7 @@ public class TestHarness extends BaseTestHarness {
 
     return new NodeConfig.NodeConfigBuilder("testNode", solrHome)
         .setUseSchemaCache(Boolean.getBoolean("shareSchema"))
+        .setSearchThreads(Integer.getInteger("solr.tests.searchThreads", 0))
         .setCloudConfig(cloudConfig)
         .setUpdateShardHandlerConfig(updateShardHandlerConfig)
         .setMetricsConfig(metricsConfig)